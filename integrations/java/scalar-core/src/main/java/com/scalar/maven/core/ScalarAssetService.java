@@ -0,0 +1,164 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.internal.ScalarAssets;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Serves the assets of the API Reference: the JavaScript bundle, with its
+ * compressed variant and entity tag, and the rendered pages.
+ *
+ * <p>
+ * The controller and the actuator endpoint share one service, so both serve
+ * the same bytes with the same caching headers, and the bundle, its compressed
+ * variant and the rendered pages are held once however many endpoints serve
+ * them. The bundle is read once per process and is not copied.
+ * </p>
+ */
+public class ScalarAssetService {
+
+    /**
+     * The media type of the JavaScript bundle.
+     */
+    public static final String BUNDLE_MEDIA_TYPE = "application/javascript";
+
+    private static final ScalarAssetService SHARED = new ScalarAssetService();
+
+    private final ScalarRenderCache renderCache;
+    private volatile ScalarDocument bundle;
+
+    /**
+     * Creates a service keeping the pages in the render cache shared by the
+     * renderer, so {@link ScalarHtmlRenderer#invalidate} drops them.
+     */
+    public ScalarAssetService() {
+        this(ScalarRenderCache.shared());
+    }
+
+    /**
+     * Creates a service keeping the pages in the given render cache.
+     *
+     * @param renderCache the render cache
+     */
+    public ScalarAssetService(ScalarRenderCache renderCache) {
+        this.renderCache = Objects.requireNonNull(renderCache, "renderCache must not be null");
+    }
+
+    /**
+     * Gets the service used by endpoints that are created without one.
+     *
+     * @return the shared service
+     */
+    public static ScalarAssetService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the JavaScript bundle, loading it and computing its gzip-compressed
+     * variant and entity tag on first access.
+     *
+     * @param observer the observer to report the cache access to
+     * @return the bundle
+     * @throws IOException if the bundle cannot be loaded
+     */
+    public ScalarDocument getBundle(ScalarRenderObserver observer) throws IOException {
+        Objects.requireNonNull(observer, "observer must not be null");
+        ScalarDocument local = bundle;
+        observer.onCacheAccess(ScalarRenderStep.BUNDLE, local != null);
+        if (local == null) {
+            synchronized (this) {
+                local = bundle;
+                if (local == null) {
+                    // The loaded bundle is shared, so it is wrapped rather than copied
+                    local = ScalarDocument.of(ScalarAssets.getBundle(), null, BUNDLE_MEDIA_TYPE);
+                    bundle = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Gets the JavaScript bundle if it is held in memory, without loading it.
+     *
+     * @return the bundle, or {@code null} if it is not loaded
+     */
+    public ScalarDocument getLoadedBundle() {
+        return bundle;
+    }
+
+    /**
+     * Drops the bundle and the rendered pages. They are loaded and rendered
+     * again on the next request.
+     */
+    public void evict() {
+        synchronized (this) {
+            bundle = null;
+        }
+        renderCache.clear();
+    }
+
+    /**
+     * Renders the page, or gets it from the render cache.
+     *
+     * @param properties the configuration properties
+     * @param document   the OpenAPI document to embed, may be {@code null}
+     * @param observer   the observer to report the rendering steps to
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public String render(ScalarProperties properties, ScalarDocument document, ScalarRenderObserver observer)
+            throws IOException {
+        return renderWithCredentials(properties, document, observer, null);
+    }
+
+    /**
+     * Renders the page with the credentials of the request filled in, see
+     * {@link ScalarHtmlRenderer#renderWithCredentials}.
+     *
+     * @param properties  the configuration properties
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param observer    the observer to report the rendering steps to
+     * @param credentials the credentials of the request, may be {@code null}
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public String renderWithCredentials(ScalarProperties properties, ScalarDocument document,
+                                        ScalarRenderObserver observer, ScalarCredentials credentials)
+            throws IOException {
+        return renderWithCredentials(properties, document, observer, credentials, null);
+    }
+
+    /**
+     * Renders the page with the credentials of the request filled in, pointing
+     * the proxy and token URLs below the given context path.
+     *
+     * @param properties  the configuration properties
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param observer    the observer to report the rendering steps to
+     * @param credentials the credentials of the request, may be {@code null}
+     * @param contextPath the context path of the application, such as the servlet
+     *                    context path or the WebFlux base path, may be {@code null}
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public String renderWithCredentials(ScalarProperties properties, ScalarDocument document,
+                                        ScalarRenderObserver observer, ScalarCredentials credentials,
+                                        String contextPath) throws IOException {
+        return ScalarHtmlRenderer.renderWithCredentials(properties, document, observer, credentials, contextPath,
+                renderCache);
+    }
+
+    /**
+     * Gets the render cache the pages are kept in.
+     *
+     * @return the render cache
+     */
+    public ScalarRenderCache getRenderCache() {
+        return renderCache;
+    }
+}
@@ -19,6 +19,60 @@ public final class ScalarConstants {
      */
     public static final String JS_FILENAME = "scalar.js";
 
+    /**
+     * The filename under which an in-process OpenAPI document is served, relative
+     * to the path of the Scalar API Reference interface.
+     */
+    public static final String OPENAPI_FILENAME = "openapi.json";
+
+    /**
+     * The path segment below which cached copies of remote OpenAPI documents are
+     * served, relative to the path of the Scalar API Reference interface.
+     */
+    public static final String DOCUMENTS_PATH = "documents";
+
+    /**
+     * The path segment below a served OpenAPI document at which it is served as
+     * it was loaded, before it was converted to compact JSON.
+     */
+    public static final String ORIGINAL_PATH = "original";
+
+    /**
+     * The path segment below a served OpenAPI document at which its skeleton is
+     * served, when documents are split.
+     */
+    public static final String SKELETON_PATH = "skeleton";
+
+    /**
+     * The path segment below a served OpenAPI document below which its per-tag
+     * fragments are served, when documents are split.
+     */
+    public static final String FRAGMENTS_PATH = "fragments";
+
+    /**
+     * The path segment below a served OpenAPI document at which its search index
+     * is served, when enabled.
+     */
+    public static final String SEARCH_INDEX_PATH = "search-index";
+
+    /**
+     * The path segment below a served OpenAPI document at which the report of
+     * its compaction is served, when enabled.
+     */
+    public static final String COMPACTION_PATH = "compaction";
+
+    /**
+     * The path segment at which the proxy for the test requests of the API client
+     * is served, relative to the path of the Scalar API Reference interface.
+     */
+    public static final String PROXY_PATH = "proxy";
+
+    /**
+     * The path segment at which the tokens of the OAuth2 flows are requested for
+     * the API client, relative to the path of the Scalar API Reference interface.
+     */
+    public static final String TOKEN_PATH = "token";
+
     private ScalarConstants() {
         // Utility class - prevent instantiation
     }
@@ -1,13 +1,24 @@
 package com.scalar.maven.core;
 
+import com.scalar.maven.core.authentication.ScalarCredentialOverlay;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
 import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import com.scalar.maven.core.internal.ScalarAssets;
 import com.scalar.maven.core.internal.ScalarConfiguration;
 import com.scalar.maven.core.internal.ScalarConfigurationMapper;
+import com.scalar.maven.core.internal.ScalarRenderCache;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 /**
  * Static utility class for rendering HTML content for the Scalar API Reference interface.
@@ -17,12 +28,37 @@ import java.util.Objects;
  * functionality. It loads the HTML template, serializes the configuration to JSON,
  * and replaces placeholders with actual values.
  * </p>
+ *
+ * <p>
+ * The HTML template and the JavaScript bundle are read from the classpath once
+ * and kept in memory afterwards. Rendered pages are kept in a small
+ * least-recently-used cache keyed by the serialized configuration, so repeated
+ * requests with the same configuration skip filling the template.
+ * </p>
+ *
+ * <p>
+ * When {@link ScalarProperties#isEmbedSpec()} is enabled and an in-memory
+ * {@link ScalarDocument} is passed, the document is embedded into the page as
+ * the {@code content} of the configuration, so the browser does not have to
+ * fetch it separately. When {@link ScalarProperties#isDocumentCacheEnabled()}
+ * is enabled, remote documents are referenced through their local copies
+ * served by the {@link ScalarDocumentCache}. Documents at {@code file:} and
+ * {@code classpath:} locations are always referenced through their copies
+ * served by {@link ScalarLocalDocuments}, since browsers cannot load them.
+ * When {@link ScalarProperties#isAggregationEnabled()} is enabled, the page
+ * shows the document merged by the {@link ScalarDocumentAggregator} instead of
+ * the {@code url}.
+ * </p>
+ *
+ * <p>
+ * When {@link ScalarProperties#isCredentialsPrefillEnabled()} is enabled, the
+ * credentials of a request are filled into the cached page by the
+ * {@link ScalarCredentialOverlay}, so prefilled pages are not rendered per
+ * request either.
+ * </p>
  */
 public final class ScalarHtmlRenderer {
 
-    private static final String HTML_TEMPLATE_PATH = "/META-INF/resources/webjars/scalar/index.html";
-    private static final String JS_BUNDLE_PATH = "/META-INF/resources/webjars/scalar/" + ScalarConstants.JS_FILENAME;
-
     private ScalarHtmlRenderer() {
         // Utility class - prevent instantiation
     }
@@ -49,81 +85,393 @@ public final class ScalarHtmlRenderer {
      * @throws IOException if the HTML template cannot be loaded
      */
     public static String render(ScalarProperties properties) throws IOException {
+        return render(properties, ScalarRenderObserver.NOOP);
+    }
+
+    /**
+     * Renders the complete HTML content for the Scalar API Reference interface,
+     * reporting the mapping, serialization and template steps to the given observer.
+     *
+     * @param properties the configuration properties for the Scalar integration
+     * @param observer   the observer to report the rendering steps to
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public static String render(ScalarProperties properties, ScalarRenderObserver observer) throws IOException {
+        return render(properties, null, observer);
+    }
+
+    /**
+     * Renders the complete HTML content for the Scalar API Reference interface,
+     * embedding the given OpenAPI document if {@link ScalarProperties#isEmbedSpec()}
+     * is enabled and the document is small enough.
+     *
+     * <p>
+     * The document is embedded only when no {@code sources} are configured and it
+     * is at most {@link ScalarProperties#getEmbedSpecMaxBytes()} long; otherwise
+     * the page refers to {@code url} as usual.
+     * </p>
+     *
+     * @param properties the configuration properties for the Scalar integration
+     * @param document   the OpenAPI document to embed, may be {@code null}
+     * @param observer   the observer to report the rendering steps to
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public static String render(ScalarProperties properties, ScalarDocument document, ScalarRenderObserver observer)
+            throws IOException {
+        return render(properties, document, observer, ScalarConstants.JS_FILENAME);
+    }
+
+    /**
+     * Renders the complete HTML content for the Scalar API Reference interface
+     * with the credentials of the request filled in, if
+     * {@link ScalarProperties#isCredentialsPrefillEnabled()} is enabled.
+     *
+     * <p>
+     * The page is rendered and cached once with slots for the credentials, which
+     * are filled in afterwards, so pages with credentials are rendered no more
+     * often than pages without. The returned page must not be cached or shared
+     * between users when credentials are given.
+     * </p>
+     *
+     * @param properties  the configuration properties for the Scalar integration
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param observer    the observer to report the rendering steps to
+     * @param credentials the credentials of the request, may be {@code null}
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public static String renderWithCredentials(ScalarProperties properties, ScalarDocument document,
+                                               ScalarRenderObserver observer, ScalarCredentials credentials)
+            throws IOException {
+        return renderWithCredentials(properties, document, observer, credentials, null, ScalarRenderCache.shared());
+    }
+
+    /**
+     * Renders the page with the credentials of the request filled in, keeping
+     * it in the given render cache, see {@link ScalarAssetService}.
+     *
+     * @param properties  the configuration properties for the Scalar integration
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param observer    the observer to report the rendering steps to
+     * @param credentials the credentials of the request, may be {@code null}
+     * @param contextPath the context path of the application, may be {@code null}
+     * @param cache       the render cache to keep the page in
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    static String renderWithCredentials(ScalarProperties properties, ScalarDocument document,
+                                        ScalarRenderObserver observer, ScalarCredentials credentials,
+                                        String contextPath, ScalarRenderCache cache) throws IOException {
+        boolean credentialSlots = credentials != null && !credentials.isEmpty()
+                && properties.isCredentialsPrefillEnabled();
+        String page = render(properties, document, observer, ScalarConstants.JS_FILENAME, credentialSlots,
+                contextPath, cache);
+        return credentialSlots
+                ? ScalarCredentialOverlay.of(page).apply(credentials, properties.getAuthentication())
+                : page;
+    }
+
+    /**
+     * Renders the page, referring to the JavaScript bundle under the given name,
+     * such as the hashed name of an exported {@link ScalarSite}.
+     *
+     * @param properties     the configuration properties for the Scalar integration
+     * @param document       the OpenAPI document to embed, may be {@code null}
+     * @param observer       the observer to report the rendering steps to
+     * @param bundleFileName the name of the JavaScript bundle below the base path
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    static String render(ScalarProperties properties, ScalarDocument document, ScalarRenderObserver observer,
+                         String bundleFileName) throws IOException {
+        return render(properties, document, observer, bundleFileName, false, null, ScalarRenderCache.shared());
+    }
+
+    /**
+     * Renders the page of a {@link ScalarInstance}, keeping it in the render
+     * cache of the instance.
+     *
+     * @param properties the configuration properties of the instance
+     * @param observer   the observer to report the rendering steps to
+     * @param cache      the render cache of the instance
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    static String render(ScalarProperties properties, ScalarRenderObserver observer, ScalarRenderCache cache)
+            throws IOException {
+        return render(properties, null, observer, ScalarConstants.JS_FILENAME, false, null, cache);
+    }
+
+    private static String render(ScalarProperties properties, ScalarDocument document, ScalarRenderObserver observer,
+                                 String bundleFileName, boolean credentialSlots, String contextPath,
+                                 ScalarRenderCache cache) throws IOException {
         Objects.requireNonNull(properties, "properties must not be null");
+        Objects.requireNonNull(observer, "observer must not be null");
 
         String basePath = normalizeBasePath(properties.getPath());
+        ScalarDocument embeddedDocument = shouldEmbed(properties, document) ? document : null;
 
-        // Load the template HTML
-        InputStream templateStream = ScalarHtmlRenderer.class.getResourceAsStream(HTML_TEMPLATE_PATH);
-        if (templateStream == null) {
-            throw new IOException("HTML template not found at: " + HTML_TEMPLATE_PATH);
-        }
+        // Serialize configuration to JSON
+        ScalarConfiguration config = observer.observe(ScalarRenderStep.MAPPING, () -> {
+            ScalarConfiguration mapped = ScalarConfigurationMapper.map(properties);
+            useLocalCopies(mapped, basePath, properties.isDocumentCacheEnabled()
+                    ? url -> ScalarLocalDocuments.isLocal(url) || ScalarDocumentCache.isCacheable(url)
+                    : ScalarLocalDocuments::isLocal);
+            if (properties.isAggregationEnabled()) {
+                mapped.setUrl(ScalarDocumentCache.documentUrl(basePath,
+                        ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID));
+            }
+            if (properties.isProxyEnabled() && properties.getProxyUrl() == null) {
+                mapped.setProxyUrl(buildProxyUrl(contextPath, basePath));
+            }
+            if (properties.isTokenRelayEnabled()) {
+                mapped.setAuthentication(ScalarTokenRelay.relayed(properties.getAuthentication(),
+                        buildTokenUrl(contextPath, basePath)));
+            }
+            if (credentialSlots) {
+                mapped.setAuthentication(ScalarCredentialOverlay.withSlots(mapped.getAuthentication()));
+            }
+            if (embeddedDocument != null) {
+                // The embedded content replaces the URL
+                mapped.setUrl(null);
+            }
+            return mapped;
+        });
+        String configurationJson = observer.observe(ScalarRenderStep.SERIALIZATION,
+                () -> JacksonJsonSerializer.serialize(config));
+
+        return observer.observe(ScalarRenderStep.TEMPLATE, () -> {
+            // Build the JS bundle URL from the base path
+            String bundleUrl = buildRelativeUrl(basePath, bundleFileName);
+            String pageTitle = Objects.requireNonNullElse(properties.getPageTitle(), "Scalar API Reference");
+
+            // Reuse the page if it was rendered with the same values before
+            String key = bundleUrl + '\n' + pageTitle + '\n' + configurationJson;
+            if (embeddedDocument != null) {
+                key += '\n' + embeddedDocument.getETag();
+            }
+            String page = cache.get(key);
+            observer.onCacheAccess(ScalarRenderStep.TEMPLATE, page != null);
+            if (page != null) {
+                return page;
+            }
 
-        String html;
-        try (InputStream inputStream = templateStream) {
-            html = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            // Replace placeholders
+            String pageConfiguration = embeddedDocument != null
+                    ? withContent(configurationJson, embeddedDocument.getScriptSafeContent())
+                    : configurationJson;
+            page = ScalarAssets.getTemplate().render(bundleUrl, pageTitle, pageConfiguration);
+            cache.put(key, page);
+            return page;
+        });
+    }
+
+    /**
+     * Drops the rendered pages that embed the given document, so the next request
+     * renders them with its current version. Pages that refer to documents by URL
+     * are not affected, including the pages of the {@link ScalarInstance instances},
+     * which never embed their documents.
+     *
+     * @param document the previous version of the document
+     * @return the number of dropped pages
+     */
+    public static int invalidate(ScalarDocument document) {
+        Objects.requireNonNull(document, "document must not be null");
+        String suffix = '\n' + document.getETag();
+        return ScalarRenderCache.shared().removeIf(key -> key.endsWith(suffix));
+    }
+
+    /**
+     * Points the {@code url} and {@code sources} of the configuration that the
+     * browser should not load directly at their local copies. The configured
+     * sources are not modified.
+     *
+     * @param config   the mapped configuration
+     * @param basePath the base path
+     * @param served   the predicate selecting the URLs served by Scalar
+     */
+    private static void useLocalCopies(ScalarConfiguration config, String basePath, Predicate<String> served) {
+        if (served.test(config.getUrl())) {
+            config.setUrl(ScalarDocumentCache.documentUrl(basePath, ScalarDocumentCache.DEFAULT_DOCUMENT_ID));
         }
 
-        // Build the JS bundle URL from the base path
-        String bundleUrl = buildJsBundleUrl(basePath);
-        String pageTitle = Objects.requireNonNullElse(properties.getPageTitle(), "Scalar API Reference");
+        List<ScalarSource> sources = config.getSources();
+        if (sources == null || sources.isEmpty()) {
+            return;
+        }
+        List<ScalarSource> localSources = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            ScalarSource source = sources.get(i);
+            if (source == null || !served.test(source.getUrl())) {
+                localSources.add(source);
+                continue;
+            }
+            ScalarSource localSource = new ScalarSource(ScalarDocumentCache.documentUrl(basePath, String.valueOf(i)),
+                    source.getTitle(), source.getSlug(), source.isDefault());
+            localSource.setAgent(source.getAgent());
+            localSources.add(localSource);
+        }
+        config.setSources(localSources);
+    }
 
-        // Serialize configuration to JSON
-        String configurationJson = buildConfigurationJson(properties);
+    /**
+     * Decides whether the document is embedded into the page.
+     *
+     * @param properties the configuration properties
+     * @param document   the document, may be {@code null}
+     * @return {@code true} if the document is embedded
+     */
+    private static boolean shouldEmbed(ScalarProperties properties, ScalarDocument document) {
+        return properties.isEmbedSpec()
+                && document != null
+                && ScalarDocument.JSON_MEDIA_TYPE.equals(document.getMediaType())
+                && document.getContent().length <= properties.getEmbedSpecMaxBytes()
+                && (properties.getSources() == null || properties.getSources().isEmpty());
+    }
 
-        // Replace placeholders
-        return html
-                .replace("__JS_BUNDLE_URL__", bundleUrl)
-                .replace("__PAGE_TITLE__", pageTitle)
-                .replace("__CONFIGURATION__", configurationJson);
+    /**
+     * Adds the {@code content} property to the serialized configuration object.
+     *
+     * @param configurationJson the serialized configuration object
+     * @param content           the script-safe JSON document
+     * @return the serialized configuration including the content
+     */
+    private static String withContent(String configurationJson, String content) {
+        int end = configurationJson.lastIndexOf('}');
+        String head = configurationJson.substring(0, end).stripTrailing();
+        String separator = head.endsWith("{") ? "" : ",";
+        return new StringBuilder(configurationJson.length() + content.length() + 16)
+                .append(head)
+                .append(separator)
+                .append("\"content\":")
+                .append(content)
+                .append('}')
+                .toString();
     }
 
     /**
-     * Builds the URL for the Scalar JavaScript bundle based on the base path.
+     * Builds the URL of a file served below the base path, relative to the page.
      * Uses only the last path segment so the relative URL resolves correctly
      * when the page is at basePath (avoids duplicate segments for multi-segment
      * paths) and when deployed behind a reverse proxy with a context path.
      *
-     * @param basePath the base path
-     * @return the relative path for the JavaScript bundle
+     * @param basePath the base path, or {@code null} for the default path
+     * @param fileName the name of the file below the base path
+     * @return the relative URL of the file
      */
-    private static String buildJsBundleUrl(String basePath) {
+    public static String buildRelativeUrl(String basePath, String fileName) {
+        Objects.requireNonNull(fileName, "fileName must not be null");
+
         // Remove trailing slash to avoid double slashes when concatenating
-        String path = basePath;
+        String path = normalizeBasePath(basePath);
         if (path.endsWith("/")) {
             path = path.substring(0, path.length() - 1);
         }
 
         int lastSlash = path.lastIndexOf('/');
         String lastSegment = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
-        return lastSegment + "/" + ScalarConstants.JS_FILENAME;
+        return lastSegment + "/" + fileName;
+    }
+
+    /**
+     * Builds the URL of the proxy endpoint served below the base path of an
+     * application without a context path.
+     *
+     * @param basePath the base path, or {@code null} for the default path
+     * @return the URL of the proxy endpoint
+     * @see #buildProxyUrl(String, String)
+     */
+    public static String buildProxyUrl(String basePath) {
+        return buildProxyUrl(null, basePath);
     }
 
     /**
-     * Builds the configuration JSON for the Scalar API Reference.
+     * Builds the URL of the proxy endpoint served below the base path. The API
+     * client only uses relative proxy URLs that start with a slash, so unlike
+     * {@link #buildRelativeUrl(String, String)} the URL is absolute to the host
+     * and starts with the context path of the application, such as the servlet
+     * context path or the WebFlux base path.
      *
-     * @param properties the properties to serialize
-     * @return the configuration JSON as a string
+     * @param contextPath the context path of the application, may be {@code null}
+     * @param basePath    the base path, or {@code null} for the default path
+     * @return the URL of the proxy endpoint
      */
-    private static String buildConfigurationJson(ScalarProperties properties) {
-        ScalarConfiguration config = ScalarConfigurationMapper.map(properties);
-        return JacksonJsonSerializer.serialize(config);
+    public static String buildProxyUrl(String contextPath, String basePath) {
+        return buildAbsoluteUrl(contextPath, basePath, ScalarConstants.PROXY_PATH);
+    }
+
+    /**
+     * Builds the URL of the token endpoint served below the base path of an
+     * application without a context path.
+     *
+     * @param basePath the base path, or {@code null} for the default path
+     * @return the URL of the token endpoint
+     * @see #buildTokenUrl(String, String)
+     */
+    public static String buildTokenUrl(String basePath) {
+        return buildTokenUrl(null, basePath);
+    }
+
+    /**
+     * Builds the URL of the token endpoint served below the base path, absolute
+     * to the host like {@link #buildProxyUrl(String, String)}.
+     *
+     * @param contextPath the context path of the application, may be {@code null}
+     * @param basePath    the base path, or {@code null} for the default path
+     * @return the URL of the token endpoint
+     */
+    public static String buildTokenUrl(String contextPath, String basePath) {
+        return buildAbsoluteUrl(contextPath, basePath, ScalarConstants.TOKEN_PATH);
+    }
+
+    private static String buildAbsoluteUrl(String contextPath, String basePath, String segment) {
+        String path = normalizeBasePath(basePath);
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        if (contextPath != null && !contextPath.isEmpty()) {
+            String prefix = contextPath.endsWith("/")
+                    ? contextPath.substring(0, contextPath.length() - 1)
+                    : contextPath;
+            path = (prefix.startsWith("/") ? prefix : "/" + prefix) + path;
+        }
+        return (path.endsWith("/") ? path : path + "/") + segment;
     }
 
     /**
      * Gets the JavaScript bundle content.
      *
+     * <p>
+     * The returned array is shared between all callers and must not be modified.
+     * </p>
+     *
      * @return the JavaScript bundle content as bytes
      * @throws IOException if the JavaScript file cannot be loaded
      */
     public static byte[] getScalarJsContent() throws IOException {
-        InputStream jsStream = ScalarHtmlRenderer.class.getResourceAsStream(JS_BUNDLE_PATH);
-        if (jsStream == null) {
-            throw new IOException("JavaScript bundle not found at: " + JS_BUNDLE_PATH);
-        }
+        return getScalarJsContent(ScalarRenderObserver.NOOP);
+    }
 
-        try (InputStream inputStream = jsStream) {
-            return inputStream.readAllBytes();
-        }
+    /**
+     * Gets the JavaScript bundle content, reporting whether it was already held
+     * in memory to the given observer.
+     *
+     * <p>
+     * The returned array is shared between all callers and must not be modified.
+     * </p>
+     *
+     * @param observer the observer to report the cache access to
+     * @return the JavaScript bundle content as bytes
+     * @throws IOException if the JavaScript file cannot be loaded
+     */
+    public static byte[] getScalarJsContent(ScalarRenderObserver observer) throws IOException {
+        Objects.requireNonNull(observer, "observer must not be null");
+
+        boolean cached = ScalarAssets.isBundleLoaded();
+        byte[] jsContent = ScalarAssets.getBundle();
+        observer.onCacheAccess(ScalarRenderStep.BUNDLE, cached);
+        return jsContent;
     }
 }
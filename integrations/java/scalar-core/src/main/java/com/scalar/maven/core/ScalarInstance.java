@@ -0,0 +1,219 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One of several API References served by the application, as configured with
+ * {@code scalar.instances.<name>.*}, such as separate public, partner and
+ * internal references.
+ *
+ * <p>
+ * Each instance keeps its rendered page in a render cache of its own, so the
+ * instances do not evict each other's pages. The JavaScript bundle, the
+ * compiled HTML template and the JSON serializer are held once per process and
+ * shared by all instances, so the memory taken by the assets does not grow
+ * with the number of instances.
+ * </p>
+ *
+ * <p>
+ * The page of an instance refers to its documents by URL and never embeds
+ * them, so it does not need to be invalidated when a document changes; see
+ * {@link ScalarHtmlRenderer#invalidate(ScalarDocument)}. The page is rendered
+ * from the configured properties alone: the properties are not customized per
+ * request, and the API client proxy and the token relay are served at the main
+ * {@code scalar.path} only.
+ * </p>
+ */
+public final class ScalarInstance {
+
+    /**
+     * The number of pages kept per instance. The properties of an instance are
+     * not configured per request, so it renders a single page.
+     */
+    private static final int RENDER_CACHE_SIZE = 2;
+
+    private final String name;
+    private final ScalarProperties properties;
+    private final ScalarRenderCache renderCache = new ScalarRenderCache(RENDER_CACHE_SIZE);
+
+    /**
+     * Creates an instance.
+     *
+     * @param name       the name of the instance
+     * @param properties the properties of the instance
+     */
+    public ScalarInstance(String name, ScalarProperties properties) {
+        this.name = Objects.requireNonNull(name, "name must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+    }
+
+    /**
+     * Creates the instances configured in {@link ScalarProperties#getInstances()}.
+     * Instances without a {@code path} of their own are served at
+     * {@code /scalar/<name>}. Each instance works on a copy of its configured
+     * properties, so the bound properties are not changed.
+     *
+     * @param properties the configuration properties
+     * @return the instances, in the order they are configured
+     * @throws IllegalStateException if two instances are served at the same path
+     */
+    public static List<ScalarInstance> of(ScalarProperties properties) {
+        Map<String, ScalarProperties> configured = properties.getInstances();
+        if (configured == null || configured.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ScalarInstance> instances = new ArrayList<>(configured.size());
+        Map<String, String> paths = new HashMap<>();
+        configured.forEach((name, configuredProperties) -> {
+            ScalarProperties instanceProperties = configuredProperties.copy();
+            if (instanceProperties.getPath() == null || instanceProperties.getPath().isEmpty()
+                    || ScalarConstants.DEFAULT_PATH.equals(instanceProperties.getPath())) {
+                instanceProperties.setPath(ScalarConstants.DEFAULT_PATH + "/" + name);
+            }
+            ScalarInstance instance = new ScalarInstance(name, instanceProperties);
+            String other = paths.putIfAbsent(instance.getPath(), name);
+            if (other != null) {
+                throw new IllegalStateException("The Scalar instances '" + other + "' and '" + name
+                        + "' are both served at " + instance.getPath());
+            }
+            instances.add(instance);
+        });
+        return Collections.unmodifiableList(instances);
+    }
+
+    /**
+     * Renders the page of the instance, or gets it from its render cache.
+     *
+     * @param observer the observer to report the rendering steps to
+     * @return the rendered HTML content
+     * @throws IOException if the HTML template cannot be loaded
+     */
+    public String render(ScalarRenderObserver observer) throws IOException {
+        return ScalarHtmlRenderer.render(properties, observer, renderCache);
+    }
+
+    /**
+     * Gets a document the page of the instance refers to at its local copy, at
+     * {@code <path>/documents/<id>}: a {@code file:} or {@code classpath:}
+     * document, or a remote document held in the document cache. When
+     * {@code documentCompactEnabled} is set for the instance, its compaction is
+     * returned.
+     *
+     * @param id             the document id, as in {@code <path>/documents/<id>}
+     * @param localDocuments the local documents of the application, may be {@code null}
+     * @param documentCache  the document cache of the application, may be {@code null}
+     * @param observer       the observer to report the document access to
+     * @return the document, or {@code null} if the id does not denote a document
+     * served for the instance
+     * @throws IOException if the document cannot be read, or fetched with no copy cached
+     */
+    public ScalarDocument getDocument(String id, ScalarLocalDocuments localDocuments,
+                                      ScalarDocumentCache documentCache, ScalarRenderObserver observer)
+            throws IOException {
+        Objects.requireNonNull(observer, "observer must not be null");
+        String location = ScalarLocalDocuments.resolve(properties, id);
+        if (location != null && localDocuments != null) {
+            return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                boolean cached = localDocuments.isLoaded(location);
+                ScalarDocument document = localDocuments.get(location);
+                observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                return served(document);
+            });
+        }
+
+        String url = properties.isDocumentCacheEnabled() ? ScalarDocumentCache.resolve(properties, id) : null;
+        if (url == null || documentCache == null) {
+            return null;
+        }
+        return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+            boolean cached = documentCache.isCached(url);
+            ScalarDocument document = documentCache.get(url);
+            observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+            return served(document);
+        });
+    }
+
+    /**
+     * Gets the name of the instance.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the properties of the instance.
+     *
+     * @return the properties
+     */
+    public ScalarProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Gets the path the page of the instance is served at, without a trailing
+     * slash.
+     *
+     * @return the path
+     */
+    public String getPath() {
+        String path = properties.getPath();
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * Gets the path the JavaScript bundle is served at for the instance, where
+     * its page refers to it.
+     *
+     * @return the path
+     */
+    public String getBundlePath() {
+        return getPath() + "/" + ScalarConstants.JS_FILENAME;
+    }
+
+    /**
+     * Gets the path below which the documents of the instance are served, with
+     * a trailing slash.
+     *
+     * @return the path
+     */
+    public String getDocumentsPath() {
+        return getPath() + "/" + ScalarConstants.DOCUMENTS_PATH + "/";
+    }
+
+    /**
+     * Gets the number of pages held in the render cache of the instance.
+     *
+     * @return the number of pages
+     */
+    public int getCachedPageCount() {
+        return renderCache.size();
+    }
+
+    /**
+     * Drops the pages held in the render cache of the instance, so the next
+     * request renders the page again.
+     */
+    public void evict() {
+        renderCache.clear();
+    }
+
+    private ScalarDocument served(ScalarDocument document) {
+        return properties.isDocumentCompactEnabled() ? document.getCompaction().getDocument() : document;
+    }
+}
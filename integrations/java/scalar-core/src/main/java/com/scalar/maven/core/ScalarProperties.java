@@ -1,13 +1,22 @@
 package com.scalar.maven.core;
 
 import com.scalar.maven.core.authentication.ScalarAuthenticationOptions;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
 import com.scalar.maven.core.config.DefaultHttpClient;
 import com.scalar.maven.core.config.ScalarAgentOptions;
 import com.scalar.maven.core.config.ScalarMcpOptions;
 import com.scalar.maven.core.config.ScalarServer;
 import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.config.ScalarUpstream;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarDocumentPrefetch;
 import com.scalar.maven.core.enums.*;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -34,7 +43,7 @@ import java.util.Map;
  * scalar.layout=modern
  * </pre>
  */
-public class ScalarProperties {
+public class ScalarProperties implements Cloneable {
 
     /**
      * The URL of the OpenAPI specification to display in the API Reference.
@@ -130,6 +139,302 @@ public class ScalarProperties {
      */
     private boolean actuatorEnabled = false;
 
+    /**
+     * Whether to load the JavaScript bundle, the HTML template and the
+     * serialization engine at startup instead of on the first request.
+     * Defaults to true.
+     */
+    private boolean warmUpEnabled = true;
+
+    /**
+     * Whether to serve the OpenAPI document generated by springdoc-openapi
+     * in-process from {@code <path>/openapi.json} and point {@link #url} at it.
+     * Defaults to false.
+     */
+    private boolean springDocEnabled = false;
+
+    /**
+     * Whether to embed the OpenAPI document served in-process, or read from a
+     * {@code file:} or {@code classpath:} {@link #url}, into the rendered page
+     * instead of letting the browser fetch {@link #url}. Defaults to false.
+     */
+    private boolean embedSpec = false;
+
+    /**
+     * The largest OpenAPI document, in bytes, that is embedded into the page when
+     * {@link #embedSpec} is enabled. Larger documents are loaded from {@link #url}.
+     * Defaults to 512 KiB.
+     */
+    private int embedSpecMaxBytes = 512 * 1024;
+
+    /**
+     * Whether to fetch remote {@link #url} and {@link #sources} documents
+     * server-side, cache them and let the API Reference load the local copies
+     * from {@code <path>/documents/<id>}. Defaults to false.
+     */
+    private boolean documentCacheEnabled = false;
+
+    /**
+     * How long a cached document is served before it is revalidated upstream.
+     * Defaults to 5 minutes.
+     */
+    private Duration documentCacheTtl = ScalarDocumentCache.DEFAULT_TTL;
+
+    /**
+     * The timeout for fetching a document upstream. Defaults to 10 seconds.
+     */
+    private Duration documentCacheTimeout = ScalarDocumentCache.DEFAULT_TIMEOUT;
+
+    /**
+     * Whether to fetch all remote documents concurrently at startup when
+     * {@link #documentCacheEnabled} is set. Defaults to true.
+     */
+    private boolean documentPrefetchEnabled = true;
+
+    /**
+     * The number of documents fetched at the same time during the prefetch.
+     * Defaults to 8.
+     */
+    private int documentPrefetchConcurrency = ScalarDocumentPrefetch.DEFAULT_CONCURRENCY;
+
+    /**
+     * The time after which fetching a single document during the prefetch is
+     * given up on. Defaults to 30 seconds.
+     */
+    private Duration documentPrefetchTimeout = ScalarDocumentPrefetch.DEFAULT_TIMEOUT;
+
+    /**
+     * Whether to reload documents at {@code file:} and {@code classpath:}
+     * locations when their files change. Meant for development; defaults to false.
+     */
+    private boolean documentWatchEnabled = false;
+
+    /**
+     * Whether to convert the documents Scalar serves itself, from the document
+     * cache or from {@code file:} and {@code classpath:} locations, to compact
+     * JSON once when they are loaded. YAML is converted only when SnakeYAML is on
+     * the classpath. The original stays available at
+     * {@code <path>/documents/<id>/original}. Defaults to true.
+     */
+    private boolean documentOptimizeEnabled = true;
+
+    /**
+     * Whether to split the documents Scalar serves itself into a skeleton, served
+     * at {@code <path>/documents/<id>/skeleton}, and one fragment per tag with
+     * the components it references, served at
+     * {@code <path>/documents/<id>/fragments/<fragment>}. Documents are split on
+     * first request. Needs compact JSON documents; defaults to false.
+     */
+    private boolean documentSplitEnabled = false;
+
+    /**
+     * Whether to serve a search index of the operations, tags and schemas of the
+     * documents Scalar serves itself at
+     * {@code <path>/documents/<id>/search-index}. The index is built on first
+     * request and rebuilt from the previous one when a document is reloaded.
+     * Needs compact JSON documents; defaults to false.
+     */
+    private boolean documentSearchIndexEnabled = false;
+
+    /**
+     * Whether to replace duplicate inline schemas of the documents Scalar serves
+     * itself with references to shared component schemas. The compacted document
+     * is computed once per document version, and a report of the bytes saved is
+     * served at {@code <path>/documents/<id>/compaction}. Needs compact JSON
+     * documents; defaults to false.
+     */
+    private boolean documentCompactEnabled = false;
+
+    /**
+     * Whether to merge the documents of the {@link #aggregationUpstreams} into a
+     * single document, served at {@code <path>/documents/aggregate} and shown
+     * instead of {@link #url}. The upstream documents are fetched concurrently
+     * through the document cache, and the merged document is rebuilt when one of
+     * them changes. Defaults to false.
+     */
+    private boolean aggregationEnabled = false;
+
+    /**
+     * The title of the aggregated document. Defaults to "API Reference".
+     */
+    private String aggregationTitle = "API Reference";
+
+    /**
+     * The services whose documents are merged into the aggregated document, each
+     * with an optional path prefix.
+     */
+    private List<ScalarUpstream> aggregationUpstreams;
+
+    /**
+     * Whether to serve the page, the JavaScript bundle and the documents of a
+     * site exported at build time by the {@code scalar-maven-plugin}, instead of
+     * rendering the page at runtime. Defaults to false.
+     */
+    private boolean siteEnabled = false;
+
+    /**
+     * The {@code classpath:} or {@code file:} location of the exported site.
+     * Defaults to "classpath:scalar-site".
+     */
+    private String siteLocation = "classpath:scalar-site";
+
+    /**
+     * Whether to forward the test requests of the API client through a proxy
+     * endpoint served at {@code <path>/proxy}. Unless {@link #proxyUrl} is set,
+     * the API client is configured to use it. Defaults to false.
+     */
+    private boolean proxyEnabled = false;
+
+    /**
+     * The hosts the proxy endpoint forwards requests to, such as
+     * {@code api.example.com}, {@code localhost:8080} or {@code *.example.com};
+     * {@code *} allows any host. Defaults to the hosts of the {@link #servers}.
+     */
+    private List<String> proxyAllowedHosts;
+
+    /**
+     * The timeout for connecting to a host and for receiving its response
+     * headers through the proxy endpoint. Defaults to 30 seconds.
+     */
+    private Duration proxyTimeout = ScalarProxy.DEFAULT_TIMEOUT;
+
+    /**
+     * Whether the proxy endpoint dispatches requests to the application itself
+     * within the application, through its filters and handlers, instead of
+     * sending them through the network. Defaults to true.
+     */
+    private boolean proxyLocalDispatchEnabled = true;
+
+    /**
+     * The maximum number of connections the proxy endpoint of WebFlux
+     * applications opens to each host. Further requests wait for a connection
+     * for at most {@code proxyTimeout}. Defaults to 50.
+     */
+    private int proxyMaxConnections = ScalarProxy.DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * The maximum number of requests the proxy endpoint forwards at the same
+     * time. Further requests wait in the queue. Defaults to 32.
+     */
+    private int proxyMaxConcurrentRequests = ScalarProxyLimiter.DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    /**
+     * The maximum number of requests of one client address the proxy endpoint
+     * forwards at the same time. Defaults to 4.
+     */
+    private int proxyMaxConcurrentRequestsPerClient = ScalarProxyLimiter.DEFAULT_MAX_CONCURRENT_REQUESTS_PER_CLIENT;
+
+    /**
+     * The maximum number of requests waiting to be forwarded by the proxy
+     * endpoint. Requests beyond it are rejected with
+     * {@code 429 Too Many Requests}. Defaults to 64.
+     */
+    private int proxyQueueSize = ScalarProxyLimiter.DEFAULT_QUEUE_SIZE;
+
+    /**
+     * The time a request waits to be forwarded by the proxy endpoint before it
+     * is rejected with {@code 429 Too Many Requests}. Defaults to 10 seconds.
+     */
+    private Duration proxyQueueTimeout = ScalarProxyLimiter.DEFAULT_QUEUE_TIMEOUT;
+
+    /**
+     * Whether the proxy endpoint caches the responses to {@code GET} and
+     * {@code HEAD} requests, as far as the {@code Cache-Control} of upstream
+     * allows. Defaults to false.
+     */
+    private boolean proxyCacheEnabled = false;
+
+    /**
+     * The maximum size of the response bodies the proxy endpoint caches, in
+     * bytes. The least recently used responses are evicted beyond it. Defaults
+     * to 64 MB.
+     */
+    private long proxyCacheMaxSize = ScalarProxyCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * The maximum size of a response body the proxy endpoint caches, in bytes.
+     * Defaults to 1 MB.
+     */
+    private long proxyCacheMaxEntrySize = ScalarProxyCache.DEFAULT_MAX_ENTRY_SIZE;
+
+    /**
+     * The request headers cached responses are keyed by, besides
+     * {@code Authorization} and {@code Cookie}, which always are. Defaults to
+     * {@code Accept}, {@code Accept-Encoding} and {@code Accept-Language}.
+     */
+    private List<String> proxyCacheVaryHeaders = ScalarProxyCache.DEFAULT_VARY_HEADERS;
+
+    /**
+     * Controls whether the integration requests the OAuth2 tokens of the client
+     * credentials and password flows in {@code authentication} for the API
+     * client, at {@code <path>/token}. The client secrets and passwords are then
+     * kept on the server, and the tokens are cached and shared by all users of
+     * the page. Defaults to false.
+     */
+    private boolean tokenRelayEnabled = false;
+
+    /**
+     * The time before a cached token expires at which it is requested again.
+     * Defaults to 30 seconds.
+     */
+    private Duration tokenRelayRefreshMargin = ScalarTokenRelay.DEFAULT_REFRESH_MARGIN;
+
+    /**
+     * Whether only authenticated requests may obtain tokens from
+     * {@code <path>/token}. The endpoint requests tokens with the client
+     * secrets held by the server, so when this is turned off anyone who can
+     * reach the page can obtain tokens for the declared scopes. Requests are
+     * authenticated when they carry a principal, such as the
+     * {@code Authentication} of Spring Security. Defaults to true.
+     */
+    private boolean tokenRelayAuthenticationRequired = true;
+
+    /**
+     * Whether the credentials of the {@code http} and {@code apiKey} security
+     * schemes are filled per request, by default with the bearer token of the
+     * Spring Security authentication of the user viewing the page. The page is
+     * still rendered once and the credentials are filled into the cached page.
+     * Defaults to false.
+     */
+    private boolean credentialsPrefillEnabled = false;
+
+    /**
+     * The names of the {@code http} security schemes that the bearer token is
+     * filled into. Defaults to all {@code http} security schemes.
+     */
+    private List<String> credentialsPrefillSchemes;
+
+    /**
+     * Whether the rendered page is cached per tenant, as resolved from the
+     * request, so tenants with properties configured per request are served
+     * from memory. Defaults to false.
+     */
+    private boolean tenantCacheEnabled = false;
+
+    /**
+     * The maximum size of the pages cached per tenant, in bytes. The least
+     * recently used pages are evicted beyond it. Defaults to 32 MB.
+     */
+    private long tenantCacheMaxSize = ScalarTenantCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * The maximum number of pages cached per tenant. Defaults to 1024.
+     */
+    private int tenantCacheMaxEntries = ScalarTenantCache.DEFAULT_MAX_ENTRIES;
+
+    /**
+     * The time the page of a tenant is cached for. Defaults to 5 minutes.
+     */
+    private Duration tenantCacheTtl = ScalarTenantCache.DEFAULT_TTL;
+
+    /**
+     * Further API references served by the application, by name, each with
+     * properties of its own, such as the {@code path} and {@code sources}. An
+     * instance without a {@code path} is served at {@code /scalar/<name>}.
+     * Defaults to none.
+     */
+    private Map<String, ScalarProperties> instances = new LinkedHashMap<>();
+
     /**
      * Controls the path or URL to a favicon for the documentation.
      */
@@ -428,6 +733,350 @@ public class ScalarProperties {
         this.actuatorEnabled = actuatorEnabled;
     }
 
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public void setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+    }
+
+    public boolean isSpringDocEnabled() {
+        return springDocEnabled;
+    }
+
+    public void setSpringDocEnabled(boolean springDocEnabled) {
+        this.springDocEnabled = springDocEnabled;
+    }
+
+    public boolean isEmbedSpec() {
+        return embedSpec;
+    }
+
+    public void setEmbedSpec(boolean embedSpec) {
+        this.embedSpec = embedSpec;
+    }
+
+    public int getEmbedSpecMaxBytes() {
+        return embedSpecMaxBytes;
+    }
+
+    public void setEmbedSpecMaxBytes(int embedSpecMaxBytes) {
+        this.embedSpecMaxBytes = embedSpecMaxBytes;
+    }
+
+    public boolean isDocumentCacheEnabled() {
+        return documentCacheEnabled;
+    }
+
+    public void setDocumentCacheEnabled(boolean documentCacheEnabled) {
+        this.documentCacheEnabled = documentCacheEnabled;
+    }
+
+    public Duration getDocumentCacheTtl() {
+        return documentCacheTtl;
+    }
+
+    public void setDocumentCacheTtl(Duration documentCacheTtl) {
+        this.documentCacheTtl = documentCacheTtl;
+    }
+
+    public Duration getDocumentCacheTimeout() {
+        return documentCacheTimeout;
+    }
+
+    public void setDocumentCacheTimeout(Duration documentCacheTimeout) {
+        this.documentCacheTimeout = documentCacheTimeout;
+    }
+
+    public boolean isDocumentPrefetchEnabled() {
+        return documentPrefetchEnabled;
+    }
+
+    public void setDocumentPrefetchEnabled(boolean documentPrefetchEnabled) {
+        this.documentPrefetchEnabled = documentPrefetchEnabled;
+    }
+
+    public int getDocumentPrefetchConcurrency() {
+        return documentPrefetchConcurrency;
+    }
+
+    public void setDocumentPrefetchConcurrency(int documentPrefetchConcurrency) {
+        this.documentPrefetchConcurrency = documentPrefetchConcurrency;
+    }
+
+    public Duration getDocumentPrefetchTimeout() {
+        return documentPrefetchTimeout;
+    }
+
+    public void setDocumentPrefetchTimeout(Duration documentPrefetchTimeout) {
+        this.documentPrefetchTimeout = documentPrefetchTimeout;
+    }
+
+    public boolean isDocumentWatchEnabled() {
+        return documentWatchEnabled;
+    }
+
+    public void setDocumentWatchEnabled(boolean documentWatchEnabled) {
+        this.documentWatchEnabled = documentWatchEnabled;
+    }
+
+    public boolean isDocumentOptimizeEnabled() {
+        return documentOptimizeEnabled;
+    }
+
+    public void setDocumentOptimizeEnabled(boolean documentOptimizeEnabled) {
+        this.documentOptimizeEnabled = documentOptimizeEnabled;
+    }
+
+    public boolean isDocumentSplitEnabled() {
+        return documentSplitEnabled;
+    }
+
+    public void setDocumentSplitEnabled(boolean documentSplitEnabled) {
+        this.documentSplitEnabled = documentSplitEnabled;
+    }
+
+    public boolean isDocumentSearchIndexEnabled() {
+        return documentSearchIndexEnabled;
+    }
+
+    public void setDocumentSearchIndexEnabled(boolean documentSearchIndexEnabled) {
+        this.documentSearchIndexEnabled = documentSearchIndexEnabled;
+    }
+
+    public boolean isDocumentCompactEnabled() {
+        return documentCompactEnabled;
+    }
+
+    public void setDocumentCompactEnabled(boolean documentCompactEnabled) {
+        this.documentCompactEnabled = documentCompactEnabled;
+    }
+
+    public boolean isAggregationEnabled() {
+        return aggregationEnabled;
+    }
+
+    public void setAggregationEnabled(boolean aggregationEnabled) {
+        this.aggregationEnabled = aggregationEnabled;
+    }
+
+    public String getAggregationTitle() {
+        return aggregationTitle;
+    }
+
+    public void setAggregationTitle(String aggregationTitle) {
+        this.aggregationTitle = aggregationTitle;
+    }
+
+    public List<ScalarUpstream> getAggregationUpstreams() {
+        return aggregationUpstreams;
+    }
+
+    public void setAggregationUpstreams(List<ScalarUpstream> aggregationUpstreams) {
+        this.aggregationUpstreams = aggregationUpstreams;
+    }
+
+    public boolean isSiteEnabled() {
+        return siteEnabled;
+    }
+
+    public void setSiteEnabled(boolean siteEnabled) {
+        this.siteEnabled = siteEnabled;
+    }
+
+    public String getSiteLocation() {
+        return siteLocation;
+    }
+
+    public void setSiteLocation(String siteLocation) {
+        this.siteLocation = siteLocation;
+    }
+
+    public boolean isProxyEnabled() {
+        return proxyEnabled;
+    }
+
+    public void setProxyEnabled(boolean proxyEnabled) {
+        this.proxyEnabled = proxyEnabled;
+    }
+
+    public List<String> getProxyAllowedHosts() {
+        return proxyAllowedHosts;
+    }
+
+    public void setProxyAllowedHosts(List<String> proxyAllowedHosts) {
+        this.proxyAllowedHosts = proxyAllowedHosts;
+    }
+
+    public Duration getProxyTimeout() {
+        return proxyTimeout;
+    }
+
+    public void setProxyTimeout(Duration proxyTimeout) {
+        this.proxyTimeout = proxyTimeout;
+    }
+
+    public boolean isProxyLocalDispatchEnabled() {
+        return proxyLocalDispatchEnabled;
+    }
+
+    public void setProxyLocalDispatchEnabled(boolean proxyLocalDispatchEnabled) {
+        this.proxyLocalDispatchEnabled = proxyLocalDispatchEnabled;
+    }
+
+    public int getProxyMaxConnections() {
+        return proxyMaxConnections;
+    }
+
+    public void setProxyMaxConnections(int proxyMaxConnections) {
+        this.proxyMaxConnections = proxyMaxConnections;
+    }
+
+    public int getProxyMaxConcurrentRequests() {
+        return proxyMaxConcurrentRequests;
+    }
+
+    public void setProxyMaxConcurrentRequests(int proxyMaxConcurrentRequests) {
+        this.proxyMaxConcurrentRequests = proxyMaxConcurrentRequests;
+    }
+
+    public int getProxyMaxConcurrentRequestsPerClient() {
+        return proxyMaxConcurrentRequestsPerClient;
+    }
+
+    public void setProxyMaxConcurrentRequestsPerClient(int proxyMaxConcurrentRequestsPerClient) {
+        this.proxyMaxConcurrentRequestsPerClient = proxyMaxConcurrentRequestsPerClient;
+    }
+
+    public int getProxyQueueSize() {
+        return proxyQueueSize;
+    }
+
+    public void setProxyQueueSize(int proxyQueueSize) {
+        this.proxyQueueSize = proxyQueueSize;
+    }
+
+    public Duration getProxyQueueTimeout() {
+        return proxyQueueTimeout;
+    }
+
+    public void setProxyQueueTimeout(Duration proxyQueueTimeout) {
+        this.proxyQueueTimeout = proxyQueueTimeout;
+    }
+
+    public boolean isProxyCacheEnabled() {
+        return proxyCacheEnabled;
+    }
+
+    public void setProxyCacheEnabled(boolean proxyCacheEnabled) {
+        this.proxyCacheEnabled = proxyCacheEnabled;
+    }
+
+    public long getProxyCacheMaxSize() {
+        return proxyCacheMaxSize;
+    }
+
+    public void setProxyCacheMaxSize(long proxyCacheMaxSize) {
+        this.proxyCacheMaxSize = proxyCacheMaxSize;
+    }
+
+    public long getProxyCacheMaxEntrySize() {
+        return proxyCacheMaxEntrySize;
+    }
+
+    public void setProxyCacheMaxEntrySize(long proxyCacheMaxEntrySize) {
+        this.proxyCacheMaxEntrySize = proxyCacheMaxEntrySize;
+    }
+
+    public List<String> getProxyCacheVaryHeaders() {
+        return proxyCacheVaryHeaders;
+    }
+
+    public void setProxyCacheVaryHeaders(List<String> proxyCacheVaryHeaders) {
+        this.proxyCacheVaryHeaders = proxyCacheVaryHeaders;
+    }
+
+    public boolean isTokenRelayEnabled() {
+        return tokenRelayEnabled;
+    }
+
+    public void setTokenRelayEnabled(boolean tokenRelayEnabled) {
+        this.tokenRelayEnabled = tokenRelayEnabled;
+    }
+
+    public Duration getTokenRelayRefreshMargin() {
+        return tokenRelayRefreshMargin;
+    }
+
+    public void setTokenRelayRefreshMargin(Duration tokenRelayRefreshMargin) {
+        this.tokenRelayRefreshMargin = tokenRelayRefreshMargin;
+    }
+
+    public boolean isTokenRelayAuthenticationRequired() {
+        return tokenRelayAuthenticationRequired;
+    }
+
+    public void setTokenRelayAuthenticationRequired(boolean tokenRelayAuthenticationRequired) {
+        this.tokenRelayAuthenticationRequired = tokenRelayAuthenticationRequired;
+    }
+
+    public boolean isCredentialsPrefillEnabled() {
+        return credentialsPrefillEnabled;
+    }
+
+    public void setCredentialsPrefillEnabled(boolean credentialsPrefillEnabled) {
+        this.credentialsPrefillEnabled = credentialsPrefillEnabled;
+    }
+
+    public List<String> getCredentialsPrefillSchemes() {
+        return credentialsPrefillSchemes;
+    }
+
+    public void setCredentialsPrefillSchemes(List<String> credentialsPrefillSchemes) {
+        this.credentialsPrefillSchemes = credentialsPrefillSchemes;
+    }
+
+    public boolean isTenantCacheEnabled() {
+        return tenantCacheEnabled;
+    }
+
+    public void setTenantCacheEnabled(boolean tenantCacheEnabled) {
+        this.tenantCacheEnabled = tenantCacheEnabled;
+    }
+
+    public long getTenantCacheMaxSize() {
+        return tenantCacheMaxSize;
+    }
+
+    public void setTenantCacheMaxSize(long tenantCacheMaxSize) {
+        this.tenantCacheMaxSize = tenantCacheMaxSize;
+    }
+
+    public int getTenantCacheMaxEntries() {
+        return tenantCacheMaxEntries;
+    }
+
+    public void setTenantCacheMaxEntries(int tenantCacheMaxEntries) {
+        this.tenantCacheMaxEntries = tenantCacheMaxEntries;
+    }
+
+    public Duration getTenantCacheTtl() {
+        return tenantCacheTtl;
+    }
+
+    public void setTenantCacheTtl(Duration tenantCacheTtl) {
+        this.tenantCacheTtl = tenantCacheTtl;
+    }
+
+    public Map<String, ScalarProperties> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, ScalarProperties> instances) {
+        this.instances = instances;
+    }
+
     public String getFavicon() {
         return favicon;
     }
@@ -667,5 +1316,20 @@ public class ScalarProperties {
     public void setMcp(ScalarMcpOptions mcp) {
         this.mcp = mcp;
     }
+
+    /**
+     * Creates a shallow copy of the properties, which can be adjusted without
+     * changing the bound properties. Nested options, lists and maps are shared
+     * with the copy.
+     *
+     * @return the copy
+     */
+    public ScalarProperties copy() {
+        try {
+            return (ScalarProperties) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
 
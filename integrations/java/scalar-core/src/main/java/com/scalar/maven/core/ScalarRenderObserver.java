@@ -0,0 +1,46 @@
+package com.scalar.maven.core;
+
+import java.io.IOException;
+
+/**
+ * Callback around the steps of serving the Scalar API Reference.
+ *
+ * <p>
+ * Implementations can time the individual {@link ScalarRenderStep}s, for example
+ * to report them to a tracing backend. The default {@link #NOOP} observer simply
+ * runs each step.
+ * </p>
+ */
+public interface ScalarRenderObserver {
+
+    /**
+     * An observer that runs every step without recording anything.
+     */
+    ScalarRenderObserver NOOP = new ScalarRenderObserver() {
+        @Override
+        public <T> T observe(ScalarRenderStep step, ScalarRenderStep.Action<T> action) throws IOException {
+            return action.run();
+        }
+    };
+
+    /**
+     * Runs the given step.
+     *
+     * @param step   the step being performed
+     * @param action the work of the step
+     * @param <T>    the result type
+     * @return the result of the step
+     * @throws IOException if the step fails to load an asset
+     */
+    <T> T observe(ScalarRenderStep step, ScalarRenderStep.Action<T> action) throws IOException;
+
+    /**
+     * Reports whether the currently running step was answered from an in-memory
+     * cache. Only called for {@linkplain ScalarRenderStep#isCacheable() cacheable} steps.
+     *
+     * @param step the step consulting the cache
+     * @param hit  {@code true} if the cached value was used
+     */
+    default void onCacheAccess(ScalarRenderStep step, boolean hit) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.scalar.maven.core;
+
+import java.io.IOException;
+
+/**
+ * The individual steps involved in serving the Scalar API Reference.
+ *
+ * <p>
+ * Each step carries the name under which it is reported to a
+ * {@link ScalarRenderObserver}, and whether serving it may be answered from an
+ * in-memory cache.
+ * </p>
+ */
+public enum ScalarRenderStep {
+
+    /**
+     * Serving the API Reference page, from binding the properties to building the response.
+     */
+    PAGE("scalar.page", false),
+
+    /**
+     * Serving the JavaScript bundle.
+     */
+    BUNDLE("scalar.bundle", true),
+
+    /**
+     * Serving the OpenAPI document from memory.
+     */
+    DOCUMENT("scalar.document", true),
+
+    /**
+     * Binding the configuration properties for the current request.
+     */
+    PROPERTIES_BINDING("scalar.properties.binding", false),
+
+    /**
+     * Applying the {@code configureProperties} customization hook.
+     */
+    CONFIGURE_PROPERTIES("scalar.properties.configure", false),
+
+    /**
+     * Mapping the properties to the configuration model.
+     */
+    MAPPING("scalar.configuration.mapping", false),
+
+    /**
+     * Serializing the configuration model to JSON.
+     */
+    SERIALIZATION("scalar.configuration.serialization", false),
+
+    /**
+     * Filling the HTML template with the bundle URL, page title and configuration.
+     */
+    TEMPLATE("scalar.template", true);
+
+    private final String observationName;
+    private final boolean cacheable;
+
+    ScalarRenderStep(String observationName, boolean cacheable) {
+        this.observationName = observationName;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * Gets the name under which this step is reported.
+     *
+     * @return the observation name
+     */
+    public String getObservationName() {
+        return observationName;
+    }
+
+    /**
+     * Gets whether this step may be answered from an in-memory cache.
+     *
+     * @return {@code true} if the step reports cache usage
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * The work performed within a step.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+
+        /**
+         * Performs the work of the step.
+         *
+         * @return the result of the step
+         * @throws IOException if an asset cannot be loaded
+         */
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,353 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import com.scalar.maven.core.internal.ScalarAssets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The Scalar API Reference exported as static files, ready to be served by a
+ * web server or an object store instead of being rendered at runtime.
+ *
+ * <p>
+ * {@link #export(ScalarProperties, ClassLoader)} renders the page once with
+ * {@link ScalarHtmlRenderer}, and names the JavaScript bundle after its hash so
+ * it can be cached for good. The documents the page refers to through their
+ * local copies are exported as well, in the form the integrations would serve
+ * them. {@link #writeTo(Path)} writes the files next to their gzip-compressed
+ * variants, and {@link #load(String, ClassLoader)} reads them back, so the
+ * Spring integrations can serve the prebuilt files when
+ * {@link ScalarProperties#isSiteEnabled()} is set.
+ * </p>
+ *
+ * <p>
+ * The files mirror the URLs the integrations serve, relative to the parent of
+ * the base path:
+ * </p>
+ *
+ * <pre>
+ * index.html
+ * scalar/scalar.3f2a9c1e5b7d4a60.js
+ * scalar/scalar.3f2a9c1e5b7d4a60.js.gz
+ * scalar/documents/default
+ * scalar/documents/default.gz
+ * scalar-site.json
+ * </pre>
+ */
+public final class ScalarSite {
+
+    /**
+     * The name of the file holding the page.
+     */
+    public static final String PAGE_FILENAME = "index.html";
+
+    /**
+     * The name of the file listing the files of the site.
+     */
+    public static final String MANIFEST_FILENAME = "scalar-site.json";
+
+    /**
+     * The suffix of the gzip-compressed variant of a file.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int HASH_LENGTH = 16;
+
+    private static final String HTML_MEDIA_TYPE = "text/html";
+
+    private static final String JS_MEDIA_TYPE = "application/javascript";
+
+    private final ScalarDocument page;
+    private final String html;
+    private final String bundlePath;
+    private final ScalarDocument bundle;
+    private final Map<String, String> documentPaths;
+    private final Map<String, ScalarDocument> documents;
+
+    private ScalarSite(ScalarDocument page, String bundlePath, ScalarDocument bundle,
+                       Map<String, String> documentPaths, Map<String, ScalarDocument> documents) {
+        this.page = page;
+        this.html = new String(page.getContent(), StandardCharsets.UTF_8);
+        this.bundlePath = bundlePath;
+        this.bundle = bundle;
+        this.documentPaths = Collections.unmodifiableMap(documentPaths);
+        this.documents = Collections.unmodifiableMap(documents);
+    }
+
+    /**
+     * Exports the site for the given configuration.
+     *
+     * <p>
+     * Documents at {@code file:} and {@code classpath:} locations are read with
+     * the given class loader. Remote documents are fetched when
+     * {@link ScalarProperties#isDocumentCacheEnabled()} is set, and the merged
+     * document when {@link ScalarProperties#isAggregationEnabled()} is set;
+     * otherwise the page refers to them at their URLs.
+     * </p>
+     *
+     * @param properties  the configuration properties
+     * @param classLoader the class loader to read {@code classpath:} documents with
+     * @return the site
+     * @throws IOException if the assets or a document cannot be read
+     */
+    public static ScalarSite export(ScalarProperties properties, ClassLoader classLoader) throws IOException {
+        return export(properties, classLoader, true);
+    }
+
+    /**
+     * Exports the site for the given configuration, optionally without the
+     * documents, which then have to be served by the application.
+     *
+     * @param properties  the configuration properties
+     * @param classLoader the class loader to read {@code classpath:} documents with
+     * @param documents   whether to export the documents
+     * @return the site
+     * @throws IOException if the assets or a document cannot be read
+     * @see #export(ScalarProperties, ClassLoader)
+     */
+    public static ScalarSite export(ScalarProperties properties, ClassLoader classLoader, boolean documents)
+            throws IOException {
+        Objects.requireNonNull(properties, "properties must not be null");
+        Objects.requireNonNull(classLoader, "classLoader must not be null");
+
+        String bundleFileName = "scalar." + ScalarAssets.getBundleHash().substring(0, HASH_LENGTH) + ".js";
+        String html = ScalarHtmlRenderer.render(properties, null, ScalarRenderObserver.NOOP, bundleFileName);
+        ScalarDocument page = ScalarDocument.of(html.getBytes(StandardCharsets.UTF_8), null, HTML_MEDIA_TYPE);
+        ScalarDocument bundle = ScalarDocument.of(ScalarAssets.getBundle(), JS_MEDIA_TYPE);
+        String bundlePath = ScalarHtmlRenderer.buildRelativeUrl(properties.getPath(), bundleFileName);
+
+        Map<String, String> documentPaths = new LinkedHashMap<>();
+        Map<String, ScalarDocument> exported = new LinkedHashMap<>();
+        if (!documents) {
+            return new ScalarSite(page, bundlePath, bundle, documentPaths, exported);
+        }
+        ScalarDocumentCache cache = new ScalarDocumentCache(properties.getDocumentCacheTtl(),
+                properties.getDocumentCacheTimeout(), properties.isDocumentOptimizeEnabled());
+        try (ScalarLocalDocuments localDocuments = new ScalarLocalDocuments(classLoader, false,
+                properties.isDocumentOptimizeEnabled())) {
+            for (String id : documentIds(properties)) {
+                ScalarDocument document = document(properties, id, localDocuments, cache);
+                if (document == null) {
+                    continue;
+                }
+                if (properties.isDocumentCompactEnabled()) {
+                    document = document.getCompaction().getDocument();
+                }
+                documentPaths.put(id, ScalarDocumentCache.documentUrl(properties.getPath(), id));
+                exported.put(id, document);
+            }
+        }
+        return new ScalarSite(page, bundlePath, bundle, documentPaths, exported);
+    }
+
+    /**
+     * Reads a site that was written by {@link #writeTo(Path)}.
+     *
+     * @param location    the {@code file:} or {@code classpath:} location of the directory
+     * @param classLoader the class loader to read a {@code classpath:} location with
+     * @return the site
+     * @throws IOException              if the site cannot be found or read
+     * @throws IllegalArgumentException if the location is neither {@code file:} nor {@code classpath:}
+     */
+    public static ScalarSite load(String location, ClassLoader classLoader) throws IOException {
+        Objects.requireNonNull(location, "location must not be null");
+        Objects.requireNonNull(classLoader, "classLoader must not be null");
+
+        byte[] manifestContent = read(location, MANIFEST_FILENAME, classLoader);
+        if (manifestContent == null) {
+            throw new IOException("No exported Scalar site found at: " + location);
+        }
+        Object parsed = JacksonJsonSerializer.parse(manifestContent);
+        if (!(parsed instanceof Map) || !(((Map<?, ?>) parsed).get("bundle") instanceof String)) {
+            throw new IOException("Malformed " + MANIFEST_FILENAME + " at: " + location);
+        }
+        Map<?, ?> manifest = (Map<?, ?>) parsed;
+
+        ScalarDocument page = readFile(location, PAGE_FILENAME, HTML_MEDIA_TYPE, classLoader);
+        String bundlePath = (String) manifest.get("bundle");
+        ScalarDocument bundle = readFile(location, bundlePath, JS_MEDIA_TYPE, classLoader);
+
+        Map<String, String> documentPaths = new LinkedHashMap<>();
+        Map<String, ScalarDocument> documents = new LinkedHashMap<>();
+        if (manifest.get("documents") instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) manifest.get("documents")).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> file = (Map<?, ?>) entry.getValue();
+                String id = String.valueOf(entry.getKey());
+                String path = String.valueOf(file.get("path"));
+                documentPaths.put(id, path);
+                documents.put(id, readFile(location, path, String.valueOf(file.get("mediaType")), classLoader));
+            }
+        }
+        return new ScalarSite(page, bundlePath, bundle, documentPaths, documents);
+    }
+
+    /**
+     * Writes the files of the site and their gzip-compressed variants, creating
+     * the directory if necessary.
+     *
+     * @param directory the directory to write to
+     * @return the number of files written, including the variants
+     * @throws IOException if a file cannot be written
+     */
+    public int writeTo(Path directory) throws IOException {
+        Objects.requireNonNull(directory, "directory must not be null");
+
+        int written = write(directory, PAGE_FILENAME, page) + write(directory, bundlePath, bundle);
+        Map<String, Object> documentFiles = new LinkedHashMap<>();
+        for (Map.Entry<String, ScalarDocument> document : documents.entrySet()) {
+            String path = documentPaths.get(document.getKey());
+            written += write(directory, path, document.getValue());
+            Map<String, Object> file = new LinkedHashMap<>();
+            file.put("path", path);
+            file.put("mediaType", document.getValue().getMediaType());
+            documentFiles.put(document.getKey(), file);
+        }
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("page", PAGE_FILENAME);
+        manifest.put("bundle", bundlePath);
+        manifest.put("documents", documentFiles);
+        Files.write(directory.resolve(MANIFEST_FILENAME),
+                JacksonJsonSerializer.serialize(manifest).getBytes(StandardCharsets.UTF_8));
+        return written + 1;
+    }
+
+    /**
+     * Gets the rendered page.
+     *
+     * @return the HTML of the page
+     */
+    public String getPage() {
+        return html;
+    }
+
+    /**
+     * Gets the name of the JavaScript bundle, which contains its hash.
+     *
+     * @return the file name, such as {@code scalar.3f2a9c1e5b7d4a60.js}
+     */
+    public String getBundleFileName() {
+        return bundlePath.substring(bundlePath.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Gets the JavaScript bundle with its gzip-compressed variant.
+     *
+     * @return the bundle
+     */
+    public ScalarDocument getBundle() {
+        return bundle;
+    }
+
+    /**
+     * Gets an exported document.
+     *
+     * @param id the document id, as in {@code <path>/documents/<id>}
+     * @return the document, or {@code null} if it was not exported
+     */
+    public ScalarDocument getDocument(String id) {
+        return documents.get(id);
+    }
+
+    /**
+     * Gets the ids of the exported documents.
+     *
+     * @return the document ids, in the order of the configuration
+     */
+    public Set<String> getDocumentIds() {
+        return documents.keySet();
+    }
+
+    /**
+     * Lists the ids of the documents the page refers to at a local copy, whether
+     * or not the copy can be exported.
+     */
+    private static List<String> documentIds(ScalarProperties properties) {
+        List<String> ids = new ArrayList<>();
+        ids.add(properties.isAggregationEnabled()
+                ? ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID : ScalarDocumentCache.DEFAULT_DOCUMENT_ID);
+        List<ScalarSource> sources = properties.getSources();
+        for (int i = 0; sources != null && i < sources.size(); i++) {
+            ids.add(String.valueOf(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Reads or fetches the document with the given id, the way the integrations
+     * would serve it.
+     *
+     * @return the document, or {@code null} if the page refers to it at its URL
+     */
+    private static ScalarDocument document(ScalarProperties properties, String id,
+                                           ScalarLocalDocuments localDocuments, ScalarDocumentCache cache)
+            throws IOException {
+        if (ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID.equals(id)) {
+            return ScalarDocumentAggregator.of(cache, properties).get();
+        }
+        String location = ScalarLocalDocuments.resolve(properties, id);
+        if (location != null) {
+            return localDocuments.get(location);
+        }
+        String url = ScalarDocumentCache.resolve(properties, id);
+        return url != null && properties.isDocumentCacheEnabled() ? cache.get(url) : null;
+    }
+
+    private static int write(Path directory, String path, ScalarDocument document) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, document.getContent());
+        if (!document.hasGzipContent()) {
+            return 1;
+        }
+        Files.write(file.resolveSibling(file.getFileName() + GZIP_SUFFIX), document.getGzipContent());
+        return 2;
+    }
+
+    private static ScalarDocument readFile(String location, String path, String mediaType, ClassLoader classLoader)
+            throws IOException {
+        byte[] content = read(location, path, classLoader);
+        if (content == null) {
+            throw new IOException("Missing file of the exported Scalar site: " + path);
+        }
+        return ScalarDocument.of(content, read(location, path + GZIP_SUFFIX, classLoader), mediaType);
+    }
+
+    private static byte[] read(String location, String path, ClassLoader classLoader) throws IOException {
+        String lowerCase = location.toLowerCase(Locale.ROOT);
+        if (lowerCase.startsWith(ScalarLocalDocuments.FILE_PREFIX)) {
+            Path file = Path.of(location.substring(ScalarLocalDocuments.FILE_PREFIX.length())).resolve(path);
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        }
+        if (lowerCase.startsWith(ScalarLocalDocuments.CLASSPATH_PREFIX)) {
+            String directory = location.substring(ScalarLocalDocuments.CLASSPATH_PREFIX.length())
+                    .replaceAll("^/+|/+$", "");
+            String resource = directory.isEmpty() ? path : directory + "/" + path;
+            try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+                return inputStream != null ? inputStream.readAllBytes() : null;
+            }
+        }
+        throw new IllegalArgumentException(
+                "The location of the exported Scalar site must start with file: or classpath:, got: " + location);
+    }
+}
@@ -0,0 +1,302 @@
+package com.scalar.maven.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the rendered page of each tenant, for applications serving the page
+ * to many tenants with properties configured per request.
+ *
+ * <p>
+ * Pages are keyed by a tenant key, which must determine everything that the
+ * configured properties vary by, such as the {@code Host} of the request. A
+ * page found for the tenant is served without mapping, serializing or
+ * rendering the configuration. Concurrent requests for a tenant whose page is
+ * not cached wait for a single render.
+ * </p>
+ *
+ * <p>
+ * The cache holds at most {@code maxEntries} pages and {@code maxSize} bytes,
+ * counting two bytes per character; the least recently used pages are evicted
+ * beyond either, so rarely visited tenants do not grow the heap. Pages expire
+ * {@code ttl} after they were rendered, so changes to the configuration of a
+ * tenant are picked up.
+ * </p>
+ */
+public class ScalarTenantCache {
+
+    /**
+     * The default maximum size of the cached pages, in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    /**
+     * The default maximum number of cached pages.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * The default time a page is cached for.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private final long maxSize;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<String>> renders = new ConcurrentHashMap<>();
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize    the maximum size of the cached pages, in bytes
+     * @param maxEntries the maximum number of cached pages
+     * @param ttl        the time a page is cached for
+     */
+    public ScalarTenantCache(long maxSize, int maxEntries, Duration ttl) {
+        this(maxSize, maxEntries, ttl, System::nanoTime);
+    }
+
+    ScalarTenantCache(long maxSize, int maxEntries, Duration ttl, LongSupplier nanoTime) {
+        if (maxSize < 0 || maxEntries < 0) {
+            throw new IllegalArgumentException("The maximum sizes of the cache must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Objects.requireNonNull(ttl, "ttl must not be null").toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Creates a cache with the sizes and time to live of the configuration
+     * properties.
+     *
+     * @param properties the configuration properties
+     * @return the cache
+     */
+    public static ScalarTenantCache of(ScalarProperties properties) {
+        return new ScalarTenantCache(properties.getTenantCacheMaxSize(), properties.getTenantCacheMaxEntries(),
+                properties.getTenantCacheTtl());
+    }
+
+    /**
+     * Gets the page of a tenant, rendering it if it is not cached. Concurrent
+     * calls for the same tenant and version wait for a single render.
+     *
+     * @param tenant   the tenant key
+     * @param version  the version of the page, such as the ETag of the embedded
+     *                 document, may be {@code null}; a page of another version
+     *                 is replaced
+     * @param renderer renders the page of the tenant
+     * @return the page
+     * @throws IOException if the page cannot be rendered
+     */
+    public String get(String tenant, String version, Renderer renderer) throws IOException {
+        Objects.requireNonNull(tenant, "tenant must not be null");
+        Objects.requireNonNull(renderer, "renderer must not be null");
+        String page = lookup(tenant, version, true);
+        if (page != null) {
+            return page;
+        }
+
+        String key = version != null ? tenant + '\n' + version : tenant;
+        CompletableFuture<String> render = new CompletableFuture<>();
+        CompletableFuture<String> running = renders.putIfAbsent(key, render);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Another render may have finished since the lookup
+            page = lookup(tenant, version, false);
+            if (page == null) {
+                page = renderer.render();
+                store(tenant, version, page);
+            }
+            render.complete(page);
+            return page;
+        } catch (IOException | RuntimeException | Error e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            renders.remove(key, render);
+        }
+    }
+
+    /**
+     * Removes the page of a tenant, so the next request renders it again.
+     *
+     * @param tenant the tenant key
+     * @return whether a page was removed
+     */
+    public synchronized boolean invalidate(String tenant) {
+        Entry entry = entries.remove(tenant);
+        if (entry != null) {
+            size -= entry.bytes;
+        }
+        return entry != null;
+    }
+
+    /**
+     * Removes all pages. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets the estimated size of the cached pages.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of cached pages.
+     *
+     * @return the number of pages
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of requests answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests not answered from the cache.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of pages evicted to stay within the maximum sizes.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of pages removed because they expired.
+     *
+     * @return the number of expirations
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private synchronized String lookup(String tenant, String version, boolean record) {
+        Entry entry = entries.get(tenant);
+        if (entry != null && nanoTime.getAsLong() - entry.renderedAt >= ttlNanos) {
+            entries.remove(tenant);
+            size -= entry.bytes;
+            expirations.increment();
+            entry = null;
+        }
+        String page = entry != null && Objects.equals(entry.version, version) ? entry.page : null;
+        if (record) {
+            (page != null ? hits : misses).increment();
+        }
+        return page;
+    }
+
+    private synchronized void store(String tenant, String version, String page) {
+        long bytes = 2L * (tenant.length() + page.length());
+        if (bytes > maxSize || maxEntries == 0) {
+            return;
+        }
+        Entry previous = entries.put(tenant, new Entry(version, page, bytes, nanoTime.getAsLong()));
+        if (previous != null) {
+            size -= previous.bytes;
+        }
+        size += bytes;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((size > maxSize || entries.size() > maxEntries) && iterator.hasNext()) {
+            size -= iterator.next().bytes;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String await(CompletableFuture<String> render) throws IOException {
+        try {
+            return render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the page to be rendered");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Renders the page of a tenant.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+
+        /**
+         * Renders the page.
+         *
+         * @return the page
+         * @throws IOException if the page cannot be rendered
+         */
+        String render() throws IOException;
+    }
+
+    private static final class Entry {
+
+        private final String version;
+        private final String page;
+        private final long bytes;
+        private final long renderedAt;
+
+        Entry(String version, String page, long bytes, long renderedAt) {
+            this.version = version;
+            this.page = page;
+            this.bytes = bytes;
+            this.renderedAt = renderedAt;
+        }
+    }
+}
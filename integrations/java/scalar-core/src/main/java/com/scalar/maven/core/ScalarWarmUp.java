@@ -0,0 +1,139 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import com.scalar.maven.core.internal.ScalarAssets;
+import com.scalar.maven.core.internal.ScalarTemplate;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Loads everything the Scalar API Reference needs ahead of the first request:
+ * the JavaScript bundle and its hash, the compiled HTML template and the
+ * serialization engine.
+ *
+ * <p>
+ * Each unit of work is reported as a named step to a {@link StepRecorder}, with
+ * tags describing its size, so framework integrations can forward the steps to
+ * their startup tracking.
+ * </p>
+ */
+public final class ScalarWarmUp {
+
+    /**
+     * The step reading the JavaScript bundle into memory.
+     */
+    public static final String BUNDLE_PRELOAD = "scalar.bundle.preload";
+
+    /**
+     * The step hashing the JavaScript bundle.
+     */
+    public static final String BUNDLE_HASH = "scalar.bundle.hash";
+
+    /**
+     * The step loading and compiling the HTML template.
+     */
+    public static final String TEMPLATE_COMPILE = "scalar.template.compile";
+
+    /**
+     * The step resolving the serialization engine.
+     */
+    public static final String SERIALIZER_RESOLVE = "scalar.serializer.resolve";
+
+    private ScalarWarmUp() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Runs the warm-up, reporting every step to the given recorder.
+     *
+     * @param recorder the recorder to report the steps to
+     * @throws IOException if an asset cannot be loaded
+     */
+    public static void run(StepRecorder recorder) throws IOException {
+        Objects.requireNonNull(recorder, "recorder must not be null");
+
+        Step preload = recorder.start(BUNDLE_PRELOAD);
+        try {
+            preload.tag("size", String.valueOf(ScalarAssets.getBundle().length));
+        } finally {
+            preload.end();
+        }
+
+        Step hash = recorder.start(BUNDLE_HASH);
+        try {
+            hash.tag("size", String.valueOf(ScalarAssets.getBundle().length));
+            hash.tag("hash", ScalarAssets.getBundleHash());
+        } finally {
+            hash.end();
+        }
+
+        Step compile = recorder.start(TEMPLATE_COMPILE);
+        try {
+            ScalarTemplate template = ScalarAssets.getTemplate();
+            compile.tag("size", String.valueOf(template.getSourceLength()));
+            compile.tag("segments", String.valueOf(template.getSegmentCount()));
+        } finally {
+            compile.end();
+        }
+
+        Step resolve = recorder.start(SERIALIZER_RESOLVE);
+        try {
+            resolve.tag("engine", JacksonJsonSerializer.getEngineName());
+        } finally {
+            resolve.end();
+        }
+    }
+
+    /**
+     * Starts the named steps of the warm-up.
+     */
+    @FunctionalInterface
+    public interface StepRecorder {
+
+        /**
+         * A recorder that records nothing.
+         */
+        StepRecorder NOOP = name -> Step.NOOP;
+
+        /**
+         * Starts a step.
+         *
+         * @param name the name of the step
+         * @return the started step
+         */
+        Step start(String name);
+    }
+
+    /**
+     * A started warm-up step.
+     */
+    public interface Step {
+
+        /**
+         * A step that records nothing.
+         */
+        Step NOOP = new Step() {
+            @Override
+            public void tag(String key, String value) {
+            }
+
+            @Override
+            public void end() {
+            }
+        };
+
+        /**
+         * Adds a tag describing the step.
+         *
+         * @param key   the tag key
+         * @param value the tag value
+         */
+        void tag(String key, String value);
+
+        /**
+         * Ends the step.
+         */
+        void end();
+    }
+}
@@ -0,0 +1,311 @@
+package com.scalar.maven.core.authentication;
+
+import com.scalar.maven.core.authentication.schemes.ScalarApiKeySecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarSecurityScheme;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A rendered page with slots for the credentials of its security schemes,
+ * filled per request with {@link ScalarCredentials}.
+ *
+ * <p>
+ * The page is rendered once with a marker in place of each credential of the
+ * {@code http} and {@code apiKey} security schemes, see {@link #withSlots}, and
+ * cached like any other page. The page is compiled into literal segments and
+ * slots once, like the page template, so filling it per request only appends
+ * the segments and the escaped values to a single buffer. Slots without a
+ * credential are filled with the configured value, so the compiled page does
+ * not depend on the configured credentials. Slots with neither are filled with
+ * {@code null}, so the page does not prefill an empty credential where the
+ * configuration has none.
+ * </p>
+ *
+ * <p>
+ * The markers carry a random nonce chosen once per process. The page also
+ * holds content the renderer does not control, such as the embedded OpenAPI
+ * document, and a marker-shaped string in it must not receive a credential.
+ * The nonce never leaves the process, as every marker is replaced before the
+ * page is served.
+ * </p>
+ */
+public final class ScalarCredentialOverlay {
+
+    private static final String MARKER_PREFIX = "__SCALAR_CREDENTIAL_" + nonce() + ":";
+
+    private static final String MARKER_SUFFIX = "__";
+
+    /**
+     * The maximum number of compiled pages, as many as the rendered pages
+     * cached by {@link com.scalar.maven.core.ScalarHtmlRenderer}.
+     */
+    private static final int MAX_COMPILED = 16;
+
+    private static final Map<String, ScalarCredentialOverlay> COMPILED = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScalarCredentialOverlay> eldest) {
+            return size() > MAX_COMPILED;
+        }
+    };
+
+    private final String[] literals;
+    private final Slot[] slots;
+    private final int literalLength;
+
+    private ScalarCredentialOverlay(String[] literals, Slot[] slots, int literalLength) {
+        this.literals = literals;
+        this.slots = slots;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Copies the authentication options with a marker in place of each
+     * credential of the {@code http} and {@code apiKey} security schemes. The
+     * given options are not modified.
+     *
+     * @param authentication the authentication options, may be {@code null}
+     * @return the copied options
+     */
+    public static ScalarAuthenticationOptions withSlots(ScalarAuthenticationOptions authentication) {
+        if (authentication == null || authentication.getSecuritySchemes() == null) {
+            return authentication;
+        }
+        Map<String, ScalarSecurityScheme> schemes = new LinkedHashMap<>();
+        authentication.getSecuritySchemes().forEach((name, scheme) -> {
+            if (scheme instanceof ScalarHttpSecurityScheme) {
+                ScalarHttpSecurityScheme slotted = new ScalarHttpSecurityScheme();
+                slotted.setDescription(scheme.getDescription());
+                slotted.setUsername(marker(name, ScalarCredentials.USERNAME));
+                slotted.setPassword(marker(name, ScalarCredentials.PASSWORD));
+                slotted.setToken(marker(name, ScalarCredentials.TOKEN));
+                schemes.put(name, slotted);
+            } else if (scheme instanceof ScalarApiKeySecurityScheme) {
+                ScalarApiKeySecurityScheme slotted = new ScalarApiKeySecurityScheme(
+                        ((ScalarApiKeySecurityScheme) scheme).getName(), marker(name, ScalarCredentials.VALUE));
+                slotted.setDescription(scheme.getDescription());
+                schemes.put(name, slotted);
+            } else {
+                schemes.put(name, scheme);
+            }
+        });
+        ScalarAuthenticationOptions copy = new ScalarAuthenticationOptions();
+        copy.setPreferredSecuritySchemes(authentication.getPreferredSecuritySchemes());
+        copy.setSecuritySchemes(schemes);
+        return copy;
+    }
+
+    /**
+     * Gets the compiled overlay of a page rendered with the options of
+     * {@link #withSlots}. Overlays of the recently rendered pages are kept, so
+     * each page is only compiled once.
+     *
+     * @param page the rendered page
+     * @return the overlay
+     */
+    public static ScalarCredentialOverlay of(String page) {
+        Objects.requireNonNull(page, "page must not be null");
+        synchronized (COMPILED) {
+            ScalarCredentialOverlay overlay = COMPILED.get(page);
+            if (overlay == null) {
+                overlay = compile(page);
+                COMPILED.put(page, overlay);
+            }
+            return overlay;
+        }
+    }
+
+    /**
+     * Compiles a page rendered with the options of {@link #withSlots}.
+     *
+     * @param page the rendered page
+     * @return the overlay
+     */
+    public static ScalarCredentialOverlay compile(String page) {
+        Objects.requireNonNull(page, "page must not be null");
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        int index = page.indexOf(MARKER_PREFIX);
+        while (index >= 0) {
+            int fieldEnd = page.indexOf(':', index + MARKER_PREFIX.length());
+            int end = fieldEnd >= 0 ? page.indexOf(MARKER_SUFFIX, fieldEnd + 1) : -1;
+            Slot slot = end >= 0 ? Slot.parse(page.substring(index + MARKER_PREFIX.length(), fieldEnd),
+                    page.substring(fieldEnd + 1, end)) : null;
+            if (slot == null) {
+                index = page.indexOf(MARKER_PREFIX, index + 1);
+                continue;
+            }
+            int start = index;
+            int next = end + MARKER_SUFFIX.length();
+            if (start > position && page.charAt(start - 1) == '"' && next < page.length()
+                    && page.charAt(next) == '"') {
+                // The marker is a whole JSON string, so the slot can be filled with null
+                slot = slot.quoted();
+                start--;
+                next++;
+            }
+            literals.add(page.substring(position, start));
+            literalLength += start - position;
+            slots.add(slot);
+            position = next;
+            index = page.indexOf(MARKER_PREFIX, position);
+        }
+        literals.add(page.substring(position));
+        literalLength += page.length() - position;
+        return new ScalarCredentialOverlay(literals.toArray(new String[0]), slots.toArray(new Slot[0]),
+                literalLength);
+    }
+
+    /**
+     * Fills the slots of the page.
+     *
+     * @param credentials    the credentials of the request, may be {@code null}
+     * @param authentication the configured authentication options, whose
+     *                       credentials fill the slots without one
+     * @return the page with the credentials
+     */
+    public String apply(ScalarCredentials credentials, ScalarAuthenticationOptions authentication) {
+        Map<String, ScalarSecurityScheme> configured = authentication != null
+                ? authentication.getSecuritySchemes()
+                : null;
+        StringBuilder page = new StringBuilder(literalLength + slots.length * 64);
+        for (int i = 0; i < slots.length; i++) {
+            page.append(literals[i]);
+            Slot slot = slots[i];
+            String value = credentials != null ? credentials.get(slot.scheme, slot.field) : null;
+            if (value == null && configured != null) {
+                value = configured(configured.get(slot.scheme), slot.field);
+            }
+            if (!slot.quoted) {
+                appendEscaped(page, value);
+            } else if (value == null) {
+                page.append("null");
+            } else {
+                appendEscaped(page.append('"'), value);
+                page.append('"');
+            }
+        }
+        return page.append(literals[slots.length]).toString();
+    }
+
+    /**
+     * Gets the number of credentials the page has slots for.
+     *
+     * @return the number of slots
+     */
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    private static String configured(ScalarSecurityScheme scheme, String field) {
+        if (scheme instanceof ScalarHttpSecurityScheme) {
+            ScalarHttpSecurityScheme http = (ScalarHttpSecurityScheme) scheme;
+            return switch (field) {
+                case ScalarCredentials.USERNAME -> http.getUsername();
+                case ScalarCredentials.PASSWORD -> http.getPassword();
+                default -> http.getToken();
+            };
+        }
+        return scheme instanceof ScalarApiKeySecurityScheme ? ((ScalarApiKeySecurityScheme) scheme).getValue() : null;
+    }
+
+    /**
+     * Builds the marker of a credential. The scheme name is hex encoded, so the
+     * marker is serialized as is and cannot clash with other schemes.
+     */
+    private static String marker(String scheme, String field) {
+        StringBuilder marker = new StringBuilder(MARKER_PREFIX).append(field).append(':');
+        for (byte b : scheme.getBytes(StandardCharsets.UTF_8)) {
+            marker.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return marker.append(MARKER_SUFFIX).toString();
+    }
+
+    /**
+     * Generates the nonce of the markers.
+     */
+    private static String nonce() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Appends a value as the content of a JSON string that is safe inside a
+     * {@code <script>} element.
+     */
+    private static void appendEscaped(StringBuilder page, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> page.append("\\\"");
+                case '\\' -> page.append("\\\\");
+                case '\n' -> page.append("\\n");
+                case '\r' -> page.append("\\r");
+                case '\t' -> page.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '\u2028' || c == '\u2029') {
+                        page.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        page.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        private final String scheme;
+        private final String field;
+        private final boolean quoted;
+
+        private Slot(String scheme, String field, boolean quoted) {
+            this.scheme = scheme;
+            this.field = field;
+            this.quoted = quoted;
+        }
+
+        /**
+         * Gets this slot taking the quotes around the marker as well, so it is
+         * filled with a JSON string or {@code null}.
+         */
+        Slot quoted() {
+            return new Slot(scheme, field, true);
+        }
+
+        /**
+         * Parses the field and the hex encoded scheme name of a marker.
+         *
+         * @return the slot, or {@code null} if the marker is malformed
+         */
+        static Slot parse(String field, String hex) {
+            if (!ScalarCredentials.HTTP_FIELDS.contains(field) && !ScalarCredentials.API_KEY_FIELDS.contains(field)
+                    || hex.length() % 2 != 0) {
+                return null;
+            }
+            byte[] bytes = new byte[hex.length() / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                int high = Character.digit(hex.charAt(2 * i), 16);
+                int low = Character.digit(hex.charAt(2 * i + 1), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                bytes[i] = (byte) (high << 4 | low);
+            }
+            return new Slot(new String(bytes, StandardCharsets.UTF_8), field, false);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.scalar.maven.core.authentication;
+
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The credentials of the security schemes prefilled for a single request, such
+ * as the bearer token of the user viewing the page.
+ *
+ * <p>
+ * They are filled into the page rendered for the configuration without them,
+ * see {@link ScalarCredentialOverlay}, so pages with credentials are rendered
+ * no more often than pages without.
+ * </p>
+ */
+public final class ScalarCredentials {
+
+    /**
+     * The token of an {@code http} security scheme.
+     */
+    public static final String TOKEN = "token";
+
+    /**
+     * The username of an {@code http} security scheme.
+     */
+    public static final String USERNAME = "username";
+
+    /**
+     * The password of an {@code http} security scheme.
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * The value of an {@code apiKey} security scheme.
+     */
+    public static final String VALUE = "value";
+
+    static final Set<String> HTTP_FIELDS = Set.of(TOKEN, USERNAME, PASSWORD);
+
+    static final Set<String> API_KEY_FIELDS = Set.of(VALUE);
+
+    private final Map<String, Map<String, String>> values = new LinkedHashMap<>();
+
+    /**
+     * Sets a credential.
+     *
+     * @param scheme the name of the security scheme
+     * @param field  the field of the security scheme, such as {@link #TOKEN}
+     * @param value  the value
+     * @return these credentials
+     */
+    public ScalarCredentials put(String scheme, String field, String value) {
+        Objects.requireNonNull(scheme, "scheme must not be null");
+        if (!HTTP_FIELDS.contains(field) && !API_KEY_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Unknown credential field: " + field);
+        }
+        values.computeIfAbsent(scheme, key -> new LinkedHashMap<>()).put(field, value);
+        return this;
+    }
+
+    /**
+     * Gets a credential.
+     *
+     * @param scheme the name of the security scheme
+     * @param field  the field of the security scheme
+     * @return the value, or {@code null} if it is not set
+     */
+    public String get(String scheme, String field) {
+        return values.getOrDefault(scheme, Collections.emptyMap()).get(field);
+    }
+
+    /**
+     * Checks whether no credential is set.
+     *
+     * @return whether the credentials are empty
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Gets the bearer token of a Spring Security {@code Authentication} as the
+     * token of {@code http} security schemes.
+     *
+     * <p>
+     * The token is taken from authentications with an OAuth2 token, such as
+     * {@code JwtAuthenticationToken} and {@code BearerTokenAuthentication},
+     * through their {@code getToken()}. Other credentials, such as passwords,
+     * are never prefilled. The authentication is inspected by reflection, so
+     * Spring Security is not required to be on the classpath.
+     * </p>
+     *
+     * @param authentication the authentication, may be {@code null}
+     * @param authOptions    the configured authentication options
+     * @param schemes        the names of the schemes to fill, or {@code null} or
+     *                       empty for all {@code http} schemes
+     * @return the credentials, or {@code null} if the authentication has no
+     * bearer token
+     */
+    public static ScalarCredentials ofBearerToken(Object authentication, ScalarAuthenticationOptions authOptions,
+                                                  Collection<String> schemes) {
+        String token = bearerToken(authentication);
+        if (token == null || authOptions == null || authOptions.getSecuritySchemes() == null) {
+            return null;
+        }
+        ScalarCredentials credentials = new ScalarCredentials();
+        authOptions.getSecuritySchemes().forEach((name, scheme) -> {
+            if (scheme instanceof ScalarHttpSecurityScheme && (schemes == null || schemes.isEmpty() || schemes.contains(name))) {
+                credentials.put(name, TOKEN, token);
+            }
+        });
+        return credentials.isEmpty() ? null : credentials;
+    }
+
+    private static String bearerToken(Object authentication) {
+        if (authentication == null || !Boolean.TRUE.equals(invoke(authentication, "isAuthenticated"))) {
+            return null;
+        }
+        Object token = invoke(authentication, "getToken");
+        if (token instanceof String) {
+            return (String) token;
+        }
+        Object value = token != null ? invoke(token, "getTokenValue") : null;
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static Object invoke(Object target, String name) {
+        try {
+            Method method = target.getClass().getMethod(name);
+            return method.invoke(target);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
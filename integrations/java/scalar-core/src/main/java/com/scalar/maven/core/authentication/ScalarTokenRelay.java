@@ -0,0 +1,521 @@
+package com.scalar.maven.core.authentication;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.authentication.flows.ClientCredentialsFlow;
+import com.scalar.maven.core.authentication.flows.OAuthFlow;
+import com.scalar.maven.core.authentication.flows.PasswordFlow;
+import com.scalar.maven.core.authentication.flows.ScalarFlows;
+import com.scalar.maven.core.authentication.schemes.ScalarOAuth2SecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarSecurityScheme;
+import com.scalar.maven.core.enums.CredentialsLocation;
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import com.scalar.maven.core.proxy.ScalarProxyException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests the OAuth2 tokens of the client credentials and password flows on
+ * behalf of the API client, so every developer session is served from one
+ * cached token instead of asking the identity provider itself.
+ *
+ * <p>
+ * A token is requested with the client secret, and for the password flow the
+ * username and password, of the configured flow, which therefore never reach
+ * the browser: the page sees the flows with their {@code tokenUrl} pointing at
+ * the token endpoint of the integration instead, see {@link #relayed}. Tokens
+ * are cached by security scheme, flow and set of scopes, until
+ * {@code refreshMargin} before they expire. Concurrent requests for a token
+ * that is not cached wait for the same request to the identity provider.
+ * Tokens without an {@code expires_in} are not cached, and refresh tokens are
+ * not handed to the API client.
+ * </p>
+ *
+ * <p>
+ * Only the scopes declared for a flow, its {@code selectedScopes} and the
+ * {@code defaultScopes} of its security scheme, may be requested, so callers
+ * of the token endpoint cannot obtain tokens for other scopes the client is
+ * allowed, nor grow the token cache with arbitrary scopes.
+ * </p>
+ */
+public class ScalarTokenRelay {
+
+    /**
+     * The default time before a token expires at which it is requested again.
+     */
+    public static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofSeconds(30);
+
+    /**
+     * The default timeout for the requests to the identity provider.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The query parameter of the token endpoint naming the security scheme.
+     */
+    public static final String SCHEME_PARAMETER = "scheme";
+
+    /**
+     * The maximum number of cached tokens, since the API client chooses among
+     * the declared scopes.
+     */
+    private static final int MAX_TOKENS = 256;
+
+    private final ScalarAuthenticationOptions authentication;
+    private final HttpClient httpClient;
+    private final Duration refreshMargin;
+    private final Duration timeout;
+
+    private final Map<String, Token> tokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Token> eldest) {
+            return size() > MAX_TOKENS;
+        }
+    };
+    private final Map<String, CompletableFuture<Token>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a relay with its own {@link HttpClient}.
+     *
+     * @param authentication the authentication options with the OAuth2 flows
+     * @param refreshMargin  the time before a token expires at which it is
+     *                       requested again
+     * @param timeout        the timeout for the requests to the identity provider
+     */
+    public ScalarTokenRelay(ScalarAuthenticationOptions authentication, Duration refreshMargin, Duration timeout) {
+        this(HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build(), authentication, refreshMargin, timeout);
+    }
+
+    /**
+     * Creates a relay that requests tokens with the given {@link HttpClient}.
+     *
+     * @param httpClient     the client to request tokens with
+     * @param authentication the authentication options with the OAuth2 flows
+     * @param refreshMargin  the time before a token expires at which it is
+     *                       requested again
+     * @param timeout        the timeout for the requests to the identity provider
+     */
+    public ScalarTokenRelay(HttpClient httpClient, ScalarAuthenticationOptions authentication,
+                            Duration refreshMargin, Duration timeout) {
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
+        this.authentication = authentication;
+        this.refreshMargin = Objects.requireNonNull(refreshMargin, "refreshMargin must not be null");
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+    }
+
+    /**
+     * Creates a relay for the authentication options and refresh margin of the
+     * configuration properties.
+     *
+     * @param properties the configuration properties
+     * @return the relay
+     */
+    public static ScalarTokenRelay of(ScalarProperties properties) {
+        return new ScalarTokenRelay(properties.getAuthentication(), properties.getTokenRelayRefreshMargin(),
+                DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Gets a token for the API client, waiting for the identity provider unless
+     * it is cached.
+     *
+     * @param scheme    the name of the OAuth2 security scheme
+     * @param grantType the {@code grant_type} the API client asked for, or
+     *                  {@code null} for the flow the scheme has
+     * @param scopes    the scopes the API client asked for
+     * @return the token
+     * @throws ScalarProxyException   as {@link #tokenAsync} completes with it
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public Token token(String scheme, String grantType, Collection<String> scopes)
+            throws ScalarProxyException, InterruptedIOException {
+        try {
+            return tokenAsync(scheme, grantType, scopes).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the token");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScalarProxyException) {
+                throw (ScalarProxyException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets a token for the API client without blocking, from the cache or else
+     * from the identity provider.
+     *
+     * @param scheme    the name of the OAuth2 security scheme
+     * @param grantType the {@code grant_type} the API client asked for, or
+     *                  {@code null} for the flow the scheme has
+     * @param scopes    the scopes the API client asked for
+     * @return the token, or a future completed exceptionally with a
+     * {@link ScalarProxyException} with status {@code 404} for a scheme without
+     * such a flow, {@code 400} for scopes not declared for the flow, the status
+     * of the identity provider if it refuses the request, and {@code 502} or
+     * {@code 504} if it cannot be reached in time
+     */
+    public CompletableFuture<Token> tokenAsync(String scheme, String grantType, Collection<String> scopes) {
+        OAuthFlow flow = flow(scheme, grantType);
+        if (flow == null) {
+            return CompletableFuture.failedFuture(new ScalarProxyException(404,
+                    "No client credentials or password flow is configured for the security scheme " + scheme));
+        }
+        TreeSet<String> requested = new TreeSet<>(scopes != null ? scopes : List.of());
+        Set<String> undeclared = new TreeSet<>(requested);
+        undeclared.removeAll(declaredScopes(scheme, flow));
+        if (!undeclared.isEmpty()) {
+            return CompletableFuture.failedFuture(new ScalarProxyException(400,
+                    "The scopes " + undeclared + " are not declared for the security scheme " + scheme));
+        }
+        String scope = String.join(" ", requested);
+        String key = scheme + '\n' + grantTypeOf(flow) + '\n' + scope;
+        synchronized (tokens) {
+            Token cached = tokens.get(key);
+            if (cached != null && cached.isValid(refreshMargin)) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        // Only the first caller asks the identity provider, the others wait for its answer
+        CompletableFuture<Token> created = new CompletableFuture<>();
+        CompletableFuture<Token> refresh = refreshes.putIfAbsent(key, created);
+        if (refresh != null) {
+            return refresh;
+        }
+        CompletableFuture<Token> response;
+        try {
+            response = request(flow, scope);
+        } catch (IllegalArgumentException e) {
+            response = CompletableFuture.failedFuture(new ScalarProxyException(502,
+                    "The token URL of the security scheme " + scheme + " is invalid", e));
+        }
+        response.whenComplete((token, e) -> {
+            if (token != null && token.expiring) {
+                synchronized (tokens) {
+                    tokens.put(key, token);
+                }
+            }
+            refreshes.remove(key, created);
+            if (e != null) {
+                created.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e);
+            } else {
+                created.complete(token);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Splits the {@code scope} parameter of a token request.
+     *
+     * @param scope the space separated scopes, may be {@code null}
+     * @return the scopes
+     */
+    public static List<String> scopesOf(String scope) {
+        return scope == null || scope.isBlank() ? List.of() : List.of(scope.trim().split("\\s+"));
+    }
+
+    /**
+     * Gets the number of cached tokens.
+     *
+     * @return the number of tokens
+     */
+    public int getTokenCount() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    /**
+     * Copies the authentication options for the page, with the client
+     * credentials and password flows requesting their tokens from the token
+     * endpoint, and without their client secrets and passwords.
+     *
+     * @param authentication the configured authentication options, may be
+     *                       {@code null}
+     * @param tokenUrl       the URL of the token endpoint
+     * @return the options for the page
+     */
+    public static ScalarAuthenticationOptions relayed(ScalarAuthenticationOptions authentication, String tokenUrl) {
+        if (authentication == null || authentication.getSecuritySchemes() == null) {
+            return authentication;
+        }
+        Map<String, ScalarSecurityScheme> schemes = new LinkedHashMap<>();
+        authentication.getSecuritySchemes().forEach((name, scheme) -> schemes.put(name,
+                scheme instanceof ScalarOAuth2SecurityScheme
+                        ? relayed((ScalarOAuth2SecurityScheme) scheme, tokenUrl(tokenUrl, name))
+                        : scheme));
+        ScalarAuthenticationOptions copy = new ScalarAuthenticationOptions();
+        copy.setPreferredSecuritySchemes(authentication.getPreferredSecuritySchemes());
+        copy.setSecuritySchemes(schemes);
+        return copy;
+    }
+
+    private static ScalarOAuth2SecurityScheme relayed(ScalarOAuth2SecurityScheme scheme, String tokenUrl) {
+        ScalarFlows flows = scheme.getFlows();
+        if (flows == null || flows.getClientCredentials() == null && flows.getPassword() == null) {
+            return scheme;
+        }
+        ScalarFlows relayedFlows = new ScalarFlows();
+        relayedFlows.setImplicit(flows.getImplicit());
+        relayedFlows.setAuthorizationCode(flows.getAuthorizationCode());
+        if (flows.getClientCredentials() != null) {
+            ClientCredentialsFlow flow = flows.getClientCredentials();
+            ClientCredentialsFlow relayedFlow = new ClientCredentialsFlow();
+            copy(flow, relayedFlow);
+            relayedFlow.setTokenUrl(tokenUrl);
+            relayedFlow.setCredentialsLocation(flow.getCredentialsLocation());
+            relayedFlows.setClientCredentials(relayedFlow);
+        }
+        if (flows.getPassword() != null) {
+            PasswordFlow flow = flows.getPassword();
+            PasswordFlow relayedFlow = new PasswordFlow();
+            copy(flow, relayedFlow);
+            relayedFlow.setTokenUrl(tokenUrl);
+            relayedFlow.setUsername(flow.getUsername());
+            relayedFlow.setCredentialsLocation(flow.getCredentialsLocation());
+            relayedFlows.setPassword(relayedFlow);
+        }
+        ScalarOAuth2SecurityScheme copy = new ScalarOAuth2SecurityScheme();
+        copy.setDescription(scheme.getDescription());
+        copy.setDefaultScopes(scheme.getDefaultScopes());
+        copy.setFlows(relayedFlows);
+        return copy;
+    }
+
+    private static void copy(OAuthFlow flow, OAuthFlow copy) {
+        copy.setRefreshUrl(flow.getRefreshUrl());
+        copy.setSelectedScopes(flow.getSelectedScopes());
+        copy.setClientId(flow.getClientId());
+        copy.setToken(flow.getToken());
+        copy.setAdditionalQueryParameters(flow.getAdditionalQueryParameters());
+        copy.setTokenName(flow.getTokenName());
+    }
+
+    private static String tokenUrl(String tokenUrl, String scheme) {
+        return tokenUrl + '?' + SCHEME_PARAMETER + '=' + URLEncoder.encode(scheme, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the flow of a security scheme for a grant type.
+     */
+    private OAuthFlow flow(String scheme, String grantType) {
+        if (scheme == null || authentication == null || authentication.getSecuritySchemes() == null
+                || !(authentication.getSecuritySchemes().get(scheme) instanceof ScalarOAuth2SecurityScheme)) {
+            return null;
+        }
+        ScalarFlows flows = ((ScalarOAuth2SecurityScheme) authentication.getSecuritySchemes().get(scheme)).getFlows();
+        if (flows == null) {
+            return null;
+        }
+        ClientCredentialsFlow clientCredentials = flows.getClientCredentials();
+        PasswordFlow password = flows.getPassword();
+        if (clientCredentials != null && clientCredentials.getTokenUrl() != null
+                && (grantType == null || "client_credentials".equals(grantType))) {
+            return clientCredentials;
+        }
+        if (password != null && password.getTokenUrl() != null && (grantType == null || "password".equals(grantType))) {
+            return password;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the scopes that may be requested for a flow: its selected scopes and
+     * the default scopes of its security scheme.
+     */
+    private Set<String> declaredScopes(String scheme, OAuthFlow flow) {
+        Set<String> declared = new HashSet<>();
+        if (flow.getSelectedScopes() != null) {
+            declared.addAll(flow.getSelectedScopes());
+        }
+        List<String> defaultScopes = ((ScalarOAuth2SecurityScheme) authentication.getSecuritySchemes().get(scheme))
+                .getDefaultScopes();
+        if (defaultScopes != null) {
+            declared.addAll(defaultScopes);
+        }
+        return declared;
+    }
+
+    private static String grantTypeOf(OAuthFlow flow) {
+        return flow instanceof PasswordFlow ? "password" : "client_credentials";
+    }
+
+    private CompletableFuture<Token> request(OAuthFlow flow, String scope) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("grant_type", grantTypeOf(flow));
+        String tokenUrl;
+        String clientId;
+        String clientSecret;
+        CredentialsLocation credentialsLocation;
+        Map<String, String> additionalBodyParameters;
+        if (flow instanceof PasswordFlow) {
+            PasswordFlow password = (PasswordFlow) flow;
+            form.put("username", password.getUsername());
+            form.put("password", password.getPassword());
+            tokenUrl = password.getTokenUrl();
+            clientId = password.getClientId();
+            clientSecret = password.getClientSecret();
+            credentialsLocation = password.getCredentialsLocation();
+            additionalBodyParameters = password.getAdditionalBodyParameters();
+        } else {
+            ClientCredentialsFlow clientCredentials = (ClientCredentialsFlow) flow;
+            tokenUrl = clientCredentials.getTokenUrl();
+            clientId = clientCredentials.getClientId();
+            clientSecret = clientCredentials.getClientSecret();
+            credentialsLocation = clientCredentials.getCredentialsLocation();
+            additionalBodyParameters = clientCredentials.getAdditionalBodyParameters();
+        }
+        if (!scope.isEmpty()) {
+            form.put("scope", scope);
+        }
+        if (additionalBodyParameters != null) {
+            additionalBodyParameters.forEach(form::putIfAbsent);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(tokenUrl))
+                .timeout(timeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Accept", "application/json");
+        if (credentialsLocation == CredentialsLocation.BODY) {
+            form.put("client_id", clientId);
+            form.put("client_secret", clientSecret);
+        } else if (clientId != null) {
+            // The credentials are form encoded before they are put together, see RFC 6749, section 2.3.1
+            String credentials = encode(clientId) + ':' + encode(Objects.requireNonNullElse(clientSecret, ""));
+            request.header("Authorization", "Basic "
+                    + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        StringJoiner body = new StringJoiner("&");
+        form.forEach((name, value) -> {
+            if (value != null) {
+                body.add(encode(name) + '=' + encode(value));
+            }
+        });
+        HttpRequest built = request.POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+
+        return httpClient.sendAsync(built, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    return CompletableFuture.failedFuture(cause instanceof IOException
+                            ? failure(built.uri(), (IOException) cause) : cause);
+                })
+                .thenApply(response -> token(built.uri(), response));
+    }
+
+    private static Token token(URI tokenUrl, HttpResponse<byte[]> response) {
+        if (response.statusCode() >= 400 && response.statusCode() < 500) {
+            // Let the API client show why the identity provider refused the request
+            throw new CompletionException(new ScalarProxyException(response.statusCode(),
+                    new String(response.body(), StandardCharsets.UTF_8)));
+        }
+        Object parsed;
+        try {
+            parsed = response.statusCode() == 200 ? JacksonJsonSerializer.parse(response.body()) : null;
+        } catch (RuntimeException e) {
+            parsed = null;
+        }
+        if (!(parsed instanceof Map) || !(((Map<?, ?>) parsed).get("access_token") instanceof String)) {
+            throw new CompletionException(new ScalarProxyException(502, tokenUrl + " did not respond with a token"));
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        ((Map<?, ?>) parsed).forEach((name, value) -> fields.put(String.valueOf(name), value));
+        fields.remove("refresh_token");
+        Object expiresIn = fields.get("expires_in");
+        if (expiresIn instanceof String && ((String) expiresIn).matches("\\d{1,9}")) {
+            expiresIn = Long.parseLong((String) expiresIn);
+        }
+        if (expiresIn instanceof Number) {
+            return new Token(fields, true,
+                    System.nanoTime() + TimeUnit.SECONDS.toNanos(((Number) expiresIn).longValue()));
+        }
+        return new Token(fields, false, 0);
+    }
+
+    private static ScalarProxyException failure(URI tokenUrl, IOException e) {
+        if (e instanceof HttpTimeoutException && !(e instanceof HttpConnectTimeoutException)) {
+            return new ScalarProxyException(504, tokenUrl + " did not respond in time", e);
+        }
+        String reason = e instanceof ConnectException || e instanceof HttpConnectTimeoutException
+                ? " could not be reached" : " failed: " + e.getMessage();
+        return new ScalarProxyException(502, "The request to " + tokenUrl + reason, e);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A token of the identity provider.
+     */
+    public static final class Token {
+
+        private final Map<String, Object> fields;
+        private final boolean expiring;
+        private final long expiresAt;
+
+        private Token(Map<String, Object> fields, boolean expiring, long expiresAt) {
+            this.fields = fields;
+            this.expiring = expiring;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Gets the access token.
+         *
+         * @return the access token
+         */
+        public String getAccessToken() {
+            return (String) fields.get("access_token");
+        }
+
+        /**
+         * Gets the response of the token endpoint for the API client, with the
+         * {@code expires_in} left of the cached token.
+         *
+         * @return the response as JSON
+         */
+        public String toJson() {
+            Map<String, Object> response = new LinkedHashMap<>(fields);
+            if (expiring) {
+                response.put("expires_in", Math.max(0, TimeUnit.NANOSECONDS.toSeconds(expiresAt - System.nanoTime())));
+            }
+            return JacksonJsonSerializer.serialize(response);
+        }
+
+        private boolean isValid(Duration refreshMargin) {
+            return expiring && expiresAt - System.nanoTime() > refreshMargin.toNanos();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.scalar.maven.core.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Defines an upstream service whose OpenAPI document is merged into the
+ * aggregated document.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScalarUpstream {
+
+    /**
+     * The URL of the OpenAPI document of the service.
+     */
+    private String url;
+
+    /**
+     * The name of the service, used to rename its components when another
+     * service already uses their names.
+     * optional, defaults to the position of the upstream
+     */
+    private String name;
+
+    /**
+     * The prefix put in front of the paths of the service, such as
+     * {@code /orders}.
+     * optional
+     */
+    private String pathPrefix;
+
+    /**
+     * Creates an upstream.
+     * {@link #url} must be set
+     */
+    public ScalarUpstream() {
+    }
+
+    /**
+     * Creates an upstream.
+     *
+     * @param url        the URL of the OpenAPI document of the service
+     * @param name       the name of the service
+     * @param pathPrefix the prefix put in front of the paths of the service
+     */
+    public ScalarUpstream(String url, String name, String pathPrefix) {
+        this.url = url;
+        this.name = name;
+        this.pathPrefix = pathPrefix;
+    }
+
+    /**
+     * Gets the URL of the OpenAPI document of the service.
+     *
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets the URL of the OpenAPI document of the service.
+     *
+     * @param url the url
+     */
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Gets the name of the service.
+     *
+     * @return the name or null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the service.
+     *
+     * @param name the name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the prefix put in front of the paths of the service.
+     *
+     * @return the path prefix or null
+     */
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    /**
+     * Sets the prefix put in front of the paths of the service.
+     *
+     * @param pathPrefix the path prefix
+     */
+    public void setPathPrefix(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+}
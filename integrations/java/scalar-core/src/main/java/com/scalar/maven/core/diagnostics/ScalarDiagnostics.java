@@ -0,0 +1,328 @@
+package com.scalar.maven.core.diagnostics;
+
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import com.scalar.maven.core.internal.ScalarAssets;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time snapshot of the in-memory state of the Scalar API Reference:
+ * the loaded assets, the render cache and the serialization engine.
+ *
+ * <p>
+ * Use {@link #capture()} to take a snapshot and {@link #evictCaches()} to drop
+ * everything Scalar holds in memory. Framework integrations expose both through
+ * a management endpoint so the memory footprint can be inspected and tuned at
+ * runtime.
+ * </p>
+ */
+public final class ScalarDiagnostics {
+
+    private final Bundle bundle;
+    private final Template template;
+    private final RenderCache renderCache;
+    private final String serializerEngine;
+    private final long warmUpMillis;
+
+    private ScalarDiagnostics(Bundle bundle, Template template, RenderCache renderCache,
+                              String serializerEngine, long warmUpMillis) {
+        this.bundle = bundle;
+        this.template = template;
+        this.renderCache = renderCache;
+        this.serializerEngine = serializerEngine;
+        this.warmUpMillis = warmUpMillis;
+    }
+
+    /**
+     * Takes a snapshot of the current state, reporting the bundle and the render
+     * cache of the shared asset service.
+     *
+     * @return the snapshot
+     */
+    public static ScalarDiagnostics capture() {
+        return capture(ScalarAssetService.shared());
+    }
+
+    /**
+     * Takes a snapshot of the current state, reporting the bundle and the render
+     * cache of the given asset service. The render caches of the
+     * {@link com.scalar.maven.core.ScalarInstance instances} are not included;
+     * see {@link com.scalar.maven.core.ScalarInstance#getCachedPageCount()}.
+     *
+     * @param assetService the asset service the bundle and pages are served from
+     * @return the snapshot
+     */
+    public static ScalarDiagnostics capture(ScalarAssetService assetService) {
+        Bundle bundle = new Bundle(
+                ScalarAssets.isBundleLoaded(),
+                ScalarAssets.getLoadedBundleSize(),
+                ScalarAssets.getLoadedBundleHash(),
+                encodings(assetService.getLoadedBundle()));
+        Template template = new Template(ScalarAssets.isTemplateLoaded(), ScalarAssets.getLoadedTemplateHash());
+
+        ScalarRenderCache cache = assetService.getRenderCache();
+        RenderCache renderCache = new RenderCache(cache.size(), cache.getMaximumSize(), cache.getHits(),
+                cache.getMisses(), cache.getEvictions(), cache.estimateBytes());
+
+        String serializerEngine;
+        try {
+            serializerEngine = JacksonJsonSerializer.getEngineName();
+        } catch (IllegalStateException e) {
+            serializerEngine = "unavailable";
+        }
+
+        long warmUpNanos = ScalarAssets.getLoadNanos() + JacksonJsonSerializer.getResolutionNanos();
+        return new ScalarDiagnostics(bundle, template, renderCache, serializerEngine,
+                TimeUnit.NANOSECONDS.toMillis(warmUpNanos));
+    }
+
+    /**
+     * Drops the rendered pages and the in-memory copies of the assets, including
+     * those of the shared asset service. Everything is loaded again on the next
+     * request.
+     */
+    public static void evictCaches() {
+        evictCaches(ScalarAssetService.shared());
+    }
+
+    /**
+     * Drops the rendered pages and the in-memory copies of the assets, including
+     * those held by the given asset service and its render cache. Everything is
+     * loaded again on the next request. The render caches of the
+     * {@link com.scalar.maven.core.ScalarInstance instances} are not cleared;
+     * see {@link com.scalar.maven.core.ScalarInstance#evict()}.
+     *
+     * @param assetService the asset service the bundle and pages are served from
+     */
+    public static void evictCaches(ScalarAssetService assetService) {
+        ScalarRenderCache.shared().clear();
+        assetService.evict();
+        ScalarAssets.evict();
+    }
+
+    private static List<String> encodings(ScalarDocument bundle) {
+        if (bundle == null) {
+            return ScalarAssets.isBundleLoaded() ? List.of("identity") : List.of();
+        }
+        return bundle.hasGzipContent() ? List.of("identity", "gzip") : List.of("identity");
+    }
+
+    /**
+     * Gets the state of the JavaScript bundle.
+     *
+     * @return the bundle state
+     */
+    public Bundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * Gets the state of the HTML template.
+     *
+     * @return the template state
+     */
+    public Template getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the statistics of the render cache.
+     *
+     * @return the render cache statistics
+     */
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Gets the Jackson version used to serialize the configuration.
+     *
+     * @return {@code Jackson 3}, {@code Jackson 2} or {@code unavailable}
+     */
+    public String getSerializerEngine() {
+        return serializerEngine;
+    }
+
+    /**
+     * Gets the time spent loading, compiling and hashing the assets and
+     * resolving the serialization engine.
+     *
+     * @return the time in milliseconds
+     */
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    /**
+     * State of the JavaScript bundle.
+     */
+    public static final class Bundle {
+        private final boolean loaded;
+        private final long size;
+        private final String hash;
+        private final List<String> encodings;
+
+        private Bundle(boolean loaded, long size, String hash, List<String> encodings) {
+            this.loaded = loaded;
+            this.size = size;
+            this.hash = hash;
+            this.encodings = encodings;
+        }
+
+        /**
+         * Gets whether the bundle is held in memory.
+         *
+         * @return {@code true} if the bundle is loaded
+         */
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        /**
+         * Gets the size of the bundle.
+         *
+         * @return the size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the SHA-256 hash of the bundle.
+         *
+         * @return the hex-encoded hash, or {@code null} if the bundle is not loaded
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Gets the content encodings the bundle is available in.
+         *
+         * @return the content encodings
+         */
+        public List<String> getEncodings() {
+            return encodings;
+        }
+    }
+
+    /**
+     * State of the HTML template.
+     */
+    public static final class Template {
+        private final boolean loaded;
+        private final String fingerprint;
+
+        private Template(boolean loaded, String fingerprint) {
+            this.loaded = loaded;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Gets whether the template is held in memory.
+         *
+         * @return {@code true} if the template is loaded
+         */
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        /**
+         * Gets the SHA-256 hash of the template.
+         *
+         * @return the hex-encoded hash, or {@code null} if the template is not loaded
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+
+    /**
+     * Statistics of the render cache.
+     */
+    public static final class RenderCache {
+        private final int size;
+        private final int maximumSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long estimatedBytes;
+
+        private RenderCache(int size, int maximumSize, long hits, long misses, long evictions, long estimatedBytes) {
+            this.size = size;
+            this.maximumSize = maximumSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        /**
+         * Gets the number of cached pages.
+         *
+         * @return the number of pages
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the maximum number of cached pages.
+         *
+         * @return the maximum number of pages
+         */
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        /**
+         * Gets the number of requests answered from the cache.
+         *
+         * @return the number of hits
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Gets the number of requests not answered from the cache.
+         *
+         * @return the number of misses
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Gets the share of requests answered from the cache.
+         *
+         * @return the hit ratio between {@code 0} and {@code 1}
+         */
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        /**
+         * Gets the number of pages evicted to stay within the maximum size.
+         *
+         * @return the number of evictions
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Gets the estimated heap held by the cached pages.
+         *
+         * @return the estimated size in bytes
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.ScalarAssets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An OpenAPI document held in memory, ready to be served.
+ *
+ * <p>
+ * The document is serialized once. Its gzip-compressed variant and its entity
+ * tag are computed when the document is created, so serving it only copies
+ * bytes: clients that send a matching {@code If-None-Match} header receive a
+ * {@code 304 Not Modified}, and clients that accept gzip receive the
+ * precompressed variant.
+ * </p>
+ */
+public final class ScalarDocument {
+
+    /**
+     * The media type of a JSON OpenAPI document.
+     */
+    public static final String JSON_MEDIA_TYPE = "application/json";
+
+    private final byte[] content;
+    private final byte[] gzipContent;
+    private final String eTag;
+    private final String mediaType;
+    private final ScalarDocument original;
+    private volatile String scriptSafeContent;
+    private volatile ScalarDocumentFragments fragments;
+    private volatile ScalarDocumentCompaction compaction;
+    private volatile ScalarSearchIndex searchIndex;
+    private volatile ScalarSearchIndex previousSearchIndex;
+
+    private ScalarDocument(byte[] content, byte[] gzipContent, String eTag, String mediaType,
+                           ScalarDocument original) {
+        this.content = content;
+        this.gzipContent = gzipContent;
+        this.eTag = eTag;
+        this.mediaType = mediaType;
+        this.original = original;
+    }
+
+    /**
+     * Creates a document from its serialized content.
+     *
+     * <p>
+     * The content is copied, so the caller may reuse the array afterwards.
+     * </p>
+     *
+     * @param content   the serialized document
+     * @param mediaType the media type of the serialized document
+     * @return the document
+     */
+    public static ScalarDocument of(byte[] content, String mediaType) {
+        Objects.requireNonNull(content, "content must not be null");
+        return of(content.clone(), mediaType, null);
+    }
+
+    /**
+     * Creates a document from its serialized content and a gzip-compressed
+     * variant that was computed before, such as the files of an exported
+     * {@link com.scalar.maven.core.ScalarSite}.
+     *
+     * <p>
+     * The arrays are not copied, so the caller must not modify them afterwards.
+     * </p>
+     *
+     * @param content     the serialized document
+     * @param gzipContent the gzip-compressed document, or {@code null} to compress it
+     * @param mediaType   the media type of the serialized document
+     * @return the document
+     */
+    public static ScalarDocument of(byte[] content, byte[] gzipContent, String mediaType) {
+        Objects.requireNonNull(content, "content must not be null");
+        if (gzipContent == null) {
+            return of(content, mediaType, null);
+        }
+        return of(content, gzipContent, ScalarAssets.sha256(content), mediaType, null);
+    }
+
+    /**
+     * Creates a document derived from another one, such as its minified JSON form.
+     *
+     * @param content   the serialized document, not copied
+     * @param mediaType the media type of the serialized document
+     * @param original  the document this one was derived from, or {@code null}
+     * @return the document
+     */
+    static ScalarDocument of(byte[] content, String mediaType, ScalarDocument original) {
+        Objects.requireNonNull(content, "content must not be null");
+        return of(content, gzip(content), ScalarAssets.sha256(content), mediaType, original);
+    }
+
+    /**
+     * Creates a document from buffers that were computed while it was written,
+     * see {@link ScalarDocumentWriter}.
+     *
+     * @param content     the serialized document, not copied
+     * @param gzipContent the gzip-compressed document, not copied
+     * @param sha256      the hex-encoded SHA-256 hash of the serialized document
+     * @param mediaType   the media type of the serialized document
+     * @param original    the document this one was derived from, or {@code null}
+     * @return the document
+     */
+    static ScalarDocument of(byte[] content, byte[] gzipContent, String sha256, String mediaType,
+                             ScalarDocument original) {
+        Objects.requireNonNull(mediaType, "mediaType must not be null");
+        return new ScalarDocument(content, gzipContent.length < content.length ? gzipContent : null,
+                '"' + sha256.substring(0, 32) + '"', mediaType, original);
+    }
+
+    /**
+     * Gets the serialized document.
+     *
+     * <p>
+     * The returned array is shared between all callers and must not be modified.
+     * </p>
+     *
+     * @return the serialized document
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Gets whether a gzip-compressed variant is available. There is none when
+     * compressing does not make the document smaller.
+     *
+     * @return {@code true} if {@link #getGzipContent()} returns a variant
+     */
+    public boolean hasGzipContent() {
+        return gzipContent != null;
+    }
+
+    /**
+     * Gets the gzip-compressed variant of the document.
+     *
+     * <p>
+     * The returned array is shared between all callers and must not be modified.
+     * </p>
+     *
+     * @return the compressed document, or {@code null} if there is no compressed variant
+     */
+    public byte[] getGzipContent() {
+        return gzipContent;
+    }
+
+    /**
+     * Gets the strong entity tag of the document, including the surrounding quotes.
+     *
+     * @return the entity tag
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the media type of the serialized document.
+     *
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the document as it was loaded, before it was optimized.
+     *
+     * @return the original document, or this document if it was not optimized
+     * @see ScalarDocumentOptimizer
+     */
+    public ScalarDocument getOriginal() {
+        return original != null ? original : this;
+    }
+
+    /**
+     * Gets whether this document is the optimized form of another document.
+     *
+     * @return {@code true} if {@link #getOriginal()} returns a different document
+     */
+    public boolean isOptimized() {
+        return original != null;
+    }
+
+    /**
+     * Gets the JSON document in a form that can be placed inside an HTML
+     * {@code <script>} element, computed on first access.
+     *
+     * <p>
+     * Every {@code <} is written as a JSON unicode escape, so sequences such as
+     * {@code </script>} or {@code <!--} inside string values cannot end the
+     * script element early. The line and paragraph separators
+     * U+2028 and U+2029 are escaped as well. Outside of string values these
+     * characters cannot occur in JSON, so the result is an equivalent document.
+     * </p>
+     *
+     * @return the escaped document
+     * @throws IllegalStateException if the document is not JSON
+     */
+    public String getScriptSafeContent() {
+        if (!JSON_MEDIA_TYPE.equals(mediaType)) {
+            throw new IllegalStateException("Only JSON documents can be embedded, not " + mediaType);
+        }
+        String local = scriptSafeContent;
+        if (local == null) {
+            local = escapeForScript(new String(content, StandardCharsets.UTF_8));
+            scriptSafeContent = local;
+        }
+        return local;
+    }
+
+    /**
+     * Gets the skeleton and per-tag fragments of this document, splitting it on
+     * first access, see {@link ScalarDocumentSplitter}. The fragments are kept
+     * with the document, so they are replaced when the document is.
+     *
+     * @return the fragments; not {@linkplain ScalarDocumentFragments#isSplit()
+     * split} if the document cannot be split
+     */
+    public ScalarDocumentFragments getFragments() {
+        ScalarDocumentFragments local = fragments;
+        if (local == null) {
+            synchronized (this) {
+                local = fragments;
+                if (local == null) {
+                    local = ScalarDocumentSplitter.split(this);
+                    fragments = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Gets this document with its duplicate inline schemas replaced by
+     * references, compacting it on first access, see
+     * {@link ScalarDocumentCompactor}. The result is kept with the document, so
+     * it is computed once per version.
+     *
+     * @return the compaction; not {@linkplain ScalarDocumentCompaction#isCompacted()
+     * compacted} if the document has no duplicates or cannot be compacted
+     */
+    public ScalarDocumentCompaction getCompaction() {
+        ScalarDocumentCompaction local = compaction;
+        if (local == null) {
+            synchronized (this) {
+                local = compaction;
+                if (local == null) {
+                    local = ScalarDocumentCompactor.compact(this);
+                    compaction = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Gets the search index of this document, building it on first access, see
+     * {@link ScalarSearchIndex}.
+     *
+     * @return the index; without a {@linkplain ScalarSearchIndex#getDocument()
+     * document} if this document cannot be indexed
+     */
+    public ScalarSearchIndex getSearchIndex() {
+        ScalarSearchIndex local = searchIndex;
+        if (local == null) {
+            synchronized (this) {
+                local = searchIndex;
+                if (local == null) {
+                    local = ScalarSearchIndex.build(this, previousSearchIndex);
+                    searchIndex = local;
+                    previousSearchIndex = null;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Marks this document as the new version of another, so its search index is
+     * built from the index of the previous version. Only the index is kept, not
+     * the previous document.
+     *
+     * @param previous the previous version of the document
+     */
+    void replaces(ScalarDocument previous) {
+        ScalarSearchIndex index = previous.searchIndex;
+        previousSearchIndex = index != null ? index : previous.previousSearchIndex;
+    }
+
+    /**
+     * Gets whether the value of an {@code If-None-Match} request header matches
+     * this document, meaning the client already holds the current version.
+     *
+     * @param ifNoneMatch the header value, may be {@code null}
+     * @return {@code true} if the client's copy is current
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether the value of an {@code Accept-Encoding} request header allows
+     * a gzip-compressed response.
+     *
+     * @param acceptEncoding the header value, may be {@code null}
+     * @return {@code true} if gzip is acceptable
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    accepted = !isZero(parameter.substring(2).trim());
+                }
+            }
+            if (coding.equals("gzip")) {
+                gzip = accepted;
+            } else if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        // An explicit gzip entry takes precedence over the wildcard
+        return gzip != null ? gzip : Boolean.TRUE.equals(wildcard);
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String escapeForScript(String json) {
+        StringBuilder builder = null;
+        int copied = 0;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            String escape = switch (c) {
+                case '<' -> "\\u003c";
+                case '\u2028' -> "\\u2028";
+                case '\u2029' -> "\\u2029";
+                default -> null;
+            };
+            if (escape != null) {
+                if (builder == null) {
+                    builder = new StringBuilder(json.length() + 64);
+                }
+                builder.append(json, copied, i).append(escape);
+                copied = i + 1;
+            }
+        }
+        return builder == null ? json : builder.append(json, copied, json.length()).toString();
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
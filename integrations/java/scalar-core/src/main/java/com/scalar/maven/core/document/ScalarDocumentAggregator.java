@@ -0,0 +1,550 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarUpstream;
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges the OpenAPI documents of several services into one document, for API
+ * gateways that front many services.
+ *
+ * <p>
+ * Instead of every browser fetching the document of every service, the upstream
+ * documents are fetched concurrently through a {@link ScalarDocumentCache} and
+ * merged server-side:
+ * </p>
+ * <ul>
+ * <li>the paths of each service are put behind its path prefix, such as
+ * {@code /orders/items} for {@code /items};</li>
+ * <li>components keep their names unless an earlier service already uses them;
+ * then they are renamed to {@code <service>_<name>} and every reference to them
+ * is updated, including the security requirements naming renamed security
+ * schemes. Duplicate operation ids are renamed the same way;</li>
+ * <li>the security requirements of a document apply to each of its operations
+ * that has none of its own, and tags with the same name are merged;</li>
+ * <li>the {@code x-scalar-upstreams} extension lists the services, their
+ * titles and versions, and the ones that could not be fetched.</li>
+ * </ul>
+ *
+ * <p>
+ * The merged document is kept until an upstream document changes. Each upstream
+ * document is parsed only once per version, so when one service changes, only
+ * its document is parsed again and the others are reused. A service that cannot
+ * be fetched is left out, and tried again on the next request.
+ * </p>
+ *
+ * <p>
+ * Only JSON documents are merged, and only when Jackson is on the classpath.
+ * YAML documents are converted with the {@link ScalarDocumentOptimizer} first.
+ * </p>
+ */
+public class ScalarDocumentAggregator {
+
+    /**
+     * The document id of the aggregated document.
+     */
+    public static final String AGGREGATE_DOCUMENT_ID = "aggregate";
+
+    /**
+     * The extension of the aggregated document listing the services.
+     */
+    public static final String UPSTREAMS_EXTENSION = "x-scalar-upstreams";
+
+    private static final Set<String> METHODS = Set.of(
+            "get", "put", "post", "delete", "options", "head", "patch", "trace", "query");
+
+    private static final String COMPONENTS_REF = "#/components/";
+
+    private static final String PATHS_REF = "#/paths/";
+
+    /**
+     * An upstream document, parsed and put behind its path prefix, with the
+     * places that depend on the names it gets in the merged document.
+     */
+    private static final class Prepared {
+        private final String eTag;
+        private final Map<?, ?> root;
+        private final Map<String, Object> paths = new LinkedHashMap<>();
+        private final List<Map<Object, Object>> refHolders = new ArrayList<>();
+        private final List<String> refs = new ArrayList<>();
+        private final List<Map<Object, Object>> operations = new ArrayList<>();
+        private final List<Object> operationIds = new ArrayList<>();
+        private final List<Object> security = new ArrayList<>();
+
+        private Prepared(String eTag, Map<?, ?> root) {
+            this.eTag = eTag;
+            this.root = root;
+        }
+    }
+
+    /**
+     * A merged document with the versions of the upstream documents it was built
+     * from, {@code null} for the ones that could not be fetched.
+     */
+    private static final class Merged {
+        private final List<String> eTags;
+        private final ScalarDocument document;
+
+        private Merged(List<String> eTags, ScalarDocument document) {
+            this.eTags = eTags;
+            this.document = document;
+        }
+    }
+
+    private final ScalarDocumentCache cache;
+    private final List<ScalarUpstream> upstreams;
+    private final String title;
+    private final Map<Integer, Prepared> prepared = new HashMap<>();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder preparations = new LongAdder();
+    private volatile Merged merged;
+
+    /**
+     * Creates an aggregator.
+     *
+     * @param cache     the cache to fetch the upstream documents through
+     * @param upstreams the services whose documents are merged, in order
+     * @param title     the title of the merged document
+     * @throws IllegalArgumentException if an upstream has no {@code http} or
+     *                                  {@code https} URL
+     */
+    public ScalarDocumentAggregator(ScalarDocumentCache cache, List<ScalarUpstream> upstreams, String title) {
+        this.cache = Objects.requireNonNull(cache, "cache must not be null");
+        this.upstreams = List.copyOf(Objects.requireNonNull(upstreams, "upstreams must not be null"));
+        this.title = Objects.requireNonNullElse(title, "API Reference");
+        for (ScalarUpstream upstream : this.upstreams) {
+            if (!ScalarDocumentCache.isCacheable(upstream.getUrl())) {
+                throw new IllegalArgumentException("Aggregation upstream URL must be http or https: "
+                        + upstream.getUrl());
+            }
+        }
+    }
+
+    /**
+     * Creates an aggregator for the upstreams configured in the properties.
+     *
+     * @param cache      the cache to fetch the upstream documents through
+     * @param properties the configuration properties
+     * @return the aggregator
+     */
+    public static ScalarDocumentAggregator of(ScalarDocumentCache cache, ScalarProperties properties) {
+        Objects.requireNonNull(properties, "properties must not be null");
+        List<ScalarUpstream> upstreams = new ArrayList<>();
+        if (properties.getAggregationUpstreams() != null) {
+            for (ScalarUpstream upstream : properties.getAggregationUpstreams()) {
+                if (upstream != null) {
+                    upstreams.add(upstream);
+                }
+            }
+        }
+        return new ScalarDocumentAggregator(cache, upstreams, properties.getAggregationTitle());
+    }
+
+    /**
+     * Gets the merged document, fetching the upstream documents and merging them
+     * again if one of them changed.
+     *
+     * @return the merged document
+     * @throws IOException if none of the upstream documents can be fetched
+     */
+    public ScalarDocument get() throws IOException {
+        try {
+            return getAsync().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to aggregate OpenAPI documents", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while aggregating OpenAPI documents");
+        }
+    }
+
+    /**
+     * Gets the merged document without blocking. The upstream documents are
+     * fetched concurrently.
+     *
+     * <p>
+     * The returned future fails with an {@link IOException} if none of the
+     * upstream documents can be fetched.
+     * </p>
+     *
+     * @return a future completed with the merged document
+     */
+    public CompletableFuture<ScalarDocument> getAsync() {
+        List<CompletableFuture<ScalarDocument>> fetches = new ArrayList<>(upstreams.size());
+        for (ScalarUpstream upstream : upstreams) {
+            // A service that cannot be fetched is left out
+            fetches.add(cache.getAsync(upstream.getUrl()).exceptionally(error -> null));
+        }
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<ScalarDocument> documents = new ArrayList<>(fetches.size());
+                    for (CompletableFuture<ScalarDocument> fetch : fetches) {
+                        documents.add(fetch.join());
+                    }
+                    return aggregate(documents);
+                });
+    }
+
+    /**
+     * Gets the number of times the merged document was built.
+     *
+     * @return the number of builds
+     */
+    public long getBuilds() {
+        return builds.sum();
+    }
+
+    /**
+     * Gets the number of times an upstream document was parsed. When one service
+     * changes, only its document is parsed again.
+     *
+     * @return the number of parsed upstream documents
+     */
+    public long getPreparations() {
+        return preparations.sum();
+    }
+
+    private synchronized ScalarDocument aggregate(List<ScalarDocument> documents) {
+        List<String> eTags = new ArrayList<>(documents.size());
+        for (ScalarDocument document : documents) {
+            eTags.add(document != null ? document.getETag() : null);
+        }
+        Merged current = merged;
+        if (current != null && current.eTags.equals(eTags)) {
+            return current.document;
+        }
+
+        List<Prepared> parts = new ArrayList<>(documents.size());
+        boolean any = false;
+        for (int i = 0; i < documents.size(); i++) {
+            Prepared part = prepare(i, documents.get(i));
+            parts.add(part);
+            any |= part != null;
+        }
+        if (!any) {
+            throw new CompletionException(new IOException("None of the upstream OpenAPI documents could be fetched"));
+        }
+
+        byte[] content = JacksonJsonSerializer.serialize(merge(parts)).getBytes(StandardCharsets.UTF_8);
+        ScalarDocument document = ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE, null);
+        if (current != null) {
+            document.replaces(current.document);
+        }
+        merged = new Merged(eTags, document);
+        builds.increment();
+        return document;
+    }
+
+    /**
+     * Parses an upstream document, reusing the result for an unchanged version.
+     *
+     * @return the prepared document, or {@code null} if it is missing or cannot
+     * be parsed
+     */
+    private Prepared prepare(int index, ScalarDocument document) {
+        if (document == null) {
+            return null;
+        }
+        Prepared previous = prepared.get(index);
+        if (previous != null && previous.eTag.equals(document.getETag())) {
+            return previous;
+        }
+
+        ScalarDocument json = ScalarDocument.JSON_MEDIA_TYPE.equals(document.getMediaType())
+                ? document : ScalarDocumentOptimizer.optimize(document);
+        Object parsed = null;
+        if (ScalarDocument.JSON_MEDIA_TYPE.equals(json.getMediaType())) {
+            try {
+                parsed = JacksonJsonSerializer.parse(json.getContent());
+            } catch (RuntimeException e) {
+                // Malformed, or Jackson is missing
+            }
+        }
+        if (!(parsed instanceof Map)) {
+            prepared.remove(index);
+            return null;
+        }
+
+        Prepared part = new Prepared(document.getETag(), (Map<?, ?>) parsed);
+        String prefix = pathPrefix(upstreams.get(index));
+        Object rootSecurity = part.root.get("security");
+        if (part.root.get("paths") instanceof Map) {
+            for (Map.Entry<?, ?> path : ((Map<?, ?>) part.root.get("paths")).entrySet()) {
+                part.paths.put(prefix + path.getKey(), path.getValue());
+                if (!(path.getValue() instanceof Map)) {
+                    continue;
+                }
+                for (Map.Entry<?, ?> field : ((Map<?, ?>) path.getValue()).entrySet()) {
+                    if (!METHODS.contains(field.getKey()) || !(field.getValue() instanceof Map)) {
+                        continue;
+                    }
+                    Map<Object, Object> operation = asMap(field.getValue());
+                    if (rootSecurity instanceof List && !operation.containsKey("security")) {
+                        operation.put("security", rootSecurity);
+                    }
+                    part.operations.add(operation);
+                    part.operationIds.add(operation.get("operationId"));
+                    part.security.add(operation.get("security"));
+                }
+            }
+        }
+        collectRefs(part.paths, part);
+        collectRefs(part.root.get("components"), part);
+        prepared.put(index, part);
+        preparations.increment();
+        return part;
+    }
+
+    private static void collectRefs(Object value, Prepared part) {
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                collectRefs(element, part);
+            }
+        } else if (value instanceof Map) {
+            Map<Object, Object> object = asMap(value);
+            Object ref = object.get("$ref");
+            if (ref instanceof String
+                    && (((String) ref).startsWith(COMPONENTS_REF) || ((String) ref).startsWith(PATHS_REF))) {
+                part.refHolders.add(object);
+                part.refs.add((String) ref);
+            }
+            for (Object child : object.values()) {
+                collectRefs(child, part);
+            }
+        }
+    }
+
+    /**
+     * Merges the prepared documents, in the order of the upstreams.
+     */
+    private Map<String, Object> merge(List<Prepared> parts) {
+        String openapi = null;
+        List<Object> tags = new ArrayList<>();
+        Set<Object> tagNames = new HashSet<>();
+        Map<String, Object> paths = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> components = new LinkedHashMap<>();
+        Set<Object> usedOperationIds = new HashSet<>();
+        List<Map<String, Object>> services = new ArrayList<>();
+
+        for (int i = 0; i < parts.size(); i++) {
+            ScalarUpstream upstream = upstreams.get(i);
+            String name = serviceName(upstream, i);
+            Map<String, Object> service = new LinkedHashMap<>();
+            service.put("name", name);
+            if (upstream.getPathPrefix() != null) {
+                service.put("pathPrefix", pathPrefix(upstream));
+            }
+            services.add(service);
+
+            Prepared part = parts.get(i);
+            if (part == null) {
+                service.put("failed", true);
+                continue;
+            }
+            if (part.root.get("info") instanceof Map) {
+                Map<?, ?> info = (Map<?, ?>) part.root.get("info");
+                for (String field : List.of("title", "version")) {
+                    if (info.get(field) instanceof String) {
+                        service.put(field, info.get(field));
+                    }
+                }
+            }
+            if (part.root.get("openapi") instanceof String
+                    && (openapi == null || ((String) part.root.get("openapi")).compareTo(openapi) > 0)) {
+                openapi = (String) part.root.get("openapi");
+            }
+
+            // Components keep their names unless an earlier service uses them
+            Map<String, Map<String, String>> renames = new HashMap<>();
+            if (part.root.get("components") instanceof Map) {
+                for (Map.Entry<?, ?> section : ((Map<?, ?>) part.root.get("components")).entrySet()) {
+                    if (!(section.getValue() instanceof Map)) {
+                        continue;
+                    }
+                    String type = String.valueOf(section.getKey());
+                    Map<String, Object> target = components.computeIfAbsent(type, t -> new LinkedHashMap<>());
+                    for (Map.Entry<?, ?> component : ((Map<?, ?>) section.getValue()).entrySet()) {
+                        String original = String.valueOf(component.getKey());
+                        String unique = original;
+                        for (int n = 2; target.containsKey(unique); n++) {
+                            unique = name + "_" + original + (n > 2 ? String.valueOf(n - 1) : "");
+                        }
+                        target.put(unique, component.getValue());
+                        if (!unique.equals(original)) {
+                            renames.computeIfAbsent(type, t -> new HashMap<>()).put(original, unique);
+                        }
+                    }
+                }
+            }
+
+            // References are rewritten from their original values, so renames of
+            // earlier builds do not stick
+            String prefix = pathPrefix(upstream);
+            for (int r = 0; r < part.refHolders.size(); r++) {
+                part.refHolders.get(r).put("$ref", rewriteRef(part.refs.get(r), renames, prefix));
+            }
+            Map<String, String> schemes = renames.getOrDefault("securitySchemes", Map.of());
+            for (int o = 0; o < part.operations.size(); o++) {
+                Map<Object, Object> operation = part.operations.get(o);
+                Object operationId = part.operationIds.get(o);
+                if (operationId != null) {
+                    Object unique = operationId;
+                    for (int n = 2; !usedOperationIds.add(unique); n++) {
+                        unique = name + "_" + operationId + (n > 2 ? String.valueOf(n - 1) : "");
+                    }
+                    operation.put("operationId", unique);
+                }
+                if (part.security.get(o) != null) {
+                    operation.put("security", renameSchemes(part.security.get(o), schemes));
+                }
+            }
+
+            for (Map.Entry<String, Object> path : part.paths.entrySet()) {
+                Object existing = paths.get(path.getKey());
+                if (existing instanceof Map && path.getValue() instanceof Map) {
+                    // Two services share a path: the first one keeps its operations
+                    Map<Object, Object> combined = new LinkedHashMap<>(asMap(existing));
+                    asMap(path.getValue()).forEach(combined::putIfAbsent);
+                    paths.put(path.getKey(), combined);
+                } else if (existing == null) {
+                    paths.put(path.getKey(), path.getValue());
+                }
+            }
+
+            if (part.root.get("tags") instanceof List) {
+                for (Object tag : (List<?>) part.root.get("tags")) {
+                    if (tag instanceof Map && tagNames.add(((Map<?, ?>) tag).get("name"))) {
+                        tags.add(tag);
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("openapi", openapi != null ? openapi : "3.1.0");
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("title", title);
+        info.put("version", "aggregate");
+        root.put("info", info);
+        if (!tags.isEmpty()) {
+            root.put("tags", tags);
+        }
+        root.put("paths", paths);
+        components.values().removeIf(Map::isEmpty);
+        if (!components.isEmpty()) {
+            root.put("components", components);
+        }
+        root.put(UPSTREAMS_EXTENSION, services);
+        return root;
+    }
+
+    /**
+     * Points a reference at the renamed component, or at the prefixed path.
+     */
+    private static String rewriteRef(String ref, Map<String, Map<String, String>> renames, String prefix) {
+        if (ref.startsWith(PATHS_REF)) {
+            if (prefix.isEmpty()) {
+                return ref;
+            }
+            String rest = ref.substring(PATHS_REF.length());
+            int end = rest.indexOf('/');
+            String path = unescape(end < 0 ? rest : rest.substring(0, end));
+            return PATHS_REF + escape(prefix + path) + (end < 0 ? "" : rest.substring(end));
+        }
+        String[] segments = ref.substring(COMPONENTS_REF.length()).split("/", 3);
+        if (segments.length < 2) {
+            return ref;
+        }
+        String renamed = renames.getOrDefault(unescape(segments[0]), Map.of()).get(unescape(segments[1]));
+        if (renamed == null) {
+            return ref;
+        }
+        return COMPONENTS_REF + segments[0] + "/" + escape(renamed)
+                + (segments.length > 2 ? "/" + segments[2] : "");
+    }
+
+    /**
+     * Renames the security schemes named by a list of security requirements.
+     */
+    private static Object renameSchemes(Object security, Map<String, String> renames) {
+        if (renames.isEmpty() || !(security instanceof List)) {
+            return security;
+        }
+        List<Object> renamed = new ArrayList<>();
+        for (Object requirement : (List<?>) security) {
+            if (!(requirement instanceof Map)) {
+                renamed.add(requirement);
+                continue;
+            }
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> scheme : ((Map<?, ?>) requirement).entrySet()) {
+                copy.put(renames.getOrDefault(String.valueOf(scheme.getKey()), String.valueOf(scheme.getKey())),
+                        scheme.getValue());
+            }
+            renamed.add(copy);
+        }
+        return renamed;
+    }
+
+    private static String serviceName(ScalarUpstream upstream, int index) {
+        String name = upstream.getName();
+        if (name == null || name.isBlank()) {
+            return "upstream" + (index + 1);
+        }
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Normalizes a path prefix to start with a slash and not end with one.
+     */
+    private static String pathPrefix(ScalarUpstream upstream) {
+        String prefix = upstream.getPathPrefix();
+        if (prefix == null || prefix.isBlank()) {
+            return "";
+        }
+        prefix = prefix.trim();
+        if (!prefix.startsWith("/")) {
+            prefix = "/" + prefix;
+        }
+        while (prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        return prefix;
+    }
+
+    private static String unescape(String segment) {
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+
+    private static String escape(String segment) {
+        return segment.replace("~", "~0").replace("/", "~1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> asMap(Object value) {
+        return (Map<Object, Object>) value;
+    }
+}
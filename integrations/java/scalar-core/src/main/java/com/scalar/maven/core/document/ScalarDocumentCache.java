@@ -0,0 +1,418 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarConstants;
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fetches remote OpenAPI documents server-side and keeps them in memory.
+ *
+ * <p>
+ * Instead of every browser fetching each configured {@code url} and source
+ * from upstream, the API Reference loads local copies that are fetched once
+ * through a shared {@link HttpClient}, which pools its connections. A copy is
+ * served from memory until its time to live expires; after that it is
+ * revalidated with {@code If-None-Match} and {@code If-Modified-Since}, so an
+ * unchanged document costs upstream a {@code 304 Not Modified} only.
+ * </p>
+ *
+ * <p>
+ * When optimizing is enabled, each fetched document is converted to compact
+ * JSON once by the {@link ScalarDocumentOptimizer}; the document as fetched
+ * stays available through {@link ScalarDocument#getOriginal()}.
+ * </p>
+ *
+ * <p>
+ * Concurrent requests for a document that is not cached share a single fetch.
+ * If revalidating fails, the stale copy keeps being served and the next request
+ * tries again.
+ * </p>
+ *
+ * <p>
+ * Only the documents configured in the {@link ScalarProperties} are served, so
+ * the cache cannot be used to fetch arbitrary URLs. Use {@link #resolve} to map
+ * a document id from a request to its upstream URL.
+ * </p>
+ */
+public class ScalarDocumentCache {
+
+    /**
+     * The document id of {@link ScalarProperties#getUrl()}. Sources are identified
+     * by their index in {@link ScalarProperties#getSources()}.
+     */
+    public static final String DEFAULT_DOCUMENT_ID = "default";
+
+    /**
+     * The default time to live of a cached document.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * The default timeout for fetching a document.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String ACCEPT = "application/json, application/yaml;q=0.9, */*;q=0.8";
+
+    /**
+     * A cached document together with the validators upstream sent along.
+     */
+    private static final class Entry {
+        private final ScalarDocument document;
+        private final String eTag;
+        private final String lastModified;
+        private final long expiresAt;
+
+        private Entry(ScalarDocument document, String eTag, String lastModified, long expiresAt) {
+            this.document = document;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final Duration ttl;
+    private final Duration timeout;
+    private final boolean optimize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<ScalarDocument>> fetches = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fetchCount = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Creates a cache with its own {@link HttpClient}.
+     *
+     * @param ttl     how long a document is served before it is revalidated
+     * @param timeout the connect and response timeout for fetching a document
+     */
+    public ScalarDocumentCache(Duration ttl, Duration timeout) {
+        this(ttl, timeout, false);
+    }
+
+    /**
+     * Creates a cache with its own {@link HttpClient}.
+     *
+     * @param ttl      how long a document is served before it is revalidated
+     * @param timeout  the connect and response timeout for fetching a document
+     * @param optimize whether to convert fetched documents to compact JSON
+     */
+    public ScalarDocumentCache(Duration ttl, Duration timeout, boolean optimize) {
+        this(HttpClient.newBuilder()
+                .connectTimeout(Objects.requireNonNull(timeout, "timeout must not be null"))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build(), ttl, timeout, optimize);
+    }
+
+    /**
+     * Creates a cache that fetches documents with the given {@link HttpClient}.
+     *
+     * @param httpClient the client to fetch documents with
+     * @param ttl        how long a document is served before it is revalidated
+     * @param timeout    the response timeout for fetching a document
+     */
+    public ScalarDocumentCache(HttpClient httpClient, Duration ttl, Duration timeout) {
+        this(httpClient, ttl, timeout, false);
+    }
+
+    /**
+     * Creates a cache that fetches documents with the given {@link HttpClient}.
+     *
+     * @param httpClient the client to fetch documents with
+     * @param ttl        how long a document is served before it is revalidated
+     * @param timeout    the response timeout for fetching a document
+     * @param optimize   whether to convert fetched documents to compact JSON
+     */
+    public ScalarDocumentCache(HttpClient httpClient, Duration ttl, Duration timeout, boolean optimize) {
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
+        this.ttl = Objects.requireNonNull(ttl, "ttl must not be null");
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether a URL points at a remote document this cache can fetch.
+     *
+     * @param url the URL, may be {@code null}
+     * @return {@code true} for absolute {@code http} and {@code https} URLs
+     */
+    public static boolean isCacheable(String url) {
+        if (url == null) {
+            return false;
+        }
+        String lowerCase = url.toLowerCase(Locale.ROOT);
+        return lowerCase.startsWith("http://") || lowerCase.startsWith("https://");
+    }
+
+    /**
+     * Builds the URL of the local copy of a document, relative to the page.
+     *
+     * @param basePath the base path of the API Reference
+     * @param id       the document id
+     * @return the relative URL of the local copy
+     */
+    public static String documentUrl(String basePath, String id) {
+        return ScalarHtmlRenderer.buildRelativeUrl(basePath, ScalarConstants.DOCUMENTS_PATH + "/" + id);
+    }
+
+    /**
+     * Resolves a document id to the upstream URL configured for it.
+     *
+     * @param properties the configuration properties
+     * @param id         the document id, {@link #DEFAULT_DOCUMENT_ID} or the index of a source
+     * @return the upstream URL, or {@code null} if the id does not denote a cacheable document
+     */
+    public static String resolve(ScalarProperties properties, String id) {
+        String url = configuredUrl(properties, id);
+        return isCacheable(url) ? url : null;
+    }
+
+    /**
+     * Looks up the URL configured for a document id.
+     *
+     * @param properties the configuration properties
+     * @param id         the document id, {@link #DEFAULT_DOCUMENT_ID} or the index of a source
+     * @return the configured URL, or {@code null} if there is no such document
+     */
+    static String configuredUrl(ScalarProperties properties, String id) {
+        Objects.requireNonNull(properties, "properties must not be null");
+        if (DEFAULT_DOCUMENT_ID.equals(id)) {
+            return properties.getUrl();
+        }
+
+        List<ScalarSource> sources = properties.getSources();
+        if (id == null || sources == null || id.isEmpty() || id.length() > 9
+                || !id.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        int index = Integer.parseInt(id);
+        if (index >= sources.size() || sources.get(index) == null) {
+            return null;
+        }
+        return sources.get(index).getUrl();
+    }
+
+    /**
+     * Gets a document, fetching or revalidating it if necessary.
+     *
+     * @param url the upstream URL of the document
+     * @return the document
+     * @throws IOException if the document cannot be fetched and no copy is cached
+     */
+    public ScalarDocument get(String url) throws IOException {
+        try {
+            return getAsync(url).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to fetch OpenAPI document from " + url, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching OpenAPI document from " + url);
+        }
+    }
+
+    /**
+     * Gets a document without blocking, fetching or revalidating it if necessary.
+     *
+     * <p>
+     * The returned future fails with an {@link IOException} if the document cannot
+     * be fetched and no copy is cached.
+     * </p>
+     *
+     * @param url the upstream URL of the document
+     * @return a future completed with the document
+     */
+    public CompletableFuture<ScalarDocument> getAsync(String url) {
+        Objects.requireNonNull(url, "url must not be null");
+
+        Entry entry = entries.get(url);
+        if (entry != null && entry.isFresh()) {
+            hits.increment();
+            return CompletableFuture.completedFuture(entry.document);
+        }
+
+        // Share a single fetch between concurrent requests
+        CompletableFuture<ScalarDocument> promise = new CompletableFuture<>();
+        CompletableFuture<ScalarDocument> pending = fetches.putIfAbsent(url, promise);
+        if (pending != null) {
+            return pending;
+        }
+        fetch(url, entry).whenComplete((document, error) -> {
+            fetches.remove(url, promise);
+            if (error != null) {
+                promise.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                promise.complete(document);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Gets whether a fresh copy of a document is held in memory.
+     *
+     * @param url the upstream URL of the document
+     * @return {@code true} if the document is served without contacting upstream
+     */
+    public boolean isCached(String url) {
+        Entry entry = entries.get(url);
+        return entry != null && entry.isFresh();
+    }
+
+    /**
+     * Drops all cached documents.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached documents.
+     *
+     * @return the number of documents
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of requests answered from memory without contacting upstream.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests sent upstream, including revalidations.
+     *
+     * @return the number of fetches
+     */
+    public long getFetches() {
+        return fetchCount.sum();
+    }
+
+    /**
+     * Gets the number of revalidations upstream answered with {@code 304 Not Modified}.
+     *
+     * @return the number of revalidations
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /**
+     * Gets the number of fetches that failed.
+     *
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    private CompletableFuture<ScalarDocument> fetch(String url, Entry stale) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("Accept", ACCEPT)
+                    .GET();
+            if (stale != null && stale.eTag != null) {
+                builder.header("If-None-Match", stale.eTag);
+            }
+            if (stale != null && stale.lastModified != null) {
+                builder.header("If-Modified-Since", stale.lastModified);
+            }
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            failures.increment();
+            return CompletableFuture.failedFuture(new IOException("Invalid OpenAPI document URL: " + url, e));
+        }
+
+        fetchCount.increment();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        return fallback(stale, new IOException("Failed to fetch OpenAPI document from " + url,
+                                error instanceof CompletionException ? error.getCause() : error));
+                    }
+
+                    int status = response.statusCode();
+                    long expiresAt = System.nanoTime() + ttl.toNanos();
+                    if (status == 304 && stale != null) {
+                        revalidations.increment();
+                        entries.put(url, new Entry(stale.document, stale.eTag, stale.lastModified, expiresAt));
+                        return stale.document;
+                    }
+                    if (status < 200 || status >= 300) {
+                        return fallback(stale, new IOException(
+                                "Fetching OpenAPI document from " + url + " failed with status " + status));
+                    }
+
+                    ScalarDocument document = ScalarDocument.of(response.body(), mediaType(response));
+                    if (optimize) {
+                        document = ScalarDocumentOptimizer.optimize(document);
+                    }
+                    if (stale != null) {
+                        document.replaces(stale.document);
+                    }
+                    entries.put(url, new Entry(document,
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null),
+                            expiresAt));
+                    return document;
+                });
+    }
+
+    private ScalarDocument fallback(Entry stale, IOException error) {
+        failures.increment();
+        if (stale == null) {
+            throw new CompletionException(error);
+        }
+        // Keep serving the stale copy; the next request tries again
+        return stale.document;
+    }
+
+    private static String mediaType(HttpResponse<byte[]> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.split(";")[0].trim().toLowerCase(Locale.ROOT))
+                .filter(contentType -> !contentType.isEmpty())
+                // Servers often send documents as text/plain or a vendor type
+                .map(contentType -> contentType.contains("yaml") ? "application/yaml" : contentType)
+                .filter(contentType -> !contentType.startsWith("text/plain")
+                        && !contentType.equals("application/octet-stream"))
+                .orElseGet(() -> ScalarDocumentOptimizer.isJson(response.body())
+                        ? ScalarDocument.JSON_MEDIA_TYPE
+                        : "application/yaml");
+    }
+}
@@ -0,0 +1,140 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An OpenAPI document with its duplicate inline schemas replaced by references,
+ * see {@link ScalarDocumentCompactor}, and a report of what that saved.
+ *
+ * <p>
+ * The report is a JSON document of its own:
+ * </p>
+ *
+ * <pre>
+ * {"version":"&lt;ETag of the source document&gt;","compacted":true,
+ *  "originalBytes":120000,"compactedBytes":45000,"bytesSaved":75000,
+ *  "originalGzipBytes":9000,"compactedGzipBytes":7000,"gzipBytesSaved":2000,
+ *  "replacedSchemas":212,"hoistedSchemas":[{"name":"ErrorResponse","occurrences":180},...]}
+ * </pre>
+ */
+public final class ScalarDocumentCompaction {
+
+    private final ScalarDocument source;
+    private final ScalarDocument document;
+    private final Map<String, Integer> hoistedSchemas;
+    private final int replacedSchemas;
+    private volatile ScalarDocument report;
+
+    ScalarDocumentCompaction(ScalarDocument source, ScalarDocument document, Map<String, Integer> hoistedSchemas,
+                             int replacedSchemas) {
+        this.source = source;
+        this.document = document;
+        this.hoistedSchemas = Collections.unmodifiableMap(new LinkedHashMap<>(hoistedSchemas));
+        this.replacedSchemas = replacedSchemas;
+    }
+
+    /**
+     * Creates the result for a document that was not compacted.
+     *
+     * @param source the document
+     * @return a compaction serving the document as it is
+     */
+    static ScalarDocumentCompaction unchanged(ScalarDocument source) {
+        return new ScalarDocumentCompaction(source, source, Map.of(), 0);
+    }
+
+    /**
+     * Gets whether any schema was replaced with a reference.
+     *
+     * @return {@code false} if the document had no duplicates, or cannot be
+     * compacted because it is not JSON or Jackson is missing
+     */
+    public boolean isCompacted() {
+        return document != source;
+    }
+
+    /**
+     * Gets the compacted document.
+     *
+     * @return the compacted document, or the source document if it was not
+     * compacted
+     */
+    public ScalarDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Gets the schemas that were added to {@code components/schemas}, with the
+     * number of places each replaced.
+     *
+     * @return the occurrences by schema name, in the order they were added
+     */
+    public Map<String, Integer> getHoistedSchemas() {
+        return hoistedSchemas;
+    }
+
+    /**
+     * Gets the number of inline schemas replaced with a reference, to a hoisted
+     * or to an existing component schema.
+     *
+     * @return the number of replaced schemas
+     */
+    public int getReplacedSchemas() {
+        return replacedSchemas;
+    }
+
+    /**
+     * Gets the number of bytes the compacted document is smaller than the source.
+     *
+     * @return the bytes saved, uncompressed
+     */
+    public long getBytesSaved() {
+        return (long) source.getContent().length - document.getContent().length;
+    }
+
+    /**
+     * Gets the report of the compaction as a JSON document, serialized on first
+     * access.
+     *
+     * @return the report
+     */
+    public ScalarDocument getReport() {
+        ScalarDocument local = report;
+        if (local == null) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            String eTag = source.getETag();
+            values.put("version", eTag.substring(1, eTag.length() - 1));
+            values.put("compacted", isCompacted());
+            values.put("originalBytes", source.getContent().length);
+            values.put("compactedBytes", document.getContent().length);
+            values.put("bytesSaved", getBytesSaved());
+            values.put("originalGzipBytes", gzipSize(source));
+            values.put("compactedGzipBytes", gzipSize(document));
+            values.put("gzipBytesSaved", gzipSize(source) - gzipSize(document));
+            values.put("replacedSchemas", replacedSchemas);
+            List<Map<String, Object>> hoisted = new ArrayList<>(hoistedSchemas.size());
+            for (Map.Entry<String, Integer> schema : hoistedSchemas.entrySet()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", schema.getKey());
+                entry.put("occurrences", schema.getValue());
+                hoisted.add(entry);
+            }
+            values.put("hoistedSchemas", hoisted);
+            byte[] content = JacksonJsonSerializer.serialize(values).getBytes(StandardCharsets.UTF_8);
+            local = ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE, null);
+            report = local;
+        }
+        return local;
+    }
+
+    private static int gzipSize(ScalarDocument document) {
+        return document.hasGzipContent() ? document.getGzipContent().length : document.getContent().length;
+    }
+}
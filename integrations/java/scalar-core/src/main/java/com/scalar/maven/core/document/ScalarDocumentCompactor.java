@@ -0,0 +1,452 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes duplicate inline schemas from OpenAPI documents.
+ *
+ * <p>
+ * Generated documents often repeat the same inline schema for every operation
+ * that uses it. The compactor hashes the schema subtrees structurally, hoists
+ * schemas that occur more than once into {@code components/schemas} and
+ * replaces every occurrence with a {@code $ref}. Inline schemas equal to an
+ * existing component schema are replaced with a reference to it. A schema is
+ * only hoisted when that makes the document smaller, and schemas with relative
+ * references or anchors, which would change meaning when moved, are left where
+ * they are.
+ * </p>
+ *
+ * <p>
+ * Only JSON OpenAPI 3 documents are compacted, and only when Jackson is on the
+ * classpath. Other documents are {@linkplain ScalarDocumentCompaction#isCompacted()
+ * left as they are}.
+ * </p>
+ */
+public final class ScalarDocumentCompactor {
+
+    private static final String SCHEMAS_REF = "#/components/schemas/";
+
+    /**
+     * The estimated size of a reference to a hoisted schema, assuming a name of
+     * 16 characters.
+     */
+    private static final int REF_SIZE = "{\"$ref\":\"#/components/schemas/\"}".length() + 16;
+
+    private static final Set<String> SUBSCHEMA = Set.of(
+            "not", "if", "then", "else", "contains", "propertyNames", "additionalItems",
+            "unevaluatedItems", "unevaluatedProperties", "contentSchema");
+
+    private static final Set<String> SUBSCHEMA_LISTS = Set.of("allOf", "anyOf", "oneOf", "prefixItems");
+
+    private static final Set<String> SUBSCHEMA_MAPS = Set.of(
+            "properties", "patternProperties", "dependentSchemas", "$defs", "definitions");
+
+    private static final Set<String> ANCHORS = Set.of("$id", "$anchor", "$dynamicAnchor", "$recursiveAnchor");
+
+    private static final Object MAP = new Object();
+    private static final Object LIST = new Object();
+
+    private ScalarDocumentCompactor() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Compacts a document.
+     *
+     * @param document the document, in JSON
+     * @return the compacted document and a report of what was saved
+     */
+    public static ScalarDocumentCompaction compact(ScalarDocument document) {
+        if (!ScalarDocument.JSON_MEDIA_TYPE.equals(document.getMediaType())) {
+            return ScalarDocumentCompaction.unchanged(document);
+        }
+        Object parsed;
+        try {
+            parsed = JacksonJsonSerializer.parse(document.getContent());
+        } catch (RuntimeException e) {
+            // Malformed, or Jackson is missing
+            return ScalarDocumentCompaction.unchanged(document);
+        }
+        if (!(parsed instanceof Map) || !(((Map<?, ?>) parsed).get("openapi") instanceof String)) {
+            return ScalarDocumentCompaction.unchanged(document);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> root = (Map<Object, Object>) parsed;
+        Schemas schemas = new Schemas(root);
+        schemas.walk(root, Mode.COUNT);
+        schemas.walk(root, Mode.EFFECTIVE);
+        if (!schemas.select()) {
+            return ScalarDocumentCompaction.unchanged(document);
+        }
+        schemas.walk(root, Mode.REWRITE);
+        schemas.putHoisted(root);
+
+        byte[] content = JacksonJsonSerializer.serialize(root).getBytes(StandardCharsets.UTF_8);
+        ScalarDocument compacted = ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE, document.getOriginal());
+        return new ScalarDocumentCompaction(document, compacted, schemas.hoisted(), schemas.replaced);
+    }
+
+    /**
+     * The passes over the schemas of a document.
+     */
+    private enum Mode {
+        /**
+         * Counts every occurrence of every schema, including nested ones.
+         */
+        COUNT,
+        /**
+         * Counts the occurrences that remain once the outer duplicates are
+         * hoisted: a hoisted schema is only descended into once.
+         */
+        EFFECTIVE,
+        /**
+         * Replaces the selected schemas with references.
+         */
+        REWRITE
+    }
+
+    /**
+     * The structurally hashed schemas of a document. Every distinct subtree gets
+     * an id, so equal subtrees share it and comparing them is comparing ids.
+     */
+    private static final class Schemas {
+
+        private final Map<Object, Integer> ids = new IdentityHashMap<>();
+        private final Map<List<Object>, Integer> interned = new HashMap<>();
+        private final List<Integer> sizes = new ArrayList<>();
+        private final List<Boolean> portable = new ArrayList<>();
+        private final Map<Integer, Integer> counts = new HashMap<>();
+        private final Map<Integer, Integer> effectiveCounts = new HashMap<>();
+        private final Set<Integer> visited = new HashSet<>();
+        private final Map<Integer, String> existing = new HashMap<>();
+        private final Set<Integer> selected = new HashSet<>();
+        private final Set<String> usedNames = new HashSet<>();
+        private final Map<Integer, String> hoistedNames = new LinkedHashMap<>();
+        private final Map<String, Object> hoistedBodies = new LinkedHashMap<>();
+        private int replaced;
+
+        private Schemas(Map<Object, Object> root) {
+            if (root.get("components") instanceof Map
+                    && ((Map<?, ?>) root.get("components")).get("schemas") instanceof Map) {
+                for (Map.Entry<?, ?> schema : ((Map<?, ?>) ((Map<?, ?>) root.get("components")).get("schemas")).entrySet()) {
+                    String name = String.valueOf(schema.getKey());
+                    usedNames.add(name);
+                    if (schema.getValue() instanceof Map) {
+                        int id = id(schema.getValue());
+                        if (portable.get(id)) {
+                            existing.putIfAbsent(id, name);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void walk(Map<Object, Object> root, Mode mode) {
+            for (Map.Entry<Object, Object> field : root.entrySet()) {
+                if ("components".equals(field.getKey()) && field.getValue() instanceof Map) {
+                    walkComponents(asMap(field.getValue()), mode);
+                } else if (!isExtension(field.getKey())) {
+                    walkObject(field.getValue(), null, mode);
+                }
+            }
+        }
+
+        private void walkComponents(Map<Object, Object> components, Mode mode) {
+            for (Map.Entry<Object, Object> section : components.entrySet()) {
+                if (!(section.getValue() instanceof Map) || isExtension(section.getKey())) {
+                    continue;
+                }
+                for (Map.Entry<Object, Object> component : asMap(section.getValue()).entrySet()) {
+                    String name = String.valueOf(component.getKey());
+                    if ("schemas".equals(section.getKey())) {
+                        component.setValue(schema(component.getValue(), name, true, mode));
+                    } else {
+                        walkObject(component.getValue(), name, mode);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks the parts of a document that are not schemas, looking for the
+         * {@code schema} fields of parameters, headers and media types.
+         */
+        private void walkObject(Object value, String hint, Mode mode) {
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) {
+                    walkObject(element, hint, mode);
+                }
+                return;
+            }
+            if (!(value instanceof Map)) {
+                return;
+            }
+            Map<Object, Object> object = asMap(value);
+            String local = hint;
+            if (object.get("operationId") instanceof String) {
+                local = (String) object.get("operationId");
+            } else if (object.get("name") instanceof String && object.containsKey("in")) {
+                local = (String) object.get("name");
+            }
+            for (Map.Entry<Object, Object> field : object.entrySet()) {
+                Object key = field.getKey();
+                if ("example".equals(key) || "examples".equals(key) || isExtension(key)) {
+                    continue;
+                }
+                if ("schema".equals(key)) {
+                    field.setValue(schema(field.getValue(), local, false, mode));
+                } else if ("requestBody".equals(key)) {
+                    walkObject(field.getValue(), suffix(local, "Request"), mode);
+                } else if ("responses".equals(key)) {
+                    walkObject(field.getValue(), suffix(local, "Response"), mode);
+                } else {
+                    walkObject(field.getValue(), local, mode);
+                }
+            }
+        }
+
+        /**
+         * Visits a schema and its subschemas.
+         *
+         * @param component whether the schema is a component schema itself,
+         *                  which is never replaced with a reference
+         * @return the schema, or the reference replacing it
+         */
+        private Object schema(Object value, String hint, boolean component, Mode mode) {
+            if (!(value instanceof Map)) {
+                return value;
+            }
+            int id = id(value);
+            switch (mode) {
+                case COUNT -> counts.merge(id, 1, Integer::sum);
+                case EFFECTIVE -> {
+                    if (!component && existing.containsKey(id)) {
+                        return value;
+                    }
+                    effectiveCounts.merge(id, 1, Integer::sum);
+                    if (saves(id, counts.get(id)) && !visited.add(id)) {
+                        return value;
+                    }
+                }
+                case REWRITE -> {
+                    if (!component && existing.containsKey(id) && sizes.get(id) > REF_SIZE) {
+                        replaced++;
+                        return ref(existing.get(id));
+                    }
+                    if (!component && selected.contains(id)) {
+                        replaced++;
+                        String name = hoistedNames.get(id);
+                        if (name != null) {
+                            return ref(name);
+                        }
+                        name = name(value, hint);
+                        hoistedNames.put(id, name);
+                        hoistedBodies.put(name, value);
+                        subschemas(asMap(value), hint, mode);
+                        return ref(name);
+                    }
+                }
+            }
+            subschemas(asMap(value), hint, mode);
+            return value;
+        }
+
+        private void subschemas(Map<Object, Object> schema, String hint, Mode mode) {
+            for (Map.Entry<Object, Object> field : schema.entrySet()) {
+                Object key = field.getKey();
+                Object value = field.getValue();
+                if ("items".equals(key) && value instanceof List || SUBSCHEMA_LISTS.contains(key)) {
+                    if (value instanceof List) {
+                        @SuppressWarnings("unchecked")
+                        List<Object> list = (List<Object>) value;
+                        for (int i = 0; i < list.size(); i++) {
+                            list.set(i, schema(list.get(i), hint, false, mode));
+                        }
+                    }
+                } else if (SUBSCHEMA_MAPS.contains(key)) {
+                    if (value instanceof Map) {
+                        for (Map.Entry<Object, Object> property : asMap(value).entrySet()) {
+                            property.setValue(schema(property.getValue(), String.valueOf(property.getKey()), false, mode));
+                        }
+                    }
+                } else if ("items".equals(key)) {
+                    field.setValue(schema(value, suffix(hint, "Item"), false, mode));
+                } else if ("additionalProperties".equals(key)) {
+                    field.setValue(schema(value, suffix(hint, "Value"), false, mode));
+                } else if (SUBSCHEMA.contains(key)) {
+                    field.setValue(schema(value, hint, false, mode));
+                }
+            }
+        }
+
+        /**
+         * Selects the schemas to hoist: those that still occur more than once
+         * after their outer duplicates are hoisted, when hoisting saves bytes.
+         *
+         * @return whether anything is replaced
+         */
+        private boolean select() {
+            for (Map.Entry<Integer, Integer> count : effectiveCounts.entrySet()) {
+                int id = count.getKey();
+                if (saves(id, count.getValue())) {
+                    selected.add(id);
+                }
+            }
+            if (!selected.isEmpty()) {
+                return true;
+            }
+            for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+                // Inline occurrences of a component schema
+                if (existing.containsKey(count.getKey()) && count.getValue() > 1 && sizes.get(count.getKey()) > REF_SIZE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean saves(int id, int occurrences) {
+            int size = sizes.get(id);
+            return occurrences > 1 && portable.get(id) && !existing.containsKey(id)
+                    && (long) occurrences * size > size + (long) occurrences * REF_SIZE + 20;
+        }
+
+        private void putHoisted(Map<Object, Object> root) {
+            if (hoistedBodies.isEmpty()) {
+                return;
+            }
+            Map<Object, Object> components = root.get("components") instanceof Map
+                    ? asMap(root.get("components")) : new LinkedHashMap<>();
+            Map<Object, Object> schemas = components.get("schemas") instanceof Map
+                    ? asMap(components.get("schemas")) : new LinkedHashMap<>();
+            schemas.putAll(hoistedBodies);
+            components.put("schemas", schemas);
+            root.put("components", components);
+        }
+
+        private Map<String, Integer> hoisted() {
+            Map<String, Integer> hoisted = new LinkedHashMap<>();
+            for (Map.Entry<Integer, String> name : hoistedNames.entrySet()) {
+                hoisted.put(name.getValue(), effectiveCounts.get(name.getKey()));
+            }
+            return hoisted;
+        }
+
+        /**
+         * Gets the id of a subtree, interning it on first sight. The size of
+         * every id is estimated as its length in compact JSON, and an id is
+         * portable if its subtree can be moved without changing its meaning.
+         */
+        private int id(Object value) {
+            Integer known = ids.get(value);
+            if (known != null) {
+                return known;
+            }
+            List<Object> key;
+            int size;
+            boolean movable = true;
+            if (value instanceof Map) {
+                List<Map.Entry<?, ?>> fields = new ArrayList<>(((Map<?, ?>) value).entrySet());
+                fields.sort((a, b) -> String.valueOf(a.getKey()).compareTo(String.valueOf(b.getKey())));
+                key = new ArrayList<>(fields.size() * 2 + 1);
+                key.add(MAP);
+                size = 1 + Math.max(fields.size(), 1);
+                for (Map.Entry<?, ?> field : fields) {
+                    String name = String.valueOf(field.getKey());
+                    int child = id(field.getValue());
+                    key.add(name);
+                    key.add(child);
+                    size += name.length() + 3 + sizes.get(child);
+                    movable &= portable.get(child) && !ANCHORS.contains(name) && (!"$ref".equals(name)
+                            || field.getValue() instanceof String && ((String) field.getValue()).startsWith("#/components/"));
+                }
+            } else if (value instanceof List) {
+                List<?> elements = (List<?>) value;
+                key = new ArrayList<>(elements.size() + 1);
+                key.add(LIST);
+                size = 1 + Math.max(elements.size(), 1);
+                for (Object element : elements) {
+                    int child = id(element);
+                    key.add(child);
+                    size += sizes.get(child);
+                    movable &= portable.get(child);
+                }
+            } else {
+                key = Arrays.asList(value == null ? null : value.getClass(), value);
+                size = value instanceof String ? ((String) value).length() + 2 : String.valueOf(value).length();
+            }
+            Integer id = interned.get(key);
+            if (id == null) {
+                id = sizes.size();
+                interned.put(key, id);
+                sizes.add(size);
+                portable.add(movable);
+            }
+            if (value instanceof Map || value instanceof List) {
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        /**
+         * Names a hoisted schema after its title, or else after where it first
+         * occurs: the property, parameter or operation it belongs to.
+         */
+        private String name(Object schema, String hint) {
+            Object title = ((Map<?, ?>) schema).get("title");
+            String base = pascalCase(title instanceof String ? (String) title : hint);
+            String name = base;
+            for (int n = 2; !usedNames.add(name); n++) {
+                name = base + n;
+            }
+            return name;
+        }
+    }
+
+    private static String pascalCase(String text) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 128 && (Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-')) {
+                    name.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                } else {
+                    upper = true;
+                }
+            }
+        }
+        return name.isEmpty() ? "Schema" : name.toString();
+    }
+
+    private static String suffix(String hint, String suffix) {
+        return hint != null ? hint + suffix : suffix;
+    }
+
+    private static Map<String, Object> ref(String name) {
+        Map<String, Object> ref = new LinkedHashMap<>();
+        ref.put("$ref", SCHEMAS_REF + name);
+        return ref;
+    }
+
+    private static boolean isExtension(Object key) {
+        return key instanceof String && ((String) key).startsWith("x-");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> asMap(Object value) {
+        return (Map<Object, Object>) value;
+    }
+}
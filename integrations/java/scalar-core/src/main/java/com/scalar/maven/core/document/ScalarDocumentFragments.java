@@ -0,0 +1,71 @@
+package com.scalar.maven.core.document;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An OpenAPI document split into a skeleton and one fragment per tag, see
+ * {@link ScalarDocumentSplitter}.
+ *
+ * <p>
+ * The skeleton and each fragment are documents of their own, with their own
+ * gzip variant and entity tag, so they are served and revalidated
+ * independently.
+ * </p>
+ */
+public final class ScalarDocumentFragments {
+
+    /**
+     * The result for a document that cannot be split.
+     */
+    static final ScalarDocumentFragments NONE = new ScalarDocumentFragments(null, Map.of());
+
+    private final ScalarDocument skeleton;
+    private final Map<String, ScalarDocument> fragments;
+
+    ScalarDocumentFragments(ScalarDocument skeleton, Map<String, ScalarDocument> fragments) {
+        this.skeleton = skeleton;
+        this.fragments = Collections.unmodifiableMap(new LinkedHashMap<>(fragments));
+    }
+
+    /**
+     * Gets whether the document was split.
+     *
+     * @return {@code false} if the document cannot be split, because it is not
+     * JSON, has no paths, or Jackson is missing
+     */
+    public boolean isSplit() {
+        return skeleton != null;
+    }
+
+    /**
+     * Gets the skeleton: the document without its operations and components,
+     * with an index of the operations and the fragments they are in.
+     *
+     * @return the skeleton, or {@code null} if the document was not split
+     */
+    public ScalarDocument getSkeleton() {
+        return skeleton;
+    }
+
+    /**
+     * Gets a fragment.
+     *
+     * @param id the fragment id, as listed in the skeleton
+     * @return the fragment, or {@code null} if there is no such fragment
+     */
+    public ScalarDocument getFragment(String id) {
+        return fragments.get(id);
+    }
+
+    /**
+     * Gets the ids of the fragments, in the order of the tags in the document.
+     *
+     * @return the fragment ids
+     */
+    public Set<String> getFragmentIds() {
+        return fragments.keySet();
+    }
+}
@@ -0,0 +1,636 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.SnakeYamlLoader;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts OpenAPI documents into the form that is cheapest for the browser to
+ * load: compact JSON.
+ *
+ * <p>
+ * JSON documents are minified by dropping the whitespace between tokens. YAML
+ * documents are converted to compact JSON with SnakeYAML, if it is present on the
+ * classpath, since parsing JSON in the browser is much faster than parsing YAML.
+ * The optimized document is precompressed like any other {@link ScalarDocument},
+ * and keeps a reference to the document it was derived from, so the original can
+ * still be served for download.
+ * </p>
+ *
+ * <p>
+ * Both conversions stream: the document is read token by token and written
+ * straight into the buffers of the optimized document, which are compressed and
+ * hashed block by block, so the memory needed besides the two documents depends
+ * on the nesting depth and the anchors of the document, not on its size. YAML
+ * documents using merge keys, complex keys or tags beyond the YAML core schema
+ * are loaded into memory as a whole instead, and converted the same way.
+ * </p>
+ *
+ * <p>
+ * Only the conversion streams. The {@linkplain ScalarDocument#getFragments()
+ * fragments}, the {@linkplain ScalarDocument#getSearchIndex() search index} and
+ * the {@linkplain ScalarDocument#getCompaction() compaction} of the optimized
+ * document are each built from the document parsed as a whole, so building one
+ * of them takes the memory of the full tree until it is done.
+ * </p>
+ *
+ * <p>
+ * Documents that cannot be optimized, because they are malformed or SnakeYAML
+ * is missing, are returned unchanged and served as they are.
+ * </p>
+ */
+public final class ScalarDocumentOptimizer {
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private ScalarDocumentOptimizer() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Optimizes a document.
+     *
+     * @param document the document as it was loaded
+     * @return the compact JSON form of the document, or the document itself if
+     * it is already compact or cannot be optimized
+     */
+    public static ScalarDocument optimize(ScalarDocument document) {
+        if (document.isOptimized()) {
+            return document;
+        }
+
+        ScalarDocument optimized;
+        try {
+            optimized = isJson(document.getContent()) ? minify(document) : yamlToJson(document);
+        } catch (IOException | RuntimeException e) {
+            // Serve the document as it is
+            return document;
+        }
+        return optimized != null ? optimized : document;
+    }
+
+    /**
+     * Gets whether the content looks like JSON, regardless of the media type it
+     * was served with: its first significant character opens an object or array.
+     *
+     * @param content the serialized document
+     * @return {@code true} for JSON
+     */
+    static boolean isJson(byte[] content) {
+        for (int i = hasBom(content) ? UTF8_BOM.length : 0; i < content.length; i++) {
+            byte b = content[i];
+            if (!isWhitespace(b)) {
+                return b == '{' || b == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the whitespace between the tokens of a JSON document. Whitespace and
+     * quotes are ASCII, so the bytes of multi-byte UTF-8 sequences are copied as
+     * they are.
+     *
+     * <p>
+     * The document is scanned twice: once to find out whether there is anything
+     * to drop and how large the result is, and once to copy the runs of bytes
+     * between the dropped whitespace into a buffer of exactly that size.
+     * </p>
+     *
+     * @param document the JSON document
+     * @return the minified document, or {@code null} if it is already compact or
+     * a string is not terminated
+     */
+    static ScalarDocument minify(ScalarDocument document) {
+        byte[] content = document.getContent();
+        int offset = hasBom(content) ? UTF8_BOM.length : 0;
+        int length = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = offset; i < content.length; i++) {
+            byte b = content[i];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (isWhitespace(b)) {
+                continue;
+            }
+            length++;
+        }
+        if (inString || length == content.length) {
+            return null;
+        }
+
+        ScalarDocumentWriter out = new ScalarDocumentWriter(length);
+        int run = offset;
+        for (int i = offset; i < content.length; i++) {
+            byte b = content[i];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (isWhitespace(b)) {
+                out.write(content, run, i - run);
+                run = i + 1;
+            }
+        }
+        out.write(content, run, content.length - run);
+        return out.toDocument(ScalarDocument.JSON_MEDIA_TYPE, document);
+    }
+
+    /**
+     * Converts a YAML document to compact JSON, streaming if the constructs the
+     * document uses allow it.
+     *
+     * @param document the YAML document
+     * @return the JSON document, or {@code null} if SnakeYAML is missing or the
+     * document is not a mapping
+     * @throws IOException if the document cannot be parsed
+     */
+    static ScalarDocument yamlToJson(ScalarDocument document) throws IOException {
+        if (!SnakeYamlLoader.isAvailable()) {
+            return null;
+        }
+        if (SnakeYamlLoader.isParseAvailable()) {
+            try {
+                return YamlJsonWriter.convert(document);
+            } catch (UnsupportedYamlException e) {
+                // Load the document as a whole
+            }
+        }
+        return loadYamlToJson(document);
+    }
+
+    /**
+     * Converts a YAML document to compact JSON by loading it into memory as a
+     * whole.
+     *
+     * @param document the YAML document
+     * @return the JSON document, or {@code null} if the document is not a mapping
+     * @throws IOException if the document cannot be parsed
+     */
+    static ScalarDocument loadYamlToJson(ScalarDocument document) throws IOException {
+        Object value = SnakeYamlLoader.load(new ByteArrayInputStream(document.getContent()));
+        if (!(value instanceof Map)) {
+            return null;
+        }
+
+        ScalarDocumentWriter out = new ScalarDocumentWriter(document.getContent().length);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writeValue(value, writer);
+        }
+        return out.toDocument(ScalarDocument.JSON_MEDIA_TYPE, document);
+    }
+
+    private static void writeValue(Object value, Writer writer) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Map) {
+            writer.write('{');
+            Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) value).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<?, ?> entry = entries.next();
+                // YAML allows keys such as response codes to be numbers
+                writeString(String.valueOf(entry.getKey()), writer);
+                writer.write(':');
+                writeValue(entry.getValue(), writer);
+                if (entries.hasNext()) {
+                    writer.write(',');
+                }
+            }
+            writer.write('}');
+        } else if (value instanceof Iterable) {
+            writer.write('[');
+            Iterator<?> elements = ((Iterable<?>) value).iterator();
+            while (elements.hasNext()) {
+                writeValue(elements.next(), writer);
+                if (elements.hasNext()) {
+                    writer.write(',');
+                }
+            }
+            writer.write(']');
+        } else if (value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            // JSON has no representation for .nan and .inf
+            writer.write(Double.isFinite(number) ? value.toString() : "null");
+        } else if (value instanceof Number) {
+            writer.write(value.toString());
+        } else if (value instanceof Date) {
+            writeString(formatDate(((Date) value).toInstant()), writer);
+        } else if (value instanceof byte[]) {
+            writeString(Base64.getEncoder().encodeToString((byte[]) value), writer);
+        } else {
+            writeString(value.toString(), writer);
+        }
+    }
+
+    /**
+     * Formats a YAML timestamp the way it is usually meant in an OpenAPI
+     * document: a plain date stays a date.
+     */
+    private static String formatDate(Instant instant) {
+        if (instant.atOffset(ZoneOffset.UTC).toLocalTime().toNanoOfDay() == 0) {
+            return instant.atOffset(ZoneOffset.UTC).toLocalDate().toString();
+        }
+        return instant.toString();
+    }
+
+    private static void writeString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '\b':
+                    writer.write("\\b");
+                    break;
+                case '\f':
+                    writer.write("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Writes the events of a YAML document as JSON while it is parsed.
+     *
+     * <p>
+     * Scalars are constructed the way SnakeYAML's safe constructor constructs
+     * them, so the result is the same as when the document is loaded as a whole.
+     * Anchored scalars are kept as values; anchored collections are kept as the
+     * range of bytes they were written to, which is written again for each alias.
+     * </p>
+     */
+    private static final class YamlJsonWriter implements SnakeYamlLoader.EventHandler {
+
+        private static final String TAG_PREFIX = "tag:yaml.org,2002:";
+
+        private static final Pattern DATE = Pattern.compile("^([0-9]{4})-([0-9]{1,2})-([0-9]{1,2})$");
+
+        private static final Map<String, Boolean> BOOLEANS = Map.of(
+                "yes", Boolean.TRUE, "no", Boolean.FALSE,
+                "true", Boolean.TRUE, "false", Boolean.FALSE,
+                "on", Boolean.TRUE, "off", Boolean.FALSE);
+
+        /**
+         * An anchored node: a scalar value, or the range of bytes a collection
+         * was written to. The end is negative while the collection is open.
+         */
+        private static final class Anchor {
+            private final Object value;
+            private final int start;
+            private int end = -1;
+
+            private Anchor(Object value, int start) {
+                this.value = value;
+                this.start = start;
+            }
+        }
+
+        private final ScalarDocumentWriter out;
+        private final Writer writer;
+        private final Map<String, Anchor> anchors = new HashMap<>();
+        private boolean[] mappings = new boolean[16];
+        private int[] counts = new int[16];
+        private Anchor[] openAnchors = new Anchor[16];
+        private int depth;
+        private boolean completed;
+
+        private YamlJsonWriter(ScalarDocumentWriter out) {
+            this.out = out;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        static ScalarDocument convert(ScalarDocument document) throws IOException {
+            byte[] content = document.getContent();
+            ScalarDocumentWriter out = new ScalarDocumentWriter(content.length);
+            YamlJsonWriter handler = new YamlJsonWriter(out);
+            SnakeYamlLoader.parse(new ByteArrayInputStream(content), handler);
+            if (!handler.completed) {
+                // An empty document
+                return null;
+            }
+            handler.writer.flush();
+            return out.toDocument(ScalarDocument.JSON_MEDIA_TYPE, document);
+        }
+
+        @Override
+        public void startMapping(String tag, String anchor) throws IOException {
+            checkCollectionTag(tag, "map");
+            if (depth > 0) {
+                beforeValue();
+            }
+            push(true, anchor);
+            writer.write('{');
+        }
+
+        @Override
+        public void endMapping() throws IOException {
+            writer.write('}');
+            pop();
+        }
+
+        @Override
+        public void startSequence(String tag, String anchor) throws IOException {
+            checkCollectionTag(tag, "seq");
+            checkNotRoot();
+            beforeValue();
+            push(false, anchor);
+            writer.write('[');
+        }
+
+        @Override
+        public void endSequence() throws IOException {
+            writer.write(']');
+            pop();
+        }
+
+        @Override
+        public void scalar(String value, String tag, String anchor) throws IOException {
+            checkNotRoot();
+            Object constructed = construct(value, tag);
+            if (isKey()) {
+                writeKey(constructed);
+            } else {
+                beforeValue();
+                writeValue(constructed, writer);
+            }
+            if (anchor != null) {
+                anchors.put(anchor, new Anchor(constructed, -1));
+            }
+        }
+
+        @Override
+        public void alias(String anchor) throws IOException {
+            checkNotRoot();
+            Anchor target = anchors.get(anchor);
+            if (target == null) {
+                throw new IOException("Failed to parse YAML document: undefined alias " + anchor);
+            }
+            boolean collection = target.start >= 0;
+            if (isKey()) {
+                if (collection) {
+                    throw new UnsupportedYamlException();
+                }
+                writeKey(target.value);
+                return;
+            }
+
+            beforeValue();
+            if (!collection) {
+                writeValue(target.value, writer);
+            } else if (target.end < 0) {
+                throw new IOException("Failed to parse YAML document: recursive alias " + anchor);
+            } else {
+                writer.flush();
+                out.repeat(target.start, target.end);
+            }
+        }
+
+        private void push(boolean mapping, String anchor) throws IOException {
+            if (depth == mappings.length) {
+                mappings = Arrays.copyOf(mappings, depth * 2);
+                counts = Arrays.copyOf(counts, depth * 2);
+                openAnchors = Arrays.copyOf(openAnchors, depth * 2);
+            }
+            Anchor open = null;
+            if (anchor != null) {
+                writer.flush();
+                open = new Anchor(null, out.size());
+                anchors.put(anchor, open);
+            }
+            mappings[depth] = mapping;
+            counts[depth] = 0;
+            openAnchors[depth] = open;
+            depth++;
+        }
+
+        private void pop() throws IOException {
+            depth--;
+            Anchor open = openAnchors[depth];
+            if (open != null) {
+                writer.flush();
+                open.end = out.size();
+                openAnchors[depth] = null;
+            }
+            if (depth == 0) {
+                completed = true;
+            }
+        }
+
+        private boolean isKey() {
+            return mappings[depth - 1] && counts[depth - 1] % 2 == 0;
+        }
+
+        /**
+         * Writes the separator before a value. Collections cannot be keys in
+         * JSON.
+         */
+        private void beforeValue() throws IOException {
+            int frame = depth - 1;
+            if (mappings[frame]) {
+                if (counts[frame] % 2 == 0) {
+                    throw new UnsupportedYamlException();
+                }
+            } else if (counts[frame] > 0) {
+                writer.write(',');
+            }
+            counts[frame]++;
+        }
+
+        private void writeKey(Object key) throws IOException {
+            int frame = depth - 1;
+            if (counts[frame] > 0) {
+                writer.write(',');
+            }
+            // YAML allows keys such as response codes to be numbers
+            writeString(String.valueOf(key), writer);
+            writer.write(':');
+            counts[frame]++;
+        }
+
+        private void checkNotRoot() throws IOException {
+            if (depth == 0) {
+                throw new IOException("The YAML document is not a mapping");
+            }
+        }
+
+        private static void checkCollectionTag(String tag, String expected) {
+            if (tag != null && !"!".equals(tag) && !(TAG_PREFIX + expected).equals(tag)) {
+                throw new UnsupportedYamlException();
+            }
+        }
+
+        private static Object construct(String value, String tag) throws IOException {
+            switch (tag) {
+                case TAG_PREFIX + "str":
+                    return value;
+                case TAG_PREFIX + "null":
+                    return null;
+                case TAG_PREFIX + "bool":
+                    return BOOLEANS.get(value.toLowerCase(Locale.ROOT));
+                case TAG_PREFIX + "int":
+                    return constructInt(value, tag);
+                case TAG_PREFIX + "float":
+                    return constructFloat(value, tag);
+                case TAG_PREFIX + "timestamp":
+                    return constructTimestamp(value, tag);
+                case TAG_PREFIX + "binary":
+                    return constructSingle(value, tag);
+                default:
+                    // Merge keys, sets and other types that need the whole document
+                    throw new UnsupportedYamlException();
+            }
+        }
+
+        private static Object constructInt(String value, String tag) throws IOException {
+            String number = value.replace("_", "");
+            if (number.isEmpty() || number.indexOf(':') >= 0) {
+                // Sexagesimal integers
+                return constructSingle(value, tag);
+            }
+            String sign = "";
+            if (number.charAt(0) == '-') {
+                sign = "-";
+                number = number.substring(1);
+            } else if (number.charAt(0) == '+') {
+                number = number.substring(1);
+            }
+            if ("0".equals(number)) {
+                return BigInteger.ZERO;
+            } else if (number.startsWith("0b")) {
+                return new BigInteger(sign + number.substring(2), 2);
+            } else if (number.startsWith("0x")) {
+                return new BigInteger(sign + number.substring(2), 16);
+            } else if (number.startsWith("0")) {
+                return new BigInteger(sign + number.substring(1), 8);
+            }
+            return new BigInteger(sign + number, 10);
+        }
+
+        private static Object constructFloat(String value, String tag) throws IOException {
+            String number = value.replace("_", "").toLowerCase(Locale.ROOT);
+            if (number.isEmpty() || number.indexOf(':') >= 0) {
+                // Sexagesimal numbers
+                return constructSingle(value, tag);
+            }
+            double sign = 1;
+            if (number.charAt(0) == '-') {
+                sign = -1;
+                number = number.substring(1);
+            } else if (number.charAt(0) == '+') {
+                number = number.substring(1);
+            }
+            if (".inf".equals(number)) {
+                return sign * Double.POSITIVE_INFINITY;
+            } else if (".nan".equals(number)) {
+                return Double.NaN;
+            }
+            return Double.valueOf(number) * sign;
+        }
+
+        private static Object constructTimestamp(String value, String tag) throws IOException {
+            Matcher date = DATE.matcher(value);
+            if (!date.matches()) {
+                // Timestamps with a time of day
+                return constructSingle(value, tag);
+            }
+            // SnakeYAML constructs dates with a lenient calendar
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(Calendar.YEAR, Integer.parseInt(date.group(1)));
+            calendar.set(Calendar.MONTH, Integer.parseInt(date.group(2)) - 1);
+            calendar.set(Calendar.DAY_OF_MONTH, Integer.parseInt(date.group(3)));
+            return calendar.getTime();
+        }
+
+        /**
+         * Constructs a rarely used scalar, such as a binary, by loading it with
+         * SnakeYAML on its own.
+         */
+        private static Object constructSingle(String value, String tag) throws IOException {
+            StringWriter yaml = new StringWriter(value.length() + tag.length() + 8);
+            yaml.write("!<" + tag + "> ");
+            writeString(value, yaml);
+            return SnakeYamlLoader.load(new ByteArrayInputStream(yaml.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Thrown when a YAML document uses a construct that cannot be converted
+     * while streaming.
+     */
+    private static final class UnsupportedYamlException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedYamlException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static boolean hasBom(byte[] content) {
+        return content.length >= UTF8_BOM.length
+                && content[0] == UTF8_BOM[0] && content[1] == UTF8_BOM[1] && content[2] == UTF8_BOM[2];
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
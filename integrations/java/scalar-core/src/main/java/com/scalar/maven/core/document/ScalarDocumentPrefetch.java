@@ -0,0 +1,292 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.config.ScalarUpstream;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads all remote OpenAPI documents into a {@link ScalarDocumentCache}
+ * concurrently, so the first visitors find them warm.
+ *
+ * <p>
+ * Every document is fetched on its own thread, at most {@code concurrency} at
+ * a time, and a document that takes longer than the timeout is given up on.
+ * A document that was given up on still counts against the concurrency until
+ * its fetch settles, and is moved to the loaded or failed documents then.
+ * Virtual threads are used when the runtime provides them (Java 21 and later),
+ * platform threads otherwise. A failed document does not affect the others;
+ * it is fetched again on the first request for it.
+ * </p>
+ *
+ * <p>
+ * The progress is exposed through {@link #isDone()}, {@link #getLoaded()},
+ * {@link #getTimedOut()} and {@link #getFailures()}, so an integration can report readiness only once the
+ * documents are warm.
+ * </p>
+ */
+public class ScalarDocumentPrefetch implements AutoCloseable {
+
+    /**
+     * The default number of documents fetched at the same time.
+     */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /**
+     * The default time after which fetching a single document is given up on.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ScalarDocumentCache cache;
+    private final List<String> urls;
+    private final int concurrency;
+    private final Duration timeout;
+    private final Set<String> loaded = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Set<String> timedOut = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Map<String, String> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private ExecutorService executor;
+    private boolean virtualThreads;
+    private volatile CompletableFuture<Void> completion;
+
+    /**
+     * Creates a prefetch for the given documents.
+     *
+     * @param cache       the cache to load the documents into
+     * @param urls        the upstream URLs of the documents
+     * @param concurrency the number of documents fetched at the same time
+     * @param timeout     the time after which fetching a single document is given up on
+     */
+    public ScalarDocumentPrefetch(ScalarDocumentCache cache, List<String> urls, int concurrency, Duration timeout) {
+        this.cache = Objects.requireNonNull(cache, "cache must not be null");
+        this.urls = List.copyOf(Objects.requireNonNull(urls, "urls must not be null"));
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Collects the distinct remote documents configured in the properties: the
+     * {@code url}, or the aggregation upstreams when aggregating, followed by the
+     * sources.
+     *
+     * @param properties the configuration properties
+     * @return the upstream URLs of the cacheable documents
+     */
+    public static List<String> urls(ScalarProperties properties) {
+        Objects.requireNonNull(properties, "properties must not be null");
+        Set<String> urls = new LinkedHashSet<>();
+        if (properties.isAggregationEnabled()) {
+            if (properties.getAggregationUpstreams() != null) {
+                for (ScalarUpstream upstream : properties.getAggregationUpstreams()) {
+                    if (upstream != null && ScalarDocumentCache.isCacheable(upstream.getUrl())) {
+                        urls.add(upstream.getUrl());
+                    }
+                }
+            }
+        } else if (ScalarDocumentCache.isCacheable(properties.getUrl())) {
+            urls.add(properties.getUrl());
+        }
+        if (properties.getSources() != null) {
+            for (ScalarSource source : properties.getSources()) {
+                if (source != null && ScalarDocumentCache.isCacheable(source.getUrl())) {
+                    urls.add(source.getUrl());
+                }
+            }
+        }
+        return new ArrayList<>(urls);
+    }
+
+    /**
+     * Starts fetching the documents in the background. Calling this method again
+     * returns the running prefetch.
+     *
+     * @return a future completed once every document was loaded or given up on
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (completion != null) {
+            return completion;
+        }
+        if (urls.isEmpty()) {
+            completion = CompletableFuture.completedFuture(null);
+            return completion;
+        }
+
+        executor = newExecutor();
+        Semaphore permits = new Semaphore(concurrency);
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[urls.size()];
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> prefetch(url, permits), executor);
+        }
+        completion = CompletableFuture.allOf(tasks).whenComplete((result, error) -> executor.shutdown());
+        return completion;
+    }
+
+    /**
+     * Gets whether the prefetch was started.
+     *
+     * @return {@code true} if {@link #start()} was called
+     */
+    public boolean isStarted() {
+        return completion != null;
+    }
+
+    /**
+     * Gets whether every document was loaded or given up on.
+     *
+     * @return {@code true} if the prefetch is finished
+     */
+    public boolean isDone() {
+        CompletableFuture<Void> local = completion;
+        return local != null && local.isDone();
+    }
+
+    /**
+     * Gets the upstream URLs of the documents to prefetch.
+     *
+     * @return the URLs
+     */
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * Gets the upstream URLs of the documents loaded so far.
+     *
+     * @return the URLs, in completion order
+     */
+    public List<String> getLoaded() {
+        synchronized (loaded) {
+            return new ArrayList<>(loaded);
+        }
+    }
+
+    /**
+     * Gets the upstream URLs of the documents that were given up on after the
+     * timeout and are still being fetched.
+     *
+     * @return the URLs, in the order they timed out
+     */
+    public List<String> getTimedOut() {
+        synchronized (timedOut) {
+            return new ArrayList<>(timedOut);
+        }
+    }
+
+    /**
+     * Gets the documents that could not be loaded, with the reason.
+     *
+     * @return the failure messages by upstream URL
+     */
+    public Map<String, String> getFailures() {
+        synchronized (failures) {
+            return new LinkedHashMap<>(failures);
+        }
+    }
+
+    /**
+     * Gets whether the documents are fetched on virtual threads.
+     *
+     * @return {@code true} if virtual threads are used
+     */
+    public synchronized boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops fetching documents that are still pending.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void prefetch(String url, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.put(url, "Interrupted");
+            return;
+        }
+        CompletableFuture<ScalarDocument> fetch;
+        try {
+            fetch = cache.getAsync(url);
+        } catch (RuntimeException e) {
+            permits.release();
+            failures.put(url, String.valueOf(e.getMessage()));
+            return;
+        }
+        // The permit is held until the fetch settles, also when it is given up on
+        fetch.whenComplete((document, error) -> permits.release());
+        try {
+            fetch.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            loaded.add(url);
+        } catch (TimeoutException e) {
+            timedOut.add(url);
+            fetch.whenComplete((document, error) -> settle(url, error));
+        } catch (ExecutionException e) {
+            failures.put(url, String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.put(url, "Interrupted");
+        }
+    }
+
+    /**
+     * Records the outcome of a fetch that was given up on.
+     */
+    private void settle(String url, Throwable error) {
+        timedOut.remove(url);
+        if (error == null) {
+            loaded.add(url);
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            failures.put(url, String.valueOf(cause.getMessage()));
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        try {
+            // Java 21+, looked up reflectively so the library still runs on Java 17
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService virtual = (ExecutorService) method.invoke(null);
+            virtualThreads = true;
+            return virtual;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "scalar-prefetch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(Math.min(concurrency, urls.size()), threadFactory);
+        }
+    }
+}
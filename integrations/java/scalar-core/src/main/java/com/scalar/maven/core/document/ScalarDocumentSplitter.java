@@ -0,0 +1,354 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits large OpenAPI documents so the browser can render them before all of
+ * their operations are loaded.
+ *
+ * <p>
+ * A document is split into a skeleton and one fragment per tag. The skeleton
+ * keeps everything but the operations and the components: the info, the tags,
+ * the servers, and an index of the paths with the id, summary and tags of each
+ * operation. It lists the fragments in the {@value #FRAGMENTS_EXTENSION}
+ * extension. Each fragment is a complete OpenAPI document with the operations
+ * of one tag and the components they reference, directly or through other
+ * components. Operations without tags are put into a fragment of their own.
+ * </p>
+ *
+ * <p>
+ * Only JSON documents are split, and only when Jackson is on the classpath,
+ * which it is in every Spring Boot web application. Documents that cannot be
+ * split yield {@link ScalarDocumentFragments#isSplit() no fragments}.
+ * </p>
+ */
+public final class ScalarDocumentSplitter {
+
+    /**
+     * The extension of the skeleton listing the fragments, with the id, the tag
+     * and the number of operations of each.
+     */
+    public static final String FRAGMENTS_EXTENSION = "x-scalar-fragments";
+
+    /**
+     * The id of the fragment with the operations that have no tags, unless a
+     * tag has the same id.
+     */
+    static final String UNTAGGED_ID = "untagged";
+
+    private static final Set<String> METHODS = Set.of(
+            "get", "put", "post", "delete", "options", "head", "patch", "trace", "query");
+
+    private static final List<String> INDEX_FIELDS = List.of("operationId", "summary", "tags", "deprecated");
+
+    private static final String COMPONENTS_REF = "#/components/";
+
+    private ScalarDocumentSplitter() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Splits a document.
+     *
+     * @param document the document, in JSON
+     * @return the skeleton and fragments, or {@link ScalarDocumentFragments#NONE}
+     * if the document cannot be split
+     */
+    public static ScalarDocumentFragments split(ScalarDocument document) {
+        if (!ScalarDocument.JSON_MEDIA_TYPE.equals(document.getMediaType())) {
+            return ScalarDocumentFragments.NONE;
+        }
+        Object parsed;
+        try {
+            parsed = JacksonJsonSerializer.parse(document.getContent());
+        } catch (RuntimeException e) {
+            // Malformed, or Jackson is missing
+            return ScalarDocumentFragments.NONE;
+        }
+        if (!(parsed instanceof Map) || !(((Map<?, ?>) parsed).get("paths") instanceof Map)) {
+            return ScalarDocumentFragments.NONE;
+        }
+
+        Map<?, ?> root = (Map<?, ?>) parsed;
+        Map<?, ?> components = root.get("components") instanceof Map ? (Map<?, ?>) root.get("components") : Map.of();
+        Map<String, Map<Object, Map<Object, Object>>> pathsByTag = groupByTag(root);
+
+        Map<String, String> ids = new LinkedHashMap<>();
+        Set<String> used = new HashSet<>();
+        for (String tag : pathsByTag.keySet()) {
+            ids.put(tag, uniqueId(tag != null ? slug(tag) : UNTAGGED_ID, used));
+        }
+
+        Map<String, ScalarDocument> fragments = new LinkedHashMap<>();
+        List<Map<String, Object>> index = new ArrayList<>();
+        for (Map.Entry<String, Map<Object, Map<Object, Object>>> entry : pathsByTag.entrySet()) {
+            String tag = entry.getKey();
+            Map<Object, Object> fragment = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> field : root.entrySet()) {
+                Object key = field.getKey();
+                if ("paths".equals(key)) {
+                    fragment.put(key, entry.getValue());
+                } else if ("tags".equals(key)) {
+                    List<Object> tags = tagObjects(field.getValue(), tag);
+                    if (!tags.isEmpty()) {
+                        fragment.put(key, tags);
+                    }
+                } else if ("components".equals(key)) {
+                    fragment.put(key, null);
+                } else if (!"webhooks".equals(key)) {
+                    fragment.put(key, field.getValue());
+                }
+            }
+            putComponents(fragment, components);
+            fragments.put(ids.get(tag), toDocument(fragment));
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("id", ids.get(tag));
+            if (tag != null) {
+                summary.put("tag", tag);
+            }
+            summary.put("operations", countOperations(entry.getValue()));
+            index.add(summary);
+        }
+
+        Map<Object, Object> skeleton = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> field : root.entrySet()) {
+            Object key = field.getKey();
+            if ("paths".equals(key)) {
+                skeleton.put(key, pathIndex((Map<?, ?>) field.getValue()));
+            } else if ("components".equals(key)) {
+                skeleton.put(key, null);
+            } else {
+                skeleton.put(key, field.getValue());
+            }
+        }
+        skeleton.put(FRAGMENTS_EXTENSION, index);
+        putComponents(skeleton, components);
+        return new ScalarDocumentFragments(toDocument(skeleton), fragments);
+    }
+
+    /**
+     * Groups the operations by their tags, keeping the fields shared by all
+     * operations of a path, such as its parameters, with each group. Declared
+     * tags come first, in their order, then the tags only used by operations,
+     * then the operations without tags under the {@code null} key.
+     */
+    private static Map<String, Map<Object, Map<Object, Object>>> groupByTag(Map<?, ?> root) {
+        Map<String, Map<Object, Map<Object, Object>>> pathsByTag = new LinkedHashMap<>();
+        if (root.get("tags") instanceof List) {
+            for (Object tag : (List<?>) root.get("tags")) {
+                if (tag instanceof Map && ((Map<?, ?>) tag).get("name") instanceof String) {
+                    pathsByTag.put((String) ((Map<?, ?>) tag).get("name"), new LinkedHashMap<>());
+                }
+            }
+        }
+        Map<Object, Map<Object, Object>> untagged = new LinkedHashMap<>();
+
+        for (Map.Entry<?, ?> path : ((Map<?, ?>) root.get("paths")).entrySet()) {
+            if (!(path.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> pathItem = (Map<?, ?>) path.getValue();
+            boolean hasOperations = false;
+            for (Map.Entry<?, ?> field : pathItem.entrySet()) {
+                if (!METHODS.contains(field.getKey()) || !(field.getValue() instanceof Map)) {
+                    continue;
+                }
+                hasOperations = true;
+                List<String> tags = operationTags((Map<?, ?>) field.getValue());
+                if (tags.isEmpty()) {
+                    sharedFields(untagged, path.getKey(), pathItem).put(field.getKey(), field.getValue());
+                }
+                for (String tag : tags) {
+                    Map<Object, Map<Object, Object>> paths = pathsByTag.computeIfAbsent(tag, t -> new LinkedHashMap<>());
+                    sharedFields(paths, path.getKey(), pathItem).put(field.getKey(), field.getValue());
+                }
+            }
+            if (!hasOperations) {
+                // References to shared path items, for example
+                untagged.put(path.getKey(), new LinkedHashMap<>(pathItem));
+            }
+        }
+
+        pathsByTag.values().removeIf(Map::isEmpty);
+        if (!untagged.isEmpty()) {
+            pathsByTag.put(null, untagged);
+        }
+        return pathsByTag;
+    }
+
+    private static Map<Object, Object> sharedFields(Map<Object, Map<Object, Object>> paths, Object path,
+                                                    Map<?, ?> pathItem) {
+        return paths.computeIfAbsent(path, p -> {
+            Map<Object, Object> shared = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> field : pathItem.entrySet()) {
+                if (!METHODS.contains(field.getKey())) {
+                    shared.put(field.getKey(), field.getValue());
+                }
+            }
+            return shared;
+        });
+    }
+
+    private static List<String> operationTags(Map<?, ?> operation) {
+        List<String> tags = new ArrayList<>();
+        if (operation.get("tags") instanceof List) {
+            for (Object tag : (List<?>) operation.get("tags")) {
+                if (tag instanceof String && !tags.contains(tag)) {
+                    tags.add((String) tag);
+                }
+            }
+        }
+        return tags;
+    }
+
+    private static List<Object> tagObjects(Object tags, String tag) {
+        List<Object> matching = new ArrayList<>();
+        if (tags instanceof List) {
+            for (Object candidate : (List<?>) tags) {
+                if (candidate instanceof Map && tag != null && tag.equals(((Map<?, ?>) candidate).get("name"))) {
+                    matching.add(candidate);
+                }
+            }
+        }
+        return matching;
+    }
+
+    private static int countOperations(Map<Object, Map<Object, Object>> paths) {
+        int operations = 0;
+        for (Map<Object, Object> pathItem : paths.values()) {
+            for (Object key : pathItem.keySet()) {
+                if (METHODS.contains(key)) {
+                    operations++;
+                }
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Reduces the paths to the fields of their operations that are needed to
+     * list them.
+     */
+    private static Map<Object, Object> pathIndex(Map<?, ?> paths) {
+        Map<Object, Object> index = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> path : paths.entrySet()) {
+            if (!(path.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<Object, Object> operations = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) path.getValue()).entrySet()) {
+                if (!METHODS.contains(field.getKey()) || !(field.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> operation = (Map<?, ?>) field.getValue();
+                Map<Object, Object> entry = new LinkedHashMap<>();
+                for (String name : INDEX_FIELDS) {
+                    if (operation.containsKey(name)) {
+                        entry.put(name, operation.get(name));
+                    }
+                }
+                operations.put(field.getKey(), entry);
+            }
+            index.put(path.getKey(), operations);
+        }
+        return index;
+    }
+
+    /**
+     * Sets the components of a document to the ones it references, directly or
+     * through other components, in their original order. Security schemes are
+     * referenced by name rather than by {@code $ref}, so all of them are kept.
+     */
+    private static void putComponents(Map<Object, Object> document, Map<?, ?> components) {
+        Map<String, Set<String>> referenced = new HashMap<>();
+        Deque<Object> pending = new ArrayDeque<>(document.values().stream().filter(v -> v != null).toList());
+        while (!pending.isEmpty()) {
+            Object value = pending.pop();
+            if (value instanceof Map) {
+                pending.addAll(((Map<?, ?>) value).values());
+            } else if (value instanceof List) {
+                pending.addAll((List<?>) value);
+            } else if (value instanceof String && ((String) value).startsWith(COMPONENTS_REF)) {
+                String[] segments = ((String) value).substring(COMPONENTS_REF.length()).split("/", 3);
+                if (segments.length < 2) {
+                    continue;
+                }
+                String type = unescape(segments[0]);
+                String name = unescape(segments[1]);
+                Object section = components.get(type);
+                if (section instanceof Map && ((Map<?, ?>) section).containsKey(name)
+                        && referenced.computeIfAbsent(type, t -> new HashSet<>()).add(name)) {
+                    Object component = ((Map<?, ?>) section).get(name);
+                    if (component != null) {
+                        pending.push(component);
+                    }
+                }
+            }
+        }
+
+        Map<Object, Object> selected = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> section : components.entrySet()) {
+            if ("securitySchemes".equals(section.getKey())) {
+                selected.put(section.getKey(), section.getValue());
+                continue;
+            }
+            Set<String> names = referenced.get(section.getKey());
+            if (names == null || !(section.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<Object, Object> entries = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> component : ((Map<?, ?>) section.getValue()).entrySet()) {
+                if (names.contains(component.getKey())) {
+                    entries.put(component.getKey(), component.getValue());
+                }
+            }
+            selected.put(section.getKey(), entries);
+        }
+        if (selected.isEmpty()) {
+            document.remove("components");
+        } else {
+            document.put("components", selected);
+        }
+    }
+
+    /**
+     * Unescapes a segment of a JSON pointer.
+     */
+    private static String unescape(String segment) {
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+
+    /**
+     * Derives a URL-safe id from a tag name.
+     */
+    static String slug(String tag) {
+        String slug = tag.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+        return slug.isEmpty() ? "tag" : slug;
+    }
+
+    private static String uniqueId(String slug, Set<String> used) {
+        String id = slug;
+        for (int n = 2; !used.add(id); n++) {
+            id = slug + "-" + n;
+        }
+        return id;
+    }
+
+    private static ScalarDocument toDocument(Map<Object, Object> document) {
+        byte[] content = JacksonJsonSerializer.serialize(document).getBytes(StandardCharsets.UTF_8);
+        return ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE, null);
+    }
+}
@@ -0,0 +1,149 @@
+package com.scalar.maven.core.document;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a serialized document straight into the buffers of a
+ * {@link ScalarDocument}.
+ *
+ * <p>
+ * The gzip-compressed variant and the hash for the entity tag are computed
+ * block by block while the bytes are written, so producing a document from a
+ * stream of tokens takes a single pass, and no intermediate copy of the
+ * document is kept apart from the buffers the document holds afterwards.
+ * </p>
+ */
+final class ScalarDocumentWriter extends OutputStream {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final ByteArrayOutputStream gzipBuffer;
+    private final GZIPOutputStream gzip;
+    private final MessageDigest digest;
+    private byte[] content;
+    private int size;
+    private int digested;
+
+    /**
+     * Creates a writer.
+     *
+     * @param expectedSize the expected size of the document, used to size the buffers
+     */
+    ScalarDocumentWriter(int expectedSize) {
+        this.content = new byte[Math.max(expectedSize, 256)];
+        this.gzipBuffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try {
+            this.gzip = new GZIPOutputStream(gzipBuffer, BLOCK_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            };
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        content[size++] = (byte) b;
+        if (size - digested >= BLOCK_SIZE) {
+            digest();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(bytes, offset, content, size, length);
+        size += length;
+        if (size - digested >= BLOCK_SIZE) {
+            digest();
+        }
+    }
+
+    /**
+     * Writes a part of the document written so far once more, for example the
+     * value of a YAML anchor that is referenced again.
+     *
+     * @param start the index of the first byte
+     * @param end   the index after the last byte
+     */
+    void repeat(int start, int end) {
+        write(content, start, end - start);
+    }
+
+    /**
+     * Gets a byte written before.
+     *
+     * @param index the index of the byte
+     * @return the byte
+     */
+    byte byteAt(int index) {
+        return content[index];
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the size of the document so far
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Completes the document.
+     *
+     * @param mediaType the media type of the written document
+     * @param original  the document this one was derived from, or {@code null}
+     * @return the document
+     */
+    ScalarDocument toDocument(String mediaType, ScalarDocument original) {
+        digest();
+        try {
+            gzip.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] written = size == content.length ? content : Arrays.copyOf(content, size);
+        content = null;
+        return ScalarDocument.of(written, gzipBuffer.toByteArray(), HexFormat.of().formatHex(digest.digest()),
+                mediaType, original);
+    }
+
+    /**
+     * Feeds the bytes written since the last block to the compressor and the
+     * hash. Bytes already fed are never changed, only repeated.
+     */
+    private void digest() {
+        try {
+            gzip.write(content, digested, size - digested);
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+        digest.update(content, digested, size - digested);
+        digested = size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > content.length) {
+            content = Arrays.copyOf(content, Math.max(capacity, content.length + (content.length >> 1)));
+        }
+    }
+}
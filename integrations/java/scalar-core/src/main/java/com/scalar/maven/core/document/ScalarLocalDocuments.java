@@ -0,0 +1,422 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarProperties;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves OpenAPI documents from {@code file:} and {@code classpath:} locations.
+ *
+ * <p>
+ * Browsers cannot load these locations, so the API Reference refers to local
+ * copies served by Scalar instead. Each document is read once and kept in
+ * memory, precompressed and with an entity tag, like any other
+ * {@link ScalarDocument}. Classpath resources that live in a directory, as they
+ * do while developing, are treated like files; resources inside an archive are
+ * read once and never change.
+ * </p>
+ *
+ * <p>
+ * When watching is enabled, the directories of the loaded files are registered
+ * with a {@link WatchService}. A single daemon thread blocks until the file
+ * system reports a change, then reloads and recompresses only the documents
+ * whose content actually changed, and drops only the rendered pages that
+ * embed their previous version. Pages that refer to a document by URL need no
+ * invalidation: the document is served with {@code Cache-Control: no-cache},
+ * so browsers revalidate it against the new entity tag. When watching is
+ * disabled, no thread is started and no watch is registered.
+ * </p>
+ *
+ * <p>
+ * When optimizing is enabled, each document is converted to compact JSON once
+ * by the {@link ScalarDocumentOptimizer}; the document as read stays available
+ * through {@link ScalarDocument#getOriginal()}.
+ * </p>
+ *
+ * <p>
+ * If a file cannot be read while reloading, for example because it is being
+ * replaced, the last copy keeps being served.
+ * </p>
+ */
+public class ScalarLocalDocuments implements AutoCloseable {
+
+    /**
+     * The prefix of document locations on the file system.
+     */
+    public static final String FILE_PREFIX = "file:";
+
+    /**
+     * The prefix of document locations on the classpath.
+     */
+    public static final String CLASSPATH_PREFIX = "classpath:";
+
+    private static final String YAML_MEDIA_TYPE = "application/yaml";
+
+    /**
+     * Where a document is read from: a file, or a resource inside an archive.
+     */
+    private static final class Location {
+        private final Path file;
+        private final URL resource;
+
+        private Location(Path file, URL resource) {
+            this.file = file;
+            this.resource = resource;
+        }
+    }
+
+    private final ClassLoader classLoader;
+    private final boolean watchEnabled;
+    private final boolean optimize;
+    private final Object lock = new Object();
+    private final ConcurrentHashMap<String, ScalarDocument> documents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, Set<String>> urlsByFile = new ConcurrentHashMap<>();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private WatchService watchService;
+    private boolean closed;
+
+    /**
+     * Creates a store that reads documents from the given class loader and the
+     * file system.
+     *
+     * @param classLoader  the class loader to read {@code classpath:} locations with
+     * @param watchEnabled whether to reload documents when their files change
+     */
+    public ScalarLocalDocuments(ClassLoader classLoader, boolean watchEnabled) {
+        this(classLoader, watchEnabled, false);
+    }
+
+    /**
+     * Creates a store that reads documents from the given class loader and the
+     * file system.
+     *
+     * @param classLoader  the class loader to read {@code classpath:} locations with
+     * @param watchEnabled whether to reload documents when their files change
+     * @param optimize     whether to convert documents to compact JSON
+     */
+    public ScalarLocalDocuments(ClassLoader classLoader, boolean watchEnabled, boolean optimize) {
+        this.classLoader = Objects.requireNonNull(classLoader, "classLoader must not be null");
+        this.watchEnabled = watchEnabled;
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether a URL points at a document this store can serve.
+     *
+     * @param url the URL, may be {@code null}
+     * @return {@code true} for {@code file:} and {@code classpath:} locations
+     */
+    public static boolean isLocal(String url) {
+        if (url == null) {
+            return false;
+        }
+        String lowerCase = url.toLowerCase(Locale.ROOT);
+        return lowerCase.startsWith(FILE_PREFIX) || lowerCase.startsWith(CLASSPATH_PREFIX);
+    }
+
+    /**
+     * Resolves a document id to the local location configured for it.
+     *
+     * @param properties the configuration properties
+     * @param id         the document id, {@link ScalarDocumentCache#DEFAULT_DOCUMENT_ID} or the index of a source
+     * @return the location, or {@code null} if the id does not denote a local document
+     */
+    public static String resolve(ScalarProperties properties, String id) {
+        String url = ScalarDocumentCache.configuredUrl(properties, id);
+        return isLocal(url) ? url : null;
+    }
+
+    /**
+     * Gets a document, reading it on first access.
+     *
+     * @param url the {@code file:} or {@code classpath:} location of the document
+     * @return the document
+     * @throws IOException if the document cannot be read
+     */
+    public ScalarDocument get(String url) throws IOException {
+        Objects.requireNonNull(url, "url must not be null");
+
+        ScalarDocument document = documents.get(url);
+        if (document != null) {
+            return document;
+        }
+        synchronized (lock) {
+            document = documents.get(url);
+            if (document != null) {
+                return document;
+            }
+
+            Location location = locate(url);
+            byte[] content;
+            if (location.file != null) {
+                content = Files.readAllBytes(location.file);
+            } else {
+                try (InputStream inputStream = location.resource.openStream()) {
+                    content = inputStream.readAllBytes();
+                }
+            }
+            document = load(content, url);
+            documents.put(url, document);
+            loads.increment();
+
+            if (location.file != null) {
+                urlsByFile.computeIfAbsent(location.file, file -> new CopyOnWriteArraySet<>()).add(url);
+                watch(location.file.getParent());
+            }
+            return document;
+        }
+    }
+
+    /**
+     * Gets whether a document is held in memory.
+     *
+     * @param url the location of the document
+     * @return {@code true} if the document is served without reading it
+     */
+    public boolean isLoaded(String url) {
+        return documents.containsKey(url);
+    }
+
+    /**
+     * Gets whether documents are reloaded when their files change.
+     *
+     * @return {@code true} if watching is enabled
+     */
+    public boolean isWatchEnabled() {
+        return watchEnabled;
+    }
+
+    /**
+     * Gets the directories watched for changes.
+     *
+     * @return the watched directories
+     */
+    public Set<Path> getWatchedDirectories() {
+        return Set.copyOf(directories);
+    }
+
+    /**
+     * Drops all documents; they are read again on next access.
+     */
+    public void clear() {
+        synchronized (lock) {
+            documents.clear();
+            urlsByFile.clear();
+        }
+    }
+
+    /**
+     * Gets the number of documents held in memory.
+     *
+     * @return the number of documents
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Gets the number of documents read on first access.
+     *
+     * @return the number of loads
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Gets the number of documents reloaded because their content changed.
+     *
+     * @return the number of reloads
+     */
+    public long getReloads() {
+        return reloads.sum();
+    }
+
+    /**
+     * Stops watching for changes. The documents held in memory keep being served.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            if (watchService != null) {
+                watchService.close();
+            }
+        }
+    }
+
+    private Location locate(String url) throws IOException {
+        if (url.regionMatches(true, 0, CLASSPATH_PREFIX, 0, CLASSPATH_PREFIX.length())) {
+            String name = url.substring(CLASSPATH_PREFIX.length());
+            while (name.startsWith("/")) {
+                name = name.substring(1);
+            }
+            URL resource = classLoader.getResource(name);
+            if (resource == null) {
+                throw new FileNotFoundException("OpenAPI document not found on the classpath: " + name);
+            }
+            if ("file".equals(resource.getProtocol())) {
+                try {
+                    return new Location(Paths.get(resource.toURI()), null);
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // Read the resource through its URL instead
+                }
+            }
+            return new Location(null, resource);
+        }
+
+        String path = url.substring(FILE_PREFIX.length());
+        try {
+            // file:///absolute/path is a URI, file:relative/path is relative to the working directory
+            Path file = path.startsWith("//") ? Paths.get(URI.create(url)) : Paths.get(path);
+            return new Location(file.toAbsolutePath().normalize(), null);
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException("Invalid OpenAPI document location: " + url, e);
+        }
+    }
+
+    /**
+     * Registers a directory with the watch service, starting the watcher thread
+     * on first use. Must be called while holding the lock.
+     *
+     * @param directory the directory of a loaded file
+     */
+    private void watch(Path directory) {
+        if (!watchEnabled || closed || directory == null || directories.contains(directory)) {
+            return;
+        }
+        try {
+            if (watchService == null) {
+                watchService = directory.getFileSystem().newWatchService();
+                Thread watcher = new Thread(this::processEvents, "scalar-document-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            directories.add(directory);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Watching is best effort; the document keeps being served as loaded
+        }
+    }
+
+    private void processEvents() {
+        WatchService service;
+        synchronized (lock) {
+            service = watchService;
+        }
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            Set<Path> changed = new LinkedHashSet<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                Path file = event.context() instanceof Path ? directory.resolve((Path) event.context()) : null;
+                if (file != null && urlsByFile.containsKey(file)) {
+                    changed.add(file);
+                    continue;
+                }
+                // An overflow, or a file replaced through a symbolic link as mounted
+                // configuration is; check every document in the directory
+                for (Path watched : urlsByFile.keySet()) {
+                    if (directory.equals(watched.getParent())) {
+                        changed.add(watched);
+                    }
+                }
+            }
+            changed.forEach(this::reload);
+
+            if (!key.reset()) {
+                directories.remove(directory);
+            }
+        }
+    }
+
+    /**
+     * Reloads the documents read from a file if its content changed.
+     *
+     * @param file the file
+     */
+    private void reload(Path file) {
+        Set<String> urls = urlsByFile.get(file);
+        if (urls == null) {
+            return;
+        }
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // Deleted or being replaced; keep serving the last copy
+            return;
+        }
+        if (content.length == 0) {
+            // Truncated before being written; the next event carries the content
+            return;
+        }
+
+        synchronized (lock) {
+            ScalarDocument reloaded = null;
+            for (String url : urls) {
+                ScalarDocument previous = documents.get(url);
+                if (previous != null && Arrays.equals(previous.getOriginal().getContent(), content)) {
+                    continue;
+                }
+                if (reloaded == null) {
+                    reloaded = load(content, url);
+                    if (previous != null) {
+                        reloaded.replaces(previous);
+                    }
+                }
+                documents.put(url, reloaded);
+                reloads.increment();
+                if (previous != null) {
+                    ScalarHtmlRenderer.invalidate(previous);
+                }
+            }
+        }
+    }
+
+    private ScalarDocument load(byte[] content, String url) {
+        ScalarDocument document = ScalarDocument.of(content, mediaType(url));
+        return optimize ? ScalarDocumentOptimizer.optimize(document) : document;
+    }
+
+    private static String mediaType(String url) {
+        String lowerCase = url.toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".yaml") || lowerCase.endsWith(".yml")
+                ? YAML_MEDIA_TYPE
+                : ScalarDocument.JSON_MEDIA_TYPE;
+    }
+}
@@ -0,0 +1,269 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A search index of an OpenAPI document, built once on the server instead of in
+ * every browser tab.
+ *
+ * <p>
+ * The index lists the tags, operations and schemas of the document as entries,
+ * and maps each term to the positions of the entries it occurs in. Terms are the
+ * lowercase words of the operation ids, paths, summaries, tags and schema names,
+ * split at punctuation and at camel case boundaries. The index is served as a
+ * JSON document of its own:
+ * </p>
+ *
+ * <pre>
+ * {"version":"&lt;ETag of the document&gt;",
+ *  "entries":[{"type":"operation","method":"get","path":"/pets","operationId":"listPets",...},...],
+ *  "terms":{"list":[1],"pets":[0,1],...}}
+ * </pre>
+ *
+ * <p>
+ * When a document is reloaded, the index of the new version is built from the
+ * index of the previous one: entries whose indexed fields did not change keep
+ * their terms, and only the changed entries are tokenized again.
+ * </p>
+ */
+public final class ScalarSearchIndex {
+
+    /**
+     * The result for a document that cannot be indexed.
+     */
+    static final ScalarSearchIndex NONE = new ScalarSearchIndex(null, Map.of(), 0);
+
+    private static final Set<String> METHODS = Set.of(
+            "get", "put", "post", "delete", "options", "head", "patch", "trace", "query");
+
+    /**
+     * An indexed tag, operation or schema with its terms.
+     */
+    private static final class Entry {
+        private final Map<String, Object> fields;
+        private final Set<String> terms;
+
+        private Entry(Map<String, Object> fields, Set<String> terms) {
+            this.fields = fields;
+            this.terms = terms;
+        }
+    }
+
+    private final ScalarDocument document;
+    private final Map<String, Entry> entries;
+    private final int reusedEntries;
+
+    private ScalarSearchIndex(ScalarDocument document, Map<String, Entry> entries, int reusedEntries) {
+        this.document = document;
+        this.entries = entries;
+        this.reusedEntries = reusedEntries;
+    }
+
+    /**
+     * Builds the search index of a document.
+     *
+     * @param source   the document, in JSON
+     * @param previous the index of the previous version of the document, or
+     *                 {@code null}
+     * @return the index, or {@link #NONE} if the document cannot be indexed,
+     * because it is not JSON or Jackson is missing
+     */
+    public static ScalarSearchIndex build(ScalarDocument source, ScalarSearchIndex previous) {
+        if (!ScalarDocument.JSON_MEDIA_TYPE.equals(source.getMediaType())) {
+            return NONE;
+        }
+        Object parsed;
+        try {
+            parsed = JacksonJsonSerializer.parse(source.getContent());
+        } catch (RuntimeException e) {
+            // Malformed, or Jackson is missing
+            return NONE;
+        }
+        if (!(parsed instanceof Map)) {
+            return NONE;
+        }
+
+        Map<String, Entry> previousEntries = previous != null ? previous.entries : Map.of();
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        int reused = 0;
+        for (Map.Entry<String, Map<String, Object>> fields : collectFields((Map<?, ?>) parsed).entrySet()) {
+            Entry entry = previousEntries.get(fields.getKey());
+            if (entry != null && entry.fields.equals(fields.getValue())) {
+                reused++;
+            } else {
+                entry = new Entry(fields.getValue(), terms(fields.getValue()));
+            }
+            entries.put(fields.getKey(), entry);
+        }
+
+        Map<String, List<Integer>> terms = new TreeMap<>();
+        List<Map<String, Object>> list = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            for (String term : entry.terms) {
+                terms.computeIfAbsent(term, t -> new ArrayList<>()).add(list.size());
+            }
+            list.add(entry.fields);
+        }
+
+        Map<String, Object> index = new LinkedHashMap<>();
+        String eTag = source.getETag();
+        index.put("version", eTag.substring(1, eTag.length() - 1));
+        index.put("entries", list);
+        index.put("terms", terms);
+        byte[] content = JacksonJsonSerializer.serialize(index).getBytes(StandardCharsets.UTF_8);
+        return new ScalarSearchIndex(ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE, null),
+                Collections.unmodifiableMap(entries), reused);
+    }
+
+    /**
+     * Gets the serialized index.
+     *
+     * @return the index, or {@code null} if the document cannot be indexed
+     */
+    public ScalarDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Gets the number of entries in the index.
+     *
+     * @return the number of tags, operations and schemas
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of entries taken over from the index of the previous
+     * version of the document.
+     *
+     * @return the number of entries that were not tokenized again
+     */
+    public int getReusedEntries() {
+        return reusedEntries;
+    }
+
+    /**
+     * Collects the indexed fields of the tags, operations and schemas, keyed by
+     * what identifies them across versions of the document.
+     */
+    private static Map<String, Map<String, Object>> collectFields(Map<?, ?> root) {
+        Map<String, Map<String, Object>> fields = new LinkedHashMap<>();
+        if (root.get("tags") instanceof List) {
+            for (Object tag : (List<?>) root.get("tags")) {
+                if (tag instanceof Map && ((Map<?, ?>) tag).get("name") instanceof String) {
+                    addTag(fields, (String) ((Map<?, ?>) tag).get("name"));
+                }
+            }
+        }
+
+        if (root.get("paths") instanceof Map) {
+            for (Map.Entry<?, ?> path : ((Map<?, ?>) root.get("paths")).entrySet()) {
+                if (!(path.getValue() instanceof Map)) {
+                    continue;
+                }
+                for (Map.Entry<?, ?> operation : ((Map<?, ?>) path.getValue()).entrySet()) {
+                    if (!METHODS.contains(operation.getKey()) || !(operation.getValue() instanceof Map)) {
+                        continue;
+                    }
+                    Map<?, ?> source = (Map<?, ?>) operation.getValue();
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("type", "operation");
+                    entry.put("method", operation.getKey());
+                    entry.put("path", path.getKey());
+                    copyString(source, "operationId", entry);
+                    copyString(source, "summary", entry);
+                    if (source.get("tags") instanceof List) {
+                        List<String> tags = new ArrayList<>();
+                        for (Object tag : (List<?>) source.get("tags")) {
+                            if (tag instanceof String) {
+                                tags.add((String) tag);
+                                addTag(fields, (String) tag);
+                            }
+                        }
+                        entry.put("tags", tags);
+                    }
+                    fields.put("operation " + operation.getKey() + " " + path.getKey(), entry);
+                }
+            }
+        }
+
+        if (root.get("components") instanceof Map
+                && ((Map<?, ?>) root.get("components")).get("schemas") instanceof Map) {
+            for (Object name : ((Map<?, ?>) ((Map<?, ?>) root.get("components")).get("schemas")).keySet()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("type", "schema");
+                entry.put("name", String.valueOf(name));
+                fields.put("schema " + name, entry);
+            }
+        }
+        return fields;
+    }
+
+    private static void addTag(Map<String, Map<String, Object>> fields, String name) {
+        fields.computeIfAbsent("tag " + name, key -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("type", "tag");
+            entry.put("name", name);
+            return entry;
+        });
+    }
+
+    private static void copyString(Map<?, ?> source, String name, Map<String, Object> target) {
+        if (source.get(name) instanceof String) {
+            target.put(name, source.get(name));
+        }
+    }
+
+    private static Set<String> terms(Map<String, Object> fields) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            if ("type".equals(field.getKey()) || "method".equals(field.getKey())) {
+                continue;
+            }
+            if (field.getValue() instanceof List) {
+                for (Object value : (List<?>) field.getValue()) {
+                    tokenize(String.valueOf(value), terms);
+                }
+            } else {
+                tokenize(String.valueOf(field.getValue()), terms);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Splits a text into lowercase words at punctuation, whitespace and camel
+     * case boundaries, so {@code listPetsByID} yields {@code list}, {@code pets},
+     * {@code by} and {@code id}.
+     */
+    static void tokenize(String text, Set<String> terms) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean letterOrDigit = Character.isLetterOrDigit(c);
+            boolean boundary = start >= 0 && letterOrDigit && i > start && Character.isUpperCase(c)
+                    && (Character.isLowerCase(text.charAt(i - 1))
+                    || i + 1 < text.length() && Character.isLowerCase(text.charAt(i + 1))
+                    && Character.isUpperCase(text.charAt(i - 1)));
+            if (start >= 0 && (!letterOrDigit || boundary)) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+            if (letterOrDigit && start < 0) {
+                start = i;
+            }
+        }
+    }
+}
@@ -4,8 +4,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
- * Serializes the Scalar configuration to JSON using whichever Jackson Databind
- * implementation is present on the runtime classpath.
+ * Serializes the Scalar configuration to JSON, and parses JSON documents, using
+ * whichever Jackson Databind implementation is present on the runtime classpath.
  *
  * <p>
  * Scalar only depends on {@code jackson-annotations} at build time, which is the
@@ -34,15 +34,21 @@ public final class JacksonJsonSerializer {
 
     /**
      * The resolved mapper instance together with its
-     * {@code writeValueAsString(Object)} method, cached after the first lookup.
+     * {@code writeValueAsString(Object)} and {@code readValue(byte[], Class)}
+     * methods, cached after the first lookup.
      */
     private static final class Engine {
+        private final String name;
         private final Object mapper;
         private final Method writeValueAsString;
+        private final Method readValue;
+        private long resolutionNanos;
 
-        private Engine(Object mapper, Method writeValueAsString) {
+        private Engine(String name, Object mapper, Method writeValueAsString, Method readValue) {
+            this.name = name;
             this.mapper = mapper;
             this.writeValueAsString = writeValueAsString;
+            this.readValue = readValue;
         }
     }
 
@@ -72,13 +78,55 @@ public final class JacksonJsonSerializer {
         }
     }
 
+    /**
+     * Parses a JSON document into maps, lists and scalar values.
+     *
+     * @param json the JSON document in UTF-8
+     * @return the parsed document
+     * @throws IllegalStateException if no Jackson Databind implementation is present on the classpath
+     * @throws RuntimeException      if the document cannot be parsed
+     */
+    public static Object parse(byte[] json) {
+        Engine resolved = resolveEngine();
+        try {
+            return resolved.readValue.invoke(resolved.mapper, json, Object.class);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Failed to parse JSON document", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to parse JSON document", e);
+        }
+    }
+
+    /**
+     * Gets the name of the Jackson version used for serialization, resolving it
+     * on first access.
+     *
+     * @return {@code Jackson 3} or {@code Jackson 2}
+     * @throws IllegalStateException if no Jackson Databind implementation is present on the classpath
+     */
+    public static String getEngineName() {
+        return resolveEngine().name;
+    }
+
+    /**
+     * Gets the time spent resolving the serialization engine.
+     *
+     * @return the time in nanoseconds, or {@code 0} if the engine is not resolved yet
+     */
+    public static long getResolutionNanos() {
+        Engine local = engine;
+        return local != null ? local.resolutionNanos : 0;
+    }
+
     private static Engine resolveEngine() {
         Engine local = engine;
         if (local == null) {
             synchronized (JacksonJsonSerializer.class) {
                 local = engine;
                 if (local == null) {
+                    long start = System.nanoTime();
                     local = createEngine();
+                    local.resolutionNanos = System.nanoTime() - start;
                     engine = local;
                 }
             }
@@ -89,11 +137,11 @@ public final class JacksonJsonSerializer {
     private static Engine createEngine() {
         // Prefer Jackson 3.x when present, falling back to Jackson 2.x. Either
         // produces the same output for the annotation-driven configuration model.
-        Engine jackson3 = tryCreate("tools.jackson.databind.json.JsonMapper", true);
+        Engine jackson3 = tryCreate("Jackson 3", "tools.jackson.databind.json.JsonMapper", true);
         if (jackson3 != null) {
             return jackson3;
         }
-        Engine jackson2 = tryCreate("com.fasterxml.jackson.databind.ObjectMapper", false);
+        Engine jackson2 = tryCreate("Jackson 2", "com.fasterxml.jackson.databind.ObjectMapper", false);
         if (jackson2 != null) {
             return jackson2;
         }
@@ -103,7 +151,7 @@ public final class JacksonJsonSerializer {
                         + "tools.jackson.core:jackson-databind (Jackson 3.x) to your dependencies.");
     }
 
-    private static Engine tryCreate(String mapperClassName, boolean useBuilder) {
+    private static Engine tryCreate(String name, String mapperClassName, boolean useBuilder) {
         final Class<?> mapperClass;
         try {
             mapperClass = Class.forName(mapperClassName);
@@ -115,7 +163,8 @@ public final class JacksonJsonSerializer {
                     ? buildWithBuilder(mapperClass)
                     : mapperClass.getDeclaredConstructor().newInstance();
             Method writeValueAsString = mapper.getClass().getMethod("writeValueAsString", Object.class);
-            return new Engine(mapper, writeValueAsString);
+            Method readValue = mapper.getClass().getMethod("readValue", byte[].class, Class.class);
+            return new Engine(name, mapper, writeValueAsString, readValue);
         } catch (ReflectiveOperationException e) {
             throw new IllegalStateException("Failed to initialize Jackson mapper: " + mapperClassName, e);
         }
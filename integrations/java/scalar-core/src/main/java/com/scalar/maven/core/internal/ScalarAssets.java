@@ -0,0 +1,235 @@
+package com.scalar.maven.core.internal;
+
+import com.scalar.maven.core.ScalarConstants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the classpath assets of the Scalar API Reference, loaded once and kept
+ * in memory afterwards.
+ *
+ * <p>
+ * The HTML template and the JavaScript bundle are immutable for the lifetime of
+ * the application, so reading them from the jar on every request only costs
+ * I/O and allocations. The template is kept in its {@linkplain ScalarTemplate
+ * compiled} form, and the SHA-256 hash of an asset is computed the first time
+ * it is requested.
+ * </p>
+ *
+ * <p>
+ * <strong>Warning:</strong> This class is internal API and should not be used
+ * directly. It may change without notice in future versions.
+ * </p>
+ */
+public final class ScalarAssets {
+
+    private static final String ASSETS_PATH = "/META-INF/resources/webjars/scalar/";
+
+    /**
+     * The classpath location of the HTML template.
+     */
+    public static final String HTML_TEMPLATE_PATH = ASSETS_PATH + "index.html";
+
+    /**
+     * The classpath location of the JavaScript bundle.
+     */
+    public static final String JS_BUNDLE_PATH = ASSETS_PATH + ScalarConstants.JS_FILENAME;
+
+    /**
+     * The content of an asset together with its lazily computed SHA-256 hash.
+     */
+    private static final class Asset {
+        private final byte[] content;
+        private volatile String hash;
+
+        private Asset(byte[] content) {
+            this.content = content;
+        }
+
+        private String hash() {
+            String local = hash;
+            if (local == null) {
+                long start = System.nanoTime();
+                local = sha256(content);
+                LOAD_NANOS.addAndGet(System.nanoTime() - start);
+                hash = local;
+            }
+            return local;
+        }
+    }
+
+    private static final AtomicLong LOAD_NANOS = new AtomicLong();
+
+    private static volatile Asset templateSource;
+    private static volatile ScalarTemplate template;
+    private static volatile Asset bundle;
+
+    private ScalarAssets() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Gets the compiled HTML template, loading and compiling it on first access.
+     *
+     * @return the compiled HTML template
+     * @throws IOException if the template cannot be found or read
+     */
+    public static ScalarTemplate getTemplate() throws IOException {
+        ScalarTemplate local = template;
+        if (local == null) {
+            synchronized (ScalarAssets.class) {
+                local = template;
+                if (local == null) {
+                    Asset source = load(HTML_TEMPLATE_PATH, "HTML template");
+                    long start = System.nanoTime();
+                    local = ScalarTemplate.compile(new String(source.content, StandardCharsets.UTF_8));
+                    LOAD_NANOS.addAndGet(System.nanoTime() - start);
+                    templateSource = source;
+                    template = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Gets the JavaScript bundle, loading it on first access.
+     *
+     * <p>
+     * The returned array is shared between all callers and must not be modified.
+     * </p>
+     *
+     * @return the JavaScript bundle
+     * @throws IOException if the bundle cannot be found or read
+     */
+    public static byte[] getBundle() throws IOException {
+        return bundleAsset().content;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the JavaScript bundle, loading the bundle on first access.
+     *
+     * @return the hex-encoded hash
+     * @throws IOException if the bundle cannot be found or read
+     */
+    public static String getBundleHash() throws IOException {
+        return bundleAsset().hash();
+    }
+
+    /**
+     * Gets whether the HTML template is already held in memory.
+     *
+     * @return {@code true} if the template is loaded
+     */
+    public static boolean isTemplateLoaded() {
+        return template != null;
+    }
+
+    /**
+     * Gets whether the JavaScript bundle is already held in memory.
+     *
+     * @return {@code true} if the bundle is loaded
+     */
+    public static boolean isBundleLoaded() {
+        return bundle != null;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the HTML template, if it is loaded.
+     *
+     * @return the hex-encoded hash, or {@code null} if the template is not loaded
+     */
+    public static String getLoadedTemplateHash() {
+        Asset local = templateSource;
+        return local != null ? local.hash() : null;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the JavaScript bundle, if it is loaded.
+     *
+     * @return the hex-encoded hash, or {@code null} if the bundle is not loaded
+     */
+    public static String getLoadedBundleHash() {
+        Asset local = bundle;
+        return local != null ? local.hash() : null;
+    }
+
+    /**
+     * Gets the size of the JavaScript bundle, if it is loaded.
+     *
+     * @return the size in bytes, or {@code 0} if the bundle is not loaded
+     */
+    public static long getLoadedBundleSize() {
+        Asset local = bundle;
+        return local != null ? local.content.length : 0;
+    }
+
+    /**
+     * Gets the total time spent reading, compiling and hashing assets.
+     *
+     * @return the time in nanoseconds
+     */
+    public static long getLoadNanos() {
+        return LOAD_NANOS.get();
+    }
+
+    /**
+     * Drops the in-memory copies of the assets. They are loaded again on the
+     * next access.
+     */
+    public static void evict() {
+        synchronized (ScalarAssets.class) {
+            templateSource = null;
+            template = null;
+            bundle = null;
+        }
+    }
+
+    /**
+     * Computes the hex-encoded SHA-256 hash of the given content.
+     *
+     * @param content the content to hash
+     * @return the hex-encoded hash
+     */
+    public static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Asset bundleAsset() throws IOException {
+        Asset local = bundle;
+        if (local == null) {
+            synchronized (ScalarAssets.class) {
+                local = bundle;
+                if (local == null) {
+                    local = load(JS_BUNDLE_PATH, "JavaScript bundle");
+                    bundle = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private static Asset load(String path, String description) throws IOException {
+        long start = System.nanoTime();
+        InputStream stream = ScalarAssets.class.getResourceAsStream(path);
+        if (stream == null) {
+            throw new IOException(description + " not found at: " + path);
+        }
+        try (InputStream inputStream = stream) {
+            return new Asset(inputStream.readAllBytes());
+        } finally {
+            LOAD_NANOS.addAndGet(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.scalar.maven.core.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, least-recently-used cache of rendered API Reference pages.
+ *
+ * <p>
+ * Pages are keyed by everything that goes into the template: the bundle URL,
+ * the page title and the serialized configuration. Repeated requests with the
+ * same configuration reuse the rendered page instead of filling the template
+ * again.
+ * </p>
+ *
+ * <p>
+ * <strong>Warning:</strong> This class is internal API and should not be used
+ * directly. It may change without notice in future versions.
+ * </p>
+ */
+public final class ScalarRenderCache {
+
+    /**
+     * The default maximum number of pages held by the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 16;
+
+    private static final ScalarRenderCache SHARED = new ScalarRenderCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final int maximumSize;
+    private final Map<String, String> pages;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding at most the given number of pages.
+     *
+     * @param maximumSize the maximum number of pages
+     */
+    public ScalarRenderCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                boolean evict = size() > ScalarRenderCache.this.maximumSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache used by {@link com.scalar.maven.core.ScalarHtmlRenderer}.
+     *
+     * @return the shared cache
+     */
+    public static ScalarRenderCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the rendered page for the given key, recording a hit or a miss.
+     *
+     * @param key the render key
+     * @return the rendered page, or {@code null} if it is not cached
+     */
+    public String get(String key) {
+        String page;
+        synchronized (pages) {
+            page = pages.get(key);
+        }
+        if (page != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return page;
+    }
+
+    /**
+     * Stores a rendered page, evicting the least recently used page if the cache is full.
+     *
+     * @param key  the render key
+     * @param page the rendered page
+     */
+    public void put(String key, String page) {
+        synchronized (pages) {
+            pages.put(key, page);
+        }
+    }
+
+    /**
+     * Removes the pages whose key matches the given predicate. The statistics are kept.
+     *
+     * @param keyPredicate the predicate selecting the render keys to remove
+     * @return the number of removed pages
+     */
+    public int removeIf(Predicate<String> keyPredicate) {
+        synchronized (pages) {
+            int size = pages.size();
+            pages.keySet().removeIf(keyPredicate);
+            return size - pages.size();
+        }
+    }
+
+    /**
+     * Removes all pages from the cache. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (pages) {
+            pages.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached pages.
+     *
+     * @return the number of pages
+     */
+    public int size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    /**
+     * Gets the maximum number of cached pages.
+     *
+     * @return the maximum number of pages
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Estimates the heap held by the cached pages, counting two bytes per character
+     * of every key and page.
+     *
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        long chars = 0;
+        synchronized (pages) {
+            for (Map.Entry<String, String> entry : pages.entrySet()) {
+                chars += entry.getKey().length() + entry.getValue().length();
+            }
+        }
+        return chars * 2;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups not answered from the cache.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of pages evicted to stay within the maximum size.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
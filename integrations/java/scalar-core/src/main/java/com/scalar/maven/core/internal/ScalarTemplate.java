@@ -0,0 +1,134 @@
+package com.scalar.maven.core.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The HTML template of the Scalar API Reference, compiled into literal segments
+ * and placeholders.
+ *
+ * <p>
+ * Rendering appends the segments and the placeholder values to a single,
+ * pre-sized buffer instead of scanning and copying the whole page once per
+ * placeholder. Placeholder values are inserted verbatim and never scanned for
+ * further placeholders.
+ * </p>
+ *
+ * <p>
+ * <strong>Warning:</strong> This class is internal API and should not be used
+ * directly. It may change without notice in future versions.
+ * </p>
+ */
+public final class ScalarTemplate {
+
+    /**
+     * The placeholders supported by the template.
+     */
+    public enum Placeholder {
+        /** The URL of the JavaScript bundle. */
+        JS_BUNDLE_URL("__JS_BUNDLE_URL__"),
+        /** The title of the page. */
+        PAGE_TITLE("__PAGE_TITLE__"),
+        /** The serialized configuration. */
+        CONFIGURATION("__CONFIGURATION__");
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+    }
+
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int literalLength;
+    private final int sourceLength;
+
+    private ScalarTemplate(String[] literals, Placeholder[] placeholders, int literalLength, int sourceLength) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.literalLength = literalLength;
+        this.sourceLength = sourceLength;
+    }
+
+    /**
+     * Compiles the given template source.
+     *
+     * @param source the template source
+     * @return the compiled template
+     */
+    public static ScalarTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        while (true) {
+            Placeholder next = null;
+            int nextIndex = -1;
+            for (Placeholder placeholder : Placeholder.values()) {
+                int index = source.indexOf(placeholder.token, position);
+                if (index >= 0 && (nextIndex < 0 || index < nextIndex)) {
+                    next = placeholder;
+                    nextIndex = index;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            literals.add(source.substring(position, nextIndex));
+            literalLength += nextIndex - position;
+            placeholders.add(next);
+            position = nextIndex + next.token.length();
+        }
+        literals.add(source.substring(position));
+        literalLength += source.length() - position;
+        return new ScalarTemplate(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]),
+                literalLength, source.length());
+    }
+
+    /**
+     * Renders the template with the given placeholder values.
+     *
+     * @param bundleUrl         the URL of the JavaScript bundle
+     * @param pageTitle         the title of the page
+     * @param configurationJson the serialized configuration
+     * @return the rendered page
+     */
+    public String render(String bundleUrl, String pageTitle, String configurationJson) {
+        StringBuilder page = new StringBuilder(literalLength + bundleUrl.length() + pageTitle.length()
+                + configurationJson.length());
+        for (int i = 0; i < placeholders.length; i++) {
+            page.append(literals[i]);
+            switch (placeholders[i]) {
+                case JS_BUNDLE_URL:
+                    page.append(bundleUrl);
+                    break;
+                case PAGE_TITLE:
+                    page.append(pageTitle);
+                    break;
+                default:
+                    page.append(configurationJson);
+                    break;
+            }
+        }
+        return page.append(literals[placeholders.length]).toString();
+    }
+
+    /**
+     * Gets the length of the template source.
+     *
+     * @return the number of characters
+     */
+    public int getSourceLength() {
+        return sourceLength;
+    }
+
+    /**
+     * Gets the number of literal segments and placeholders the template was compiled into.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return literals.length + placeholders.length;
+    }
+}
@@ -0,0 +1,376 @@
+package com.scalar.maven.core.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+
+/**
+ * Loads YAML documents using the SnakeYAML library present on the runtime
+ * classpath.
+ *
+ * <p>
+ * Scalar does not depend on SnakeYAML. Spring Boot applications usually have it
+ * on the classpath to read {@code application.yml}, so it is resolved at runtime
+ * by reflection, the same way {@link JacksonJsonSerializer} resolves Jackson.
+ * Without SnakeYAML, YAML documents are served as they are.
+ * </p>
+ *
+ * <p>
+ * SnakeYAML limits documents to 3 MB by default; the limit is lifted, since
+ * only documents configured by the application are loaded.
+ * </p>
+ *
+ * <p>
+ * Besides loading a document into memory, a document can be
+ * {@linkplain #parse(InputStream, EventHandler) parsed} into a stream of events,
+ * which keeps only the current event in memory, however large the document is.
+ * </p>
+ *
+ * <p>
+ * <strong>Warning:</strong> This class is internal API and should not be used
+ * directly. It may change without notice in future versions.
+ * </p>
+ */
+public final class SnakeYamlLoader {
+
+    private static final String YAML_CLASS_NAME = "org.yaml.snakeyaml.Yaml";
+
+    private static final String LOADER_OPTIONS_CLASS_NAME = "org.yaml.snakeyaml.LoaderOptions";
+
+    private static final String EVENTS_PACKAGE = "org.yaml.snakeyaml.events.";
+
+    /**
+     * Receives the events of a parsed YAML document.
+     *
+     * <p>
+     * Tags are the full tag URIs, for example {@code tag:yaml.org,2002:int}. The
+     * tags of scalars are resolved the way SnakeYAML resolves them when loading,
+     * while the tags of collections are passed as they were written, or
+     * {@code null}.
+     * </p>
+     */
+    public interface EventHandler {
+
+        /**
+         * Called when a mapping starts.
+         *
+         * @param tag    the explicit tag of the mapping, or {@code null}
+         * @param anchor the anchor of the mapping, or {@code null}
+         * @throws IOException if the event cannot be handled
+         */
+        void startMapping(String tag, String anchor) throws IOException;
+
+        /**
+         * Called when a mapping ends.
+         *
+         * @throws IOException if the event cannot be handled
+         */
+        void endMapping() throws IOException;
+
+        /**
+         * Called when a sequence starts.
+         *
+         * @param tag    the explicit tag of the sequence, or {@code null}
+         * @param anchor the anchor of the sequence, or {@code null}
+         * @throws IOException if the event cannot be handled
+         */
+        void startSequence(String tag, String anchor) throws IOException;
+
+        /**
+         * Called when a sequence ends.
+         *
+         * @throws IOException if the event cannot be handled
+         */
+        void endSequence() throws IOException;
+
+        /**
+         * Called for a scalar.
+         *
+         * @param value  the value as written
+         * @param tag    the resolved tag of the scalar
+         * @param anchor the anchor of the scalar, or {@code null}
+         * @throws IOException if the event cannot be handled
+         */
+        void scalar(String value, String tag, String anchor) throws IOException;
+
+        /**
+         * Called for an alias of an anchored node.
+         *
+         * @param anchor the anchor the alias refers to
+         * @throws IOException if the event cannot be handled
+         */
+        void alias(String anchor) throws IOException;
+    }
+
+    /**
+     * The resolved methods for parsing documents into events.
+     */
+    private static final class Events {
+        private final Method parse;
+        private final Constructor<?> unicodeReaderConstructor;
+        private final Method getEventId;
+        private final Method getAnchor;
+        private final Method getCollectionTag;
+        private final Method getScalarTag;
+        private final Method getValue;
+        private final Method getImplicit;
+        private final Method canOmitTagInPlainScalar;
+        private final Constructor<?> resolverConstructor;
+        private final Method resolve;
+        private final Object scalarNodeId;
+        private final Method getTagValue;
+
+        private Events(Class<?> yamlClass) throws ReflectiveOperationException {
+            Class<?> eventClass = Class.forName(EVENTS_PACKAGE + "Event");
+            Class<?> scalarEventClass = Class.forName(EVENTS_PACKAGE + "ScalarEvent");
+            Class<?> nodeIdClass = Class.forName("org.yaml.snakeyaml.nodes.NodeId");
+            this.parse = yamlClass.getMethod("parse", Reader.class);
+            this.unicodeReaderConstructor = Class.forName("org.yaml.snakeyaml.reader.UnicodeReader")
+                    .getConstructor(InputStream.class);
+            this.getEventId = eventClass.getMethod("getEventId");
+            this.getAnchor = Class.forName(EVENTS_PACKAGE + "NodeEvent").getMethod("getAnchor");
+            this.getCollectionTag = Class.forName(EVENTS_PACKAGE + "CollectionStartEvent").getMethod("getTag");
+            this.getScalarTag = scalarEventClass.getMethod("getTag");
+            this.getValue = scalarEventClass.getMethod("getValue");
+            this.getImplicit = scalarEventClass.getMethod("getImplicit");
+            this.canOmitTagInPlainScalar = Class.forName(EVENTS_PACKAGE + "ImplicitTuple")
+                    .getMethod("canOmitTagInPlainScalar");
+            Class<?> resolverClass = Class.forName("org.yaml.snakeyaml.resolver.Resolver");
+            this.resolverConstructor = resolverClass.getConstructor();
+            this.resolve = resolverClass.getMethod("resolve", nodeIdClass, String.class, boolean.class);
+            this.scalarNodeId = nodeIdClass.getField("scalar").get(null);
+            this.getTagValue = Class.forName("org.yaml.snakeyaml.nodes.Tag").getMethod("getValue");
+        }
+    }
+
+    /**
+     * The resolved constructors and methods, cached after the first lookup.
+     * SnakeYAML instances are not thread-safe, so one is created per document.
+     */
+    private static final class Engine {
+        private final Constructor<?> loaderOptionsConstructor;
+        private final Method setCodePointLimit;
+        private final Constructor<?> yamlConstructor;
+        private final Method load;
+        private final Events events;
+
+        private Engine(Constructor<?> loaderOptionsConstructor, Method setCodePointLimit,
+                       Constructor<?> yamlConstructor, Method load, Events events) {
+            this.loaderOptionsConstructor = loaderOptionsConstructor;
+            this.setCodePointLimit = setCodePointLimit;
+            this.yamlConstructor = yamlConstructor;
+            this.load = load;
+            this.events = events;
+        }
+    }
+
+    private static volatile Engine engine;
+
+    private static volatile boolean resolved;
+
+    private SnakeYamlLoader() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Gets whether SnakeYAML is present on the classpath.
+     *
+     * @return {@code true} if YAML documents can be loaded
+     */
+    public static boolean isAvailable() {
+        return resolveEngine() != null;
+    }
+
+    /**
+     * Loads a YAML document into maps, lists and scalar values.
+     *
+     * @param inputStream the YAML document
+     * @return the loaded document
+     * @throws IOException           if the document cannot be parsed
+     * @throws IllegalStateException if SnakeYAML is not present on the classpath
+     */
+    public static Object load(InputStream inputStream) throws IOException {
+        Engine local = requireEngine();
+        try {
+            return local.load.invoke(newYaml(local), inputStream);
+        } catch (InvocationTargetException e) {
+            // Unwrap the underlying YAMLException
+            throw new IOException("Failed to parse YAML document", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to initialize SnakeYAML", e);
+        }
+    }
+
+    /**
+     * Gets whether the SnakeYAML version on the classpath can parse documents
+     * into events. Old versions without event identifiers cannot.
+     *
+     * @return {@code true} if {@link #parse(InputStream, EventHandler)} can be used
+     */
+    public static boolean isParseAvailable() {
+        Engine local = resolveEngine();
+        return local != null && local.events != null;
+    }
+
+    /**
+     * Parses a YAML document into events, without loading it into memory.
+     *
+     * <p>
+     * Exceptions thrown by the handler are passed on as they are.
+     * </p>
+     *
+     * @param inputStream the YAML document, in UTF-8, UTF-16 or UTF-32
+     * @param handler     the handler receiving the events
+     * @throws IOException           if the document cannot be parsed, or contains
+     *                               more than one document
+     * @throws IllegalStateException if SnakeYAML is not present on the classpath,
+     *                               or cannot parse documents into events
+     */
+    public static void parse(InputStream inputStream, EventHandler handler) throws IOException {
+        Engine local = requireEngine();
+        Events events = local.events;
+        if (events == null) {
+            throw new IllegalStateException("SnakeYAML on the classpath does not support parsing events");
+        }
+
+        final Iterator<?> iterator;
+        final Object resolver;
+        try {
+            Reader reader = (Reader) events.unicodeReaderConstructor.newInstance(inputStream);
+            iterator = ((Iterable<?>) events.parse.invoke(newYaml(local), reader)).iterator();
+            resolver = events.resolverConstructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to initialize SnakeYAML", e);
+        }
+
+        int documents = 0;
+        while (true) {
+            Object event;
+            try {
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                event = iterator.next();
+            } catch (RuntimeException e) {
+                // The underlying YAMLException
+                throw new IOException("Failed to parse YAML document", e);
+            }
+
+            try {
+                switch (((Enum<?>) events.getEventId.invoke(event)).name()) {
+                    case "DocumentStart":
+                        if (++documents > 1) {
+                            throw new IOException("Failed to parse YAML document: expected a single document");
+                        }
+                        break;
+                    case "MappingStart":
+                        handler.startMapping((String) events.getCollectionTag.invoke(event),
+                                (String) events.getAnchor.invoke(event));
+                        break;
+                    case "MappingEnd":
+                        handler.endMapping();
+                        break;
+                    case "SequenceStart":
+                        handler.startSequence((String) events.getCollectionTag.invoke(event),
+                                (String) events.getAnchor.invoke(event));
+                        break;
+                    case "SequenceEnd":
+                        handler.endSequence();
+                        break;
+                    case "Scalar":
+                        String value = (String) events.getValue.invoke(event);
+                        String tag = (String) events.getScalarTag.invoke(event);
+                        if (tag == null || "!".equals(tag)) {
+                            // Resolve the tag the way SnakeYAML's composer does
+                            boolean implicit = (Boolean) events.canOmitTagInPlainScalar
+                                    .invoke(events.getImplicit.invoke(event));
+                            tag = (String) events.getTagValue.invoke(
+                                    events.resolve.invoke(resolver, events.scalarNodeId, value, implicit));
+                        }
+                        handler.scalar(value, tag, (String) events.getAnchor.invoke(event));
+                        break;
+                    case "Alias":
+                        handler.alias((String) events.getAnchor.invoke(event));
+                        break;
+                    default:
+                        // Stream boundaries, document ends and comments
+                        break;
+                }
+            } catch (InvocationTargetException e) {
+                throw new IOException("Failed to parse YAML document", e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to initialize SnakeYAML", e);
+            }
+        }
+    }
+
+    private static Engine requireEngine() {
+        Engine local = resolveEngine();
+        if (local == null) {
+            throw new IllegalStateException("SnakeYAML is not present on the classpath");
+        }
+        return local;
+    }
+
+    private static Object newYaml(Engine local) throws ReflectiveOperationException {
+        if (local.loaderOptionsConstructor == null) {
+            return local.yamlConstructor.newInstance();
+        }
+        Object loaderOptions = local.loaderOptionsConstructor.newInstance();
+        if (local.setCodePointLimit != null) {
+            local.setCodePointLimit.invoke(loaderOptions, Integer.MAX_VALUE);
+        }
+        return local.yamlConstructor.newInstance(loaderOptions);
+    }
+
+    private static Engine resolveEngine() {
+        if (!resolved) {
+            synchronized (SnakeYamlLoader.class) {
+                if (!resolved) {
+                    engine = createEngine();
+                    resolved = true;
+                }
+            }
+        }
+        return engine;
+    }
+
+    private static Engine createEngine() {
+        final Class<?> yamlClass;
+        try {
+            yamlClass = Class.forName(YAML_CLASS_NAME);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        try {
+            Method load = yamlClass.getMethod("load", InputStream.class);
+            Events events;
+            try {
+                events = new Events(yamlClass);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Old versions have no event identifiers
+                events = null;
+            }
+            try {
+                // SnakeYAML 1.26 and later accept loader options
+                Class<?> loaderOptionsClass = Class.forName(LOADER_OPTIONS_CLASS_NAME);
+                Method setCodePointLimit = null;
+                try {
+                    setCodePointLimit = loaderOptionsClass.getMethod("setCodePointLimit", int.class);
+                } catch (NoSuchMethodException e) {
+                    // Versions before 1.32 have no limit
+                }
+                return new Engine(loaderOptionsClass.getConstructor(), setCodePointLimit,
+                        yamlClass.getConstructor(loaderOptionsClass), load, events);
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                return new Engine(null, null, yamlClass.getConstructor(), load, events);
+            }
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.IOException;
+
+/**
+ * {@link ScalarRenderObserver} that records every {@link ScalarRenderStep} as a
+ * Micrometer {@link Observation}.
+ *
+ * <p>
+ * Steps that run inside another step become child observations, so a tracing
+ * backend shows where the time of a Scalar request is spent. Every observation
+ * carries the low-cardinality key {@value #ENDPOINT_KEY}, and cacheable steps
+ * additionally carry {@value #CACHE_KEY} with the value {@code hit} or
+ * {@code miss}.
+ * </p>
+ *
+ * <p>
+ * A step that runs outside any other observation becomes a child of the parent
+ * observation the observer was created with, such as the observation of the
+ * HTTP request when the steps run on a thread that does not carry it.
+ * </p>
+ *
+ * <p>
+ * Micrometer is an optional dependency of the core module; this class is only
+ * loaded when an {@link ObservationRegistry} is available.
+ * </p>
+ */
+public final class ObservationScalarRenderObserver implements ScalarRenderObserver {
+
+    /**
+     * The low-cardinality key naming the endpoint that served the request.
+     */
+    public static final String ENDPOINT_KEY = "scalar.endpoint";
+
+    /**
+     * The low-cardinality key telling whether an in-memory cache was used.
+     */
+    public static final String CACHE_KEY = "scalar.cache";
+
+    private static final String CACHE_HIT = "hit";
+    private static final String CACHE_MISS = "miss";
+
+    private final ObservationRegistry registry;
+    private final String endpoint;
+    private final Observation parent;
+
+    private ObservationScalarRenderObserver(ObservationRegistry registry, String endpoint, Observation parent) {
+        this.registry = registry;
+        this.endpoint = endpoint;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates an observer reporting to the given registry.
+     *
+     * @param registry the registry to report to, may be {@code null}
+     * @param endpoint the name of the endpoint serving the request, e.g. {@code controller}
+     * @return the observer, or {@link ScalarRenderObserver#NOOP} if there is no registry to report to
+     */
+    public static ScalarRenderObserver create(ObservationRegistry registry, String endpoint) {
+        return create(registry, endpoint, null);
+    }
+
+    /**
+     * Creates an observer reporting to the given registry, below the given
+     * parent observation.
+     *
+     * @param registry the registry to report to, may be {@code null}
+     * @param endpoint the name of the endpoint serving the request, e.g. {@code controller}
+     * @param parent   the observation of the request, may be {@code null}
+     * @return the observer, or {@link ScalarRenderObserver#NOOP} if there is no registry to report to
+     */
+    public static ScalarRenderObserver create(ObservationRegistry registry, String endpoint, Observation parent) {
+        if (registry == null || registry.isNoop()) {
+            return ScalarRenderObserver.NOOP;
+        }
+        return new ObservationScalarRenderObserver(registry, endpoint, parent);
+    }
+
+    @Override
+    public <T> T observe(ScalarRenderStep step, ScalarRenderStep.Action<T> action) throws IOException {
+        Observation observation = Observation.createNotStarted(step.getObservationName(), registry)
+                .lowCardinalityKeyValue(ENDPOINT_KEY, endpoint);
+        if (step.isCacheable()) {
+            // Always present so the derived metrics keep a stable set of tags
+            observation.lowCardinalityKeyValue(CACHE_KEY, CACHE_MISS);
+        }
+        if (parent != null && registry.getCurrentObservation() == null) {
+            observation.parentObservation(parent);
+        }
+        return observation.observeChecked(action::run);
+    }
+
+    @Override
+    public void onCacheAccess(ScalarRenderStep step, boolean hit) {
+        Observation current = registry.getCurrentObservation();
+        if (current != null && step.getObservationName().equals(current.getContext().getName())) {
+            current.lowCardinalityKeyValue(CACHE_KEY, hit ? CACHE_HIT : CACHE_MISS);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Objects;
+
+/**
+ * {@link MeterBinder} that reports the requests of the proxy endpoint, as
+ * counted by its {@link ScalarProxyLimiter}: the gauges
+ * {@value #ACTIVE_REQUESTS} and {@value #QUEUED_REQUESTS}, and the counter
+ * {@value #REJECTED_REQUESTS}.
+ *
+ * <p>
+ * Micrometer is an optional dependency of the core module; this class is only
+ * loaded when a {@link MeterRegistry} is available.
+ * </p>
+ */
+public final class ScalarProxyMetrics implements MeterBinder {
+
+    /**
+     * The gauge of the requests being forwarded.
+     */
+    public static final String ACTIVE_REQUESTS = "scalar.proxy.requests.active";
+
+    /**
+     * The gauge of the requests waiting to be forwarded.
+     */
+    public static final String QUEUED_REQUESTS = "scalar.proxy.requests.queued";
+
+    /**
+     * The counter of the requests rejected with {@code 429 Too Many Requests}.
+     */
+    public static final String REJECTED_REQUESTS = "scalar.proxy.requests.rejected";
+
+    private final ScalarProxyLimiter limiter;
+
+    /**
+     * Creates the metrics of a limiter.
+     *
+     * @param limiter the limiter of the proxy endpoint
+     */
+    public ScalarProxyMetrics(ScalarProxyLimiter limiter) {
+        this.limiter = Objects.requireNonNull(limiter, "limiter must not be null");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(ACTIVE_REQUESTS, limiter, ScalarProxyLimiter::getActiveRequests)
+                .description("The requests the Scalar proxy endpoint is forwarding")
+                .register(registry);
+        Gauge.builder(QUEUED_REQUESTS, limiter, ScalarProxyLimiter::getQueuedRequests)
+                .description("The requests waiting to be forwarded by the Scalar proxy endpoint")
+                .register(registry);
+        FunctionCounter.builder(REJECTED_REQUESTS, limiter, ScalarProxyLimiter::getRejectedRequests)
+                .description("The requests the Scalar proxy endpoint rejected as too many")
+                .register(registry);
+    }
+}
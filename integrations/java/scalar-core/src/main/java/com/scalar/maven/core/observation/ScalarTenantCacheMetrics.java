@@ -0,0 +1,82 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.ScalarTenantCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Objects;
+
+/**
+ * {@link MeterBinder} that reports the {@link ScalarTenantCache}: the gauges
+ * {@value #SIZE} and {@value #ENTRIES}, the counter {@value #GETS} tagged with
+ * the {@code result} {@code hit} or {@code miss}, and the counter
+ * {@value #EVICTIONS} tagged with the {@code cause} {@code size} or
+ * {@code expired}.
+ *
+ * <p>
+ * Micrometer is an optional dependency of the core module; this class is only
+ * loaded when a {@link MeterRegistry} is available.
+ * </p>
+ */
+public final class ScalarTenantCacheMetrics implements MeterBinder {
+
+    /**
+     * The gauge of the estimated size of the cached pages, in bytes.
+     */
+    public static final String SIZE = "scalar.tenant.cache.size";
+
+    /**
+     * The gauge of the number of cached pages.
+     */
+    public static final String ENTRIES = "scalar.tenant.cache.entries";
+
+    /**
+     * The counter of the requests for the page of a tenant.
+     */
+    public static final String GETS = "scalar.tenant.cache.gets";
+
+    /**
+     * The counter of the pages removed from the cache.
+     */
+    public static final String EVICTIONS = "scalar.tenant.cache.evictions";
+
+    private final ScalarTenantCache cache;
+
+    /**
+     * Creates the metrics of a cache.
+     *
+     * @param cache the cache of the pages per tenant
+     */
+    public ScalarTenantCacheMetrics(ScalarTenantCache cache) {
+        this.cache = Objects.requireNonNull(cache, "cache must not be null");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SIZE, cache, ScalarTenantCache::getSize)
+                .description("The estimated size of the pages cached per tenant")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(ENTRIES, cache, ScalarTenantCache::getEntryCount)
+                .description("The pages cached per tenant")
+                .register(registry);
+        FunctionCounter.builder(GETS, cache, ScalarTenantCache::getHits)
+                .description("The requests for the page of a tenant")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(GETS, cache, ScalarTenantCache::getMisses)
+                .description("The requests for the page of a tenant")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS, cache, ScalarTenantCache::getEvictions)
+                .description("The pages removed from the cache per tenant")
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS, cache, ScalarTenantCache::getExpirations)
+                .description("The pages removed from the cache per tenant")
+                .tag("cause", "expired")
+                .register(registry);
+    }
+}
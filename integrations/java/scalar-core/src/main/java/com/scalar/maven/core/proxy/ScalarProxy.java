@@ -0,0 +1,547 @@
+package com.scalar.maven.core.proxy;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarServer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Forwards the test requests of the API client to the APIs they are meant for.
+ *
+ * <p>
+ * Browsers only let the API client call APIs that allow the origin of the page
+ * with CORS. The client sends the other requests to its {@code proxyUrl}
+ * instead, with the target in the {@code scalar_url} query parameter. This
+ * class implements the protocol of the Scalar proxy in-process, so the
+ * controllers can serve it below the path of the API Reference: requests are
+ * forwarded through a shared {@link HttpClient}, which pools its connections
+ * and speaks HTTP/2 where upstream does, and the bodies are handed through as
+ * streams in both directions.
+ * </p>
+ *
+ * <p>
+ * Only hosts on the allow-list are forwarded to, so the endpoint cannot be used
+ * to reach arbitrary hosts from the network of the application. The entries are
+ * host names, optionally with a port, such as {@code api.example.com:8443};
+ * {@code *.example.com} allows the subdomains of a domain, and {@code *} any
+ * host. Redirects are not followed: their {@code Location} is rewritten to go
+ * through the proxy again, so each hop is checked against the allow-list.
+ * </p>
+ *
+ * <p>
+ * The headers are rewritten as the hosted proxy does: {@code Origin} and the
+ * cookies of the page are not forwarded, {@code X-Scalar-Cookie} is sent as
+ * {@code Cookie}, and {@code X-Scalar-DNT}, {@code X-Scalar-Referer} and
+ * {@code X-Scalar-User-Agent} replace the headers browsers do not let scripts
+ * set. In responses, {@code Set-Cookie} is mirrored into
+ * {@code X-Scalar-Set-Cookie}, and the CORS headers of upstream are dropped.
+ * </p>
+ */
+public class ScalarProxy {
+
+    /**
+     * The query parameter that carries the URL a request is forwarded to.
+     */
+    public static final String TARGET_PARAMETER = "scalar_url";
+
+    /**
+     * The response header into which {@code Set-Cookie} is mirrored, since
+     * scripts cannot read the latter.
+     */
+    public static final String SET_COOKIE_HEADER = "X-Scalar-Set-Cookie";
+
+    /**
+     * The response header that carries the URL a request was forwarded to.
+     */
+    public static final String FORWARDED_HOST_HEADER = "X-Forwarded-Host";
+
+    /**
+     * The default timeout for connecting upstream and for receiving the response
+     * headers.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The default maximum number of connections to each host, for clients that
+     * limit them.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+    private static final String SCALAR_COOKIE_HEADER = "x-scalar-cookie";
+
+    /**
+     * The headers browsers do not let scripts set, by the header the API client
+     * sends them in. {@code Date} is missing since {@link HttpClient} does not
+     * let it be set either.
+     */
+    private static final Map<String, String> FORBIDDEN_HEADER_REWRITES = Map.of(
+            "x-scalar-dnt", "DNT",
+            "x-scalar-referer", "Referer",
+            "x-scalar-user-agent", "User-Agent");
+
+    /**
+     * The request headers that belong to the page rather than to the request of
+     * the API client.
+     */
+    private static final Set<String> PAGE_HEADERS = Set.of("origin", "cookie", "x-scalar-date");
+
+    /**
+     * The request headers that are not sent upstream: hop-by-hop headers, and
+     * the headers of the connection to the proxy.
+     */
+    private static final Set<String> DROPPED_REQUEST_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "proxy-connection", "te",
+            "trailer", "transfer-encoding", "upgrade", "host", "expect");
+
+    /**
+     * The request headers {@link HttpClient} sets itself and does not let be
+     * set.
+     */
+    private static final Set<String> RESTRICTED_REQUEST_HEADERS = Set.of(
+            "content-length", "date", "from", "via", "warning");
+
+    /**
+     * The response headers that are not forwarded: hop-by-hop headers.
+     */
+    private static final Set<String> DROPPED_RESPONSE_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-connection", "te", "trailer",
+            "transfer-encoding", "upgrade");
+
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    private final HttpClient httpClient;
+    private final List<String> allowedHosts;
+    private final Duration timeout;
+
+    /**
+     * Creates a proxy with its own {@link HttpClient}.
+     *
+     * @param allowedHosts the hosts requests may be forwarded to
+     * @param timeout      the connect timeout, and the timeout for receiving the
+     *                     response headers
+     */
+    public ScalarProxy(Collection<String> allowedHosts, Duration timeout) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Objects.requireNonNull(timeout, "timeout must not be null"))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build(), allowedHosts, timeout);
+    }
+
+    /**
+     * Creates a proxy that forwards requests with the given {@link HttpClient},
+     * which should not follow redirects.
+     *
+     * @param httpClient   the client to forward requests with
+     * @param allowedHosts the hosts requests may be forwarded to
+     * @param timeout      the timeout for receiving the response headers
+     */
+    public ScalarProxy(HttpClient httpClient, Collection<String> allowedHosts, Duration timeout) {
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient must not be null");
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+        Objects.requireNonNull(allowedHosts, "allowedHosts must not be null");
+        List<String> hosts = new ArrayList<>(allowedHosts.size());
+        for (String host : allowedHosts) {
+            if (host != null && !host.isBlank()) {
+                hosts.add(host.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.allowedHosts = List.copyOf(hosts);
+    }
+
+    /**
+     * Creates a proxy for the given properties. Unless
+     * {@link ScalarProperties#getProxyAllowedHosts()} is set, requests may be
+     * forwarded to the hosts of the configured {@link ScalarProperties#getServers()}.
+     *
+     * @param properties the configuration properties
+     * @return the proxy
+     */
+    public static ScalarProxy of(ScalarProperties properties) {
+        Objects.requireNonNull(properties, "properties must not be null");
+        List<String> allowedHosts = properties.getProxyAllowedHosts();
+        if (allowedHosts == null || allowedHosts.isEmpty()) {
+            allowedHosts = new ArrayList<>();
+            if (properties.getServers() != null) {
+                for (ScalarServer server : properties.getServers()) {
+                    String authority = authorityOf(server.getUrl());
+                    if (authority != null) {
+                        allowedHosts.add(authority);
+                    }
+                }
+            }
+        }
+        Duration timeout = properties.getProxyTimeout() != null ? properties.getProxyTimeout() : DEFAULT_TIMEOUT;
+        return new ScalarProxy(allowedHosts, timeout);
+    }
+
+    private static String authorityOf(String url) {
+        try {
+            URI uri = url != null ? new URI(url) : null;
+            if (uri == null || uri.getHost() == null) {
+                return null;
+            }
+            return uri.getPort() >= 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the hosts requests may be forwarded to, in lower case.
+     *
+     * @return the allowed hosts
+     */
+    public List<String> getAllowedHosts() {
+        return allowedHosts;
+    }
+
+    /**
+     * Gets the URL a request is forwarded to from its query string. The query
+     * string is parsed here rather than by the framework, since frameworks read
+     * the parameters of form requests from their bodies, which are forwarded.
+     *
+     * @param rawQuery the encoded query string of the request, may be {@code null}
+     * @return the decoded value of the {@link #TARGET_PARAMETER}, or {@code null}
+     * if there is none
+     */
+    public static String targetOf(String rawQuery) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals >= 0 ? parameter.substring(0, equals) : parameter;
+            if (TARGET_PARAMETER.equals(name)) {
+                return equals >= 0 ? URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the URL a request is forwarded to.
+     *
+     * @param scalarUrl the value of the {@link #TARGET_PARAMETER}
+     * @return the URL
+     * @throws ScalarProxyException with status {@code 400} if the value is missing
+     *                              or not an absolute http URL, and {@code 403} if
+     *                              its host is not allowed
+     */
+    public URI resolve(String scalarUrl) throws ScalarProxyException {
+        if (scalarUrl == null || scalarUrl.isBlank()) {
+            throw new ScalarProxyException(400, "The `" + TARGET_PARAMETER + "` query parameter is required");
+        }
+        URI target;
+        try {
+            target = new URI(scalarUrl.trim());
+        } catch (URISyntaxException e) {
+            throw new ScalarProxyException(400, "The `" + TARGET_PARAMETER + "` query parameter must be a valid URL",
+                    e);
+        }
+        String scheme = target.getScheme();
+        if (target.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new ScalarProxyException(400,
+                    "The `" + TARGET_PARAMETER + "` query parameter must be an absolute http or https URL");
+        }
+        if (!isAllowed(target)) {
+            throw new ScalarProxyException(403, "Forwarding requests to " + target.getHost()
+                    + " is not allowed. Add it to scalar.proxyAllowedHosts.");
+        }
+        return target;
+    }
+
+    /**
+     * Checks whether requests may be forwarded to the host of the given URL.
+     *
+     * @param target the URL
+     * @return whether the host of the URL is on the allow-list
+     */
+    public boolean isAllowed(URI target) {
+        String host = target.getHost();
+        if (host == null) {
+            return false;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        int port = portOf(target);
+        for (String allowed : allowedHosts) {
+            if (matches(allowed, host, port)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a URL points at the application the request came in at:
+     * at the scheme, host and port of the request, or at the local port of the
+     * server through a loopback address. Requests to such URLs can be dispatched
+     * within the application rather than through the network.
+     *
+     * @param target    the URL
+     * @param origin    the URL of the incoming request, of which the scheme, host
+     *                  and port are compared
+     * @param localPort the port the server accepted the request at, or {@code -1}
+     *                  if unknown
+     * @return whether the URL points at the application
+     */
+    public static boolean isSameApplication(URI target, URI origin, int localPort) {
+        String host = target.getHost();
+        if (host == null) {
+            return false;
+        }
+        if (host.equalsIgnoreCase(origin.getHost()) && target.getScheme().equalsIgnoreCase(origin.getScheme())
+                && portOf(target) == portOf(origin)) {
+            return true;
+        }
+        return localPort > 0 && portOf(target) == localPort && LOOPBACK_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+    }
+
+    private static int portOf(URI uri) {
+        return uri.getPort() >= 0 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static boolean matches(String allowed, String host, int port) {
+        if ("*".equals(allowed)) {
+            return true;
+        }
+        String allowedHost = allowed;
+        int colon = allowed.lastIndexOf(':');
+        if (colon > 0 && allowed.indexOf(']') < colon) {
+            allowedHost = allowed.substring(0, colon);
+            if (!allowed.substring(colon + 1).equals(String.valueOf(port))) {
+                return false;
+            }
+        }
+        if (allowedHost.startsWith("*.")) {
+            return host.endsWith(allowedHost.substring(1));
+        }
+        return allowedHost.equals(host);
+    }
+
+    /**
+     * Builds the request forwarded upstream.
+     *
+     * @param target  the URL to forward to, from {@link #resolve(String)}
+     * @param method  the method of the incoming request
+     * @param headers the headers of the incoming request
+     * @param body    the body of the incoming request
+     * @return the request
+     */
+    public HttpRequest request(URI target, String method, Map<String, List<String>> headers,
+                               HttpRequest.BodyPublisher body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .method(method, body);
+        for (Map.Entry<String, List<String>> header : forwardedHeaders(headers).entrySet()) {
+            if (RESTRICTED_REQUEST_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Rewrites the headers of an incoming request the way they are forwarded:
+     * without {@code Origin} and the cookies of the page, and with the headers
+     * the API client sends in {@code X-Scalar-*} headers in their place.
+     * Hop-by-hop headers are left to the caller.
+     *
+     * @param headers the headers of the incoming request
+     * @return the rewritten headers, by case-insensitive name
+     */
+    public static Map<String, List<String>> rewriteHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> rewritten = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (!PAGE_HEADERS.contains(name) && !SCALAR_COOKIE_HEADER.equals(name)
+                    && !FORBIDDEN_HEADER_REWRITES.containsKey(name)) {
+                rewritten.computeIfAbsent(header.getKey(), key -> new ArrayList<>()).addAll(header.getValue());
+            }
+        }
+        // The rewritten headers replace those of the incoming request
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            String target = SCALAR_COOKIE_HEADER.equals(name) ? "Cookie" : FORBIDDEN_HEADER_REWRITES.get(name);
+            if (target != null && !header.getValue().isEmpty()) {
+                rewritten.put(target, List.of(header.getValue().get(0)));
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * Gets the headers of an incoming request as they are sent upstream: as
+     * {@link #rewriteHeaders} rewrites them, without hop-by-hop headers and
+     * {@code Host}.
+     *
+     * @param headers the headers of the incoming request
+     * @return the forwarded headers, by case-insensitive name
+     */
+    public static Map<String, List<String>> forwardedHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> forwarded = rewriteHeaders(headers);
+        forwarded.keySet().removeIf(name -> {
+            String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            return DROPPED_REQUEST_HEADERS.contains(lowerCaseName) || lowerCaseName.startsWith(":");
+        });
+        return forwarded;
+    }
+
+    /**
+     * Checks whether a request header is one {@link HttpClient} sets itself, which
+     * is left out by {@link #request} and by other clients built on it.
+     *
+     * @param name the name of the header
+     * @return whether the header is restricted
+     */
+    public static boolean isRestrictedHeader(String name) {
+        return RESTRICTED_REQUEST_HEADERS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Forwards a request and waits for the response headers.
+     *
+     * @param request     the request, from {@link #request}
+     * @param bodyHandler the handler of the response body
+     * @param <T>         the type of the response body
+     * @return the response
+     * @throws ScalarProxyException with status {@code 504} if upstream does not
+     *                              respond in time, and {@code 502} if it cannot be
+     *                              reached
+     * @throws InterruptedIOException if the thread is interrupted
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws ScalarProxyException, InterruptedIOException {
+        try {
+            return httpClient.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while forwarding the request to " + request.uri());
+        } catch (IOException e) {
+            throw failure(request, e);
+        }
+    }
+
+    /**
+     * Forwards a request without blocking.
+     *
+     * @param request     the request, from {@link #request}
+     * @param bodyHandler the handler of the response body
+     * @param <T>         the type of the response body
+     * @return the response, completed exceptionally with a
+     * {@link ScalarProxyException} as {@link #send} throws it
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        return httpClient.sendAsync(request, bodyHandler).exceptionallyCompose(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return CompletableFuture.failedFuture(cause instanceof IOException ? failure(request, (IOException) cause)
+                    : cause);
+        });
+    }
+
+    private static ScalarProxyException failure(HttpRequest request, IOException e) {
+        if (e instanceof ScalarProxyException) {
+            return (ScalarProxyException) e;
+        }
+        if (e instanceof HttpTimeoutException && !(e instanceof HttpConnectTimeoutException)) {
+            return new ScalarProxyException(504, request.uri() + " did not respond in time", e);
+        }
+        String reason = e instanceof ConnectException || e instanceof HttpConnectTimeoutException
+                ? " could not be reached" : " failed: " + e.getMessage();
+        return new ScalarProxyException(502, "The request to " + request.uri() + reason, e);
+    }
+
+    /**
+     * Gets the headers of the response to the API client: the headers of the
+     * upstream response without hop-by-hop and CORS headers, with
+     * {@code Set-Cookie} mirrored into {@link #SET_COOKIE_HEADER}, the URL of the
+     * request in {@link #FORWARDED_HOST_HEADER}, and the {@code Location} of a
+     * redirect pointing back at the proxy.
+     *
+     * @param response  the upstream response
+     * @param proxyPath the path of the proxy endpoint the request came in at
+     * @return the headers, in the order of the upstream response
+     */
+    public static Map<String, List<String>> responseHeaders(HttpResponse<?> response, String proxyPath) {
+        return responseHeaders(response.uri(), response.headers().map(), proxyPath);
+    }
+
+    /**
+     * Gets the headers of the response to the API client, as
+     * {@link #responseHeaders(HttpResponse, String)} does, for responses of other
+     * HTTP clients.
+     *
+     * @param uri       the URL the request was forwarded to
+     * @param upstream  the headers of the upstream response
+     * @param proxyPath the path of the proxy endpoint the request came in at
+     * @return the headers, in the order of the upstream response
+     */
+    public static Map<String, List<String>> responseHeaders(URI uri, Map<String, List<String>> upstream,
+                                                            String proxyPath) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        List<String> cookies = new ArrayList<>();
+        for (Map.Entry<String, List<String>> header : upstream.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (DROPPED_RESPONSE_HEADERS.contains(name) || name.startsWith(":") || name.startsWith("access-control-")) {
+                continue;
+            }
+            if ("set-cookie".equals(name)) {
+                cookies.addAll(header.getValue());
+                continue;
+            }
+            if ("location".equals(name) && !header.getValue().isEmpty()) {
+                String location = uri.resolve(header.getValue().get(0)).toString();
+                headers.put(header.getKey(), List.of(proxyPath + "?" + TARGET_PARAMETER + "="
+                        + URLEncoder.encode(location, StandardCharsets.UTF_8)));
+                continue;
+            }
+            headers.put(header.getKey(), header.getValue());
+        }
+        if (!cookies.isEmpty()) {
+            headers.put(SET_COOKIE_HEADER, List.of(String.join(", ", cookies)));
+        }
+        headers.put(FORWARDED_HOST_HEADER, List.of(uri.toString()));
+        return headers;
+    }
+
+    /**
+     * Checks whether a response is a stream of server-sent events, whose chunks
+     * are to be flushed to the API client as they arrive.
+     *
+     * @param response the upstream response
+     * @return whether the response is an event stream
+     */
+    public static boolean isEventStream(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.toLowerCase(Locale.ROOT).startsWith("text/event-stream"))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,496 @@
+package com.scalar.maven.core.proxy;
+
+import com.scalar.maven.core.ScalarProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the responses to the {@code GET} and {@code HEAD} requests of the
+ * proxy endpoint, so the same request sent again from the API client is
+ * answered without going upstream.
+ *
+ * <p>
+ * The cache follows the headers of upstream, as a shared HTTP cache does:
+ * responses are stored for their {@code max-age} or {@code s-maxage}, or until
+ * their {@code Expires}, and not at all with {@code no-store}, {@code private},
+ * {@code Vary: *} or {@code Set-Cookie}. A stale response with an {@code ETag}
+ * or {@code Last-Modified} is revalidated with a conditional request, and
+ * served again when upstream answers {@code 304 Not Modified}. Requests with
+ * {@code Cache-Control: no-cache}, {@code no-store}, conditional or range
+ * headers are always forwarded.
+ * </p>
+ *
+ * <p>
+ * Responses are keyed by the method, the URL, and the values of the varying
+ * headers, which always include {@code Authorization} and {@code Cookie}, so
+ * a response is only served to requests with the same credentials. Responses
+ * that vary by other headers than these are not stored. The bodies are held in
+ * direct buffers, outside of the heap; the least recently used responses are
+ * evicted once the bodies take more than {@code maxSize} bytes, and bodies of
+ * more than {@code maxEntrySize} bytes are not stored.
+ * </p>
+ */
+public class ScalarProxyCache {
+
+    /**
+     * The default maximum size of the cached bodies, in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The default maximum size of a cached body, in bytes.
+     */
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 1024L * 1024;
+
+    /**
+     * The default headers responses are keyed by, besides {@code Authorization}
+     * and {@code Cookie}.
+     */
+    public static final List<String> DEFAULT_VARY_HEADERS = List.of("Accept", "Accept-Encoding", "Accept-Language");
+
+    /**
+     * The response header telling how long a cached response has been held, in
+     * seconds.
+     */
+    public static final String AGE_HEADER = "Age";
+
+    private static final Set<String> CREDENTIAL_HEADERS = Set.of("authorization", "cookie");
+
+    private static final Set<String> BYPASS_HEADERS = Set.of(
+            "if-none-match", "if-modified-since", "if-match", "if-unmodified-since", "if-range", "range");
+
+    /**
+     * The statuses that may be cached with explicit freshness, see RFC 9110,
+     * section 15.1.
+     */
+    private static final Set<Integer> CACHEABLE_STATUSES = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414,
+            501);
+
+    private final long maxSize;
+    private final long maxEntrySize;
+    private final Set<String> varyHeaders;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize      the maximum size of the cached bodies, in bytes
+     * @param maxEntrySize the maximum size of a cached body, in bytes
+     * @param varyHeaders  the headers responses are keyed by, besides
+     *                     {@code Authorization} and {@code Cookie}
+     */
+    public ScalarProxyCache(long maxSize, long maxEntrySize, Collection<String> varyHeaders) {
+        if (maxSize < 0 || maxEntrySize < 0) {
+            throw new IllegalArgumentException("The maximum sizes of the cache must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxEntrySize, Math.min(maxSize, Integer.MAX_VALUE));
+        this.varyHeaders = new TreeSet<>(CREDENTIAL_HEADERS);
+        for (String header : varyHeaders != null ? varyHeaders : DEFAULT_VARY_HEADERS) {
+            this.varyHeaders.add(header.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Creates a cache with the sizes and varying headers of the configuration
+     * properties.
+     *
+     * @param properties the configuration properties
+     * @return the cache
+     */
+    public static ScalarProxyCache of(ScalarProperties properties) {
+        return new ScalarProxyCache(properties.getProxyCacheMaxSize(), properties.getProxyCacheMaxEntrySize(),
+                properties.getProxyCacheVaryHeaders());
+    }
+
+    /**
+     * Gets the key a request is cached by.
+     *
+     * @param method  the method of the request
+     * @param target  the URL the request is forwarded to
+     * @param headers the headers the request is forwarded with, from
+     *                {@link ScalarProxy#forwardedHeaders}
+     * @return the key, or {@code null} if the request is always forwarded
+     */
+    public String key(String method, URI target, Map<String, List<String>> headers) {
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+        Map<String, List<String>> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byName.putAll(headers);
+        for (String name : BYPASS_HEADERS) {
+            if (byName.containsKey(name)) {
+                return null;
+            }
+        }
+        Map<String, String> requestDirectives = directives(byName.get("Cache-Control"));
+        if (requestDirectives.containsKey("no-cache") || requestDirectives.containsKey("no-store")
+                || String.valueOf(byName.get("Pragma")).toLowerCase(Locale.ROOT).contains("no-cache")) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(method).append(' ').append(target).append('\n');
+        for (String name : varyHeaders) {
+            key.append(name).append(':').append(byName.getOrDefault(name, List.of())).append('\n');
+        }
+        try {
+            // The key holds credentials, which are not kept in memory as they are
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets a cached response, fresh or stale.
+     *
+     * @param key the key of the request, from {@link #key}
+     * @return the response, or {@code null} if none is cached
+     */
+    public synchronized Entry get(String key) {
+        return key != null ? entries.get(key) : null;
+    }
+
+    /**
+     * Starts storing a response, if it may be cached.
+     *
+     * @param key     the key of the request, from {@link #key}
+     * @param status  the status of the response
+     * @param headers the headers of the upstream response
+     * @return the capture to write the body to, or {@code null} if the response
+     * is not cached
+     */
+    public Capture capture(String key, int status, Map<String, List<String>> headers) {
+        if (key == null || !CACHEABLE_STATUSES.contains(status)) {
+            return null;
+        }
+        Map<String, List<String>> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byName.putAll(headers);
+        Map<String, String> directives = directives(byName.get("Cache-Control"));
+        if (directives.containsKey("no-store") || directives.containsKey("private")
+                || byName.containsKey("Set-Cookie") || !isKeyedBy(byName.get("Vary"))) {
+            return null;
+        }
+        long freshness = freshness(directives, byName);
+        boolean validated = byName.containsKey("ETag") || byName.containsKey("Last-Modified");
+        if (freshness <= 0 && !validated) {
+            return null;
+        }
+        long contentLength = contentLength(byName);
+        if (contentLength > maxEntrySize) {
+            return null;
+        }
+        return new Capture(key, status, headers, freshness);
+    }
+
+    /**
+     * Refreshes a stale response that upstream confirmed with
+     * {@code 304 Not Modified}.
+     *
+     * @param key     the key of the request, from {@link #key}
+     * @param entry   the stale response
+     * @param headers the headers of the {@code 304} response
+     * @return the refreshed response
+     */
+    public Entry revalidate(String key, Entry entry, Map<String, List<String>> headers) {
+        Map<String, List<String>> updated = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        updated.putAll(entry.headers);
+        headers.forEach((name, values) -> {
+            if (!"content-length".equalsIgnoreCase(name) && !"transfer-encoding".equalsIgnoreCase(name)) {
+                updated.put(name, values);
+            }
+        });
+        long freshness = freshness(directives(updated.get("Cache-Control")), updated);
+        Entry refreshed = new Entry(entry.status, new LinkedHashMap<>(updated), entry.body, freshness);
+        put(key, refreshed);
+        return refreshed;
+    }
+
+    /**
+     * Gets the size of the cached bodies.
+     *
+     * @return the size, in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of cached responses.
+     *
+     * @return the number of responses
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            size -= previous.body.capacity();
+        }
+        size += entry.body.capacity();
+        // Evict the least recently used responses
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().body.capacity();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Checks whether the headers a response varies by are all part of the key.
+     */
+    private boolean isKeyedBy(List<String> vary) {
+        if (vary == null) {
+            return true;
+        }
+        for (String value : vary) {
+            for (String name : value.split(",")) {
+                String header = name.trim().toLowerCase(Locale.ROOT);
+                if (!header.isEmpty() && !varyHeaders.contains(header)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets how long a response is fresh, in nanoseconds, from its
+     * {@code Cache-Control}, or else its {@code Expires}.
+     */
+    private static long freshness(Map<String, String> directives, Map<String, List<String>> headers) {
+        if (directives.containsKey("no-cache")) {
+            return 0;
+        }
+        long age = seconds(first(headers, "Age"));
+        String maxAge = directives.containsKey("s-maxage") ? directives.get("s-maxage") : directives.get("max-age");
+        if (maxAge != null) {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, seconds(maxAge) - age));
+        }
+        String expires = first(headers, "Expires");
+        if (expires != null) {
+            try {
+                ZonedDateTime date = first(headers, "Date") != null
+                        ? ZonedDateTime.parse(first(headers, "Date"), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        : ZonedDateTime.now();
+                Duration lifetime = Duration.between(date,
+                        ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return Math.max(0, lifetime.toNanos() - TimeUnit.SECONDS.toNanos(age));
+            } catch (DateTimeParseException e) {
+                // An invalid date means the response has already expired
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static Map<String, String> directives(List<String> cacheControl) {
+        Map<String, String> directives = new LinkedHashMap<>();
+        if (cacheControl != null) {
+            for (String value : cacheControl) {
+                for (String directive : value.split(",")) {
+                    int equals = directive.indexOf('=');
+                    String name = (equals < 0 ? directive : directive.substring(0, equals)).trim();
+                    String argument = equals < 0 ? "" : directive.substring(equals + 1).trim().replace("\"", "");
+                    if (!name.isEmpty()) {
+                        directives.put(name.toLowerCase(Locale.ROOT), argument);
+                    }
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static long seconds(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long contentLength(Map<String, List<String>> headers) {
+        String value = first(headers, "Content-Length");
+        return value == null ? -1 : seconds(value);
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * A cached response.
+     */
+    public static final class Entry {
+
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final ByteBuffer body;
+        private final long storedAt = System.nanoTime();
+        private final long freshness;
+
+        private Entry(int status, Map<String, List<String>> headers, ByteBuffer body, long freshness) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.freshness = freshness;
+        }
+
+        /**
+         * Checks whether the response may be served without revalidating it.
+         *
+         * @return whether the response is fresh
+         */
+        public boolean isFresh() {
+            return System.nanoTime() - storedAt < freshness;
+        }
+
+        /**
+         * Gets the status of the response.
+         *
+         * @return the status
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the headers of the upstream response, with {@link #AGE_HEADER}
+         * telling how long the response has been cached.
+         *
+         * @return the headers
+         */
+        public Map<String, List<String>> getHeaders() {
+            Map<String, List<String>> served = new LinkedHashMap<>(headers);
+            served.keySet().removeIf(AGE_HEADER::equalsIgnoreCase);
+            served.put(AGE_HEADER, List.of(Long.toString(TimeUnit.NANOSECONDS.toSeconds(
+                    System.nanoTime() - storedAt))));
+            return served;
+        }
+
+        /**
+         * Gets the headers that make a request conditional on the response
+         * having changed.
+         *
+         * @return the {@code If-None-Match} and {@code If-Modified-Since}
+         * headers
+         */
+        public Map<String, List<String>> getValidators() {
+            Map<String, List<String>> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            byName.putAll(headers);
+            Map<String, List<String>> validators = new LinkedHashMap<>();
+            if (byName.containsKey("ETag")) {
+                validators.put("If-None-Match", byName.get("ETag"));
+            }
+            if (byName.containsKey("Last-Modified")) {
+                validators.put("If-Modified-Since", byName.get("Last-Modified"));
+            }
+            return validators;
+        }
+
+        /**
+         * Gets the body of the response.
+         *
+         * @return a read-only view of the body
+         */
+        public ByteBuffer getBody() {
+            return body.asReadOnlyBuffer();
+        }
+
+        /**
+         * Writes the body of the response.
+         *
+         * @param outputStream the stream to write to
+         * @throws IOException if the body cannot be written
+         */
+        public void writeTo(OutputStream outputStream) throws IOException {
+            ByteBuffer view = getBody();
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(1, view.remaining()))];
+            while (view.hasRemaining()) {
+                int length = Math.min(buffer.length, view.remaining());
+                view.get(buffer, 0, length);
+                outputStream.write(buffer, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Collects the body of a response while it is streamed to the API client,
+     * and caches the response once it is complete.
+     */
+    public final class Capture {
+
+        private final String key;
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final long freshness;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private boolean overflowed;
+
+        private Capture(String key, int status, Map<String, List<String>> headers, long freshness) {
+            this.key = key;
+            this.status = status;
+            this.headers = new LinkedHashMap<>(headers);
+            this.freshness = freshness;
+        }
+
+        /**
+         * Adds a chunk of the body.
+         *
+         * @param bytes  the bytes
+         * @param offset the offset of the chunk
+         * @param length the length of the chunk
+         */
+        public void write(byte[] bytes, int offset, int length) {
+            if (overflowed || body.size() + (long) length > maxEntrySize) {
+                overflowed = true;
+                body.reset();
+                return;
+            }
+            body.write(bytes, offset, length);
+        }
+
+        /**
+         * Caches the response, unless its body turned out to be too large.
+         */
+        public void complete() {
+            if (overflowed) {
+                return;
+            }
+            ByteBuffer stored = ByteBuffer.allocateDirect(body.size());
+            stored.put(body.toByteArray()).flip();
+            put(key, new Entry(status, new LinkedHashMap<>(headers), stored, freshness));
+        }
+    }
+}
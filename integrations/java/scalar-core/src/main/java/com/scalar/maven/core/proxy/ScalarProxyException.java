@@ -0,0 +1,44 @@
+package com.scalar.maven.core.proxy;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request cannot be forwarded by the {@link ScalarProxy}, with
+ * the HTTP status to respond with.
+ */
+public class ScalarProxyException extends IOException {
+
+    private final int status;
+
+    /**
+     * Creates an exception.
+     *
+     * @param status  the HTTP status to respond with
+     * @param message the message to respond with
+     */
+    public ScalarProxyException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Creates an exception.
+     *
+     * @param status  the HTTP status to respond with
+     * @param message the message to respond with
+     * @param cause   the cause
+     */
+    public ScalarProxyException(int status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    /**
+     * Gets the HTTP status to respond with.
+     *
+     * @return the HTTP status
+     */
+    public int getStatus() {
+        return status;
+    }
+}
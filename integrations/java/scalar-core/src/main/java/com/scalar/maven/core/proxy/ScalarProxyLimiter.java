@@ -0,0 +1,294 @@
+package com.scalar.maven.core.proxy;
+
+import com.scalar.maven.core.ScalarProperties;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests the proxy endpoint forwards at the same time,
+ * so the API client cannot be used to flood the APIs, or the application
+ * itself, with requests.
+ *
+ * <p>
+ * A request runs when fewer than {@code maxConcurrentRequests} requests run in
+ * total, and fewer than {@code maxConcurrentRequestsPerClient} requests of the
+ * same client. Otherwise it waits in a queue of at most {@code queueSize}
+ * requests, for at most {@code queueTimeout}. The clients take turns: when a
+ * request completes, the next request to run is taken from the client after the
+ * one that ran last, so a client sending many requests does not hold up the
+ * others. A request that finds the queue full, or waits too long, is rejected
+ * with {@code 429 Too Many Requests}.
+ * </p>
+ *
+ * <p>
+ * The running, queued and rejected requests are counted for monitoring, see
+ * {@link com.scalar.maven.core.observation.ScalarProxyMetrics}.
+ * </p>
+ */
+public class ScalarProxyLimiter {
+
+    /**
+     * The default maximum number of requests forwarded at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+
+    /**
+     * The default maximum number of requests of one client forwarded at the same
+     * time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_CLIENT = 4;
+
+    /**
+     * The default maximum number of requests waiting to be forwarded.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * The default time a request waits to be forwarded.
+     */
+    public static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int maxConcurrentRequests;
+    private final int maxConcurrentRequestsPerClient;
+    private final int queueSize;
+    private final Duration queueTimeout;
+
+    private final Map<String, Integer> activeRequestsByClient = new HashMap<>();
+    private final Map<String, Deque<Waiter>> queues = new LinkedHashMap<>();
+    private int activeRequests;
+    private int queuedRequests;
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param maxConcurrentRequests          the maximum number of requests
+     *                                       forwarded at the same time
+     * @param maxConcurrentRequestsPerClient the maximum number of requests of one
+     *                                       client forwarded at the same time
+     * @param queueSize                      the maximum number of requests waiting
+     *                                       to be forwarded
+     * @param queueTimeout                   the time a request waits to be
+     *                                       forwarded before it is rejected
+     */
+    public ScalarProxyLimiter(int maxConcurrentRequests, int maxConcurrentRequestsPerClient, int queueSize,
+                              Duration queueTimeout) {
+        if (maxConcurrentRequests < 1 || maxConcurrentRequestsPerClient < 1) {
+            throw new IllegalArgumentException("The maximum numbers of concurrent requests must be positive");
+        }
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("The queue size must not be negative");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxConcurrentRequestsPerClient = maxConcurrentRequestsPerClient;
+        this.queueSize = queueSize;
+        this.queueTimeout = Objects.requireNonNull(queueTimeout, "queueTimeout must not be null");
+    }
+
+    /**
+     * Creates a limiter with the limits of the configuration properties.
+     *
+     * @param properties the configuration properties
+     * @return the limiter
+     */
+    public static ScalarProxyLimiter of(ScalarProperties properties) {
+        return new ScalarProxyLimiter(properties.getProxyMaxConcurrentRequests(),
+                properties.getProxyMaxConcurrentRequestsPerClient(), properties.getProxyQueueSize(),
+                properties.getProxyQueueTimeout());
+    }
+
+    /**
+     * Waits until a request of a client may be forwarded.
+     *
+     * @param client the client the request comes from, such as its address
+     * @return the permit, to be closed when the request completes
+     * @throws ScalarProxyException with status {@code 429} if the request is
+     *                              rejected
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public Permit acquire(String client) throws ScalarProxyException, InterruptedIOException {
+        CompletableFuture<Permit> permit = acquireAsync(client);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+                permit.join().close();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to forward the request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScalarProxyException) {
+                throw (ScalarProxyException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets a permit for a request of a client without blocking. Cancelling the
+     * returned future while the request waits removes it from the queue.
+     *
+     * @param client the client the request comes from, such as its address
+     * @return the permit, to be closed when the request completes, or a future
+     * completed exceptionally with a {@link ScalarProxyException} with status
+     * {@code 429} if the request is rejected
+     */
+    public CompletableFuture<Permit> acquireAsync(String client) {
+        Objects.requireNonNull(client, "client must not be null");
+        Waiter waiter;
+        synchronized (this) {
+            if (!queues.containsKey(client) && mayRun(client)) {
+                return CompletableFuture.completedFuture(start(client));
+            }
+            if (queuedRequests >= queueSize) {
+                return CompletableFuture.failedFuture(reject("Too many requests are being forwarded"));
+            }
+            waiter = new Waiter(client);
+            queues.computeIfAbsent(client, key -> new ArrayDeque<>()).add(waiter);
+            queuedRequests++;
+        }
+        waiter.future.whenComplete((permit, e) -> {
+            if (waiter.future.isCancelled()) {
+                remove(waiter);
+            }
+        });
+        CompletableFuture.delayedExecutor(queueTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (remove(waiter)) {
+                waiter.future.completeExceptionally(reject("The request waited too long to be forwarded"));
+            }
+        });
+        return waiter.future;
+    }
+
+    /**
+     * Gets the number of requests being forwarded.
+     *
+     * @return the number of requests
+     */
+    public synchronized int getActiveRequests() {
+        return activeRequests;
+    }
+
+    /**
+     * Gets the number of requests waiting to be forwarded.
+     *
+     * @return the number of requests
+     */
+    public synchronized int getQueuedRequests() {
+        return queuedRequests;
+    }
+
+    /**
+     * Gets the number of requests rejected since the limiter was created.
+     *
+     * @return the number of requests
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    private ScalarProxyException reject(String message) {
+        rejectedRequests.incrementAndGet();
+        return new ScalarProxyException(429, message + ", try again later.");
+    }
+
+    private boolean mayRun(String client) {
+        return activeRequests < maxConcurrentRequests
+                && activeRequestsByClient.getOrDefault(client, 0) < maxConcurrentRequestsPerClient;
+    }
+
+    private Permit start(String client) {
+        activeRequests++;
+        activeRequestsByClient.merge(client, 1, Integer::sum);
+        return new Permit(client);
+    }
+
+    private synchronized boolean remove(Waiter waiter) {
+        Deque<Waiter> queue = queues.get(waiter.client);
+        if (queue == null || !queue.remove(waiter)) {
+            return false;
+        }
+        if (queue.isEmpty()) {
+            queues.remove(waiter.client);
+        }
+        queuedRequests--;
+        return true;
+    }
+
+    private void release(String client) {
+        List<Map.Entry<Waiter, Permit>> started = new ArrayList<>();
+        synchronized (this) {
+            activeRequests--;
+            activeRequestsByClient.computeIfPresent(client, (key, count) -> count > 1 ? count - 1 : null);
+            // Take the next request of each client in turn, moving the client to the end of the queue
+            Iterator<Map.Entry<String, Deque<Waiter>>> clients = queues.entrySet().iterator();
+            List<Map.Entry<String, Deque<Waiter>>> served = new ArrayList<>();
+            while (activeRequests < maxConcurrentRequests && clients.hasNext()) {
+                Map.Entry<String, Deque<Waiter>> queue = clients.next();
+                if (!mayRun(queue.getKey())) {
+                    continue;
+                }
+                Waiter waiter = queue.getValue().poll();
+                queuedRequests--;
+                started.add(Map.entry(waiter, start(queue.getKey())));
+                clients.remove();
+                if (!queue.getValue().isEmpty()) {
+                    served.add(queue);
+                }
+            }
+            served.forEach(queue -> queues.put(queue.getKey(), queue.getValue()));
+        }
+        // Complete outside the lock, since the requests run in the callbacks of the futures
+        for (Map.Entry<Waiter, Permit> start : started) {
+            if (!start.getKey().future.complete(start.getValue())) {
+                start.getValue().close();
+            }
+        }
+    }
+
+    /**
+     * The permission to forward a request, to be closed when the request
+     * completes.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final String client;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(client);
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final String client;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+        private Waiter(String client) {
+            this.client = client;
+        }
+    }
+}
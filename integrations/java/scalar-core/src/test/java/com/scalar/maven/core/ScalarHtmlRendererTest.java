@@ -1,10 +1,23 @@
 package com.scalar.maven.core;
 
+import com.scalar.maven.core.authentication.ScalarAuthenticationOptions;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import com.scalar.maven.core.authentication.flows.ClientCredentialsFlow;
+import com.scalar.maven.core.authentication.flows.ScalarFlows;
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarOAuth2SecurityScheme;
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.config.ScalarUpstream;
+import com.scalar.maven.core.document.ScalarDocument;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -87,6 +100,294 @@ class ScalarHtmlRendererTest {
         }
     }
 
+    @Nested
+    @DisplayName("render with embedded document")
+    class RenderWithEmbeddedDocument {
+
+        private final ScalarDocument document = ScalarDocument.of(
+                "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"</script><b>Pets</b>\"}}".getBytes(StandardCharsets.UTF_8),
+                ScalarDocument.JSON_MEDIA_TYPE);
+
+        private ScalarProperties embeddingProperties() {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setUrl("scalar/openapi.json");
+            properties.setEmbedSpec(true);
+            return properties;
+        }
+
+        @Test
+        @DisplayName("should embed the document as content instead of the url")
+        void shouldEmbedDocumentAsContent() throws IOException {
+            String html = ScalarHtmlRenderer.render(embeddingProperties(), document, ScalarRenderObserver.NOOP);
+            assertThat(html)
+                    .contains("\"content\":{\"openapi\":\"3.1.0\"")
+                    .doesNotContain("\"url\":\"scalar/openapi.json\"");
+        }
+
+        @Test
+        @DisplayName("should escape the closing script tag in the document")
+        void shouldEscapeClosingScriptTag() throws IOException {
+            String html = ScalarHtmlRenderer.render(embeddingProperties(), document, ScalarRenderObserver.NOOP);
+            assertThat(html)
+                    .contains("\\u003c/script>\\u003cb>Pets\\u003c/b>")
+                    .doesNotContain("<b>Pets");
+            assertThat(html.indexOf("</script>", html.indexOf("createApiReference")))
+                    .isEqualTo(html.lastIndexOf("</script>"));
+        }
+
+        @Test
+        @DisplayName("should fall back to the url when the document is too large")
+        void shouldFallBackToUrlWhenTooLarge() throws IOException {
+            ScalarProperties properties = embeddingProperties();
+            properties.setEmbedSpecMaxBytes(document.getContent().length - 1);
+            String html = ScalarHtmlRenderer.render(properties, document, ScalarRenderObserver.NOOP);
+            assertThat(html)
+                    .contains("\"url\":\"scalar/openapi.json\"")
+                    .doesNotContain("\"content\"");
+        }
+
+        @Test
+        @DisplayName("should not embed the document when embedSpec is disabled")
+        void shouldNotEmbedWhenDisabled() throws IOException {
+            ScalarProperties properties = embeddingProperties();
+            properties.setEmbedSpec(false);
+            String html = ScalarHtmlRenderer.render(properties, document, ScalarRenderObserver.NOOP);
+            assertThat(html).doesNotContain("\"content\"");
+        }
+
+        @Test
+        @DisplayName("should drop only the pages embedding a previous version of the document")
+        void shouldInvalidatePagesEmbeddingDocument() throws IOException {
+            ScalarHtmlRenderer.render(embeddingProperties(), document, ScalarRenderObserver.NOOP);
+            ScalarHtmlRenderer.render(embeddingProperties(), null, ScalarRenderObserver.NOOP);
+
+            assertThat(ScalarHtmlRenderer.invalidate(document)).isEqualTo(1);
+            assertThat(ScalarHtmlRenderer.invalidate(document)).isZero();
+        }
+
+        @Test
+        @DisplayName("should not embed the document when sources are configured")
+        void shouldNotEmbedWithSources() throws IOException {
+            ScalarProperties properties = embeddingProperties();
+            ScalarSource source = new ScalarSource();
+            source.setUrl("https://example.com/openapi.json");
+            properties.setSources(List.of(source));
+            String html = ScalarHtmlRenderer.render(properties, document, ScalarRenderObserver.NOOP);
+            assertThat(html).doesNotContain("\"content\"");
+        }
+    }
+
+    @Nested
+    @DisplayName("render with document cache")
+    class RenderWithDocumentCache {
+
+        @Test
+        @DisplayName("should point remote documents at their local copies")
+        void shouldPointRemoteDocumentsAtLocalCopies() throws IOException {
+            ScalarSource remote = new ScalarSource("https://example.com/v1.json", "v1", "v1", true);
+            ScalarSource local = new ScalarSource("/v3/api-docs", "local", "local", false);
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/docs");
+            properties.setUrl("https://example.com/openapi.json");
+            properties.setSources(List.of(remote, local));
+            properties.setDocumentCacheEnabled(true);
+
+            String html = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html)
+                    .contains("\"url\":\"docs/documents/default\"")
+                    .contains("\"url\":\"docs/documents/0\"")
+                    .contains("\"url\":\"/v3/api-docs\"")
+                    .doesNotContain("https://example.com");
+            assertThat(remote.getUrl()).isEqualTo("https://example.com/v1.json");
+        }
+
+        @Test
+        @DisplayName("should keep remote documents when the cache is disabled")
+        void shouldKeepRemoteDocumentsWhenDisabled() throws IOException {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setUrl("https://example.com/openapi.json");
+
+            String html = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html).contains("\"url\":\"https://example.com/openapi.json\"");
+        }
+
+        @Test
+        @DisplayName("should always point file and classpath documents at their local copies")
+        void shouldPointLocalDocumentsAtLocalCopies() throws IOException {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setUrl("file:/etc/openapi/openapi.yaml");
+            properties.setSources(List.of(
+                    new ScalarSource("classpath:openapi/v1.json", "v1", "v1", true),
+                    new ScalarSource("https://example.com/v2.json", "v2", "v2", false)));
+
+            String html = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html)
+                    .contains("\"url\":\"scalar/documents/default\"")
+                    .contains("\"url\":\"scalar/documents/0\"")
+                    .contains("\"url\":\"https://example.com/v2.json\"")
+                    .doesNotContain("file:")
+                    .doesNotContain("classpath:");
+        }
+
+        @Test
+        @DisplayName("should show the aggregated document instead of the url when aggregating")
+        void shouldPointAtAggregatedDocument() throws IOException {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setUrl("https://example.com/openapi.json");
+            properties.setAggregationEnabled(true);
+            properties.setAggregationUpstreams(List.of(new ScalarUpstream("https://orders.example.com/openapi.json",
+                    "orders", "/orders")));
+
+            String html = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html)
+                    .contains("\"url\":\"scalar/documents/aggregate\"")
+                    .doesNotContain("example.com");
+        }
+
+        @Test
+        @DisplayName("should point the API client at the proxy endpoint unless a proxy URL is set")
+        void shouldPointAtProxyEndpoint() throws IOException {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/api/docs/");
+            properties.setProxyEnabled(true);
+
+            String html = ScalarHtmlRenderer.render(properties);
+            properties.setProxyUrl("https://proxy.example.com");
+            String explicit = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html).contains("\"proxyUrl\":\"/api/docs/proxy\"");
+            assertThat(explicit)
+                    .contains("\"proxyUrl\":\"https://proxy.example.com\"")
+                    .doesNotContain("/api/docs/proxy");
+        }
+
+        @Test
+        @DisplayName("should point the OAuth2 flows at the token endpoint without their secrets")
+        void shouldPointAtTokenEndpoint() throws IOException {
+            ClientCredentialsFlow flow = new ClientCredentialsFlow();
+            flow.setClientId("docs");
+            flow.setClientSecret("s3cr3t");
+            flow.setTokenUrl("https://auth.example.com/token");
+            ScalarFlows flows = new ScalarFlows();
+            flows.setClientCredentials(flow);
+            ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+            scheme.setFlows(flows);
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setOauth2(Map.of("oauth", scheme));
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/api/docs/");
+            properties.setAuthentication(authentication);
+            properties.setTokenRelayEnabled(true);
+
+            String html = ScalarHtmlRenderer.render(properties);
+
+            assertThat(html)
+                    .contains("\"tokenUrl\":\"/api/docs/token?scheme=oauth\"")
+                    .contains("\"x-scalar-client-id\":\"docs\"")
+                    .doesNotContain("s3cr3t")
+                    .doesNotContain("auth.example.com");
+            assertThat(flow.getTokenUrl()).isEqualTo("https://auth.example.com/token");
+        }
+
+        @Test
+        @DisplayName("should point the proxy and token URLs below the context path of the application")
+        void shouldPrefixContextPath() throws IOException {
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/api/docs/");
+            properties.setProxyEnabled(true);
+            properties.setTokenRelayEnabled(true);
+
+            String html = new ScalarAssetService().renderWithCredentials(properties, null,
+                    ScalarRenderObserver.NOOP, null, "/app");
+
+            assertThat(html).contains("\"proxyUrl\":\"/app/api/docs/proxy\"");
+            assertThat(ScalarHtmlRenderer.buildProxyUrl("/app/", "scalar")).isEqualTo("/app/scalar/proxy");
+            assertThat(ScalarHtmlRenderer.buildTokenUrl("/app", null)).isEqualTo("/app/scalar/token");
+            assertThat(ScalarHtmlRenderer.buildTokenUrl("", "/scalar")).isEqualTo("/scalar/token");
+        }
+
+        @Test
+        @DisplayName("should fill the credentials of each request into the same cached page")
+        void shouldPrefillCredentials() throws IOException {
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setHttp(Map.of("bearer", ScalarHttpSecurityScheme.forBearer("configured")));
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/prefill");
+            properties.setAuthentication(authentication);
+            properties.setCredentialsPrefillEnabled(true);
+            List<Boolean> cacheHits = new ArrayList<>();
+            ScalarRenderObserver observer = new ScalarRenderObserver() {
+                @Override
+                public <T> T observe(ScalarRenderStep step, ScalarRenderStep.Action<T> action) throws IOException {
+                    return action.run();
+                }
+
+                @Override
+                public void onCacheAccess(ScalarRenderStep step, boolean hit) {
+                    cacheHits.add(hit);
+                }
+            };
+
+            String alice = ScalarHtmlRenderer.renderWithCredentials(properties, null, observer,
+                    new ScalarCredentials().put("bearer", ScalarCredentials.TOKEN, "alice</script>"));
+            String bob = ScalarHtmlRenderer.renderWithCredentials(properties, null, observer,
+                    new ScalarCredentials().put("bearer", ScalarCredentials.TOKEN, "bob"));
+            String anonymous = ScalarHtmlRenderer.renderWithCredentials(properties, null, observer, null);
+
+            assertThat(alice)
+                    .contains("\"token\":\"alice\\u003c/script\\u003e\"")
+                    .doesNotContain("SCALAR_CREDENTIAL");
+            assertThat(bob).contains("\"token\":\"bob\"").doesNotContain("configured");
+            assertThat(anonymous).contains("\"token\":\"configured\"").doesNotContain("SCALAR_CREDENTIAL");
+            assertThat(cacheHits).containsExactly(false, true, false);
+        }
+
+        @Test
+        @DisplayName("should not fill credentials into marker-shaped strings of the embedded document")
+        void shouldNotFillCredentialsIntoEmbeddedDocument() throws IOException {
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setHttp(Map.of("bearer", ScalarHttpSecurityScheme.forBearer(null)));
+            ScalarProperties properties = new ScalarProperties();
+            properties.setPath("/prefill-embedded");
+            properties.setAuthentication(authentication);
+            properties.setCredentialsPrefillEnabled(true);
+            properties.setEmbedSpec(true);
+            String marker = "__SCALAR_CREDENTIAL:token:626561726572__";
+            ScalarDocument document = ScalarDocument.of(("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Leak\","
+                    + "\"version\":\"1\",\"description\":\"" + marker + "\"}}").getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            String page = ScalarHtmlRenderer.renderWithCredentials(properties, document, ScalarRenderObserver.NOOP,
+                    new ScalarCredentials().put("bearer", ScalarCredentials.TOKEN, "s3cret"));
+
+            assertThat(page).contains(marker).contains("\"token\":\"s3cret\"");
+            assertThat(page.indexOf("s3cret")).isEqualTo(page.lastIndexOf("s3cret"));
+        }
+    }
+
+    @Nested
+    @DisplayName("buildRelativeUrl")
+    class BuildRelativeUrl {
+
+        @Test
+        @DisplayName("should use the last path segment")
+        void shouldUseLastPathSegment() {
+            assertThat(ScalarHtmlRenderer.buildRelativeUrl("/api/docs/", ScalarConstants.OPENAPI_FILENAME))
+                    .isEqualTo("docs/openapi.json");
+        }
+
+        @Test
+        @DisplayName("should fall back to the default path")
+        void shouldFallBackToDefaultPath() {
+            assertThat(ScalarHtmlRenderer.buildRelativeUrl(null, ScalarConstants.OPENAPI_FILENAME))
+                    .isEqualTo("scalar/openapi.json");
+        }
+    }
+
     @Nested
     @DisplayName("getScalarJsContent")
     class GetScalarJsContent {
@@ -0,0 +1,104 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarInstance")
+class ScalarInstanceTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Public\"}}";
+
+    private static ScalarProperties instance(String path, String url) {
+        ScalarProperties properties = new ScalarProperties();
+        properties.setPath(path);
+        properties.setUrl(url);
+        return properties;
+    }
+
+    @Test
+    @DisplayName("should serve each instance at its path with a render cache of its own")
+    void shouldServeInstancesAtTheirPaths() throws IOException {
+        // Given
+        Map<String, ScalarProperties> configured = new LinkedHashMap<>();
+        configured.put("public", instance(null, "/public.json"));
+        configured.put("partner", instance("/docs/partner/", "/partner.json"));
+        ScalarProperties properties = new ScalarProperties();
+        properties.setInstances(configured);
+
+        // When
+        List<ScalarInstance> instances = ScalarInstance.of(properties);
+        String publicPage = instances.get(0).render(ScalarRenderObserver.NOOP);
+        String partnerPage = instances.get(1).render(ScalarRenderObserver.NOOP);
+
+        // Then
+        assertThat(instances).extracting(ScalarInstance::getName).containsExactly("public", "partner");
+        assertThat(instances.get(0).getPath()).isEqualTo("/scalar/public");
+        assertThat(instances.get(0).getBundlePath()).isEqualTo("/scalar/public/scalar.js");
+        assertThat(instances.get(1).getPath()).isEqualTo("/docs/partner");
+        assertThat(publicPage).contains("/public.json").contains("src=\"public/scalar.js\"");
+        assertThat(partnerPage).contains("/partner.json").contains("src=\"partner/scalar.js\"");
+        assertThat(instances.get(0).render(ScalarRenderObserver.NOOP)).isSameAs(publicPage);
+        assertThat(instances).extracting(ScalarInstance::getCachedPageCount).containsExactly(1, 1);
+        assertThat(configured.get("public").getPath()).isNull();
+        assertThat(instances.get(0).getProperties()).isNotSameAs(configured.get("public"));
+    }
+
+    @Test
+    @DisplayName("should serve the local documents its page refers to")
+    void shouldServeLocalDocuments(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("public.json"), SPEC);
+        Map<String, ScalarProperties> configured = new LinkedHashMap<>();
+        configured.put("public", instance(null, file.toUri().toString()));
+        ScalarProperties properties = new ScalarProperties();
+        properties.setInstances(configured);
+        ScalarInstance instance = ScalarInstance.of(properties).get(0);
+
+        try (ScalarLocalDocuments localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false)) {
+            // When
+            String page = instance.render(ScalarRenderObserver.NOOP);
+            ScalarDocument document = instance.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID, localDocuments,
+                    null, ScalarRenderObserver.NOOP);
+
+            // Then
+            assertThat(page).contains("public/documents/" + ScalarDocumentCache.DEFAULT_DOCUMENT_ID);
+            assertThat(instance.getDocumentsPath()).isEqualTo("/scalar/public/documents/");
+            assertThat(new String(document.getContent(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            assertThat(instance.getDocument("0", localDocuments, null, ScalarRenderObserver.NOOP)).isNull();
+            assertThat(instance.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID, null, null,
+                    ScalarRenderObserver.NOOP)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("should reject instances served at the same path")
+    void shouldRejectDuplicatePaths() {
+        // Given
+        Map<String, ScalarProperties> configured = new LinkedHashMap<>();
+        configured.put("a", instance("/docs", "/a.json"));
+        configured.put("b", instance("/docs/", "/b.json"));
+        ScalarProperties properties = new ScalarProperties();
+        properties.setInstances(configured);
+
+        // When / Then
+        assertThatThrownBy(() -> ScalarInstance.of(properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'a' and 'b'");
+        assertThat(ScalarInstance.of(new ScalarProperties())).isEmpty();
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -114,6 +115,127 @@ class ScalarPropertiesTest {
         void shouldHaveCorrectDefaultActuatorEnabled() {
             assertThat(properties.isActuatorEnabled()).isFalse();
         }
+
+        @Test
+        @DisplayName("should have correct default warmUpEnabled")
+        void shouldHaveCorrectDefaultWarmUpEnabled() {
+            assertThat(properties.isWarmUpEnabled()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should have correct default springDocEnabled")
+        void shouldHaveCorrectDefaultSpringDocEnabled() {
+            assertThat(properties.isSpringDocEnabled()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should have correct default embedSpec")
+        void shouldHaveCorrectDefaultEmbedSpec() {
+            assertThat(properties.isEmbedSpec()).isFalse();
+            assertThat(properties.getEmbedSpecMaxBytes()).isEqualTo(512 * 1024);
+        }
+
+        @Test
+        @DisplayName("should have correct default document cache settings")
+        void shouldHaveCorrectDefaultDocumentCacheSettings() {
+            assertThat(properties.isDocumentCacheEnabled()).isFalse();
+            assertThat(properties.getDocumentCacheTtl()).isEqualTo(Duration.ofMinutes(5));
+            assertThat(properties.getDocumentCacheTimeout()).isEqualTo(Duration.ofSeconds(10));
+        }
+
+        @Test
+        @DisplayName("should have correct default document prefetch settings")
+        void shouldHaveCorrectDefaultDocumentPrefetchSettings() {
+            assertThat(properties.isDocumentPrefetchEnabled()).isTrue();
+            assertThat(properties.getDocumentPrefetchConcurrency()).isEqualTo(8);
+            assertThat(properties.getDocumentPrefetchTimeout()).isEqualTo(Duration.ofSeconds(30));
+        }
+
+        @Test
+        @DisplayName("should not watch local documents by default")
+        void shouldNotWatchLocalDocumentsByDefault() {
+            assertThat(properties.isDocumentWatchEnabled()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should optimize served documents by default")
+        void shouldOptimizeServedDocumentsByDefault() {
+            assertThat(properties.isDocumentOptimizeEnabled()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should not split served documents by default")
+        void shouldNotSplitServedDocumentsByDefault() {
+            assertThat(properties.isDocumentSplitEnabled()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should not serve search indexes by default")
+        void shouldNotServeSearchIndexesByDefault() {
+            assertThat(properties.isDocumentSearchIndexEnabled()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should not compact documents by default")
+        void shouldNotCompactDocumentsByDefault() {
+            assertThat(properties.isDocumentCompactEnabled()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should render the page at runtime by default")
+        void shouldRenderThePageAtRuntimeByDefault() {
+            assertThat(properties.isSiteEnabled()).isFalse();
+            assertThat(properties.getSiteLocation()).isEqualTo("classpath:scalar-site");
+        }
+
+        @Test
+        @DisplayName("should not serve the proxy endpoint by default")
+        void shouldNotServeTheProxyEndpointByDefault() {
+            assertThat(properties.isProxyEnabled()).isFalse();
+            assertThat(properties.getProxyAllowedHosts()).isNull();
+            assertThat(properties.getProxyTimeout()).isEqualTo(Duration.ofSeconds(30));
+            assertThat(properties.isProxyLocalDispatchEnabled()).isTrue();
+            assertThat(properties.getProxyMaxConnections()).isEqualTo(50);
+            assertThat(properties.getProxyMaxConcurrentRequests()).isEqualTo(32);
+            assertThat(properties.getProxyMaxConcurrentRequestsPerClient()).isEqualTo(4);
+            assertThat(properties.getProxyQueueSize()).isEqualTo(64);
+            assertThat(properties.getProxyQueueTimeout()).isEqualTo(Duration.ofSeconds(10));
+            assertThat(properties.isProxyCacheEnabled()).isFalse();
+            assertThat(properties.getProxyCacheMaxSize()).isEqualTo(64L * 1024 * 1024);
+            assertThat(properties.getProxyCacheMaxEntrySize()).isEqualTo(1024L * 1024);
+            assertThat(properties.getProxyCacheVaryHeaders()).containsExactly("Accept", "Accept-Encoding",
+                    "Accept-Language");
+        }
+
+        @Test
+        @DisplayName("should not relay OAuth2 tokens by default")
+        void shouldNotRelayTokensByDefault() {
+            assertThat(properties.isTokenRelayEnabled()).isFalse();
+            assertThat(properties.getTokenRelayRefreshMargin()).isEqualTo(Duration.ofSeconds(30));
+            assertThat(properties.isTokenRelayAuthenticationRequired()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should not prefill credentials by default")
+        void shouldNotPrefillCredentialsByDefault() {
+            assertThat(properties.isCredentialsPrefillEnabled()).isFalse();
+            assertThat(properties.getCredentialsPrefillSchemes()).isNull();
+        }
+
+        @Test
+        @DisplayName("should not cache pages per tenant by default")
+        void shouldNotCachePagesPerTenantByDefault() {
+            assertThat(properties.isTenantCacheEnabled()).isFalse();
+            assertThat(properties.getTenantCacheMaxSize()).isEqualTo(32L * 1024 * 1024);
+            assertThat(properties.getTenantCacheMaxEntries()).isEqualTo(1024);
+            assertThat(properties.getTenantCacheTtl()).isEqualTo(Duration.ofMinutes(5));
+        }
+
+        @Test
+        @DisplayName("should not configure instances by default")
+        void shouldNotConfigureInstancesByDefault() {
+            assertThat(properties.getInstances()).isEmpty();
+        }
     }
 
     @Nested
@@ -379,6 +501,22 @@ class ScalarPropertiesTest {
         }
     }
 
+    @Nested
+    @DisplayName("springDocEnabled property")
+    class SpringDocEnabledProperty {
+
+        @ParameterizedTest
+        @ValueSource(booleans = {true, false})
+        @DisplayName("should set and get springDocEnabled state")
+        void shouldSetAndGetSpringDocEnabledState(boolean springDocEnabled) {
+            // When
+            properties.setSpringDocEnabled(springDocEnabled);
+
+            // Then
+            assertThat(properties.isSpringDocEnabled()).isEqualTo(springDocEnabled);
+        }
+    }
+
     @Nested
     @DisplayName("showDeveloperTools property")
     class ShowDeveloperToolsProperty {
@@ -0,0 +1,136 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.internal.ScalarAssets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarSite")
+class ScalarSiteTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"},\"paths\":{}}";
+
+    @TempDir
+    Path directory;
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should render the page with the hashed bundle")
+    void shouldRenderWithHashedBundle() throws IOException {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setPath("/docs");
+        properties.setUrl("https://example.com/openapi.json");
+
+        // When
+        ScalarSite site = ScalarSite.export(properties, getClass().getClassLoader());
+
+        // Then
+        String bundleFileName = "scalar." + ScalarAssets.getBundleHash().substring(0, 16) + ".js";
+        assertThat(site.getBundleFileName()).isEqualTo(bundleFileName);
+        assertThat(site.getPage())
+                .contains("docs/" + bundleFileName, "https://example.com/openapi.json")
+                .doesNotContain("docs/scalar.js");
+        assertThat(site.getBundle().getContent()).isEqualTo(ScalarAssets.getBundle());
+        // Remote documents are only copied when the document cache is enabled
+        assertThat(site.getDocumentIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should export the documents the page refers to at their local copies")
+    void shouldExportLocalDocuments() throws IOException {
+        // Given
+        Files.writeString(directory.resolve("pets.json"), SPEC);
+        ScalarProperties properties = new ScalarProperties();
+        properties.setSources(List.of(
+                new ScalarSource("classpath:pets.json", "Pets", "pets", true),
+                new ScalarSource("https://example.com/users.json", "Users", "users", false)));
+
+        // When
+        ScalarSite site;
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            site = ScalarSite.export(properties, classLoader);
+        }
+
+        // Then
+        assertThat(site.getDocumentIds()).containsExactly("0");
+        assertThat(content(site.getDocument("0"))).isEqualTo(SPEC);
+        assertThat(site.getPage()).contains(ScalarDocumentCache.documentUrl("/scalar", "0"));
+    }
+
+    @Test
+    @DisplayName("should write the files with their compressed variants and read them back")
+    void shouldWriteAndLoad() throws IOException {
+        // Given
+        Path spec = Files.writeString(directory.resolve("openapi.json"), SPEC.replace("{}",
+                "{\"/pets\":{\"get\":{\"description\":\"" + "List all pets. ".repeat(20) + "\"}}}"));
+        ScalarProperties properties = new ScalarProperties();
+        properties.setUrl(spec.toUri().toString());
+        ScalarSite site = ScalarSite.export(properties, getClass().getClassLoader());
+        Path output = directory.resolve("site");
+
+        // When
+        int written = site.writeTo(output);
+        ScalarSite loaded = ScalarSite.load("file:" + output, getClass().getClassLoader());
+
+        // Then
+        String bundlePath = "scalar/" + site.getBundleFileName();
+        assertThat(output.resolve(ScalarSite.PAGE_FILENAME)).exists();
+        assertThat(output.resolve(bundlePath)).exists();
+        assertThat(output.resolve("scalar/documents/default")).hasContent(content(site.getDocument("default")));
+        assertThat(output.resolve("scalar/documents/default.gz")).exists();
+        assertThat(output.resolve(ScalarSite.MANIFEST_FILENAME)).exists();
+        assertThat(Files.walk(output).filter(Files::isRegularFile).count()).isEqualTo(written);
+
+        assertThat(loaded.getPage()).isEqualTo(site.getPage());
+        assertThat(loaded.getBundleFileName()).isEqualTo(site.getBundleFileName());
+        assertThat(loaded.getBundle().getETag()).isEqualTo(site.getBundle().getETag());
+        assertThat(loaded.getDocument("default").getETag()).isEqualTo(site.getDocument("default").getETag());
+        assertThat(loaded.getDocument("default").getGzipContent())
+                .isEqualTo(site.getDocument("default").getGzipContent());
+    }
+
+    @Test
+    @DisplayName("should read a site from the classpath")
+    void shouldLoadFromClasspath() throws IOException {
+        // Given
+        ScalarSite.export(new ScalarProperties(), getClass().getClassLoader())
+                .writeTo(directory.resolve("scalar-site"));
+
+        // When
+        ScalarSite loaded;
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            loaded = ScalarSite.load("classpath:/scalar-site/", classLoader);
+        }
+
+        // Then
+        assertThat(loaded.getPage()).contains("scalar/" + loaded.getBundleFileName());
+    }
+
+    @Test
+    @DisplayName("should fail when there is no site at the location")
+    void shouldFailWithoutSite() {
+        assertThatThrownBy(() -> ScalarSite.load("file:" + directory, getClass().getClassLoader()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No exported Scalar site found");
+        assertThatThrownBy(() -> ScalarSite.load("https://example.com/site", getClass().getClassLoader()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
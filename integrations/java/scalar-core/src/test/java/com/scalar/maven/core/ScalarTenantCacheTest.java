@@ -0,0 +1,129 @@
+package com.scalar.maven.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarTenantCache")
+class ScalarTenantCacheTest {
+
+    @Test
+    @DisplayName("should render the page of a tenant once for concurrent requests")
+    void shouldRenderOnceForConcurrentRequests() throws Exception {
+        // Given
+        ScalarTenantCache cache = new ScalarTenantCache(1024, 16, Duration.ofMinutes(5));
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger renders = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> get(cache, () -> {
+                renders.incrementAndGet();
+                rendering.countDown();
+                await(release);
+                return "page";
+            }), executor);
+            assertThat(rendering.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> get(cache, () -> {
+                renders.incrementAndGet();
+                return "other page";
+            }), executor);
+            Thread.sleep(50);
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("page");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("page");
+            assertThat(cache.get("acme", null, () -> "not rendered")).isEqualTo("page");
+            assertThat(renders).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used pages beyond the maximum size")
+    void shouldEvictBeyondMaximumSize() throws IOException {
+        // Given: room for two pages of 2 * (5 + 5) bytes
+        ScalarTenantCache cache = new ScalarTenantCache(40, 16, Duration.ofMinutes(5));
+        cache.get("alpha", null, () -> "page1");
+        cache.get("bravo", null, () -> "page2");
+
+        // When
+        cache.get("alpha", null, () -> "again");
+        cache.get("delta", null, () -> "page3");
+        cache.get("large", null, () -> "x".repeat(100));
+
+        // Then
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(40);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get("alpha", null, () -> "again")).isEqualTo("page1");
+        assertThat(cache.get("bravo", null, () -> "rendered")).isEqualTo("rendered");
+    }
+
+    @Test
+    @DisplayName("should render pages again once they expire or their version changes")
+    void shouldRenderExpiredPagesAgain() throws IOException {
+        // Given
+        AtomicLong now = new AtomicLong();
+        ScalarTenantCache cache = new ScalarTenantCache(1024, 16, Duration.ofSeconds(10), now::get);
+        cache.get("acme", "v1", () -> "first");
+
+        // When
+        String changed = cache.get("acme", "v2", () -> "second");
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        String expired = cache.get("acme", "v2", () -> "third");
+
+        // Then
+        assertThat(changed).isEqualTo("second");
+        assertThat(expired).isEqualTo("third");
+        assertThat(cache.getExpirations()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.invalidate("acme")).isTrue();
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not cache failed renders")
+    void shouldNotCacheFailures() throws IOException {
+        // Given
+        ScalarTenantCache cache = new ScalarTenantCache(1024, 16, Duration.ofMinutes(5));
+
+        // When / Then
+        assertThatThrownBy(() -> cache.get("acme", null, () -> {
+            throw new IOException("template missing");
+        })).isInstanceOf(IOException.class).hasMessage("template missing");
+        assertThat(cache.get("acme", null, () -> "page")).isEqualTo("page");
+    }
+
+    private static String get(ScalarTenantCache cache, ScalarTenantCache.Renderer renderer) {
+        try {
+            return cache.get("acme", null, renderer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.scalar.maven.core;
+
+import com.scalar.maven.core.internal.ScalarAssets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarWarmUp")
+class ScalarWarmUpTest {
+
+    @Test
+    @DisplayName("records every step with its tags and loads the assets")
+    void recordsStepsAndLoadsAssets() throws IOException {
+        ScalarAssets.evict();
+        List<String> ended = new ArrayList<>();
+        Map<String, Map<String, String>> tags = new LinkedHashMap<>();
+
+        ScalarWarmUp.run(name -> new ScalarWarmUp.Step() {
+            @Override
+            public void tag(String key, String value) {
+                tags.computeIfAbsent(name, n -> new LinkedHashMap<>()).put(key, value);
+            }
+
+            @Override
+            public void end() {
+                ended.add(name);
+            }
+        });
+
+        assertThat(ended).containsExactly(
+                ScalarWarmUp.BUNDLE_PRELOAD,
+                ScalarWarmUp.BUNDLE_HASH,
+                ScalarWarmUp.TEMPLATE_COMPILE,
+                ScalarWarmUp.SERIALIZER_RESOLVE);
+        assertThat(tags.get(ScalarWarmUp.BUNDLE_PRELOAD))
+                .containsEntry("size", String.valueOf(ScalarAssets.getBundle().length));
+        assertThat(tags.get(ScalarWarmUp.BUNDLE_HASH)).containsKey("hash");
+        assertThat(tags.get(ScalarWarmUp.TEMPLATE_COMPILE)).containsKeys("size", "segments");
+        assertThat(tags.get(ScalarWarmUp.SERIALIZER_RESOLVE)).containsEntry("engine", "Jackson 2");
+        assertThat(ScalarAssets.isBundleLoaded()).isTrue();
+        assertThat(ScalarAssets.isTemplateLoaded()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should handle null recorder")
+    void shouldHandleNullRecorder() {
+        assertThatThrownBy(() -> ScalarWarmUp.run(null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessageContaining("recorder must not be null");
+    }
+}
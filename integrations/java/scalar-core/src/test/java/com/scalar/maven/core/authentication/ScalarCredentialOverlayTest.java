@@ -0,0 +1,135 @@
+package com.scalar.maven.core.authentication;
+
+import com.scalar.maven.core.authentication.schemes.ScalarApiKeySecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+import com.scalar.maven.core.internal.JacksonJsonSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarCredentialOverlay")
+class ScalarCredentialOverlayTest {
+
+    private static ScalarAuthenticationOptions authentication() {
+        ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+        authentication.setHttp(Map.of("bearer", ScalarHttpSecurityScheme.forBearer(null),
+                "bas\"ic", new ScalarHttpSecurityScheme("tester", null)));
+        authentication.setApiKey(Map.of("key", new ScalarApiKeySecurityScheme("X-API-Key", "configured")));
+        return authentication;
+    }
+
+    @Test
+    @DisplayName("should fill the slots with the credentials, or else the configured values")
+    void shouldFillSlots() throws Exception {
+        // Given
+        ScalarAuthenticationOptions authentication = authentication();
+        String page = "<script>" + JacksonJsonSerializer.serialize(ScalarCredentialOverlay.withSlots(authentication))
+                + "</script>";
+
+        // When
+        ScalarCredentialOverlay overlay = ScalarCredentialOverlay.compile(page);
+        String filled = overlay.apply(new ScalarCredentials()
+                .put("bearer", ScalarCredentials.TOKEN, "a\"b\\c<d ")
+                .put("bas\"ic", ScalarCredentials.PASSWORD, "p4ss"), authentication);
+        String anonymous = overlay.apply(null, authentication);
+
+        // Then
+        assertThat(overlay.getSlotCount()).isEqualTo(7);
+        assertThat(ScalarCredentialOverlay.of(page)).isSameAs(ScalarCredentialOverlay.of(page));
+        assertThat(filled)
+                .contains("\"token\":\"a\\\"b\\\\c\\u003cd\\u2028\"")
+                .contains("\"username\":\"tester\",\"password\":\"p4ss\"")
+                .contains("\"name\":\"X-API-Key\",\"value\":\"configured\"")
+                .doesNotContain("SCALAR_CREDENTIAL");
+        assertThat(anonymous).contains("\"token\":null").doesNotContain("p4ss");
+        assertThat(authentication.getSecuritySchemes().get("bearer"))
+                .extracting("token").isNull();
+    }
+
+    @Test
+    @DisplayName("should fill the slots without a credential or a configured value with null")
+    void shouldFillEmptySlotsWithNull() throws Exception {
+        // Given
+        ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+        authentication.setHttp(Map.of("basic", new ScalarHttpSecurityScheme("tester", null)));
+        String page = "<script>" + JacksonJsonSerializer.serialize(ScalarCredentialOverlay.withSlots(authentication))
+                + "</script>";
+        ScalarCredentialOverlay overlay = ScalarCredentialOverlay.compile(page);
+
+        // When
+        String anonymous = overlay.apply(null, authentication);
+        String filled = overlay.apply(new ScalarCredentials().put("basic", ScalarCredentials.TOKEN, ""),
+                authentication);
+
+        // Then
+        assertThat(anonymous)
+                .contains("\"username\":\"tester\"")
+                .contains("\"password\":null")
+                .contains("\"token\":null")
+                .doesNotContain("\"\"");
+        assertThat(filled).contains("\"token\":\"\"").contains("\"password\":null");
+        assertThat(JacksonJsonSerializer.parse(anonymous.substring(8, anonymous.length() - 9)
+                .getBytes(StandardCharsets.UTF_8))).isInstanceOf(Map.class);
+    }
+
+    @Test
+    @DisplayName("should take the bearer token of authenticated OAuth2 tokens only")
+    void shouldTakeBearerTokens() {
+        // Given
+        ScalarAuthenticationOptions authentication = authentication();
+
+        // When
+        ScalarCredentials credentials = ScalarCredentials.ofBearerToken(
+                new TokenAuthentication(true, new Jwt("eyJ.jwt")), authentication, null);
+        ScalarCredentials selected = ScalarCredentials.ofBearerToken(
+                new TokenAuthentication(true, "opaque"), authentication, List.of("bearer"));
+
+        // Then
+        assertThat(credentials.get("bearer", ScalarCredentials.TOKEN)).isEqualTo("eyJ.jwt");
+        assertThat(credentials.get("bas\"ic", ScalarCredentials.TOKEN)).isEqualTo("eyJ.jwt");
+        assertThat(credentials.get("key", ScalarCredentials.VALUE)).isNull();
+        assertThat(selected.get("bearer", ScalarCredentials.TOKEN)).isEqualTo("opaque");
+        assertThat(selected.get("bas\"ic", ScalarCredentials.TOKEN)).isNull();
+        assertThat(ScalarCredentials.ofBearerToken(new TokenAuthentication(false, "opaque"), authentication, null))
+                .isNull();
+        assertThat(ScalarCredentials.ofBearerToken(new Object(), authentication, null)).isNull();
+        assertThat(ScalarCredentials.ofBearerToken(null, authentication, null)).isNull();
+    }
+
+    public static final class TokenAuthentication {
+
+        private final boolean authenticated;
+        private final Object token;
+
+        TokenAuthentication(boolean authenticated, Object token) {
+            this.authenticated = authenticated;
+            this.token = token;
+        }
+
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        public Object getToken() {
+            return token;
+        }
+    }
+
+    public static final class Jwt {
+
+        private final String tokenValue;
+
+        Jwt(String tokenValue) {
+            this.tokenValue = tokenValue;
+        }
+
+        public String getTokenValue() {
+            return tokenValue;
+        }
+    }
+}
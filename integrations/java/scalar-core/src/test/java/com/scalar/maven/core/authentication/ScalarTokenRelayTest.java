@@ -0,0 +1,198 @@
+package com.scalar.maven.core.authentication;
+
+import com.scalar.maven.core.authentication.flows.ClientCredentialsFlow;
+import com.scalar.maven.core.authentication.flows.PasswordFlow;
+import com.scalar.maven.core.authentication.flows.ScalarFlows;
+import com.scalar.maven.core.authentication.schemes.ScalarOAuth2SecurityScheme;
+import com.scalar.maven.core.enums.CredentialsLocation;
+import com.scalar.maven.core.proxy.ScalarProxyException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarTokenRelay")
+class ScalarTokenRelayTest {
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch respond = new CountDownLatch(1);
+
+    private volatile int status = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/token", this::token);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            requests.add(exchange.getRequestHeaders().getFirst("Authorization") + " "
+                    + new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try {
+            respond.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = (status == 200
+                ? "{\"access_token\":\"token-" + requests.size() + "\",\"token_type\":\"Bearer\",\"expires_in\":3600,"
+                + "\"refresh_token\":\"refresh\"}"
+                : "{\"error\":\"invalid_client\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private ScalarAuthenticationOptions authentication() {
+        ClientCredentialsFlow clientCredentials = new ClientCredentialsFlow();
+        clientCredentials.setClientId("docs");
+        clientCredentials.setClientSecret("s3cr3t");
+        clientCredentials.setTokenUrl("http://localhost:" + server.getAddress().getPort() + "/token");
+        clientCredentials.setSelectedScopes(List.of("read"));
+        PasswordFlow password = new PasswordFlow();
+        password.setClientId("docs");
+        password.setClientSecret("s3cr3t");
+        password.setUsername("tester");
+        password.setPassword("p4ss");
+        password.setCredentialsLocation(CredentialsLocation.BODY);
+        password.setTokenUrl(clientCredentials.getTokenUrl());
+        ScalarFlows flows = new ScalarFlows();
+        flows.setClientCredentials(clientCredentials);
+        flows.setPassword(password);
+        ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+        scheme.setFlows(flows);
+        scheme.setDefaultScopes(List.of("write"));
+        ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+        authentication.setOauth2(Map.of("oauth", scheme));
+        return authentication;
+    }
+
+    @Test
+    @DisplayName("should request a token once for concurrent requests and serve it from the cache")
+    void shouldCoalesceAndCacheTokens() throws Exception {
+        // Given
+        ScalarTokenRelay relay = new ScalarTokenRelay(authentication(), Duration.ofSeconds(30),
+                Duration.ofSeconds(5));
+
+        // When
+        CompletableFuture<ScalarTokenRelay.Token> first = relay.tokenAsync("oauth", null, List.of("write", "read"));
+        CompletableFuture<ScalarTokenRelay.Token> second = relay.tokenAsync("oauth", "client_credentials",
+                List.of("read", "write"));
+        respond.countDown();
+        ScalarTokenRelay.Token cached = relay.token("oauth", null, List.of("read", "write"));
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(second.get(5, TimeUnit.SECONDS)).isSameAs(cached);
+        assertThat(cached.getAccessToken()).isEqualTo("token-1");
+        assertThat(cached.toJson())
+                .contains("\"token_type\":\"Bearer\"")
+                .containsPattern("\"expires_in\":3[56]\\d\\d")
+                .doesNotContain("refresh");
+        assertThat(requests).containsExactly("Basic ZG9jczpzM2NyM3Q= grant_type=client_credentials&scope=read+write");
+        assertThat(relay.getTokenCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should request the token again once it is within the refresh margin")
+    void shouldRefreshTokensBeforeTheyExpire() throws Exception {
+        // Given
+        respond.countDown();
+        ScalarTokenRelay relay = new ScalarTokenRelay(authentication(), Duration.ofHours(1), Duration.ofSeconds(5));
+
+        // When
+        relay.token("oauth", "password", List.of());
+        ScalarTokenRelay.Token refreshed = relay.token("oauth", "password", List.of());
+
+        // Then
+        assertThat(refreshed.getAccessToken()).isEqualTo("token-2");
+        assertThat(requests).hasSize(2).allSatisfy(request -> assertThat(request).isEqualTo(
+                "null grant_type=password&username=tester&password=p4ss&client_id=docs&client_secret=s3cr3t"));
+    }
+
+    @Test
+    @DisplayName("should report unknown schemes and refused requests")
+    void shouldReportFailures() {
+        // Given
+        respond.countDown();
+        status = 401;
+        ScalarTokenRelay relay = new ScalarTokenRelay(authentication(), Duration.ofSeconds(30),
+                Duration.ofSeconds(5));
+
+        // When / Then
+        assertThatThrownBy(() -> relay.token("missing", null, List.of()))
+                .isInstanceOf(ScalarProxyException.class)
+                .extracting("status").isEqualTo(404);
+        assertThatThrownBy(() -> relay.token("oauth", "implicit", List.of()))
+                .isInstanceOf(ScalarProxyException.class)
+                .extracting("status").isEqualTo(404);
+        assertThatThrownBy(() -> relay.token("oauth", null, List.of("read", "admin")))
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("[admin]")
+                .extracting("status").isEqualTo(400);
+        assertThatThrownBy(() -> relay.token("oauth", null, List.of()))
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("invalid_client")
+                .extracting("status").isEqualTo(401);
+        assertThat(relay.getTokenCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should point the flows of the page at the token endpoint without their secrets")
+    void shouldRelayFlows() {
+        // Given
+        ScalarAuthenticationOptions authentication = authentication();
+
+        // When
+        ScalarAuthenticationOptions relayed = ScalarTokenRelay.relayed(authentication, "/scalar/token");
+
+        // Then
+        ScalarFlows flows = ((ScalarOAuth2SecurityScheme) relayed.getSecuritySchemes().get("oauth")).getFlows();
+        assertThat(flows.getClientCredentials().getTokenUrl()).isEqualTo("/scalar/token?scheme=oauth");
+        assertThat(flows.getClientCredentials().getClientId()).isEqualTo("docs");
+        assertThat(flows.getClientCredentials().getClientSecret()).isNull();
+        assertThat(flows.getPassword().getUsername()).isEqualTo("tester");
+        assertThat(flows.getPassword().getPassword()).isNull();
+        assertThat(authentication.getOauth2().get("oauth").getFlows().getClientCredentials().getClientSecret())
+                .isEqualTo("s3cr3t");
+        assertThat(ScalarTokenRelay.scopesOf(" read  write ")).containsExactly("read", "write");
+        assertThat(ScalarTokenRelay.scopesOf(null)).isEmpty();
+    }
+}
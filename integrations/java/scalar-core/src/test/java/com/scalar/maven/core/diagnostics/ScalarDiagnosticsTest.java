@@ -0,0 +1,113 @@
+package com.scalar.maven.core.diagnostics;
+
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarDiagnostics")
+class ScalarDiagnosticsTest {
+
+    @Test
+    @DisplayName("reports the loaded assets and the serialization engine")
+    void reportsLoadedAssets() throws IOException {
+        byte[] bundle = ScalarHtmlRenderer.getScalarJsContent();
+        ScalarHtmlRenderer.render(new ScalarProperties());
+
+        ScalarDiagnostics diagnostics = ScalarDiagnostics.capture();
+
+        assertThat(diagnostics.getBundle().isLoaded()).isTrue();
+        assertThat(diagnostics.getBundle().getSize()).isEqualTo(bundle.length);
+        assertThat(diagnostics.getBundle().getHash()).hasSize(64);
+        assertThat(diagnostics.getBundle().getEncodings()).startsWith("identity");
+        assertThat(diagnostics.getTemplate().getFingerprint()).hasSize(64);
+        assertThat(diagnostics.getRenderCache().getSize()).isPositive();
+        // The test classpath provides Jackson 2.x
+        assertThat(diagnostics.getSerializerEngine()).isEqualTo("Jackson 2");
+    }
+
+    @Test
+    @DisplayName("reports the encodings the asset service holds the bundle in")
+    void reportsBundleEncodings() throws IOException {
+        ScalarAssetService assetService = new ScalarAssetService();
+        ScalarHtmlRenderer.getScalarJsContent();
+        assertThat(ScalarDiagnostics.capture(assetService).getBundle().getEncodings()).containsExactly("identity");
+
+        ScalarDocument bundle = assetService.getBundle(ScalarRenderObserver.NOOP);
+        ScalarDiagnostics diagnostics = ScalarDiagnostics.capture(assetService);
+
+        if (bundle.hasGzipContent()) {
+            assertThat(diagnostics.getBundle().getEncodings()).containsExactly("identity", "gzip");
+        } else {
+            assertThat(diagnostics.getBundle().getEncodings()).containsExactly("identity");
+        }
+    }
+
+    @Test
+    @DisplayName("reports and evicts the render cache of the asset service")
+    void reportsAssetServiceRenderCache() throws IOException {
+        ScalarAssetService assetService = new ScalarAssetService(new ScalarRenderCache(4));
+        ScalarProperties properties = new ScalarProperties();
+        properties.setPageTitle("Own cache " + System.nanoTime());
+        assetService.render(properties, null, ScalarRenderObserver.NOOP);
+        assetService.render(properties, null, ScalarRenderObserver.NOOP);
+
+        ScalarDiagnostics.RenderCache renderCache = ScalarDiagnostics.capture(assetService).getRenderCache();
+        ScalarDiagnostics.evictCaches(assetService);
+
+        assertThat(renderCache.getSize()).isEqualTo(1);
+        assertThat(renderCache.getMaximumSize()).isEqualTo(4);
+        assertThat(renderCache.getHits()).isEqualTo(1);
+        assertThat(renderCache.getMisses()).isEqualTo(1);
+        assertThat(assetService.getRenderCache().size()).isZero();
+    }
+
+    @Test
+    @DisplayName("evicts the bundle held by the asset service")
+    void evictsAssetServiceBundle() throws IOException {
+        ScalarAssetService assetService = new ScalarAssetService();
+        assetService.getBundle(ScalarRenderObserver.NOOP);
+
+        ScalarDiagnostics.evictCaches(assetService);
+
+        assertThat(assetService.getLoadedBundle()).isNull();
+        assertThat(ScalarDiagnostics.capture(assetService).getBundle().getEncodings()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reports a cache hit when the same page is rendered twice")
+    void reportsRenderCacheHit() throws IOException {
+        ScalarProperties properties = new ScalarProperties();
+        properties.setPageTitle("Diagnostics " + System.nanoTime());
+        long hits = ScalarDiagnostics.capture().getRenderCache().getHits();
+
+        String first = ScalarHtmlRenderer.render(properties);
+        String second = ScalarHtmlRenderer.render(properties);
+
+        assertThat(second).isSameAs(first);
+        assertThat(ScalarDiagnostics.capture().getRenderCache().getHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    @DisplayName("evicts the rendered pages and the assets")
+    void evictsCaches() throws IOException {
+        ScalarHtmlRenderer.getScalarJsContent();
+        ScalarHtmlRenderer.render(new ScalarProperties());
+
+        ScalarDiagnostics.evictCaches();
+        ScalarDiagnostics diagnostics = ScalarDiagnostics.capture();
+
+        assertThat(diagnostics.getBundle().isLoaded()).isFalse();
+        assertThat(diagnostics.getBundle().getEncodings()).isEmpty();
+        assertThat(diagnostics.getTemplate().isLoaded()).isFalse();
+        assertThat(diagnostics.getRenderCache().getSize()).isZero();
+    }
+}
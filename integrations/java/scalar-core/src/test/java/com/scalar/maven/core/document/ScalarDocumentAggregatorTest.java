@@ -0,0 +1,205 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarUpstream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarDocumentAggregator")
+class ScalarDocumentAggregatorTest {
+
+    private static final String ORDERS = "{\"openapi\":\"3.0.3\",\"info\":{\"title\":\"Orders\",\"version\":\"2.1\"},"
+            + "\"tags\":[{\"name\":\"orders\"}],\"security\":[{\"key\":[]}],"
+            + "\"paths\":{\"/items\":{\"get\":{\"operationId\":\"list\",\"tags\":[\"orders\"],"
+            + "\"responses\":{\"default\":{\"$ref\":\"#/components/responses/Error\"}}}}},"
+            + "\"components\":{\"responses\":{\"Error\":{\"content\":{\"application/json\":"
+            + "{\"schema\":{\"$ref\":\"#/components/schemas/Error\"}}}}},"
+            + "\"schemas\":{\"Error\":{\"type\":\"string\"}},"
+            + "\"securitySchemes\":{\"key\":{\"type\":\"apiKey\",\"name\":\"X-Key\",\"in\":\"header\"}}}}";
+
+    private static final String USERS = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Users\",\"version\":\"1.4\"},"
+            + "\"paths\":{\"/items\":{\"get\":{\"operationId\":\"list\",\"security\":[{\"key\":[]}],"
+            + "\"responses\":{\"default\":{\"content\":{\"application/json\":"
+            + "{\"schema\":{\"$ref\":\"#/components/schemas/Error\"}}}}}}},"
+            + "\"/me\":{\"$ref\":\"#/paths/~1items\"}},"
+            + "\"components\":{\"schemas\":{\"Error\":{\"type\":\"object\"},\"User\":{\"type\":\"object\"}},"
+            + "\"securitySchemes\":{\"key\":{\"type\":\"http\",\"scheme\":\"bearer\"}}}}";
+
+    private HttpServer server;
+
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bodies.put("/orders.json", ORDERS);
+        bodies.put("/users.json", USERS);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = bodies.get(exchange.getRequestURI().getPath());
+        if (body == null) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        String eTag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        exchange.getResponseHeaders().set("ETag", eTag);
+        if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content);
+        }
+        exchange.close();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private ScalarDocumentAggregator aggregator() {
+        return new ScalarDocumentAggregator(new ScalarDocumentCache(Duration.ZERO, Duration.ofSeconds(5)), List.of(
+                new ScalarUpstream(url("/orders.json"), "orders", "/orders"),
+                new ScalarUpstream(url("/users.json"), "users", "users/")), "Gateway");
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should merge the upstream documents behind their path prefixes")
+    void shouldMergeWithPathPrefixes() throws Exception {
+        // When
+        String merged = content(aggregator().get());
+
+        // Then
+        assertThat(merged)
+                .startsWith("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Gateway\",\"version\":\"aggregate\"},"
+                        + "\"tags\":[{\"name\":\"orders\"}],"
+                        + "\"paths\":{\"/orders/items\":{\"get\":{\"operationId\":\"list\",")
+                .contains("\"/users/items\":{\"get\":{\"operationId\":\"users_list\",",
+                        "\"/users/me\":{\"$ref\":\"#/paths/~1users~1items\"}")
+                .endsWith("\"x-scalar-upstreams\":[{\"name\":\"orders\",\"pathPrefix\":\"/orders\","
+                        + "\"title\":\"Orders\",\"version\":\"2.1\"},"
+                        + "{\"name\":\"users\",\"pathPrefix\":\"/users\",\"title\":\"Users\",\"version\":\"1.4\"}]}");
+    }
+
+    @Test
+    @DisplayName("should rename conflicting components and the references to them")
+    void shouldRenameConflictingComponents() throws Exception {
+        // When
+        String merged = content(aggregator().get());
+
+        // Then
+        assertThat(merged)
+                .contains("\"components\":{\"responses\":{\"Error\":{\"content\":{\"application/json\":"
+                        + "{\"schema\":{\"$ref\":\"#/components/schemas/Error\"}}}}},"
+                        + "\"schemas\":{\"Error\":{\"type\":\"string\"},\"users_Error\":{\"type\":\"object\"},"
+                        + "\"User\":{\"type\":\"object\"}},"
+                        + "\"securitySchemes\":{\"key\":{\"type\":\"apiKey\",\"name\":\"X-Key\",\"in\":\"header\"},"
+                        + "\"users_key\":{\"type\":\"http\",\"scheme\":\"bearer\"}}}")
+                .contains("\"operationId\":\"users_list\",\"security\":[{\"users_key\":[]}],"
+                        + "\"responses\":{\"default\":{\"content\":{\"application/json\":"
+                        + "{\"schema\":{\"$ref\":\"#/components/schemas/users_Error\"}}}}}")
+                // The security of the document applies to its operations
+                .contains("\"operationId\":\"list\",\"tags\":[\"orders\"],"
+                        + "\"responses\":{\"default\":{\"$ref\":\"#/components/responses/Error\"}},"
+                        + "\"security\":[{\"key\":[]}]");
+    }
+
+    @Test
+    @DisplayName("should reuse the merged document until an upstream document changes")
+    void shouldRebuildIncrementally() throws Exception {
+        // Given
+        ScalarDocumentAggregator aggregator = aggregator();
+        ScalarDocument first = aggregator.get();
+
+        // When
+        ScalarDocument unchanged = aggregator.get();
+        bodies.put("/users.json", USERS.replace("\"User\"", "\"Account\""));
+        ScalarDocument changed = aggregator.get();
+
+        // Then
+        assertThat(unchanged).isSameAs(first);
+        assertThat(content(changed)).contains("\"Account\":{\"type\":\"object\"}").doesNotContain("\"User\"");
+        assertThat(aggregator.getBuilds()).isEqualTo(2);
+        // Only the changed document is parsed again
+        assertThat(aggregator.getPreparations()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should leave out upstreams that cannot be fetched and retry them")
+    void shouldLeaveOutFailedUpstreams() throws Exception {
+        // Given
+        bodies.remove("/users.json");
+        ScalarDocumentAggregator aggregator = aggregator();
+
+        // When
+        String partial = content(aggregator.get());
+        bodies.put("/users.json", USERS);
+        String complete = content(aggregator.get());
+
+        // Then
+        assertThat(partial)
+                .contains("\"/orders/items\"", "{\"name\":\"users\",\"pathPrefix\":\"/users\",\"failed\":true}")
+                .doesNotContain("\"/users/items\"");
+        assertThat(complete).contains("\"/users/items\"").doesNotContain("\"failed\"");
+    }
+
+    @Test
+    @DisplayName("should fail when no upstream document can be fetched")
+    void shouldFailWithoutDocuments() {
+        // Given
+        bodies.clear();
+
+        // When / Then
+        assertThatThrownBy(() -> aggregator().get())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("None of the upstream OpenAPI documents");
+    }
+
+    @Test
+    @DisplayName("should reject upstreams without an http URL")
+    void shouldRejectNonHttpUpstreams() {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setAggregationUpstreams(List.of(new ScalarUpstream("classpath:openapi.json", null, null)));
+
+        // When / Then
+        assertThatThrownBy(() -> ScalarDocumentAggregator.of(
+                new ScalarDocumentCache(Duration.ZERO, Duration.ofSeconds(5)), properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("classpath:openapi.json");
+    }
+}
@@ -0,0 +1,280 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarSource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarDocumentCache")
+class ScalarDocumentCacheTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\",\"version\":\"1.0\"}}";
+
+    private static final String YAML_SPEC = "openapi: 3.1.0\ninfo:\n  title: Pets\n  version: '1.0'\n";
+
+    private static final String UPSTREAM_ETAG = "\"v1\"";
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final List<String> ifNoneMatchHeaders = new ArrayList<>();
+
+    private volatile int status = 200;
+
+    private volatile CountDownLatch release;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/openapi.json", this::handle);
+        server.createContext("/openapi.yaml", exchange -> {
+            byte[] body = YAML_SPEC.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        synchronized (ifNoneMatchHeaders) {
+            ifNoneMatchHeaders.add(ifNoneMatch);
+        }
+        try {
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (status != 200) {
+            exchange.sendResponseHeaders(status, -1);
+        } else if (UPSTREAM_ETAG.equals(ifNoneMatch)) {
+            exchange.getResponseHeaders().set("ETag", UPSTREAM_ETAG);
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            byte[] body = SPEC.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.getResponseHeaders().set("ETag", UPSTREAM_ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/openapi.json";
+    }
+
+    @Nested
+    @DisplayName("get")
+    class Get {
+
+        @Test
+        @DisplayName("should fetch the document once while it is fresh")
+        void shouldFetchDocumentOnce() throws IOException {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+            // When
+            ScalarDocument first = cache.get(url());
+            ScalarDocument second = cache.get(url());
+
+            // Then
+            assertThat(new String(first.getContent(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            assertThat(first.getMediaType()).isEqualTo(ScalarDocument.JSON_MEDIA_TYPE);
+            assertThat(second).isSameAs(first);
+            assertThat(requests).hasValue(1);
+            assertThat(cache.isCached(url())).isTrue();
+            assertThat(cache.getHits()).isEqualTo(1);
+            assertThat(cache.getFetches()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should convert YAML documents to compact JSON when optimizing")
+        void shouldConvertYamlWhenOptimizing() throws IOException {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5), true);
+            String yamlUrl = url().replace("openapi.json", "openapi.yaml");
+
+            // When
+            ScalarDocument document = cache.get(yamlUrl);
+
+            // Then
+            assertThat(new String(document.getContent(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            assertThat(document.getMediaType()).isEqualTo(ScalarDocument.JSON_MEDIA_TYPE);
+            assertThat(new String(document.getOriginal().getContent(), StandardCharsets.UTF_8)).isEqualTo(YAML_SPEC);
+            assertThat(document.getOriginal().getMediaType()).isEqualTo("application/yaml");
+        }
+
+        @Test
+        @DisplayName("should revalidate an expired document with its entity tag")
+        void shouldRevalidateExpiredDocument() throws IOException {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ZERO, Duration.ofSeconds(5));
+            ScalarDocument first = cache.get(url());
+
+            // When
+            ScalarDocument second = cache.get(url());
+
+            // Then
+            assertThat(second).isSameAs(first);
+            assertThat(ifNoneMatchHeaders).containsExactly(null, UPSTREAM_ETAG);
+            assertThat(cache.getRevalidations()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should keep serving the stale document when upstream fails")
+        void shouldServeStaleDocumentWhenUpstreamFails() throws IOException {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ZERO, Duration.ofSeconds(5));
+            ScalarDocument first = cache.get(url());
+            status = 503;
+
+            // When
+            ScalarDocument second = cache.get(url());
+
+            // Then
+            assertThat(second).isSameAs(first);
+            assertThat(cache.getFailures()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should fail when upstream fails and nothing is cached")
+        void shouldFailWhenNothingIsCached() {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5));
+            status = 404;
+
+            // When / Then
+            assertThatThrownBy(() -> cache.get(url()))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("failed with status 404");
+            assertThat(cache.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("should share a single fetch between concurrent requests")
+        void shouldShareSingleFetch() throws Exception {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5));
+            release = new CountDownLatch(1);
+
+            // When
+            CompletableFuture<ScalarDocument> first = cache.getAsync(url());
+            CompletableFuture<ScalarDocument> second = cache.getAsync(url());
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(second.get(5, TimeUnit.SECONDS));
+            assertThat(requests).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should fetch again after the cache is cleared")
+        void shouldFetchAgainAfterClear() throws IOException {
+            // Given
+            ScalarDocumentCache cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5));
+            cache.get(url());
+
+            // When
+            cache.clear();
+            cache.get(url());
+
+            // Then
+            assertThat(requests).hasValue(2);
+            assertThat(ifNoneMatchHeaders).containsExactly(null, null);
+        }
+    }
+
+    @Nested
+    @DisplayName("resolve")
+    class Resolve {
+
+        private ScalarProperties properties;
+
+        @BeforeEach
+        void setUp() {
+            properties = new ScalarProperties();
+            properties.setUrl("https://example.com/openapi.json");
+            properties.setSources(Arrays.asList(
+                    new ScalarSource("https://example.com/v1.json", "v1", null, true),
+                    new ScalarSource("/v3/api-docs", "local", null, false)));
+        }
+
+        @Test
+        @DisplayName("should resolve the url and remote sources")
+        void shouldResolveConfiguredDocuments() {
+            assertThat(ScalarDocumentCache.resolve(properties, ScalarDocumentCache.DEFAULT_DOCUMENT_ID))
+                    .isEqualTo("https://example.com/openapi.json");
+            assertThat(ScalarDocumentCache.resolve(properties, "0")).isEqualTo("https://example.com/v1.json");
+        }
+
+        @ParameterizedTest
+        @NullSource
+        @ValueSource(strings = {"", "1", "2", "-1", "x", "99999999999"})
+        @DisplayName("should not resolve local or unknown documents")
+        void shouldNotResolveUnknownDocuments(String id) {
+            assertThat(ScalarDocumentCache.resolve(properties, id)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("isCacheable")
+    class IsCacheable {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"http://example.com/openapi.json", "HTTPS://example.com/openapi.json"})
+        @DisplayName("should accept remote URLs")
+        void shouldAcceptRemoteUrls(String url) {
+            assertThat(ScalarDocumentCache.isCacheable(url)).isTrue();
+        }
+
+        @ParameterizedTest
+        @NullSource
+        @ValueSource(strings = {"", "/v3/api-docs", "scalar/openapi.json", "file:/tmp/openapi.json"})
+        @DisplayName("should reject other URLs")
+        void shouldRejectOtherUrls(String url) {
+            assertThat(ScalarDocumentCache.isCacheable(url)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("ScalarDocumentCompactor")
+class ScalarDocumentCompactorTest {
+
+    private static final String ERROR = "{\"type\":\"object\",\"properties\":{\"code\":{\"type\":\"integer\"},"
+            + "\"message\":{\"type\":\"string\",\"description\":\"A message describing the error\"}}}";
+
+    private static final String OWNER = "{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"},"
+            + "\"email\":{\"type\":\"string\",\"format\":\"email\"}}}";
+
+    private static ScalarDocument document(String content) {
+        return ScalarDocument.of(content.getBytes(StandardCharsets.UTF_8), ScalarDocument.JSON_MEDIA_TYPE);
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    private static String response(String schema) {
+        return "{\"default\":{\"content\":{\"application/json\":{\"schema\":" + schema + "}}}}";
+    }
+
+    @Test
+    @DisplayName("should hoist duplicate inline schemas into the components")
+    void shouldHoistDuplicates() {
+        // Given
+        ScalarDocument document = document("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/pets\":{\"get\":{\"operationId\":\"listPets\",\"responses\":" + response(ERROR) + "}},"
+                + "\"/users\":{\"get\":{\"operationId\":\"listUsers\",\"responses\":" + response(ERROR) + "}},"
+                + "\"/orders\":{\"get\":{\"operationId\":\"listOrders\",\"responses\":" + response(ERROR) + "}}}}");
+
+        // When
+        ScalarDocumentCompaction compaction = ScalarDocumentCompactor.compact(document);
+
+        // Then
+        String ref = "{\"$ref\":\"#/components/schemas/ListPetsResponse\"}";
+        assertThat(compaction.isCompacted()).isTrue();
+        assertThat(content(compaction.getDocument())).isEqualTo("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/pets\":{\"get\":{\"operationId\":\"listPets\",\"responses\":" + response(ref) + "}},"
+                + "\"/users\":{\"get\":{\"operationId\":\"listUsers\",\"responses\":" + response(ref) + "}},"
+                + "\"/orders\":{\"get\":{\"operationId\":\"listOrders\",\"responses\":" + response(ref) + "}}},"
+                + "\"components\":{\"schemas\":{\"ListPetsResponse\":" + ERROR + "}}}");
+        assertThat(compaction.getHoistedSchemas()).containsExactly(entry("ListPetsResponse", 3));
+        assertThat(compaction.getReplacedSchemas()).isEqualTo(3);
+        assertThat(compaction.getBytesSaved()).isPositive();
+    }
+
+    @Test
+    @DisplayName("should hoist nested duplicates once their outer schema is hoisted")
+    void shouldHoistNestedDuplicates() {
+        // Given
+        String pet = "{\"title\":\"Pet\",\"type\":\"object\",\"properties\":{\"owner\":" + OWNER + "}}";
+        ScalarDocument document = document("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/pets\":{\"get\":{\"responses\":" + response(pet) + "},"
+                + "\"post\":{\"responses\":" + response(pet) + "}},"
+                + "\"/owners\":{\"get\":{\"responses\":" + response(OWNER) + "},"
+                + "\"post\":{\"responses\":" + response(OWNER) + "}}},"
+                + "\"components\":{\"schemas\":{\"Owner\":{\"type\":\"string\"}}}}");
+
+        // When
+        ScalarDocumentCompaction compaction = ScalarDocumentCompactor.compact(document);
+
+        // Then
+        assertThat(compaction.getHoistedSchemas()).containsExactly(entry("Pet", 2), entry("Owner2", 3));
+        assertThat(content(compaction.getDocument()))
+                .endsWith("\"components\":{\"schemas\":{\"Owner\":{\"type\":\"string\"},"
+                        + "\"Pet\":{\"title\":\"Pet\",\"type\":\"object\",\"properties\":{\"owner\":"
+                        + "{\"$ref\":\"#/components/schemas/Owner2\"}}},\"Owner2\":" + OWNER + "}}}");
+    }
+
+    @Test
+    @DisplayName("should reference existing component schemas equal to inline ones")
+    void shouldReferenceExistingComponents() {
+        // Given
+        ScalarDocument document = document("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/errors\":{\"get\":{\"responses\":" + response(ERROR) + "}}},"
+                + "\"components\":{\"schemas\":{\"Error\":" + ERROR + "}}}");
+
+        // When
+        ScalarDocumentCompaction compaction = ScalarDocumentCompactor.compact(document);
+
+        // Then
+        assertThat(content(compaction.getDocument())).contains(
+                response("{\"$ref\":\"#/components/schemas/Error\"}"), "\"Error\":" + ERROR);
+        assertThat(compaction.getHoistedSchemas()).isEmpty();
+        assertThat(compaction.getReplacedSchemas()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should leave small schemas, examples and schemas with relative references in place")
+    void shouldLeaveUnportableSchemas() {
+        // Given
+        String relative = "{\"type\":\"object\",\"description\":\"A node of a tree with its children\","
+                + "\"properties\":{\"children\":{\"$ref\":\"#/paths/~1tree/get\"}}}";
+        ScalarDocument document = document("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/a\":{\"get\":{\"responses\":" + response(relative) + "},"
+                + "\"parameters\":[{\"name\":\"id\",\"in\":\"path\",\"schema\":{\"type\":\"string\"}}]},"
+                + "\"/b\":{\"get\":{\"responses\":" + response(relative) + "},"
+                + "\"parameters\":[{\"name\":\"id\",\"in\":\"path\",\"schema\":{\"type\":\"string\"}}]},"
+                + "\"/c\":{\"get\":{\"responses\":{\"default\":{\"content\":{\"application/json\":"
+                + "{\"examples\":{\"a\":{\"value\":{\"schema\":" + ERROR + "}},\"b\":{\"value\":{\"schema\":" + ERROR
+                + "}}}}}}}}}}}");
+
+        // When
+        ScalarDocumentCompaction compaction = ScalarDocumentCompactor.compact(document);
+
+        // Then
+        assertThat(compaction.isCompacted()).isFalse();
+        assertThat(compaction.getDocument()).isSameAs(document);
+    }
+
+    @Test
+    @DisplayName("should report the bytes saved, versioned by the source document")
+    void shouldReport() {
+        // Given
+        ScalarDocument document = document("{\"openapi\":\"3.1.0\",\"paths\":{"
+                + "\"/a\":{\"get\":{\"responses\":" + response(ERROR) + "}},"
+                + "\"/b\":{\"get\":{\"responses\":" + response(ERROR) + "}}}}");
+
+        // When
+        ScalarDocumentCompaction compaction = document.getCompaction();
+
+        // Then
+        String eTag = document.getETag();
+        assertThat(document.getCompaction()).isSameAs(compaction);
+        assertThat(content(compaction.getReport()))
+                .startsWith("{\"version\":\"" + eTag.substring(1, eTag.length() - 1) + "\",\"compacted\":true,"
+                        + "\"originalBytes\":" + document.getContent().length + ",")
+                .contains("\"bytesSaved\":" + compaction.getBytesSaved() + ",")
+                .endsWith("\"replacedSchemas\":2,\"hoistedSchemas\":[{\"name\":\"Response\",\"occurrences\":2}]}");
+    }
+
+    @Test
+    @DisplayName("should not compact YAML, malformed or Swagger 2 documents")
+    void shouldNotCompactOtherDocuments() {
+        assertThat(ScalarDocumentCompactor.compact(document("{\"openapi\":")).isCompacted()).isFalse();
+        assertThat(ScalarDocumentCompactor.compact(document("{\"swagger\":\"2.0\"}")).isCompacted()).isFalse();
+        assertThat(ScalarDocumentCompactor.compact(ScalarDocument.of(
+                "openapi: 3.1.0".getBytes(StandardCharsets.UTF_8), "application/yaml")).isCompacted()).isFalse();
+    }
+}
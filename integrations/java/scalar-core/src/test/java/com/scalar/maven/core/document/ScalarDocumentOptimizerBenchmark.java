@@ -0,0 +1,110 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the heap needed to convert YAML documents of growing size by loading
+ * them as a whole and by streaming them.
+ *
+ * <p>
+ * Not part of the regular build, since the numbers depend on the garbage
+ * collector and take a while to collect. Run it with:
+ * </p>
+ *
+ * <pre>
+ * mvn -pl scalar-core test -Dtest=ScalarDocumentOptimizerBenchmark
+ * </pre>
+ */
+@DisplayName("ScalarDocumentOptimizer benchmark")
+class ScalarDocumentOptimizerBenchmark {
+
+    private static final int[] SIZES_MB = {1, 8, 32};
+
+    @Test
+    @DisplayName("should convert large documents with less heap when streaming")
+    void shouldConvertWithLessHeapWhenStreaming() throws Exception {
+        System.out.printf("%8s  %18s  %18s  %18s  %18s%n",
+                "size", "load peak (MB)", "stream peak (MB)", "load alloc (MB)", "stream alloc (MB)");
+        for (int size : SIZES_MB) {
+            ScalarDocument document = document(size * 1024 * 1024);
+
+            // Warm up both paths
+            ScalarDocumentOptimizer.loadYamlToJson(document);
+            ScalarDocumentOptimizer.optimize(document);
+
+            long[] loaded = measure(() -> ScalarDocumentOptimizer.loadYamlToJson(document));
+            long[] streamed = measure(() -> ScalarDocumentOptimizer.optimize(document));
+            System.out.printf("%6d MB  %18.1f  %18.1f  %18.1f  %18.1f%n", size,
+                    loaded[0] / 1048576.0, streamed[0] / 1048576.0,
+                    loaded[1] / 1048576.0, streamed[1] / 1048576.0);
+
+            assertThat(streamed[0]).isLessThan(loaded[0]);
+        }
+    }
+
+    /**
+     * Measures the peak heap above the baseline and the bytes allocated by the
+     * current thread while converting a document.
+     */
+    private static long[] measure(Callable<ScalarDocument> conversion) throws Exception {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.gc();
+        long baseline = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+            baseline += pool.getUsage().getUsed();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+
+        ScalarDocument result = conversion.call();
+
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        assertThat(result.isOptimized()).isTrue();
+        return new long[]{Math.max(peak - baseline, 0), allocated};
+    }
+
+    /**
+     * Generates an OpenAPI document with as many paths as fit the given size.
+     */
+    private static ScalarDocument document(int size) throws IOException {
+        StringBuilder yaml = new StringBuilder(size + 1024)
+                .append("openapi: 3.1.0\ninfo:\n  title: Benchmark\n  version: 1.0.0\npaths:\n");
+        for (int i = 0; yaml.length() < size; i++) {
+            yaml.append("  /pets/").append(i).append(":\n")
+                    .append("    get:\n")
+                    .append("      operationId: getPet").append(i).append('\n')
+                    .append("      summary: Get pet number ").append(i).append('\n')
+                    .append("      parameters:\n")
+                    .append("        - {name: limit, in: query, schema: {type: integer, maximum: 100}}\n")
+                    .append("      responses:\n")
+                    .append("        200:\n")
+                    .append("          description: |\n")
+                    .append("            The pet, with \"quotes\" and a line break.\n")
+                    .append("          content:\n")
+                    .append("            application/json:\n")
+                    .append("              schema: {$ref: '#/components/schemas/Pet'}\n")
+                    .append("              example: {id: ").append(i).append(", born: 2024-01-31, weight: 4.5}\n");
+        }
+        return ScalarDocument.of(yaml.toString().getBytes(StandardCharsets.UTF_8), "application/yaml");
+    }
+}
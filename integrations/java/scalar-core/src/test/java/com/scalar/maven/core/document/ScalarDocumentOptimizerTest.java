@@ -0,0 +1,230 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarDocumentOptimizer")
+class ScalarDocumentOptimizerTest {
+
+    private static ScalarDocument document(String content, String mediaType) {
+        return ScalarDocument.of(content.getBytes(StandardCharsets.UTF_8), mediaType);
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    @DisplayName("JSON documents")
+    class JsonDocuments {
+
+        @Test
+        @DisplayName("should drop the whitespace between tokens")
+        void shouldDropWhitespaceBetweenTokens() {
+            // Given
+            ScalarDocument original = document("\uFEFF{\n  \"openapi\" : \"3.1.0\",\n\t\"tags\": [ 1, 2 ]\r\n}\n",
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            // When
+            ScalarDocument optimized = ScalarDocumentOptimizer.optimize(original);
+
+            // Then
+            assertThat(content(optimized)).isEqualTo("{\"openapi\":\"3.1.0\",\"tags\":[1,2]}");
+            assertThat(optimized.isOptimized()).isTrue();
+            assertThat(optimized.getOriginal()).isSameAs(original);
+            assertThat(optimized.getETag()).isNotEqualTo(original.getETag());
+        }
+
+        @Test
+        @DisplayName("should keep the whitespace inside strings")
+        void shouldKeepWhitespaceInsideStrings() {
+            // Given
+            ScalarDocument original = document("{ \"description\" : \"A \\\"quoted\\\" \\\\ text \u00e9 \" }",
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            // When
+            ScalarDocument optimized = ScalarDocumentOptimizer.optimize(original);
+
+            // Then
+            assertThat(content(optimized)).isEqualTo("{\"description\":\"A \\\"quoted\\\" \\\\ text \u00e9 \"}");
+        }
+
+        @Test
+        @DisplayName("should return compact documents unchanged")
+        void shouldReturnCompactDocumentsUnchanged() {
+            // Given
+            ScalarDocument original = document("{\"openapi\":\"3.1.0\"}", ScalarDocument.JSON_MEDIA_TYPE);
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(original)).isSameAs(original);
+        }
+
+        @Test
+        @DisplayName("should return malformed documents unchanged")
+        void shouldReturnMalformedDocumentsUnchanged() {
+            // Given
+            ScalarDocument original = document("{ \"openapi\": \"3.1.0 }", ScalarDocument.JSON_MEDIA_TYPE);
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(original)).isSameAs(original);
+        }
+
+        @Test
+        @DisplayName("should not optimize a document twice")
+        void shouldNotOptimizeTwice() {
+            // Given
+            ScalarDocument optimized = ScalarDocumentOptimizer.optimize(
+                    document("{ \"openapi\": \"3.1.0\" }", ScalarDocument.JSON_MEDIA_TYPE));
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(optimized)).isSameAs(optimized);
+        }
+    }
+
+    @Nested
+    @DisplayName("YAML documents")
+    class YamlDocuments {
+
+        @Test
+        @DisplayName("should convert the document to compact JSON")
+        void shouldConvertToCompactJson() {
+            // Given
+            ScalarDocument original = document(String.join("\n",
+                    "openapi: 3.1.0",
+                    "info:",
+                    "  title: \"Pets </script>\"",
+                    "  description: |",
+                    "    Line one",
+                    "    \"Line\" two",
+                    "paths:",
+                    "  /pets:",
+                    "    get:",
+                    "      deprecated: false",
+                    "      responses:",
+                    "        200:",
+                    "          description: OK",
+                    "components:",
+                    "  schemas:",
+                    "    Pet:",
+                    "      required: [id, name]",
+                    "      properties:",
+                    "        id: {type: integer, example: 42, maximum: 1.5e3}",
+                    "        born: {type: string, example: 2024-01-31}",
+                    "        empty: {example: ~}",
+                    ""), "application/yaml");
+
+            // When
+            ScalarDocument optimized = ScalarDocumentOptimizer.optimize(original);
+
+            // Then
+            assertThat(optimized.getMediaType()).isEqualTo(ScalarDocument.JSON_MEDIA_TYPE);
+            assertThat(content(optimized)).isEqualTo("{\"openapi\":\"3.1.0\","
+                    + "\"info\":{\"title\":\"Pets </script>\",\"description\":\"Line one\\n\\\"Line\\\" two\\n\"},"
+                    + "\"paths\":{\"/pets\":{\"get\":{\"deprecated\":false,"
+                    + "\"responses\":{\"200\":{\"description\":\"OK\"}}}}},"
+                    + "\"components\":{\"schemas\":{\"Pet\":{\"required\":[\"id\",\"name\"],"
+                    + "\"properties\":{\"id\":{\"type\":\"integer\",\"example\":42,\"maximum\":1500.0},"
+                    + "\"born\":{\"type\":\"string\",\"example\":\"2024-01-31\"},"
+                    + "\"empty\":{\"example\":null}}}}}}");
+            assertThat(optimized.getOriginal()).isSameAs(original);
+            assertThat(optimized.getScriptSafeContent()).contains("Pets \\u003c/script>");
+        }
+
+        @Test
+        @DisplayName("should stream the same JSON as loading the document as a whole")
+        void shouldStreamSameJsonAsLoading() throws IOException {
+            // Given
+            ScalarDocument original = document(String.join("\n",
+                    "openapi: 3.1.0",
+                    "x-numbers: [0x1F, 0o17, 017, 0b101, -1_000, +7, 0, 12345678901234567890, 1:30]",
+                    "x-floats: [1.5e3, -.inf, .NaN, 6.8523015e+5, 190:20:30.15]",
+                    "x-flags: [yes, Off, TRUE, !!bool n]",
+                    "x-timestamps: [2001-12-14t21:59:43.10-05:00, 2001-12-14 21:59:43.123456Z, 2002-12-14]",
+                    "x-binary: !!binary |",
+                    "  R0lGODlhDAAMAIQAAP//9/X",
+                    "x-strings: ['single ''quoted''', \"tab\\tbreak\\n\\u00e9\", !!str 42, \"\\x01\"]",
+                    "components:",
+                    "  responses:",
+                    "    NotFound: &not-found",
+                    "      description: &text Not found",
+                    "      content: {}",
+                    "paths:",
+                    "  /pets:",
+                    "    get:",
+                    "      responses:",
+                    "        404: *not-found",
+                    "        405: {description: *text}",
+                    "        *text : aliased key",
+                    "        2024-01-31: dated key",
+                    "        ~: null key",
+                    ""), "application/yaml");
+
+            // When
+            ScalarDocument streamed = ScalarDocumentOptimizer.optimize(original);
+            ScalarDocument loaded = ScalarDocumentOptimizer.loadYamlToJson(original);
+
+            // Then
+            assertThat(content(streamed)).isEqualTo(content(loaded));
+            assertThat(streamed.getETag()).isEqualTo(loaded.getETag());
+            assertThat(content(streamed)).contains(
+                    "\"404\":{\"description\":\"Not found\",\"content\":{}}",
+                    "\"Not found\":\"aliased key\"",
+                    "\"x-numbers\":[31,\"0o17\",15,5,-1000,7,0,12345678901234567890,90]");
+        }
+
+        @Test
+        @DisplayName("should load documents with merge keys as a whole")
+        void shouldLoadDocumentsWithMergeKeys() {
+            // Given
+            ScalarDocument original = document(String.join("\n",
+                    "base: &base {type: object, description: Base}",
+                    "derived:",
+                    "  <<: *base",
+                    "  description: Derived",
+                    ""), "application/yaml");
+
+            // When
+            ScalarDocument optimized = ScalarDocumentOptimizer.optimize(original);
+
+            // Then
+            assertThat(content(optimized)).isEqualTo("{\"base\":{\"type\":\"object\",\"description\":\"Base\"},"
+                    + "\"derived\":{\"type\":\"object\",\"description\":\"Derived\"}}");
+        }
+
+        @Test
+        @DisplayName("should return documents with recursive aliases unchanged")
+        void shouldReturnRecursiveAliasesUnchanged() {
+            // Given
+            ScalarDocument original = document("schema: &node\n  items: *node\n", "application/yaml");
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(original)).isSameAs(original);
+        }
+
+        @Test
+        @DisplayName("should return documents that are not a mapping unchanged")
+        void shouldReturnNonMappingsUnchanged() {
+            // Given
+            ScalarDocument original = document("<html>Not Found</html>", "application/yaml");
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(original)).isSameAs(original);
+        }
+
+        @Test
+        @DisplayName("should return malformed documents unchanged")
+        void shouldReturnMalformedDocumentsUnchanged() {
+            // Given
+            ScalarDocument original = document("openapi: 3.1.0\n  info: [unclosed", "application/yaml");
+
+            // When / Then
+            assertThat(ScalarDocumentOptimizer.optimize(original)).isSameAs(original);
+        }
+    }
+}
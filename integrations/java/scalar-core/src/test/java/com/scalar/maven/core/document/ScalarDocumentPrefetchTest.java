@@ -0,0 +1,213 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarSource;
+import com.scalar.maven.core.config.ScalarUpstream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarDocumentPrefetch")
+class ScalarDocumentPrefetchTest {
+
+    private HttpServer server;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger maximumActive = new AtomicInteger();
+
+    private ScalarDocumentCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        cache = new ScalarDocumentCache(Duration.ofMinutes(5), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        maximumActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Thread.sleep(path.startsWith("/slow") ? 2000 : 50);
+            if (path.startsWith("/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] body = ("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"" + path + "\"}}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    @DisplayName("should load every document into the cache")
+    void shouldLoadEveryDocument() throws Exception {
+        // Given
+        List<String> urls = List.of(url("/a.json"), url("/b.json"), url("/c.json"));
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, urls, 4, Duration.ofSeconds(5));
+
+        // When
+        prefetch.start().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(prefetch.isDone()).isTrue();
+        assertThat(prefetch.getLoaded()).containsExactlyInAnyOrderElementsOf(urls);
+        assertThat(prefetch.getFailures()).isEmpty();
+        assertThat(urls).allMatch(cache::isCached);
+    }
+
+    @Test
+    @DisplayName("should fetch at most the configured number of documents at the same time")
+    void shouldBoundConcurrency() throws Exception {
+        // Given
+        List<String> urls = List.of(url("/1"), url("/2"), url("/3"), url("/4"), url("/5"), url("/6"));
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, urls, 2, Duration.ofSeconds(5));
+
+        // When
+        prefetch.start().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(prefetch.getLoaded()).hasSize(6);
+        assertThat(maximumActive.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should record failed and timed out documents without affecting the others")
+    void shouldRecordFailures() throws Exception {
+        // Given
+        List<String> urls = List.of(url("/ok.json"), url("/missing.json"), url("/slow.json"));
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, urls, 4, Duration.ofMillis(500));
+
+        // When
+        prefetch.start().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(prefetch.getLoaded()).containsExactly(url("/ok.json"));
+        assertThat(prefetch.getTimedOut()).containsExactly(url("/slow.json"));
+        assertThat(prefetch.getFailures())
+                .containsOnlyKeys(url("/missing.json"))
+                .hasEntrySatisfying(url("/missing.json"), message -> assertThat(message).contains("404"));
+    }
+
+    @Test
+    @DisplayName("should hold the permit of a timed out document until its fetch settles")
+    void shouldHoldPermitUntilTimedOutFetchSettles() throws Exception {
+        // Given
+        List<String> urls = List.of(url("/slow-1.json"), url("/slow-2.json"), url("/a.json"));
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, urls, 1, Duration.ofMillis(200));
+
+        // When
+        prefetch.start().get(15, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(maximumActive.get()).isEqualTo(1);
+        assertThat(prefetch.getLoaded()).containsExactlyInAnyOrderElementsOf(urls);
+        assertThat(prefetch.getTimedOut()).isEmpty();
+        assertThat(prefetch.getFailures()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should be done immediately without documents")
+    void shouldBeDoneWithoutDocuments() {
+        // Given
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, List.of(), 4, Duration.ofSeconds(5));
+
+        // When
+        prefetch.start();
+
+        // Then
+        assertThat(prefetch.isStarted()).isTrue();
+        assertThat(prefetch.isDone()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should only start once")
+    void shouldOnlyStartOnce() {
+        // Given
+        ScalarDocumentPrefetch prefetch = new ScalarDocumentPrefetch(cache, List.of(url("/a.json")), 4,
+                Duration.ofSeconds(5));
+
+        // When / Then
+        assertThat(prefetch.start()).isSameAs(prefetch.start());
+        prefetch.close();
+    }
+
+    @Test
+    @DisplayName("should reject a concurrency below one")
+    void shouldRejectInvalidConcurrency() {
+        assertThatThrownBy(() -> new ScalarDocumentPrefetch(cache, List.of(), 0, Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("concurrency");
+    }
+
+    @Test
+    @DisplayName("should collect the distinct remote documents from the properties")
+    void shouldCollectRemoteDocuments() {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setUrl("https://example.com/openapi.json");
+        properties.setSources(Arrays.asList(
+                new ScalarSource("https://example.com/v1.json", "v1", null, true),
+                new ScalarSource("https://example.com/openapi.json", "again", null, false),
+                new ScalarSource("/v3/api-docs", "local", null, false)));
+
+        // When / Then
+        assertThat(ScalarDocumentPrefetch.urls(properties))
+                .containsExactly("https://example.com/openapi.json", "https://example.com/v1.json");
+    }
+
+    @Test
+    @DisplayName("should collect the upstream documents instead of the url when aggregating")
+    void shouldCollectAggregationUpstreams() {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setUrl("https://example.com/openapi.json");
+        properties.setAggregationEnabled(true);
+        properties.setAggregationUpstreams(Arrays.asList(
+                new ScalarUpstream("https://orders.example.com/openapi.json", "orders", "/orders"),
+                null,
+                new ScalarUpstream("https://users.example.com/openapi.json", "users", "/users")));
+
+        // When / Then
+        assertThat(ScalarDocumentPrefetch.urls(properties)).containsExactly(
+                "https://orders.example.com/openapi.json", "https://users.example.com/openapi.json");
+    }
+}
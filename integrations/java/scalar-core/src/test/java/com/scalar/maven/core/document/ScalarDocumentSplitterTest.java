@@ -0,0 +1,130 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarDocumentSplitter")
+class ScalarDocumentSplitterTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"},"
+            + "\"tags\":[{\"name\":\"Pet Store\",\"description\":\"Pets\"},{\"name\":\"Users\"},{\"name\":\"Empty\"}],"
+            + "\"paths\":{"
+            + "\"/pets\":{\"parameters\":[{\"$ref\":\"#/components/parameters/Limit\"}],"
+            + "\"get\":{\"operationId\":\"listPets\",\"summary\":\"List pets\",\"tags\":[\"Pet Store\"],"
+            + "\"responses\":{\"200\":{\"$ref\":\"#/components/responses/Pets\"}}},"
+            + "\"post\":{\"operationId\":\"addPet\",\"tags\":[\"Pet Store\",\"Users\"],"
+            + "\"requestBody\":{\"content\":{\"application/json\":{\"schema\":{\"$ref\":\"#/components/schemas/Pet\"}}}}}},"
+            + "\"/users\":{\"get\":{\"operationId\":\"listUsers\",\"tags\":[\"Users\"],"
+            + "\"responses\":{\"200\":{\"description\":\"OK\"}}}},"
+            + "\"/health\":{\"get\":{\"operationId\":\"health\",\"deprecated\":true}}},"
+            + "\"components\":{"
+            + "\"schemas\":{\"Owner\":{\"type\":\"object\"},\"Pet\":{\"properties\":{\"owner\":{\"$ref\":\"#/components/schemas/Owner\"}}},"
+            + "\"User\":{\"type\":\"object\"}},"
+            + "\"responses\":{\"Pets\":{\"content\":{\"application/json\":{\"schema\":{\"items\":{\"$ref\":\"#/components/schemas/Pet\"}}}}}},"
+            + "\"parameters\":{\"Limit\":{\"name\":\"limit\",\"in\":\"query\"}},"
+            + "\"securitySchemes\":{\"key\":{\"type\":\"apiKey\",\"name\":\"X-Key\",\"in\":\"header\"}}}}";
+
+    private static ScalarDocument document(String content) {
+        return ScalarDocument.of(content.getBytes(StandardCharsets.UTF_8), ScalarDocument.JSON_MEDIA_TYPE);
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should split the document into a skeleton and one fragment per tag")
+    void shouldSplitPerTag() {
+        // When
+        ScalarDocumentFragments fragments = ScalarDocumentSplitter.split(document(SPEC));
+
+        // Then
+        assertThat(fragments.isSplit()).isTrue();
+        assertThat(fragments.getFragmentIds()).containsExactly("pet-store", "users", "untagged");
+        assertThat(content(fragments.getSkeleton())).isEqualTo("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"},"
+                + "\"tags\":[{\"name\":\"Pet Store\",\"description\":\"Pets\"},{\"name\":\"Users\"},{\"name\":\"Empty\"}],"
+                + "\"paths\":{\"/pets\":{\"get\":{\"operationId\":\"listPets\",\"summary\":\"List pets\",\"tags\":[\"Pet Store\"]},"
+                + "\"post\":{\"operationId\":\"addPet\",\"tags\":[\"Pet Store\",\"Users\"]}},"
+                + "\"/users\":{\"get\":{\"operationId\":\"listUsers\",\"tags\":[\"Users\"]}},"
+                + "\"/health\":{\"get\":{\"operationId\":\"health\",\"deprecated\":true}}},"
+                + "\"components\":{\"securitySchemes\":{\"key\":{\"type\":\"apiKey\",\"name\":\"X-Key\",\"in\":\"header\"}}},"
+                + "\"x-scalar-fragments\":[{\"id\":\"pet-store\",\"tag\":\"Pet Store\",\"operations\":2},"
+                + "{\"id\":\"users\",\"tag\":\"Users\",\"operations\":2},{\"id\":\"untagged\",\"operations\":1}]}");
+    }
+
+    @Test
+    @DisplayName("should keep the transitively referenced components with each fragment")
+    void shouldKeepReferencedComponents() {
+        // When
+        ScalarDocumentFragments fragments = ScalarDocumentSplitter.split(document(SPEC));
+
+        // Then
+        assertThat(content(fragments.getFragment("pet-store")))
+                .startsWith("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"},"
+                        + "\"tags\":[{\"name\":\"Pet Store\",\"description\":\"Pets\"}],"
+                        + "\"paths\":{\"/pets\":{\"parameters\":[{\"$ref\":\"#/components/parameters/Limit\"}],")
+                .endsWith("\"components\":{\"schemas\":{\"Owner\":{\"type\":\"object\"},"
+                        + "\"Pet\":{\"properties\":{\"owner\":{\"$ref\":\"#/components/schemas/Owner\"}}}},"
+                        + "\"responses\":{\"Pets\":{\"content\":{\"application/json\":{\"schema\":{\"items\":"
+                        + "{\"$ref\":\"#/components/schemas/Pet\"}}}}}},"
+                        + "\"parameters\":{\"Limit\":{\"name\":\"limit\",\"in\":\"query\"}},"
+                        + "\"securitySchemes\":{\"key\":{\"type\":\"apiKey\",\"name\":\"X-Key\",\"in\":\"header\"}}}}");
+        assertThat(content(fragments.getFragment("users")))
+                .contains("\"/pets\":{\"parameters\":[{\"$ref\":\"#/components/parameters/Limit\"}],"
+                        + "\"post\":{\"operationId\":\"addPet\"")
+                .contains("\"/users\":{\"get\":{\"operationId\":\"listUsers\"")
+                .doesNotContain("listPets", "\"responses\":{\"Pets\"", "\"User\"");
+        assertThat(content(fragments.getFragment("untagged")))
+                .contains("\"paths\":{\"/health\":")
+                .doesNotContain("\"tags\"", "\"schemas\"");
+        assertThat(fragments.getFragment("empty")).isNull();
+    }
+
+    @Test
+    @DisplayName("should give each fragment its own entity tag")
+    void shouldGiveFragmentsOwnETags() {
+        // When
+        ScalarDocumentFragments fragments = ScalarDocumentSplitter.split(document(SPEC));
+
+        // Then
+        assertThat(fragments.getFragment("pet-store").getETag())
+                .isNotEqualTo(fragments.getFragment("users").getETag())
+                .isNotEqualTo(fragments.getSkeleton().getETag());
+    }
+
+    @Test
+    @DisplayName("should split a document only once")
+    void shouldSplitOnce() {
+        // Given
+        ScalarDocument document = document(SPEC);
+
+        // When / Then
+        assertThat(document.getFragments()).isSameAs(document.getFragments());
+    }
+
+    @Test
+    @DisplayName("should not split documents without paths or in YAML")
+    void shouldNotSplitUnsplittableDocuments() {
+        assertThat(ScalarDocumentSplitter.split(document("{\"openapi\":\"3.1.0\"}")).isSplit()).isFalse();
+        assertThat(ScalarDocumentSplitter.split(document("{\"openapi\":")).isSplit()).isFalse();
+        assertThat(ScalarDocumentSplitter.split(
+                ScalarDocument.of("paths: {}".getBytes(StandardCharsets.UTF_8), "application/yaml")).isSplit()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should derive unique ids from tag names")
+    void shouldDeriveUniqueIds() {
+        // Given
+        ScalarDocument document = document("{\"paths\":{\"/a\":{"
+                + "\"get\":{\"tags\":[\"Pet Store\"]},\"put\":{\"tags\":[\"pet-store\"]},"
+                + "\"post\":{\"tags\":[\"Untagged\"]},\"delete\":{},\"patch\":{\"tags\":[\"\\u00c9t\\u00e9\"]}}}}");
+
+        // When / Then
+        assertThat(ScalarDocumentSplitter.split(document).getFragmentIds())
+                .containsExactly("pet-store", "pet-store-2", "untagged", "t", "untagged-2");
+    }
+}
@@ -0,0 +1,176 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarDocument")
+class ScalarDocumentTest {
+
+    private static final byte[] SPEC = ("{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Test\",\"version\":\"1.0\"},"
+            + "\"paths\":{" + "\"/pets\":{\"get\":{\"summary\":\"List pets\"}},".repeat(20)
+            + "\"/owners\":{}}}").getBytes(StandardCharsets.UTF_8);
+
+    @Nested
+    @DisplayName("of")
+    class Of {
+
+        @Test
+        @DisplayName("should keep a copy of the content")
+        void shouldKeepCopyOfContent() {
+            // Given
+            byte[] content = SPEC.clone();
+
+            // When
+            ScalarDocument document = ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE);
+            content[0] = '[';
+
+            // Then
+            assertThat(document.getContent()).isEqualTo(SPEC);
+            assertThat(document.getMediaType()).isEqualTo("application/json");
+        }
+
+        @Test
+        @DisplayName("should precompress the content")
+        void shouldPrecompressContent() throws IOException {
+            // When
+            ScalarDocument document = ScalarDocument.of(SPEC, ScalarDocument.JSON_MEDIA_TYPE);
+
+            // Then
+            assertThat(document.hasGzipContent()).isTrue();
+            assertThat(document.getGzipContent().length).isLessThan(SPEC.length);
+            try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(document.getGzipContent()))) {
+                assertThat(inputStream.readAllBytes()).isEqualTo(SPEC);
+            }
+        }
+
+        @Test
+        @DisplayName("should skip the compressed variant when it is not smaller")
+        void shouldSkipCompressedVariantWhenNotSmaller() {
+            // When
+            ScalarDocument document = ScalarDocument.of("{}".getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            // Then
+            assertThat(document.hasGzipContent()).isFalse();
+            assertThat(document.getGzipContent()).isNull();
+        }
+
+        @Test
+        @DisplayName("should derive a quoted entity tag from the content")
+        void shouldDeriveETagFromContent() {
+            // When
+            ScalarDocument first = ScalarDocument.of(SPEC, ScalarDocument.JSON_MEDIA_TYPE);
+            ScalarDocument second = ScalarDocument.of(SPEC, ScalarDocument.JSON_MEDIA_TYPE);
+            ScalarDocument other = ScalarDocument.of("{}".getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            // Then
+            assertThat(first.getETag()).matches("\"[0-9a-f]{32}\"");
+            assertThat(first.getETag()).isEqualTo(second.getETag());
+            assertThat(first.getETag()).isNotEqualTo(other.getETag());
+        }
+
+        @Test
+        @DisplayName("should handle null content")
+        void shouldHandleNullContent() {
+            assertThatThrownBy(() -> ScalarDocument.of(null, ScalarDocument.JSON_MEDIA_TYPE))
+                    .isInstanceOf(NullPointerException.class)
+                    .hasMessageContaining("content must not be null");
+        }
+    }
+
+    @Nested
+    @DisplayName("getScriptSafeContent")
+    class GetScriptSafeContent {
+
+        @Test
+        @DisplayName("should escape characters that could end the script element")
+        void shouldEscapeCharacters() {
+            // Given
+            ScalarDocument document = ScalarDocument.of(
+                    "{\"a\":\"</script><!--\u2028\u2029\"}".getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+
+            // When
+            String content = document.getScriptSafeContent();
+
+            // Then
+            assertThat(content).isEqualTo("{\"a\":\"\\u003c/script>\\u003c!--\\u2028\\u2029\"}");
+        }
+
+        @Test
+        @DisplayName("should keep documents without such characters unchanged")
+        void shouldKeepDocumentUnchanged() {
+            assertThat(ScalarDocument.of(SPEC, ScalarDocument.JSON_MEDIA_TYPE).getScriptSafeContent())
+                    .isEqualTo(new String(SPEC, StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("should reject documents that are not JSON")
+        void shouldRejectNonJsonDocuments() {
+            ScalarDocument document = ScalarDocument.of("openapi: 3.1.0".getBytes(StandardCharsets.UTF_8),
+                    "application/yaml");
+
+            assertThatThrownBy(document::getScriptSafeContent)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("application/yaml");
+        }
+    }
+
+    @Nested
+    @DisplayName("matches")
+    class Matches {
+
+        private final ScalarDocument document = ScalarDocument.of(SPEC, ScalarDocument.JSON_MEDIA_TYPE);
+
+        @Test
+        @DisplayName("should match its own entity tag")
+        void shouldMatchOwnETag() {
+            assertThat(document.matches(document.getETag())).isTrue();
+            assertThat(document.matches("W/" + document.getETag())).isTrue();
+            assertThat(document.matches("\"other\", " + document.getETag())).isTrue();
+            assertThat(document.matches("*")).isTrue();
+        }
+
+        @ParameterizedTest
+        @NullSource
+        @ValueSource(strings = {"", "\"other\"", "W/\"other\""})
+        @DisplayName("should not match other entity tags")
+        void shouldNotMatchOtherETags(String ifNoneMatch) {
+            assertThat(document.matches(ifNoneMatch)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("acceptsGzip")
+    class AcceptsGzip {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"gzip", "gzip, deflate, br", "br;q=1.0, GZIP;q=0.5", "*", "*;q=0, gzip"})
+        @DisplayName("should accept gzip")
+        void shouldAcceptGzip(String acceptEncoding) {
+            assertThat(ScalarDocument.acceptsGzip(acceptEncoding)).isTrue();
+        }
+
+        @ParameterizedTest
+        @NullSource
+        @ValueSource(strings = {"", "identity", "deflate, br", "gzip;q=0", "gzip;q=0.0, *"})
+        @DisplayName("should not accept gzip")
+        void shouldNotAcceptGzip(String acceptEncoding) {
+            assertThat(ScalarDocument.acceptsGzip(acceptEncoding)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarDocumentWriter")
+class ScalarDocumentWriterTest {
+
+    @Test
+    @DisplayName("should build the same document as creating it from its content")
+    void shouldBuildSameDocument() throws IOException {
+        // Given
+        byte[] content = "{\"openapi\":\"3.1.0\",\"paths\":{}}".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        ScalarDocumentWriter writer = new ScalarDocumentWriter(16);
+
+        // When
+        for (int offset = 0; offset < content.length; offset += 1000) {
+            writer.write(content, offset, Math.min(1000, content.length - offset));
+        }
+        ScalarDocument document = writer.toDocument(ScalarDocument.JSON_MEDIA_TYPE, null);
+
+        // Then
+        ScalarDocument expected = ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE);
+        assertThat(document.getContent()).isEqualTo(content);
+        assertThat(document.getETag()).isEqualTo(expected.getETag());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(document.getGzipContent()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("should repeat bytes written before")
+    void shouldRepeatBytes() {
+        // Given
+        ScalarDocumentWriter writer = new ScalarDocumentWriter(0);
+        writer.write("[{\"a\":1},".getBytes(StandardCharsets.UTF_8), 0, 9);
+
+        // When
+        writer.repeat(1, 8);
+        writer.write(']');
+
+        // Then
+        assertThat(new String(writer.toDocument(ScalarDocument.JSON_MEDIA_TYPE, null).getContent(),
+                StandardCharsets.UTF_8)).isEqualTo("[{\"a\":1},{\"a\":1}]");
+    }
+}
@@ -0,0 +1,185 @@
+package com.scalar.maven.core.document;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarLocalDocuments")
+class ScalarLocalDocumentsTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"}}";
+
+    @TempDir
+    Path directory;
+
+    private ScalarLocalDocuments localDocuments;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (localDocuments != null) {
+            localDocuments.close();
+        }
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should read a file document once")
+    void shouldReadFileDocumentOnce() throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("openapi.json"), SPEC);
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false);
+        String url = file.toUri().toString();
+
+        // When
+        ScalarDocument document = localDocuments.get(url);
+
+        // Then
+        assertThat(content(document)).isEqualTo(SPEC);
+        assertThat(document.getMediaType()).isEqualTo(ScalarDocument.JSON_MEDIA_TYPE);
+        assertThat(localDocuments.get(url)).isSameAs(document);
+        assertThat(localDocuments.isLoaded(url)).isTrue();
+        assertThat(localDocuments.getLoads()).isEqualTo(1);
+        assertThat(localDocuments.getWatchedDirectories()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should serve YAML documents as application/yaml")
+    void shouldServeYamlDocuments() throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("openapi.yaml"), "openapi: 3.1.0\n");
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false);
+
+        // When
+        ScalarDocument document = localDocuments.get("file:" + file);
+
+        // Then
+        assertThat(document.getMediaType()).isEqualTo("application/yaml");
+    }
+
+    @Test
+    @DisplayName("should convert YAML documents to compact JSON when optimizing")
+    void shouldConvertYamlWhenOptimizing() throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("openapi.yml"), "openapi: 3.1.0\ninfo:\n  title: Pets\n");
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false, true);
+
+        // When
+        ScalarDocument document = localDocuments.get(file.toUri().toString());
+
+        // Then
+        assertThat(content(document)).isEqualTo(SPEC);
+        assertThat(document.getOriginal().getMediaType()).isEqualTo("application/yaml");
+    }
+
+    @Test
+    @DisplayName("should read classpath documents")
+    void shouldReadClasspathDocuments() throws IOException {
+        // Given
+        Files.createDirectories(directory.resolve("openapi"));
+        Files.writeString(directory.resolve("openapi/v1.json"), SPEC);
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            localDocuments = new ScalarLocalDocuments(classLoader, false);
+
+            // When
+            ScalarDocument document = localDocuments.get("classpath:/openapi/v1.json");
+
+            // Then
+            assertThat(content(document)).isEqualTo(SPEC);
+            assertThatThrownBy(() -> localDocuments.get("classpath:openapi/missing.json"))
+                    .isInstanceOf(FileNotFoundException.class)
+                    .hasMessageContaining("openapi/missing.json");
+        }
+    }
+
+    @Test
+    @DisplayName("should reload only the changed document when watching")
+    void shouldReloadChangedDocument() throws Exception {
+        // Given
+        Path changed = Files.writeString(directory.resolve("changed.json"), SPEC);
+        Path unchanged = Files.writeString(directory.resolve("unchanged.json"), SPEC);
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), true);
+        ScalarDocument previous = localDocuments.get(changed.toUri().toString());
+        ScalarDocument other = localDocuments.get(unchanged.toUri().toString());
+
+        // When
+        String updated = SPEC.replace("Pets", "Pet Store");
+        Files.writeString(changed, updated);
+
+        // Then
+        long deadline = System.nanoTime() + 20_000_000_000L;
+        while (content(localDocuments.get(changed.toUri().toString())).equals(SPEC)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        ScalarDocument reloaded = localDocuments.get(changed.toUri().toString());
+        assertThat(content(reloaded)).isEqualTo(updated);
+        assertThat(reloaded.getETag()).isNotEqualTo(previous.getETag());
+        assertThat(localDocuments.get(unchanged.toUri().toString())).isSameAs(other);
+        assertThat(localDocuments.getReloads()).isEqualTo(1);
+        assertThat(localDocuments.getWatchedDirectories()).containsExactly(changed.getParent());
+    }
+
+    @Test
+    @DisplayName("should read documents again after clearing")
+    void shouldReadAgainAfterClearing() throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("openapi.json"), SPEC);
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false);
+        localDocuments.get(file.toUri().toString());
+
+        // When
+        localDocuments.clear();
+
+        // Then
+        assertThat(localDocuments.size()).isZero();
+        localDocuments.get(file.toUri().toString());
+        assertThat(localDocuments.getLoads()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should recognize local locations")
+    void shouldRecognizeLocalLocations() {
+        assertThat(ScalarLocalDocuments.isLocal("file:/etc/openapi.json")).isTrue();
+        assertThat(ScalarLocalDocuments.isLocal("CLASSPATH:openapi.json")).isTrue();
+        assertThat(ScalarLocalDocuments.isLocal("https://example.com/openapi.json")).isFalse();
+        assertThat(ScalarLocalDocuments.isLocal("/v3/api-docs")).isFalse();
+        assertThat(ScalarLocalDocuments.isLocal(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should resolve only local documents")
+    void shouldResolveOnlyLocalDocuments() {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setUrl("file:/etc/openapi.json");
+        properties.setSources(List.of(
+                new ScalarSource("https://example.com/v1.json", "v1", null, true),
+                new ScalarSource("classpath:v2.json", "v2", null, false)));
+
+        // When / Then
+        assertThat(ScalarLocalDocuments.resolve(properties, ScalarDocumentCache.DEFAULT_DOCUMENT_ID))
+                .isEqualTo("file:/etc/openapi.json");
+        assertThat(ScalarLocalDocuments.resolve(properties, "0")).isNull();
+        assertThat(ScalarLocalDocuments.resolve(properties, "1")).isEqualTo("classpath:v2.json");
+        assertThat(ScalarLocalDocuments.resolve(properties, "2")).isNull();
+        assertThat(ScalarDocumentCache.resolve(properties, ScalarDocumentCache.DEFAULT_DOCUMENT_ID)).isNull();
+    }
+}
@@ -0,0 +1,100 @@
+package com.scalar.maven.core.document;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarSearchIndex")
+class ScalarSearchIndexTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"tags\":[{\"name\":\"Pets\"}],"
+            + "\"paths\":{\"/pets\":{\"get\":{\"operationId\":\"listPets\",\"summary\":\"List all pets\",\"tags\":[\"Pets\"]}},"
+            + "\"/users/{id}\":{\"parameters\":[],\"delete\":{\"operationId\":\"deleteUser\"}}},"
+            + "\"components\":{\"schemas\":{\"PetOwner\":{\"type\":\"object\"}}}}";
+
+    private static ScalarDocument document(String content) {
+        return ScalarDocument.of(content.getBytes(StandardCharsets.UTF_8), ScalarDocument.JSON_MEDIA_TYPE);
+    }
+
+    private static String content(ScalarDocument document) {
+        return new String(document.getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should index tags, operations and schemas with their terms")
+    void shouldIndexEntriesAndTerms() {
+        // Given
+        ScalarDocument document = document(SPEC);
+
+        // When
+        ScalarSearchIndex index = ScalarSearchIndex.build(document, null);
+
+        // Then
+        String eTag = document.getETag();
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(content(index.getDocument())).isEqualTo("{\"version\":\"" + eTag.substring(1, eTag.length() - 1)
+                + "\",\"entries\":[{\"type\":\"tag\",\"name\":\"Pets\"},"
+                + "{\"type\":\"operation\",\"method\":\"get\",\"path\":\"/pets\",\"operationId\":\"listPets\","
+                + "\"summary\":\"List all pets\",\"tags\":[\"Pets\"]},"
+                + "{\"type\":\"operation\",\"method\":\"delete\",\"path\":\"/users/{id}\",\"operationId\":\"deleteUser\"},"
+                + "{\"type\":\"schema\",\"name\":\"PetOwner\"}],"
+                + "\"terms\":{\"all\":[1],\"delete\":[2],\"id\":[2],\"list\":[1],\"owner\":[3],\"pet\":[3],"
+                + "\"pets\":[0,1],\"user\":[2],\"users\":[2]}}");
+        assertThat(index.getDocument().getGzipContent()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("should split terms at punctuation and camel case")
+    void shouldTokenize() {
+        // Given
+        Set<String> terms = new LinkedHashSet<>();
+
+        // When
+        ScalarSearchIndex.tokenize("listPetsByID /v2/HTTPServer_status", terms);
+
+        // Then
+        assertThat(terms).containsExactly("list", "pets", "by", "id", "v2", "http", "server", "status");
+    }
+
+    @Test
+    @DisplayName("should build the index of a reloaded document from the previous one")
+    void shouldRebuildIncrementally() {
+        // Given
+        ScalarDocument previous = document(SPEC);
+        previous.getSearchIndex();
+        ScalarDocument reloaded = document(SPEC.replace("List all pets", "List the pets"));
+
+        // When
+        reloaded.replaces(previous);
+        ScalarSearchIndex index = reloaded.getSearchIndex();
+
+        // Then
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.getReusedEntries()).isEqualTo(3);
+        assertThat(content(index.getDocument())).contains("\"the\":[1]").doesNotContain("\"all\"");
+    }
+
+    @Test
+    @DisplayName("should build the index of a document only once")
+    void shouldBuildOnce() {
+        // Given
+        ScalarDocument document = document(SPEC);
+
+        // When / Then
+        assertThat(document.getSearchIndex()).isSameAs(document.getSearchIndex());
+    }
+
+    @Test
+    @DisplayName("should not index malformed documents or YAML")
+    void shouldNotIndexUnindexableDocuments() {
+        assertThat(ScalarSearchIndex.build(document("{\"openapi\":"), null).getDocument()).isNull();
+        assertThat(ScalarSearchIndex.build(
+                ScalarDocument.of("paths: {}".getBytes(StandardCharsets.UTF_8), "application/yaml"), null)
+                .getDocument()).isNull();
+    }
+}
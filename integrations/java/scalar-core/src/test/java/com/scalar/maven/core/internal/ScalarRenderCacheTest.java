@@ -0,0 +1,78 @@
+package com.scalar.maven.core.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarRenderCache")
+class ScalarRenderCacheTest {
+
+    @Test
+    @DisplayName("records hits and misses")
+    void recordsHitsAndMisses() {
+        ScalarRenderCache cache = new ScalarRenderCache(4);
+
+        assertThat(cache.get("a")).isNull();
+        cache.put("a", "page");
+        assertThat(cache.get("a")).isEqualTo("page");
+
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.estimateBytes()).isEqualTo(("a".length() + "page".length()) * 2L);
+    }
+
+    @Test
+    @DisplayName("evicts the least recently used page")
+    void evictsLeastRecentlyUsedPage() {
+        ScalarRenderCache cache = new ScalarRenderCache(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // Touch "a" so "b" becomes the eldest entry
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("clears the pages but keeps the statistics")
+    void clearsPagesButKeepsStatistics() {
+        ScalarRenderCache cache = new ScalarRenderCache(2);
+        cache.put("a", "A");
+        cache.get("a");
+
+        cache.clear();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("removes only the pages with matching keys")
+    void removesMatchingPages() {
+        ScalarRenderCache cache = new ScalarRenderCache(4);
+        cache.put("a\n\"etag-1\"", "A");
+        cache.put("b\n\"etag-2\"", "B");
+        cache.put("c", "C");
+
+        assertThat(cache.removeIf(key -> key.endsWith("\"etag-1\""))).isEqualTo(1);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a\n\"etag-1\"")).isNull();
+        assertThat(cache.get("b\n\"etag-2\"")).isEqualTo("B");
+    }
+
+    @Test
+    @DisplayName("rejects a maximum size below one")
+    void rejectsInvalidMaximumSize() {
+        assertThatThrownBy(() -> new ScalarRenderCache(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximumSize");
+    }
+}
@@ -0,0 +1,43 @@
+package com.scalar.maven.core.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarTemplate")
+class ScalarTemplateTest {
+
+    @Test
+    @DisplayName("fills every occurrence of the placeholders")
+    void fillsPlaceholders() {
+        ScalarTemplate template = ScalarTemplate.compile(
+                "<title>__PAGE_TITLE__</title><script src=\"__JS_BUNDLE_URL__\"></script>"
+                        + "<script>init(__CONFIGURATION__)</script><h1>__PAGE_TITLE__</h1>");
+
+        String page = template.render("scalar/scalar.js", "My API", "{\"a\":1}");
+
+        assertThat(page).isEqualTo("<title>My API</title><script src=\"scalar/scalar.js\"></script>"
+                + "<script>init({\"a\":1})</script><h1>My API</h1>");
+        assertThat(template.getSegmentCount()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("does not expand placeholders inside inserted values")
+    void doesNotExpandInsertedValues() {
+        ScalarTemplate template = ScalarTemplate.compile("__PAGE_TITLE__|__CONFIGURATION__");
+
+        String page = template.render("bundle.js", "__CONFIGURATION__", "{}");
+
+        assertThat(page).isEqualTo("__CONFIGURATION__|{}");
+    }
+
+    @Test
+    @DisplayName("renders a template without placeholders unchanged")
+    void rendersTemplateWithoutPlaceholders() {
+        ScalarTemplate template = ScalarTemplate.compile("<html></html>");
+
+        assertThat(template.render("bundle.js", "title", "{}")).isEqualTo("<html></html>");
+        assertThat(template.getSourceLength()).isEqualTo(13);
+    }
+}
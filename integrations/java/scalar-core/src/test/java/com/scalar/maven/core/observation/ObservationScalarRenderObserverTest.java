@@ -0,0 +1,94 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static io.micrometer.observation.tck.TestObservationRegistryAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ObservationScalarRenderObserver")
+class ObservationScalarRenderObserverTest {
+
+    @Test
+    @DisplayName("returns the no-op observer without a registry")
+    void returnsNoopWithoutRegistry() {
+        assertThat(ObservationScalarRenderObserver.create(null, "controller"))
+                .isSameAs(ScalarRenderObserver.NOOP);
+        assertThat(ObservationScalarRenderObserver.create(ObservationRegistry.NOOP, "controller"))
+                .isSameAs(ScalarRenderObserver.NOOP);
+    }
+
+    @Test
+    @DisplayName("records the rendering steps as observations")
+    void recordsRenderingSteps() throws IOException {
+        TestObservationRegistry registry = TestObservationRegistry.create();
+        ScalarRenderObserver observer = ObservationScalarRenderObserver.create(registry, "controller");
+
+        String html = observer.observe(ScalarRenderStep.PAGE,
+                () -> ScalarHtmlRenderer.render(new ScalarProperties(), observer));
+
+        assertThat(html).contains("Scalar.createApiReference('#app',");
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.page")
+                .that()
+                .hasLowCardinalityKeyValue(ObservationScalarRenderObserver.ENDPOINT_KEY, "controller")
+                .hasBeenStopped();
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.configuration.mapping")
+                .that()
+                .hasParentObservationContextMatching(parent -> "scalar.page".equals(parent.getName()));
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.configuration.serialization")
+                .that()
+                .hasBeenStopped();
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.template")
+                .that()
+                .hasLowCardinalityKeyValueWithKey(ObservationScalarRenderObserver.CACHE_KEY);
+    }
+
+    @Test
+    @DisplayName("records the steps below the given parent when no observation is current")
+    void recordsStepsBelowParent() throws IOException {
+        TestObservationRegistry registry = TestObservationRegistry.create();
+        Observation request = Observation.start("http.server.requests", registry);
+        ScalarRenderObserver observer = ObservationScalarRenderObserver.create(registry, "controller", request);
+
+        observer.observe(ScalarRenderStep.PAGE, () -> ScalarHtmlRenderer.render(new ScalarProperties(), observer));
+        request.stop();
+
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.page")
+                .that()
+                .hasParentObservationEqualTo(request);
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.configuration.mapping")
+                .that()
+                .hasParentObservationContextMatching(parent -> "scalar.page".equals(parent.getName()));
+    }
+
+    @Test
+    @DisplayName("reports a cache hit once the bundle is held in memory")
+    void reportsBundleCacheHit() throws IOException {
+        TestObservationRegistry registry = TestObservationRegistry.create();
+        ScalarRenderObserver observer = ObservationScalarRenderObserver.create(registry, "controller");
+
+        // The first access may load the bundle, every later access is served from memory
+        ScalarHtmlRenderer.getScalarJsContent();
+        observer.observe(ScalarRenderStep.BUNDLE, () -> ScalarHtmlRenderer.getScalarJsContent(observer));
+
+        assertThat(registry)
+                .hasObservationWithNameEqualTo("scalar.bundle")
+                .that()
+                .hasLowCardinalityKeyValue(ObservationScalarRenderObserver.CACHE_KEY, "hit");
+    }
+}
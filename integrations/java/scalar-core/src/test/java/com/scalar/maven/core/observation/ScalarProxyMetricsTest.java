@@ -0,0 +1,30 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarProxyMetrics")
+class ScalarProxyMetricsTest {
+
+    @Test
+    @DisplayName("reports the running, queued and rejected requests of the proxy endpoint")
+    void reportsRequests() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 1, Duration.ofSeconds(5));
+        new ScalarProxyMetrics(limiter).bindTo(registry);
+
+        limiter.acquireAsync("alice");
+        limiter.acquireAsync("bob");
+        limiter.acquireAsync("carol");
+
+        assertThat(registry.get(ScalarProxyMetrics.ACTIVE_REQUESTS).gauge().value()).isEqualTo(1);
+        assertThat(registry.get(ScalarProxyMetrics.QUEUED_REQUESTS).gauge().value()).isEqualTo(1);
+        assertThat(registry.get(ScalarProxyMetrics.REJECTED_REQUESTS).functionCounter().count()).isEqualTo(1);
+    }
+}
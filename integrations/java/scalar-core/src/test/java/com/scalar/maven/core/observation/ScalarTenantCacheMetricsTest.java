@@ -0,0 +1,36 @@
+package com.scalar.maven.core.observation;
+
+import com.scalar.maven.core.ScalarTenantCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarTenantCacheMetrics")
+class ScalarTenantCacheMetricsTest {
+
+    @Test
+    @DisplayName("reports the pages, hits, misses and evictions of the tenant cache")
+    void reportsCache() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScalarTenantCache cache = new ScalarTenantCache(1024, 1, Duration.ofMinutes(5));
+        new ScalarTenantCacheMetrics(cache).bindTo(registry);
+
+        cache.get("alice", null, () -> "alice's page");
+        cache.get("alice", null, () -> "alice's page");
+        cache.get("bob", null, () -> "bob's page");
+
+        assertThat(registry.get(ScalarTenantCacheMetrics.ENTRIES).gauge().value()).isEqualTo(1);
+        assertThat(registry.get(ScalarTenantCacheMetrics.SIZE).gauge().value()).isEqualTo(26);
+        assertThat(registry.get(ScalarTenantCacheMetrics.GETS).tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get(ScalarTenantCacheMetrics.GETS).tag("result", "miss").functionCounter().count())
+                .isEqualTo(2);
+        assertThat(registry.get(ScalarTenantCacheMetrics.EVICTIONS).tag("cause", "size").functionCounter().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.scalar.maven.core.proxy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarProxyCache")
+class ScalarProxyCacheTest {
+
+    private static final URI TARGET = URI.create("https://api.example.com/pets");
+
+    private final ScalarProxyCache cache = new ScalarProxyCache(10, 8, List.of("Accept"));
+
+    private static void store(ScalarProxyCache.Capture capture, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        capture.write(bytes, 0, bytes.length);
+        capture.complete();
+    }
+
+    private static String body(ScalarProxyCache.Entry entry) {
+        return StandardCharsets.UTF_8.decode(entry.getBody()).toString();
+    }
+
+    @Test
+    @DisplayName("should only key GET and HEAD requests that are not conditional and allow caching")
+    void shouldKeyCacheableRequests() {
+        // When / Then
+        assertThat(cache.key("GET", TARGET, Map.of())).isNotNull();
+        assertThat(cache.key("HEAD", TARGET, Map.of())).isNotNull().isNotEqualTo(cache.key("GET", TARGET, Map.of()));
+        assertThat(cache.key("POST", TARGET, Map.of())).isNull();
+        assertThat(cache.key("GET", TARGET, Map.of("If-None-Match", List.of("\"1\"")))).isNull();
+        assertThat(cache.key("GET", TARGET, Map.of("Range", List.of("bytes=0-1")))).isNull();
+        assertThat(cache.key("GET", TARGET, Map.of("Cache-Control", List.of("no-cache")))).isNull();
+        assertThat(cache.key("GET", TARGET, Map.of("Authorization", List.of("Bearer a"))))
+                .isNotEqualTo(cache.key("GET", TARGET, Map.of("Authorization", List.of("Bearer b"))))
+                .doesNotContain("Bearer");
+        assertThat(cache.key("GET", TARGET, Map.of("accept", List.of("text/plain"))))
+                .isEqualTo(cache.key("GET", TARGET, Map.of("Accept", List.of("text/plain"))))
+                .isNotEqualTo(cache.key("GET", TARGET, Map.of()));
+    }
+
+    @Test
+    @DisplayName("should store fresh responses and serve them with their age")
+    void shouldStoreFreshResponses() {
+        // Given
+        String key = cache.key("GET", TARGET, Map.of());
+
+        // When
+        store(cache.capture(key, 200, Map.of("Cache-Control", List.of("max-age=60"))), "pets");
+
+        // Then
+        ScalarProxyCache.Entry entry = cache.get(key);
+        assertThat(entry.isFresh()).isTrue();
+        assertThat(entry.getStatus()).isEqualTo(200);
+        assertThat(entry.getHeaders()).containsEntry("Age", List.of("0"));
+        assertThat(body(entry)).isEqualTo("pets");
+        assertThat(cache.getSize()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should not store responses that are private, personal or uncacheable")
+    void shouldNotStoreUncacheableResponses() {
+        // Given
+        String key = cache.key("GET", TARGET, Map.of());
+
+        // When / Then
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("no-store")))).isNull();
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("private, max-age=60")))).isNull();
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("max-age=60"),
+                "Set-Cookie", List.of("session=1")))).isNull();
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("max-age=60"),
+                "Vary", List.of("Accept, User-Agent")))).isNull();
+        assertThat(cache.capture(key, 500, Map.of("Cache-Control", List.of("max-age=60")))).isNull();
+        assertThat(cache.capture(key, 200, Map.of())).isNull();
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("max-age=60"),
+                "Content-Length", List.of("9")))).isNull();
+        assertThat(cache.capture(key, 200, Map.of("Cache-Control", List.of("max-age=60"),
+                "Vary", List.of("accept")))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used responses and skip bodies that are too large")
+    void shouldEvictLeastRecentlyUsedResponses() {
+        // Given
+        Map<String, List<String>> headers = Map.of("Cache-Control", List.of("max-age=60"));
+        String first = cache.key("GET", URI.create("https://api.example.com/1"), Map.of());
+        String second = cache.key("GET", URI.create("https://api.example.com/2"), Map.of());
+        String third = cache.key("GET", URI.create("https://api.example.com/3"), Map.of());
+        store(cache.capture(first, 200, headers), "1111");
+        store(cache.capture(second, 200, headers), "2222");
+        cache.get(first);
+
+        // When
+        store(cache.capture(third, 200, headers), "3333");
+        store(cache.capture(cache.key("GET", TARGET, Map.of()), 200, headers), "too large");
+
+        // Then
+        assertThat(cache.get(first)).isNotNull();
+        assertThat(cache.get(second)).isNull();
+        assertThat(cache.get(third)).isNotNull();
+        assertThat(cache.get(cache.key("GET", TARGET, Map.of()))).isNull();
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("should revalidate stale responses with their validators")
+    void shouldRevalidateStaleResponses() {
+        // Given
+        String key = cache.key("GET", TARGET, Map.of());
+        store(cache.capture(key, 200, Map.of("ETag", List.of("\"v1\""),
+                "Last-Modified", List.of("Mon, 19 Oct 2026 10:00:00 GMT"))), "pets");
+        ScalarProxyCache.Entry stale = cache.get(key);
+
+        // When
+        ScalarProxyCache.Entry revalidated = cache.revalidate(key, stale,
+                Map.of("Cache-Control", List.of("max-age=60"), "Content-Length", List.of("0")));
+
+        // Then
+        assertThat(stale.isFresh()).isFalse();
+        assertThat(stale.getValidators())
+                .containsEntry("If-None-Match", List.of("\"v1\""))
+                .containsEntry("If-Modified-Since", List.of("Mon, 19 Oct 2026 10:00:00 GMT"));
+        assertThat(revalidated.isFresh()).isTrue();
+        assertThat(revalidated.getHeaders()).doesNotContainKey("Content-Length");
+        assertThat(body(revalidated)).isEqualTo("pets");
+        assertThat(cache.get(key)).isSameAs(revalidated);
+    }
+}
@@ -0,0 +1,108 @@
+package com.scalar.maven.core.proxy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarProxyLimiter")
+class ScalarProxyLimiterTest {
+
+    @Test
+    @DisplayName("should let requests run up to the limits and queue the others")
+    void shouldLimitConcurrentRequests() throws Exception {
+        // Given
+        ScalarProxyLimiter limiter = new ScalarProxyLimiter(3, 2, 10, Duration.ofSeconds(5));
+
+        // When
+        ScalarProxyLimiter.Permit first = limiter.acquire("alice");
+        limiter.acquire("alice");
+        CompletableFuture<ScalarProxyLimiter.Permit> third = limiter.acquireAsync("alice");
+        limiter.acquire("bob");
+        CompletableFuture<ScalarProxyLimiter.Permit> fifth = limiter.acquireAsync("carol");
+
+        // Then
+        assertThat(third).isNotDone();
+        assertThat(fifth).isNotDone();
+        assertThat(limiter.getActiveRequests()).isEqualTo(3);
+        assertThat(limiter.getQueuedRequests()).isEqualTo(2);
+
+        first.close();
+        first.close();
+        assertThat(third.get(1, TimeUnit.SECONDS)).isNotNull();
+        assertThat(fifth).isNotDone();
+        assertThat(limiter.getActiveRequests()).isEqualTo(3);
+        assertThat(limiter.getQueuedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should let the waiting clients take turns")
+    void shouldServeClientsInTurn() {
+        // Given
+        ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 10, Duration.ofSeconds(5));
+        ScalarProxyLimiter.Permit running = limiter.acquireAsync("alice").join();
+        List<String> order = new ArrayList<>();
+        for (String client : List.of("alice", "alice", "alice", "bob", "carol")) {
+            limiter.acquireAsync(client).thenAccept(permit -> {
+                order.add(client);
+                permit.close();
+            });
+        }
+
+        // When
+        running.close();
+
+        // Then
+        assertThat(order).containsExactly("alice", "bob", "carol", "alice", "alice");
+    }
+
+    @Test
+    @DisplayName("should reject requests when the queue is full or they wait too long")
+    void shouldRejectRequests() {
+        // Given
+        ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 1, Duration.ofMillis(100));
+        limiter.acquireAsync("alice").join();
+        CompletableFuture<ScalarProxyLimiter.Permit> queued = limiter.acquireAsync("bob");
+
+        // When / Then
+        assertThatThrownBy(() -> limiter.acquire("carol"))
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("Too many requests")
+                .extracting("status").isEqualTo(429);
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("waited too long")
+                .extracting("status").isEqualTo(429);
+        assertThat(limiter.getQueuedRequests()).isZero();
+        assertThat(limiter.getRejectedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should remove requests from the queue when they are cancelled")
+    void shouldRemoveCancelledRequests() {
+        // Given
+        ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 10, Duration.ofSeconds(5));
+        ScalarProxyLimiter.Permit running = limiter.acquireAsync("alice").join();
+        CompletableFuture<ScalarProxyLimiter.Permit> cancelled = limiter.acquireAsync("bob");
+        CompletableFuture<ScalarProxyLimiter.Permit> next = limiter.acquireAsync("carol");
+
+        // When
+        cancelled.cancel(false);
+        running.close();
+
+        // Then
+        assertThat(next).isCompleted();
+        assertThat(limiter.getActiveRequests()).isEqualTo(1);
+        assertThat(limiter.getQueuedRequests()).isZero();
+    }
+}
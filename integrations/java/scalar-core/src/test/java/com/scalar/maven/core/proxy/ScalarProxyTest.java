@@ -0,0 +1,248 @@
+package com.scalar.maven.core.proxy;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.config.ScalarServer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ScalarProxy")
+class ScalarProxyTest {
+
+    private HttpServer server;
+
+    private final Map<String, String> received = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        received.put("method", exchange.getRequestMethod());
+        received.put("uri", exchange.getRequestURI().toString());
+        try (InputStream body = exchange.getRequestBody()) {
+            received.put("body", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        exchange.getRequestHeaders().forEach((name, values) -> received.put(name.toLowerCase(), values.get(0)));
+
+        if (exchange.getRequestURI().getPath().equals("/moved")) {
+            exchange.getResponseHeaders().set("Location", "/pets?page=2");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+            return;
+        }
+        byte[] content = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Set-Cookie", "session=abc");
+        exchange.getResponseHeaders().add("Set-Cookie", "csrftoken=def");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "https://example.com");
+        exchange.sendResponseHeaders(201, content.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content);
+        }
+        exchange.close();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private ScalarProxy proxy(String... allowedHosts) {
+        return new ScalarProxy(List.of(allowedHosts), Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("should forward the request with the rewritten headers and stream the body")
+    void shouldForwardRequest() throws IOException {
+        // Given
+        ScalarProxy proxy = proxy("localhost");
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", List.of("application/json"));
+        headers.put("Authorization", List.of("Bearer token"));
+        headers.put("Origin", List.of("http://docs.example.com"));
+        headers.put("Cookie", List.of("JSESSIONID=page"));
+        headers.put("X-Scalar-Cookie", List.of("session=api"));
+        headers.put("User-Agent", List.of("Browser"));
+        headers.put("X-Scalar-User-Agent", List.of("Custom"));
+        headers.put("Connection", List.of("keep-alive"));
+        URI target = proxy.resolve(ScalarProxy.targetOf("scalar_url=" + url("/pets%3Flimit%3D1")));
+
+        // When
+        HttpRequest request = proxy.request(target, "POST", headers,
+                HttpRequest.BodyPublishers.ofString("{\"name\":\"Rex\"}"));
+        HttpResponse<InputStream> response = proxy.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        String body;
+        try (InputStream inputStream = response.body()) {
+            body = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Then
+        assertThat(received)
+                .containsEntry("method", "POST")
+                .containsEntry("uri", "/pets?limit=1")
+                .containsEntry("body", "{\"name\":\"Rex\"}")
+                .containsEntry("authorization", "Bearer token")
+                .containsEntry("cookie", "session=api")
+                .containsEntry("user-agent", "Custom")
+                .doesNotContainKeys("origin", "x-scalar-cookie", "x-scalar-user-agent");
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(body).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    @DisplayName("should mirror cookies, drop CORS headers and point redirects back at the proxy")
+    void shouldRewriteResponseHeaders() throws IOException {
+        // Given
+        ScalarProxy proxy = proxy("localhost");
+        HttpResponse<Void> created = proxy.send(proxy.request(proxy.resolve(url("/pets")), "GET", Map.of(),
+                HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> moved = proxy.send(proxy.request(proxy.resolve(url("/moved")), "GET", Map.of(),
+                HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+
+        // When
+        Map<String, List<String>> headers = ScalarProxy.responseHeaders(created, "/scalar/proxy");
+        Map<String, List<String>> redirect = ScalarProxy.responseHeaders(moved, "/scalar/proxy");
+
+        // Then
+        assertThat(headers)
+                .containsEntry(ScalarProxy.SET_COOKIE_HEADER, List.of("session=abc, csrftoken=def"))
+                .containsEntry(ScalarProxy.FORWARDED_HOST_HEADER, List.of(url("/pets")))
+                .doesNotContainKey("access-control-allow-origin")
+                .doesNotContainKey("Access-Control-Allow-Origin");
+        assertThat(headers.keySet()).noneMatch(name -> name.equalsIgnoreCase("Set-Cookie"));
+        assertThat(moved.statusCode()).isEqualTo(302);
+        assertThat(redirect.entrySet())
+                .filteredOn(header -> header.getKey().equalsIgnoreCase("Location"))
+                .singleElement()
+                .satisfies(header -> assertThat(header.getValue()).containsExactly("/scalar/proxy?scalar_url="
+                        + "http%3A%2F%2Flocalhost%3A" + server.getAddress().getPort() + "%2Fpets%3Fpage%3D2"));
+    }
+
+    @Test
+    @DisplayName("should reject missing, relative and non-http URLs")
+    void shouldRejectInvalidUrls() {
+        ScalarProxy proxy = proxy("*");
+
+        assertThatThrownBy(() -> proxy.resolve(ScalarProxy.targetOf("other=1")))
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("`scalar_url` query parameter is required")
+                .extracting("status").isEqualTo(400);
+        assertThatThrownBy(() -> proxy.resolve("/pets"))
+                .isInstanceOf(ScalarProxyException.class)
+                .extracting("status").isEqualTo(400);
+        assertThatThrownBy(() -> proxy.resolve("file:///etc/passwd"))
+                .isInstanceOf(ScalarProxyException.class)
+                .extracting("status").isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("should only forward to the allowed hosts")
+    void shouldCheckAllowList() {
+        ScalarProxy proxy = proxy("api.example.com", "*.internal.example.com", "localhost:8080");
+
+        assertThat(proxy.isAllowed(URI.create("https://API.example.com/pets"))).isTrue();
+        assertThat(proxy.isAllowed(URI.create("https://orders.internal.example.com/"))).isTrue();
+        assertThat(proxy.isAllowed(URI.create("https://internal.example.com/"))).isFalse();
+        assertThat(proxy.isAllowed(URI.create("https://api.example.com.evil.com/"))).isFalse();
+        assertThat(proxy.isAllowed(URI.create("http://localhost:8080/"))).isTrue();
+        assertThat(proxy.isAllowed(URI.create("http://localhost:9090/"))).isFalse();
+        assertThatThrownBy(() -> proxy.resolve("http://169.254.169.254/latest/meta-data"))
+                .isInstanceOf(ScalarProxyException.class)
+                .hasMessageContaining("scalar.proxyAllowedHosts")
+                .extracting("status").isEqualTo(403);
+    }
+
+    @Test
+    @DisplayName("should allow the hosts of the configured servers by default")
+    void shouldAllowServerHostsByDefault() {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setServers(List.of(new ScalarServer("https://api.example.com/v1"),
+                new ScalarServer("http://localhost:8080"), new ScalarServer("/relative")));
+
+        // When
+        ScalarProxy proxy = ScalarProxy.of(properties);
+
+        // Then
+        assertThat(proxy.getAllowedHosts()).containsExactly("api.example.com", "localhost:8080");
+    }
+
+    @Test
+    @DisplayName("should recognize URLs of the application the request came in at")
+    void shouldRecognizeSameApplication() {
+        URI origin = URI.create("https://docs.example.com/scalar/proxy");
+
+        assertThat(ScalarProxy.isSameApplication(URI.create("https://DOCS.example.com:443/pets"), origin, 8080))
+                .isTrue();
+        assertThat(ScalarProxy.isSameApplication(URI.create("http://localhost:8080/pets"), origin, 8080)).isTrue();
+        assertThat(ScalarProxy.isSameApplication(URI.create("http://docs.example.com/pets"), origin, 8080))
+                .isFalse();
+        assertThat(ScalarProxy.isSameApplication(URI.create("http://localhost:9090/pets"), origin, 8080)).isFalse();
+        assertThat(ScalarProxy.isSameApplication(URI.create("http://localhost:8080/pets"), origin, -1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should replace the headers of the page with those the API client sends for the request")
+    void shouldRewriteRequestHeaders() {
+        // Given
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("cookie", List.of("JSESSIONID=page"));
+        headers.put("origin", List.of("http://docs.example.com"));
+        headers.put("referer", List.of("http://docs.example.com/scalar"));
+        headers.put("x-scalar-referer", List.of("https://app.example.com"));
+        headers.put("x-scalar-cookie", List.of("session=api"));
+        headers.put("content-length", List.of("12"));
+
+        // When
+        Map<String, List<String>> rewritten = ScalarProxy.rewriteHeaders(headers);
+
+        // Then
+        assertThat(rewritten).hasSize(3);
+        assertThat(rewritten.get("Content-Length")).containsExactly("12");
+        assertThat(rewritten.get("cookie")).containsExactly("session=api");
+        assertThat(rewritten.get("referer")).containsExactly("https://app.example.com");
+    }
+
+    @Test
+    @DisplayName("should report hosts that cannot be reached as bad gateway")
+    void shouldReportUnreachableHosts() throws IOException {
+        // Given
+        ScalarProxy proxy = proxy("localhost");
+        URI target = proxy.resolve(url("/pets"));
+        server.stop(0);
+
+        // When / Then
+        assertThatThrownBy(() -> proxy.send(proxy.request(target, "GET", Map.of(),
+                HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding()))
+                .isInstanceOf(ScalarProxyException.class)
+                .extracting("status").isEqualTo(502);
+    }
+}
@@ -0,0 +1,168 @@
+package com.scalar.maven.plugin;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarSite;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the Scalar API Reference of the project as static files.
+ *
+ * <p>
+ * The {@code scalar.*} properties are read from the Spring Boot configuration
+ * files of the project, {@code application.properties} and
+ * {@code application.yml}, and from those of the configured profiles, and bound
+ * the way the Spring integrations bind them. The page is rendered once and
+ * written to {@link #outputDirectory} together with the hashed and
+ * precompressed JavaScript bundle and, unless {@link #exportDocuments} is
+ * disabled, the OpenAPI documents, see {@link ScalarSite}.
+ * </p>
+ *
+ * <p>
+ * The files can be uploaded to a web server or an object store as they are.
+ * To serve them from the application instead, write them below
+ * {@code ${project.build.outputDirectory}/scalar-site} and set
+ * {@code scalar.siteEnabled=true}.
+ * </p>
+ */
+@Mojo(name = "export", defaultPhase = LifecyclePhase.PREPARE_PACKAGE,
+        requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class ScalarExportMojo extends AbstractMojo {
+
+    private static final String PREFIX = "scalar";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * The directory the site is written to.
+     */
+    @Parameter(property = "scalar.outputDirectory", defaultValue = "${project.build.directory}/scalar-site")
+    private File outputDirectory;
+
+    /**
+     * The Spring profiles whose {@code application-<profile>} files are read
+     * after the default ones.
+     */
+    @Parameter(property = "scalar.profiles")
+    private List<String> profiles = Collections.emptyList();
+
+    /**
+     * Properties that take precedence over the configuration files, without the
+     * {@code scalar.} prefix, such as {@code <url>classpath:openapi.json</url>}.
+     */
+    @Parameter
+    private Map<String, String> properties = Collections.emptyMap();
+
+    /**
+     * Whether to export the OpenAPI documents the page refers to at their local
+     * copies. When disabled, the application has to serve them.
+     */
+    @Parameter(property = "scalar.exportDocuments", defaultValue = "true")
+    private boolean exportDocuments;
+
+    /**
+     * Skips the export.
+     */
+    @Parameter(property = "scalar.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping the export of the Scalar API Reference");
+            return;
+        }
+
+        try (URLClassLoader classLoader = projectClassLoader()) {
+            ScalarProperties scalarProperties = bind(new File(project.getBuild().getOutputDirectory()));
+            ScalarSite site = ScalarSite.export(scalarProperties, classLoader, exportDocuments);
+            int written = site.writeTo(outputDirectory.toPath());
+            getLog().info("Exported the Scalar API Reference to " + outputDirectory + " (" + written + " files, "
+                    + site.getDocumentIds().size() + " documents)");
+        } catch (IOException | RuntimeException e) {
+            throw new MojoExecutionException("Failed to export the Scalar API Reference: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Binds the {@code scalar.*} properties of the configuration files and the
+     * plugin configuration. Later profiles take precedence over earlier ones,
+     * and profile files over the default ones.
+     */
+    private ScalarProperties bind(File classesDirectory) throws IOException {
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        properties.forEach((name, value) -> overrides.put(PREFIX + "." + name, value));
+        sources.add(new MapConfigurationPropertySource(overrides));
+
+        List<String> names = new ArrayList<>();
+        for (int i = profiles.size() - 1; i >= 0; i--) {
+            names.add("application-" + profiles.get(i));
+        }
+        names.add("application");
+        List<PropertySource<?>> propertySources = new ArrayList<>();
+        for (String name : names) {
+            propertySources.addAll(load(new PropertiesPropertySourceLoader(), classesDirectory, name));
+            propertySources.addAll(load(new YamlPropertySourceLoader(), classesDirectory, name));
+        }
+        ConfigurationPropertySources.from(propertySources).forEach(sources::add);
+
+        return new Binder(sources).bind(PREFIX, ScalarProperties.class).orElseGet(ScalarProperties::new);
+    }
+
+    private static List<PropertySource<?>> load(PropertySourceLoader loader, File directory, String name)
+            throws IOException {
+        List<PropertySource<?>> loaded = new ArrayList<>();
+        for (String extension : loader.getFileExtensions()) {
+            File file = new File(directory, name + "." + extension);
+            if (file.isFile()) {
+                loaded.addAll(loader.load(file.getName(), new FileSystemResource(file)));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Creates a class loader over the runtime classpath of the project, so
+     * {@code classpath:} documents resolve as they do in the application.
+     */
+    private URLClassLoader projectClassLoader() throws MojoExecutionException {
+        try {
+            List<String> elements = project.getRuntimeClasspathElements();
+            List<URL> urls = new ArrayList<>(elements.size());
+            for (String element : elements) {
+                urls.add(new File(element).toURI().toURL());
+            }
+            return new URLClassLoader(urls.toArray(new URL[0]), getClass().getClassLoader());
+        } catch (DependencyResolutionRequiredException | MalformedURLException e) {
+            throw new MojoExecutionException("Failed to resolve the runtime classpath of the project", e);
+        }
+    }
+}
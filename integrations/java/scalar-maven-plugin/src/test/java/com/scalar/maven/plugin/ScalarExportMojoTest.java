@@ -0,0 +1,117 @@
+package com.scalar.maven.plugin;
+
+import com.scalar.maven.core.ScalarSite;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarExportMojo")
+class ScalarExportMojoTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Pets\"}}";
+
+    @TempDir
+    Path directory;
+
+    private Path classes;
+    private Path output;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        classes = Files.createDirectories(directory.resolve("classes"));
+        output = directory.resolve("scalar-site");
+        Files.writeString(classes.resolve("openapi.json"), SPEC);
+    }
+
+    private ScalarExportMojo mojo(Map<String, String> properties, List<String> profiles, boolean skip) {
+        MavenProject project = new MavenProject();
+        Build build = new Build();
+        build.setOutputDirectory(classes.toString());
+        project.setBuild(build);
+
+        ScalarExportMojo mojo = new ScalarExportMojo();
+        set(mojo, "project", project);
+        set(mojo, "outputDirectory", output.toFile());
+        set(mojo, "properties", properties);
+        set(mojo, "profiles", profiles);
+        set(mojo, "exportDocuments", true);
+        set(mojo, "skip", skip);
+        return mojo;
+    }
+
+    private static void set(ScalarExportMojo mojo, String name, Object value) {
+        try {
+            Field field = ScalarExportMojo.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(mojo, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String page() throws IOException {
+        return Files.readString(output.resolve(ScalarSite.PAGE_FILENAME));
+    }
+
+    @Test
+    @DisplayName("should export the page, the bundle and the classpath documents of the project")
+    void shouldExportSite() throws Exception {
+        // Given
+        Files.writeString(classes.resolve("application.properties"),
+                "scalar.url=classpath:openapi.json\nscalar.pageTitle=Pets\n");
+
+        // When
+        mojo(Map.of(), List.of(), false).execute();
+
+        // Then
+        assertThat(page()).contains("<title>Pets</title>").contains("scalar/documents/default");
+        assertThat(output.resolve("scalar/documents/default")).hasContent(SPEC);
+        assertThat(output.resolve("scalar/documents/default" + ScalarSite.GZIP_SUFFIX)).isRegularFile();
+        assertThat(output.resolve(ScalarSite.MANIFEST_FILENAME)).isRegularFile();
+        try (var files = Files.list(output.resolve("scalar"))) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .anyMatch(name -> name.matches("scalar\\.[0-9a-f]+\\.js"));
+        }
+    }
+
+    @Test
+    @DisplayName("should let profiles and plugin properties take precedence over the default configuration")
+    void shouldApplyProfilesAndProperties() throws Exception {
+        // Given
+        Files.writeString(classes.resolve("application.yml"),
+                "scalar:\n  url: classpath:openapi.json\n  pageTitle: Default\n");
+        Files.writeString(classes.resolve("application-prod.properties"), "scalar.pageTitle=Production\n");
+
+        // When
+        mojo(Map.of(), List.of("prod"), false).execute();
+        String profilePage = page();
+        mojo(Map.of("pageTitle", "Override"), List.of("prod"), false).execute();
+
+        // Then
+        assertThat(profilePage).contains("<title>Production</title>");
+        assertThat(page()).contains("<title>Override</title>");
+    }
+
+    @Test
+    @DisplayName("should not write anything when skipped")
+    void shouldSkip() throws MojoExecutionException {
+        // When
+        mojo(Map.of(), List.of(), true).execute();
+
+        // Then
+        assertThat(output).doesNotExist();
+    }
+}
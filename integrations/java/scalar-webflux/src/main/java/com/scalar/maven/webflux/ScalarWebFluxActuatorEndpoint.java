@@ -1,7 +1,10 @@
 package com.scalar.maven.webflux;
 
-import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarAssetService;
 import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
@@ -10,6 +13,7 @@ import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -24,6 +28,9 @@ import java.nio.charset.StandardCharsets;
  * This endpoint provides access to the Scalar API Reference interface through
  * Spring Boot Actuator endpoints. It serves the same HTML content as the
  * regular ScalarWebFluxController but is accessible at the actuator path.
+ * Both are backed by the same {@link ScalarAssetService}, so the actuator path
+ * serves the same bytes with the same caching headers and takes no memory of
+ * its own.
  * </p>
  *
  * <p>
@@ -42,6 +49,12 @@ public class ScalarWebFluxActuatorEndpoint {
     @Autowired
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     /**
      * Serves the Scalar API Reference interface as an actuator endpoint.
      *
@@ -56,13 +69,17 @@ public class ScalarWebFluxActuatorEndpoint {
      */
     @ReadOperation(produces = MediaType.TEXT_HTML_VALUE)
     public final Mono<Resource> scalarUi(ServerHttpRequest request) {
-        return Mono.fromCallable(() -> {
-                    ScalarProperties properties = propertiesProvider.getObject();
-                    ScalarProperties configuredProperties = configureProperties(properties, request);
-                    String html = ScalarHtmlRenderer.render(configuredProperties);
-                    Resource resource = new ByteArrayResource(html.getBytes(StandardCharsets.UTF_8));
-                    return resource;
-                })
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.PAGE, () -> {
+                    ScalarProperties properties = observer.observe(ScalarRenderStep.PROPERTIES_BINDING,
+                            propertiesProvider::getObject);
+                    ScalarProperties configuredProperties = observer.observe(ScalarRenderStep.CONFIGURE_PROPERTIES,
+                            () -> configureProperties(properties, request));
+                    String html = ScalarWebFluxController.assetService(assetServiceProvider)
+                            .renderWithCredentials(configuredProperties, null, observer, null,
+                                    request.getPath().contextPath().value());
+                    return (Resource) new ByteArrayResource(html.getBytes(StandardCharsets.UTF_8));
+                })))
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorMap(IOException.class, e -> new RuntimeException("Failed to render HTML", e));
     }
@@ -72,18 +89,37 @@ public class ScalarWebFluxActuatorEndpoint {
      *
      * <p>
      * This endpoint returns the JavaScript file that powers the Scalar API
-     * Reference interface. The file is served with the appropriate MIME type.
+     * Reference interface, with the same headers as the regular
+     * ScalarWebFluxController.
      * </p>
      *
+     * @param request the HTTP request
+     * @return a Mono containing a ResponseEntity with the JavaScript bundle
+     */
+    @ReadOperation(produces = ScalarAssetService.BUNDLE_MEDIA_TYPE)
+    public final Mono<ResponseEntity<byte[]>> scalarJs(ServerHttpRequest request) {
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.BUNDLE,
+                        () -> ScalarWebFluxController.documentResponse(
+                                ScalarWebFluxController.assetService(assetServiceProvider).getBundle(observer),
+                                request))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load JavaScript bundle", e));
+    }
+
+    /**
+     * Gets the JavaScript bundle without an entity tag or compression.
+     *
      * @return a Mono containing a Resource with the JavaScript bundle
+     * @deprecated use {@link #scalarJs(ServerHttpRequest)}, which serves the
+     * bundle with an entity tag and gzip
      */
-    @ReadOperation(produces = "application/javascript")
+    @Deprecated
     public final Mono<Resource> scalarJs() {
-        return Mono.fromCallable(() -> {
-                    byte[] jsContent = ScalarHtmlRenderer.getScalarJsContent();
-                    Resource resource = new ByteArrayResource(jsContent);
-                    return resource;
-                })
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.BUNDLE,
+                        () -> (Resource) new ByteArrayResource(ScalarWebFluxController.assetService(
+                                assetServiceProvider).getBundle(observer).getContent()))))
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load JavaScript bundle", e));
     }
@@ -100,4 +136,15 @@ public class ScalarWebFluxActuatorEndpoint {
     protected ScalarProperties configureProperties(ScalarProperties properties, ServerHttpRequest request) {
         return properties;
     }
+
+    /**
+     * Creates the observer that reports the serving steps to the application's
+     * {@link ObservationRegistry}, or a no-op observer if there is none.
+     *
+     * @return the observer for the current request
+     * @see ScalarWebFluxController#renderObserver(ObservationRegistry, String)
+     */
+    private Mono<ScalarRenderObserver> renderObserver() {
+        return ScalarWebFluxController.renderObserver(observationRegistryProvider.getIfAvailable(), "actuator");
+    }
 }
@@ -1,12 +1,46 @@
 package com.scalar.maven.webflux;
 
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarConstants;
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarSite;
+import com.scalar.maven.core.ScalarTenantCache;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarDocumentPrefetch;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ScalarProxyMetrics;
+import com.scalar.maven.core.observation.ScalarTenantCacheMetrics;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import io.micrometer.observation.ObservationRegistry;
+import org.springdoc.webflux.api.OpenApiWebfluxResource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Locale;
 
 /**
  * Auto-configuration for the Scalar API Reference integration in Spring WebFlux applications.
@@ -28,7 +62,35 @@ import org.springframework.context.annotation.Configuration;
  * <ul>
  * <li>Enables configuration properties via {@link SpringBootScalarProperties}</li>
  * <li>Creates a {@link ScalarWebFluxController} bean for serving the API reference</li>
+ * <li>Creates a {@link ScalarAssetService} bean holding the bundle and the rendered pages for the
+ * controller and the actuator endpoint</li>
+ * <li>Creates a {@link ScalarWebFluxWarmUp} bean that initializes Scalar at startup</li>
  * <li>Creates a {@link ScalarWebFluxActuatorEndpoint} bean when actuator is enabled</li>
+ * <li>Creates a {@link ScalarWebFluxInfoEndpoint} bean when the {@code scalarinfo} endpoint is exposed</li>
+ * <li>Creates a {@link ScalarWebFluxOpenApiDocument} bean serving the springdoc-openapi document in-process
+ * when {@code scalar.springDocEnabled} is set</li>
+ * <li>Creates a {@link ScalarLocalDocuments} bean serving documents at {@code file:} and
+ * {@code classpath:} locations, reloading them on change when {@code scalar.documentWatchEnabled} is set</li>
+ * <li>Creates a {@link ScalarDocumentCache} bean serving cached copies of remote documents
+ * when {@code scalar.documentCacheEnabled} is set</li>
+ * <li>Creates a {@link ScalarDocumentPrefetch} bean loading the remote documents at startup,
+ * and a {@link ScalarWebFluxPrefetchHealthIndicator} reporting its progress</li>
+ * <li>Creates a {@link ScalarDocumentAggregator} bean merging the documents of the upstream services
+ * when {@code scalar.aggregationEnabled} is set</li>
+ * <li>Creates a {@link ScalarSite} bean serving the site exported at build time
+ * when {@code scalar.siteEnabled} is set</li>
+ * <li>Creates a {@link ScalarProxy} bean and a {@link ScalarWebFluxProxyClient} bean forwarding the test
+ * requests of the API client, and a {@link ScalarProxyLimiter} bean limiting them,
+ * when {@code scalar.proxyEnabled} is set, and a {@link ScalarProxyCache} bean caching their responses
+ * when {@code scalar.proxyCacheEnabled} is set</li>
+ * <li>Creates a {@link ScalarTokenRelay} bean requesting the OAuth2 tokens of the API client
+ * when {@code scalar.tokenRelayEnabled} is set</li>
+ * <li>Creates a {@link ScalarWebFluxCredentialsResolver} bean prefilling the bearer token of the user
+ * when {@code scalar.credentialsPrefillEnabled} is set</li>
+ * <li>Creates a {@link ScalarTenantCache} bean caching the page per tenant, and a
+ * {@link ScalarWebFluxTenantResolver} bean keying it by host, when {@code scalar.tenantCacheEnabled} is set</li>
+ * <li>Creates a {@link ScalarWebFluxInstances} bean serving the API References configured with
+ * {@code scalar.instances.<name>.*}</li>
  * </ul>
  */
 @Configuration
@@ -47,6 +109,34 @@ public class ScalarWebFluxAutoConfiguration {
         return new ScalarWebFluxController();
     }
 
+    /**
+     * Creates a ScalarAssetService bean shared by the controller and the
+     * actuator endpoint.
+     *
+     * @return the asset service
+     */
+    @Bean
+    @ConditionalOnMissingBean(ScalarAssetService.class)
+    public ScalarAssetService scalarAssetService() {
+        return new ScalarAssetService();
+    }
+
+    /**
+     * Creates a ScalarWebFluxWarmUp bean that loads the assets at startup and
+     * records the work as startup steps.
+     *
+     * @param propertiesProvider         the provider of the configuration properties
+     * @param applicationStartupProvider the provider of the context's startup tracker
+     * @return a configured ScalarWebFluxWarmUp instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(ScalarWebFluxWarmUp.class)
+    public ScalarWebFluxWarmUp scalarWebFluxWarmUp(ObjectProvider<SpringBootScalarProperties> propertiesProvider,
+                                                   ObjectProvider<ApplicationStartup> applicationStartupProvider) {
+        return new ScalarWebFluxWarmUp(propertiesProvider,
+                applicationStartupProvider.getIfAvailable(() -> ApplicationStartup.DEFAULT));
+    }
+
     /**
      * Creates a ScalarWebFluxActuatorEndpoint bean when actuator support is enabled.
      * This endpoint exposes the Scalar UI at /actuator/scalar.
@@ -60,4 +150,419 @@ public class ScalarWebFluxAutoConfiguration {
     public ScalarWebFluxActuatorEndpoint scalarWebFluxActuatorEndpoint() {
         return new ScalarWebFluxActuatorEndpoint();
     }
+
+    /**
+     * Creates a ScalarWebFluxInfoEndpoint bean when the endpoint is available.
+     * This endpoint reports Scalar's caches and assets at /actuator/scalarinfo.
+     *
+     * @return a configured ScalarWebFluxInfoEndpoint instance
+     */
+    @Bean
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnAvailableEndpoint(endpoint = ScalarWebFluxInfoEndpoint.class)
+    public ScalarWebFluxInfoEndpoint scalarWebFluxInfoEndpoint() {
+        return new ScalarWebFluxInfoEndpoint();
+    }
+
+    /**
+     * Creates a ScalarLocalDocuments bean that serves the documents at
+     * {@code file:} and {@code classpath:} locations from memory.
+     *
+     * @param properties     the configuration properties
+     * @param resourceLoader the resource loader providing the application's class loader
+     * @return a configured ScalarLocalDocuments instance
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(ScalarLocalDocuments.class)
+    public ScalarLocalDocuments scalarLocalDocuments(SpringBootScalarProperties properties,
+                                                     ResourceLoader resourceLoader) {
+        ClassLoader classLoader = resourceLoader.getClassLoader() != null
+                ? resourceLoader.getClassLoader()
+                : ScalarWebFluxAutoConfiguration.class.getClassLoader();
+        return new ScalarLocalDocuments(classLoader, properties.isDocumentWatchEnabled(),
+                properties.isDocumentOptimizeEnabled());
+    }
+
+    /**
+     * Serves the OpenAPI document generated by springdoc-openapi in-process when
+     * {@code scalar.springDocEnabled} is set and springdoc-openapi is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springdoc.webflux.api.OpenApiWebfluxResource")
+    @ConditionalOnProperty(prefix = "scalar", name = "springDocEnabled", havingValue = "true")
+    static class SpringDocConfiguration {
+
+        /**
+         * Creates a ScalarWebFluxOpenApiDocument bean backed by springdoc-openapi
+         * and points {@code scalar.url} at the document.
+         *
+         * @param properties              the configuration properties
+         * @param openApiResourceProvider the provider of the springdoc-openapi resource
+         * @return a configured ScalarWebFluxOpenApiDocument instance
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarWebFluxOpenApiDocument.class)
+        public ScalarWebFluxOpenApiDocument scalarWebFluxOpenApiDocument(SpringBootScalarProperties properties,
+                                                                         ObjectProvider<OpenApiWebfluxResource> openApiResourceProvider) {
+            properties.setUrl(ScalarHtmlRenderer.buildRelativeUrl(properties.getPath(), ScalarConstants.OPENAPI_FILENAME));
+            return new ScalarWebFluxOpenApiDocument((request, documentPath) -> {
+                OpenApiWebfluxResource openApiResource = openApiResourceProvider.getIfAvailable();
+                if (openApiResource == null) {
+                    return Mono.error(new IOException("springdoc-openapi does not provide an OpenAPI document, "
+                            + "check that springdoc.api-docs.enabled is not false"));
+                }
+                Locale locale = request.getHeaders().getAcceptLanguageAsLocales().stream()
+                        .findFirst()
+                        .orElse(Locale.getDefault());
+                return openApiResource.openapiJson(request, documentPath, locale);
+            });
+        }
+    }
+
+    /**
+     * Fetches the remote OpenAPI documents server-side when
+     * {@code scalar.documentCacheEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "documentCacheEnabled", havingValue = "true")
+    static class DocumentCacheConfiguration {
+
+        /**
+         * Creates a ScalarDocumentCache bean that fetches the remote OpenAPI documents
+         * server-side.
+         *
+         * @param properties the configuration properties
+         * @return a configured ScalarDocumentCache instance
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarDocumentCache.class)
+        public ScalarDocumentCache scalarDocumentCache(SpringBootScalarProperties properties) {
+            return new ScalarDocumentCache(properties.getDocumentCacheTtl(), properties.getDocumentCacheTimeout(),
+                    properties.isDocumentOptimizeEnabled());
+        }
+
+        /**
+         * Creates a ScalarDocumentPrefetch bean that starts loading all remote
+         * documents into the cache in the background while the context starts.
+         *
+         * @param documentCache the cache to load the documents into
+         * @param properties    the configuration properties
+         * @return a configured ScalarDocumentPrefetch instance
+         */
+        @Bean(initMethod = "start", destroyMethod = "close")
+        @ConditionalOnMissingBean(ScalarDocumentPrefetch.class)
+        @ConditionalOnProperty(prefix = "scalar", name = "documentPrefetchEnabled", havingValue = "true",
+                matchIfMissing = true)
+        public ScalarDocumentPrefetch scalarDocumentPrefetch(ScalarDocumentCache documentCache,
+                                                             SpringBootScalarProperties properties) {
+            return new ScalarDocumentPrefetch(documentCache, ScalarDocumentPrefetch.urls(properties),
+                    properties.getDocumentPrefetchConcurrency(), properties.getDocumentPrefetchTimeout());
+        }
+
+        /**
+         * Reports the progress of the prefetch as the {@code scalarDocuments}
+         * health indicator when Spring Boot Actuator is present.
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+        @ConditionalOnProperty(prefix = "scalar", name = "documentPrefetchEnabled", havingValue = "true",
+                matchIfMissing = true)
+        static class PrefetchHealthConfiguration {
+
+            /**
+             * Creates a ScalarWebFluxPrefetchHealthIndicator bean.
+             *
+             * @param documentPrefetch the prefetch to report on
+             * @return a configured ScalarWebFluxPrefetchHealthIndicator instance
+             */
+            @Bean
+            @ConditionalOnEnabledHealthIndicator("scalarDocuments")
+            @ConditionalOnMissingBean(name = "scalarDocumentsHealthIndicator")
+            public ScalarWebFluxPrefetchHealthIndicator scalarDocumentsHealthIndicator(
+                    ScalarDocumentPrefetch documentPrefetch) {
+                return new ScalarWebFluxPrefetchHealthIndicator(documentPrefetch);
+            }
+        }
+    }
+
+    /**
+     * Merges the documents of the upstream services into one document when
+     * {@code scalar.aggregationEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "aggregationEnabled", havingValue = "true")
+    static class AggregationConfiguration {
+
+        /**
+         * Creates a ScalarDocumentAggregator bean. The upstream documents are
+         * fetched through the document cache when it is enabled, and through a
+         * cache of their own otherwise.
+         *
+         * @param documentCacheProvider the provider for the document cache
+         * @param properties            the configuration properties
+         * @return a configured ScalarDocumentAggregator instance
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarDocumentAggregator.class)
+        public ScalarDocumentAggregator scalarDocumentAggregator(
+                ObjectProvider<ScalarDocumentCache> documentCacheProvider, SpringBootScalarProperties properties) {
+            ScalarDocumentCache documentCache = documentCacheProvider.getIfAvailable(() -> new ScalarDocumentCache(
+                    properties.getDocumentCacheTtl(), properties.getDocumentCacheTimeout(),
+                    properties.isDocumentOptimizeEnabled()));
+            return ScalarDocumentAggregator.of(documentCache, properties);
+        }
+    }
+
+    /**
+     * Serves the page, the JavaScript bundle and the documents exported at build
+     * time by the {@code scalar-maven-plugin} when {@code scalar.siteEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "siteEnabled", havingValue = "true")
+    static class SiteConfiguration {
+
+        /**
+         * Creates a ScalarSite bean, reading the exported site once at startup.
+         *
+         * @param properties     the configuration properties
+         * @param resourceLoader the resource loader providing the application's class loader
+         * @return the exported site
+         * @throws IOException if the site cannot be found or read
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarSite.class)
+        public ScalarSite scalarSite(SpringBootScalarProperties properties, ResourceLoader resourceLoader)
+                throws IOException {
+            ClassLoader classLoader = resourceLoader.getClassLoader() != null
+                    ? resourceLoader.getClassLoader()
+                    : ScalarWebFluxAutoConfiguration.class.getClassLoader();
+            return ScalarSite.load(properties.getSiteLocation(), classLoader);
+        }
+    }
+
+    /**
+     * Forwards the test requests of the API client through the proxy endpoint
+     * when {@code scalar.proxyEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "proxyEnabled", havingValue = "true")
+    static class ProxyConfiguration {
+
+        /**
+         * Creates a ScalarProxy bean, whose HTTP client is shared by all
+         * forwarded requests.
+         *
+         * @param properties the configuration properties
+         * @return the proxy
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarProxy.class)
+        public ScalarProxy scalarProxy(SpringBootScalarProperties properties) {
+            return ScalarProxy.of(properties);
+        }
+
+        /**
+         * Creates a ScalarProxyLimiter bean, limiting the requests the proxy
+         * endpoint forwards at the same time.
+         *
+         * @param properties the configuration properties
+         * @return the limiter
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarProxyLimiter.class)
+        public ScalarProxyLimiter scalarProxyLimiter(SpringBootScalarProperties properties) {
+            return ScalarProxyLimiter.of(properties);
+        }
+
+        /**
+         * Creates a ScalarProxyCache bean, caching the responses to the
+         * {@code GET} and {@code HEAD} requests of the proxy endpoint when
+         * {@code scalar.proxyCacheEnabled} is set.
+         *
+         * @param properties the configuration properties
+         * @return the cache
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarProxyCache.class)
+        @ConditionalOnProperty(prefix = "scalar", name = "proxyCacheEnabled", havingValue = "true")
+        public ScalarProxyCache scalarProxyCache(SpringBootScalarProperties properties) {
+            return ScalarProxyCache.of(properties);
+        }
+
+        /**
+         * Reports the requests of the proxy endpoint as meters when Micrometer
+         * is on the classpath.
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+        static class ProxyMetricsConfiguration {
+
+            /**
+             * Creates a ScalarProxyMetrics bean, which Spring Boot binds to the
+             * meter registry of the application.
+             *
+             * @param limiter the limiter of the proxy endpoint
+             * @return the metrics
+             */
+            @Bean
+            @ConditionalOnMissingBean(ScalarProxyMetrics.class)
+            public ScalarProxyMetrics scalarProxyMetrics(ScalarProxyLimiter limiter) {
+                return new ScalarProxyMetrics(limiter);
+            }
+        }
+
+        /**
+         * Creates a ScalarWebFluxProxyClient bean, whose connection pools are
+         * shared by all forwarded requests.
+         *
+         * @param properties the configuration properties
+         * @return the client
+         */
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean(ScalarWebFluxProxyClient.class)
+        public ScalarWebFluxProxyClient scalarWebFluxProxyClient(SpringBootScalarProperties properties) {
+            return ScalarWebFluxProxyClient.of(properties);
+        }
+    }
+
+    /**
+     * Requests the OAuth2 tokens of the API client on the server when
+     * {@code scalar.tokenRelayEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "tokenRelayEnabled", havingValue = "true")
+    static class TokenRelayConfiguration {
+
+        /**
+         * Creates a ScalarTokenRelay bean, whose token cache is shared by all
+         * users of the page.
+         *
+         * @param properties the configuration properties
+         * @return the token relay
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarTokenRelay.class)
+        public ScalarTokenRelay scalarTokenRelay(SpringBootScalarProperties properties) {
+            return ScalarTokenRelay.of(properties);
+        }
+    }
+
+    /**
+     * Prefills the credentials of the page per request, when
+     * {@code scalar.credentialsPrefillEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "credentialsPrefillEnabled", havingValue = "true")
+    static class CredentialsPrefillConfiguration {
+
+        /**
+         * Creates a ScalarWebFluxCredentialsResolver bean filling in the bearer
+         * token of the authenticated user.
+         *
+         * @return the credentials resolver
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarWebFluxCredentialsResolver.class)
+        public ScalarWebFluxCredentialsResolver scalarCredentialsResolver() {
+            return ScalarWebFluxCredentialsResolver.bearerToken();
+        }
+    }
+
+    /**
+     * Caches the page per tenant, when {@code scalar.tenantCacheEnabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scalar", name = "tenantCacheEnabled", havingValue = "true")
+    static class TenantCacheConfiguration {
+
+        /**
+         * Creates a ScalarTenantCache bean.
+         *
+         * @param properties the configuration properties
+         * @return the cache
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarTenantCache.class)
+        public ScalarTenantCache scalarTenantCache(SpringBootScalarProperties properties) {
+            return ScalarTenantCache.of(properties);
+        }
+
+        /**
+         * Creates a ScalarWebFluxTenantResolver bean keying the pages by the
+         * {@code Host} of the request.
+         *
+         * @return the tenant resolver
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarWebFluxTenantResolver.class)
+        public ScalarWebFluxTenantResolver scalarTenantResolver() {
+            return ScalarWebFluxTenantResolver.host();
+        }
+
+        /**
+         * Reports the cache as meters when Micrometer is on the classpath.
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+        static class TenantCacheMetricsConfiguration {
+
+            /**
+             * Creates a ScalarTenantCacheMetrics bean, which Spring Boot binds to
+             * the meter registry of the application.
+             *
+             * @param cache the cache of the pages per tenant
+             * @return the metrics
+             */
+            @Bean
+            @ConditionalOnMissingBean(ScalarTenantCacheMetrics.class)
+            public ScalarTenantCacheMetrics scalarTenantCacheMetrics(ScalarTenantCache cache) {
+                return new ScalarTenantCacheMetrics(cache);
+            }
+        }
+    }
+
+    /**
+     * Serves the instances, when {@code scalar.instances} configures any.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Conditional(OnInstancesCondition.class)
+    static class InstancesConfiguration {
+
+        /**
+         * Creates a ScalarWebFluxInstances bean routing the requests for the pages,
+         * bundles and documents of the instances.
+         *
+         * @param properties                  the configuration properties
+         * @param localDocumentsProvider      the provider of the local documents
+         * @param documentCacheProvider       the provider of the document cache
+         * @param observationRegistryProvider the provider of the observation registry
+         * @return the routes of the instances
+         */
+        @Bean
+        @ConditionalOnMissingBean(ScalarWebFluxInstances.class)
+        public ScalarWebFluxInstances scalarWebFluxInstances(
+                SpringBootScalarProperties properties, ObjectProvider<ScalarLocalDocuments> localDocumentsProvider,
+                ObjectProvider<ScalarDocumentCache> documentCacheProvider,
+                ObjectProvider<ObservationRegistry> observationRegistryProvider) {
+            return new ScalarWebFluxInstances(ScalarInstance.of(properties), localDocumentsProvider.getIfAvailable(),
+                    documentCacheProvider.getIfAvailable(), observationRegistryProvider.getIfAvailable());
+        }
+    }
+
+    /**
+     * Matches when at least one instance is configured under {@code scalar.instances}.
+     */
+    static class OnInstancesCondition extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            boolean configured = Binder.get(context.getEnvironment())
+                    .bind("scalar.instances", Bindable.mapOf(String.class, ScalarProperties.class))
+                    .map(instances -> !instances.isEmpty())
+                    .orElse(false);
+            return configured
+                    ? ConditionOutcome.match("Scalar instances are configured")
+                    : ConditionOutcome.noMatch("No Scalar instances are configured");
+        }
+    }
 }
@@ -1,22 +1,55 @@
 package com.scalar.maven.webflux;
 
+import com.scalar.maven.core.ScalarAssetService;
 import com.scalar.maven.core.ScalarConstants;
-import com.scalar.maven.core.ScalarHtmlRenderer;
 import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import com.scalar.maven.core.ScalarSite;
+import com.scalar.maven.core.ScalarTenantCache;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyException;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.HttpHandler;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.function.UnaryOperator;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * REST controller for serving the Scalar API Reference interface in Spring WebFlux applications.
@@ -36,9 +69,35 @@ import java.nio.charset.StandardCharsets;
  * </ul>
  *
  * <p>
+ * When {@code scalar.springDocEnabled} is set, it also serves the OpenAPI
+ * document generated by springdoc-openapi at {@code /scalar/openapi.json}, or
+ * embeds it into the page when {@code scalar.embedSpec} is set as well. When
+ * {@code scalar.documentCacheEnabled} is set, it serves cached copies of the
+ * remote documents at {@code /scalar/documents/{id}}, where it always serves the
+ * documents at {@code file:} and {@code classpath:} locations as well.
+ * When {@code scalar.documentSplitEnabled} is set, the skeletons and per-tag
+ * fragments of these documents are served below them, and when
+ * {@code scalar.documentSearchIndexEnabled} is set, their search indexes. When
+ * {@code scalar.documentCompactEnabled} is set, duplicate inline schemas are
+ * replaced with references in all of these. When
+ * {@code scalar.aggregationEnabled} is set, the documents of the upstream
+ * services are merged and served at {@code /scalar/documents/aggregate}.
+ * When {@code scalar.siteEnabled} is set, the page, the hashed JavaScript
+ * bundle and the documents of the site exported at build time are served
+ * instead. When {@code scalar.proxyEnabled} is set, the test requests of the
+ * API client are forwarded through {@code /scalar/proxy}.
+ * </p>
+ *
+ * <p>
  * This controller can be extended to customize behavior by overriding the
  * {@link #configureProperties(ScalarProperties, ServerHttpRequest)} method.
  * </p>
+ *
+ * <p>
+ * When the application provides a Micrometer {@link ObservationRegistry}, each
+ * request is recorded as an observation with child observations for the
+ * individual {@link ScalarRenderStep}s.
+ * </p>
  */
 @RestController
 @ConditionalOnMissingBean(ScalarWebFluxController.class)
@@ -47,6 +106,54 @@ public class ScalarWebFluxController {
     @Autowired
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxOpenApiDocument> openApiDocumentProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarDocumentAggregator> documentAggregatorProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarSite> siteProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxy> proxyProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxyLimiter> proxyLimiterProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxyCache> proxyCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxProxyClient> proxyClientProvider;
+
+    @Autowired
+    private ObjectProvider<HttpHandler> httpHandlerProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarTokenRelay> tokenRelayProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxCredentialsResolver> credentialsResolverProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarTenantCache> tenantCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxTenantResolver> tenantResolverProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     /**
      * Serves the main API Reference interface.
      *
@@ -56,19 +163,47 @@ public class ScalarWebFluxController {
      * the properties.
      * </p>
      *
-     * @param request the HTTP request
+     * @param exchange the current exchange
      * @return a Mono containing a Resource with the HTML content for the API Reference
      * interface
      */
     @GetMapping(value = "${scalar.path:/scalar}", produces = MediaType.TEXT_HTML_VALUE)
+    public final Mono<Resource> getDocs(ServerWebExchange exchange) {
+        return getDocs(exchange.getRequest(), credentials(exchange));
+    }
+
+    /**
+     * Renders the main API Reference interface for a request, without the
+     * credentials of the user.
+     *
+     * @param request the HTTP request
+     * @return a Mono containing a Resource with the HTML content for the API Reference
+     * interface
+     */
     public final Mono<Resource> getDocs(ServerHttpRequest request) {
-        return Mono.fromCallable(() -> {
-                    ScalarProperties properties = propertiesProvider.getObject();
-                    ScalarProperties configuredProperties = configureProperties(properties, request);
-                    String html = ScalarHtmlRenderer.render(configuredProperties);
-                    Resource resource = new ByteArrayResource(html.getBytes(StandardCharsets.UTF_8));
-                    return resource;
-                })
+        return getDocs(request, Mono.empty());
+    }
+
+    private Mono<Resource> getDocs(ServerHttpRequest request, Mono<ScalarCredentials> resolvedCredentials) {
+        ScalarSite site = siteProvider.getIfAvailable();
+        if (site != null) {
+            return Mono.just(new ByteArrayResource(site.getPage().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return renderObserver().flatMap(observer -> embeddedDocument(request)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .zipWith(resolvedCredentials.map(Optional::of).defaultIfEmpty(Optional.empty()))
+                        .flatMap(resolved -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.PAGE, () -> {
+                            ScalarProperties properties = observer.observe(ScalarRenderStep.PROPERTIES_BINDING,
+                                    propertiesProvider::getObject);
+                            ScalarProperties configuredProperties = observer.observe(
+                                    ScalarRenderStep.CONFIGURE_PROPERTIES,
+                                    () -> configureProperties(properties, request));
+                            String html = render(configuredProperties, resolved.getT1().orElse(null),
+                                    resolved.getT2().orElse(null), request, observer);
+                            return (Resource) new ByteArrayResource(html.getBytes(StandardCharsets.UTF_8));
+                        }))))
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorMap(IOException.class, e -> new RuntimeException("Failed to render HTML", e));
     }
@@ -78,22 +213,360 @@ public class ScalarWebFluxController {
      *
      * <p>
      * This endpoint returns the JavaScript file that powers the Scalar API
-     * Reference interface. The file is served with the appropriate MIME type.
+     * Reference interface. The file is served with the appropriate MIME type,
+     * an entity tag for revalidation, and the precompressed variant to clients
+     * that accept gzip.
      * </p>
      *
+     * @param request the HTTP request
+     * @return a Mono containing a ResponseEntity with the JavaScript bundle
+     */
+    @GetMapping(value = "${scalar.path:/scalar}/" + ScalarConstants.JS_FILENAME,
+            produces = ScalarAssetService.BUNDLE_MEDIA_TYPE)
+    public final Mono<ResponseEntity<byte[]>> getScalarJs(ServerHttpRequest request) {
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.BUNDLE,
+                        () -> documentResponse(assetService(assetServiceProvider).getBundle(observer), request))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load JavaScript bundle", e));
+    }
+
+    /**
+     * Gets the JavaScript bundle without an entity tag or compression.
+     *
      * @return a Mono containing a Resource with the JavaScript bundle
+     * @deprecated use {@link #getScalarJs(ServerHttpRequest)}, which serves the
+     * bundle with an entity tag and gzip
      */
-    @GetMapping(value = "${scalar.path:/scalar}/" + ScalarConstants.JS_FILENAME, produces = "application/javascript")
+    @Deprecated
     public final Mono<Resource> getScalarJs() {
-        return Mono.fromCallable(() -> {
-                    byte[] jsContent = ScalarHtmlRenderer.getScalarJsContent();
-                    Resource resource = new ByteArrayResource(jsContent);
-                    return resource;
-                })
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.BUNDLE,
+                        () -> (Resource) new ByteArrayResource(
+                                assetService(assetServiceProvider).getBundle(observer).getContent()))))
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load JavaScript bundle", e));
     }
 
+    /**
+     * Serves the JavaScript bundle of the exported site under its hashed name.
+     *
+     * <p>
+     * The name changes with the content, so the bundle is cached for a year
+     * without revalidation, and the precompressed variant is sent to clients
+     * that accept gzip. Responds with {@code 404 Not Found} unless
+     * {@code scalar.siteEnabled} is set.
+     * </p>
+     *
+     * @param file    the hashed name of the bundle
+     * @param request the HTTP request
+     * @return a Mono containing a ResponseEntity containing the JavaScript bundle
+     */
+    @GetMapping("${scalar.path:/scalar}/{file:scalar\\.[0-9a-f]+\\.js}")
+    public final Mono<ResponseEntity<byte[]>> getHashedScalarJs(@PathVariable("file") String file,
+                                                                ServerHttpRequest request) {
+        ScalarSite site = siteProvider.getIfAvailable();
+        if (site == null || !site.getBundleFileName().equals(file)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        ScalarDocument bundle = site.getBundle();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf(bundle.getMediaType()))
+                .eTag(bundle.getETag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = bundle.hasGzipContent()
+                && ScalarDocument.acceptsGzip(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            return Mono.just(response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(bundle.getGzipContent()));
+        }
+        return Mono.just(response.body(bundle.getContent()));
+    }
+
+    /**
+     * Serves the OpenAPI document of the application from memory.
+     *
+     * <p>
+     * The response carries an entity tag, so clients revalidating with
+     * {@code If-None-Match} receive a {@code 304 Not Modified}, and the
+     * precompressed variant is sent to clients that accept gzip. Responds with
+     * {@code 404 Not Found} unless {@code scalar.springDocEnabled} is set.
+     * </p>
+     *
+     * @param request the HTTP request
+     * @return a Mono containing the OpenAPI document
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.OPENAPI_FILENAME)
+    public final Mono<ResponseEntity<byte[]>> getOpenApiDocument(ServerHttpRequest request) {
+        ScalarWebFluxOpenApiDocument openApiDocument = openApiDocumentProvider.getIfAvailable();
+        if (openApiDocument == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+
+        boolean cached = openApiDocument.isLoaded();
+        return renderObserver().flatMap(observer -> openApiDocument.get(request)
+                        .flatMap(document -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.DOCUMENT,
+                                () -> {
+                                    observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                                    return documentResponse(document, request);
+                                }))))
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load OpenAPI document", e));
+    }
+
+    /**
+     * Serves the local copy of a configured OpenAPI document.
+     *
+     * <p>
+     * The id is {@code default} for {@code scalar.url} or the index of one of the
+     * {@code scalar.sources}; only configured documents are served. Documents at
+     * {@code file:} and {@code classpath:} locations are read once and kept in
+     * memory. Remote documents are fetched server-side and kept in memory for
+     * {@code scalar.documentCacheTtl}, then revalidated upstream; they are served
+     * only when {@code scalar.documentCacheEnabled} is set. Responds with
+     * {@code 404 Not Found} for any other id.
+     * </p>
+     *
+     * <p>
+     * Unless {@code scalar.documentOptimizeEnabled} is disabled, the document is
+     * served as compact JSON, converted from YAML if necessary. When
+     * {@code scalar.documentCompactEnabled} is set, its duplicate inline schemas
+     * are replaced with references to shared component schemas.
+     * </p>
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a Mono containing the OpenAPI document
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}")
+    public final Mono<ResponseEntity<byte[]>> getDocument(@PathVariable("id") String id, ServerHttpRequest request) {
+        return documentResponse(id, this::served, request);
+    }
+
+    /**
+     * Serves a configured OpenAPI document as it was loaded, before it was
+     * converted to compact JSON, for download.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a Mono containing the original OpenAPI document
+     * @see #getDocument(String, ServerHttpRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/" + ScalarConstants.ORIGINAL_PATH)
+    public final Mono<ResponseEntity<byte[]>> getOriginalDocument(@PathVariable("id") String id,
+                                                                  ServerHttpRequest request) {
+        return documentResponse(id, ScalarDocument::getOriginal, request);
+    }
+
+    /**
+     * Serves the skeleton of a configured OpenAPI document: the document without
+     * its operations and components, with an index of the operations and the
+     * fragments they are in. Responds with {@code 404 Not Found} unless
+     * {@code scalar.documentSplitEnabled} is set and the document can be split.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the skeleton
+     * @see #getDocument(String, ServerHttpRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/" + ScalarConstants.SKELETON_PATH)
+    public final Mono<ResponseEntity<byte[]>> getDocumentSkeleton(@PathVariable("id") String id,
+                                                                  ServerHttpRequest request) {
+        if (!propertiesProvider.getObject().isDocumentSplitEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return documentResponse(id, document -> served(document).getFragments().getSkeleton(), request);
+    }
+
+    /**
+     * Serves a fragment of a configured OpenAPI document: the operations of one
+     * tag and the components they reference, as listed in the skeleton. Responds
+     * with {@code 404 Not Found} unless {@code scalar.documentSplitEnabled} is set
+     * and the document has the fragment.
+     *
+     * @param id       the document id
+     * @param fragment the fragment id
+     * @param request  the HTTP request
+     * @return a ResponseEntity containing the fragment
+     * @see #getDocumentSkeleton(String, ServerHttpRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.FRAGMENTS_PATH + "/{fragment}")
+    public final Mono<ResponseEntity<byte[]>> getDocumentFragment(@PathVariable("id") String id,
+                                                                  @PathVariable("fragment") String fragment,
+                                                                  ServerHttpRequest request) {
+        if (!propertiesProvider.getObject().isDocumentSplitEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return documentResponse(id, document -> served(document).getFragments().getFragment(fragment), request);
+    }
+
+    /**
+     * Serves the search index of a configured OpenAPI document: its operations,
+     * tags and schemas, and the positions of the entries each term occurs in. The
+     * index carries the entity tag of the document as its version. Responds with
+     * {@code 404 Not Found} unless {@code scalar.documentSearchIndexEnabled} is
+     * set and the document can be indexed.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the search index
+     * @see #getDocument(String, ServerHttpRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.SEARCH_INDEX_PATH)
+    public final Mono<ResponseEntity<byte[]>> getDocumentSearchIndex(@PathVariable("id") String id,
+                                                                     ServerHttpRequest request) {
+        if (!propertiesProvider.getObject().isDocumentSearchIndexEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return documentResponse(id, document -> served(document).getSearchIndex().getDocument(), request);
+    }
+
+    /**
+     * Serves the report of the compaction of a configured OpenAPI document: the
+     * bytes saved, uncompressed and gzip-compressed, and the schemas hoisted into
+     * its components. Responds with {@code 404 Not Found} unless
+     * {@code scalar.documentCompactEnabled} is set.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the report
+     * @see #getDocument(String, ServerHttpRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.COMPACTION_PATH)
+    public final Mono<ResponseEntity<byte[]>> getDocumentCompaction(@PathVariable("id") String id,
+                                                                    ServerHttpRequest request) {
+        if (!propertiesProvider.getObject().isDocumentCompactEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return documentResponse(id, document -> document.getCompaction().getReport(), request);
+    }
+
+    /**
+     * Forwards a test request of the API client to the URL in its
+     * {@code scalar_url} query parameter, if the host of the URL is allowed.
+     *
+     * <p>
+     * The request is forwarded by the {@link ScalarWebFluxProxyClient} without
+     * blocking: the request and response bodies are streamed as data buffers with
+     * backpressure rather than buffered, the chunks of server-sent events are flushed as they arrive, and
+     * the upstream request is cancelled when the client goes away. Responds with
+     * {@code 400 Bad Request} for a missing or invalid URL, {@code 403 Forbidden}
+     * for a host that is not allowed, {@code 502 Bad Gateway} or
+     * {@code 504 Gateway Timeout} if the host cannot be reached in time, and
+     * {@code 404 Not Found} unless {@code scalar.proxyEnabled} is set. Requests
+     * beyond the limits of the {@link ScalarProxyLimiter} wait for their turn
+     * without blocking, or are rejected with {@code 429 Too Many Requests}. When
+     * {@code scalar.proxyCacheEnabled} is set, the responses to {@code GET} and
+     * {@code HEAD} requests are served from the {@link ScalarProxyCache} as long
+     * as upstream allows.
+     * </p>
+     *
+     * <p>
+     * Requests to the application itself are handed to its {@link HttpHandler},
+     * through its web filters, unless {@code scalar.proxyLocalDispatchEnabled} is
+     * disabled.
+     * </p>
+     *
+     * @param exchange the current exchange
+     * @return a Mono that completes when the response is written
+     * @see ScalarProxy
+     */
+    @RequestMapping("${scalar.path:/scalar}/" + ScalarConstants.PROXY_PATH)
+    public final Mono<Void> proxy(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        ScalarProxy proxy = proxyProvider.getIfAvailable();
+        ScalarWebFluxProxyClient proxyClient = proxyClientProvider.getIfAvailable();
+        if (proxy == null || proxyClient == null) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return response.setComplete();
+        }
+
+        ScalarProxyLimiter limiter = proxyLimiterProvider.getIfAvailable();
+        if (limiter == null) {
+            return forward(proxy, proxyClient, request, response)
+                    .onErrorResume(ScalarProxyException.class, e -> proxyError(response, e));
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String client = remoteAddress != null ? remoteAddress.getHostString() : "";
+        return Mono.usingWhen(
+                        Mono.fromFuture(() -> limiter.acquireAsync(client))
+                                .doOnDiscard(ScalarProxyLimiter.Permit.class, ScalarProxyLimiter.Permit::close),
+                        permit -> forward(proxy, proxyClient, request, response),
+                        permit -> Mono.fromRunnable(permit::close))
+                .onErrorResume(ScalarProxyException.class, e -> proxyError(response, e));
+    }
+
+    /**
+     * Serves the OAuth2 tokens of the client credentials and password flows to
+     * the API client, requested with the credentials configured on the server.
+     *
+     * <p>
+     * The API client posts its token request here, as the page points the
+     * {@code tokenUrl} of these flows at this endpoint, with the security scheme
+     * in the {@code scheme} query parameter. The client credentials it sends are
+     * ignored. Tokens are cached by the {@link ScalarTokenRelay} until shortly
+     * before they expire, and requested without blocking. Responds with
+     * {@code 404 Not Found} unless {@code scalar.tokenRelayEnabled} is set or
+     * for a scheme without such a flow, with {@code 400 Bad Request} for scopes
+     * not declared for the flow, with {@code 401 Unauthorized} if
+     * {@link #isTokenRelayAllowed} refuses the caller, with the status of the
+     * identity provider if it refuses the request, and with
+     * {@code 502 Bad Gateway} or {@code 504 Gateway Timeout} if it cannot be
+     * reached in time.
+     * </p>
+     *
+     * @param exchange the current server exchange
+     * @return a Mono of a ResponseEntity containing the token response as JSON
+     */
+    @PostMapping("${scalar.path:/scalar}/" + ScalarConstants.TOKEN_PATH)
+    public final Mono<ResponseEntity<String>> token(ServerWebExchange exchange) {
+        ScalarTokenRelay tokenRelay = tokenRelayProvider.getIfAvailable();
+        if (tokenRelay == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+
+        String scheme = exchange.getRequest().getQueryParams().getFirst(ScalarTokenRelay.SCHEME_PARAMETER);
+        return isTokenRelayAllowed(propertiesProvider.getObject(), exchange)
+                .flatMap(allowed -> !allowed
+                        ? Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .cacheControl(CacheControl.noStore())
+                                .<String>build())
+                        : exchange.getFormData()
+                                .flatMap(form -> Mono.fromFuture(() -> tokenRelay.tokenAsync(scheme,
+                                        form.getFirst("grant_type"),
+                                        ScalarTokenRelay.scopesOf(form.getFirst("scope")))))
+                                .map(token -> ResponseEntity.ok()
+                                        .cacheControl(CacheControl.noStore())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(token.toJson())))
+                .onErrorResume(ScalarProxyException.class, e -> Mono.just(ResponseEntity.status(e.getStatus())
+                        .cacheControl(CacheControl.noStore())
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(e.getMessage())));
+    }
+
+    /**
+     * Forwards a request of the proxy endpoint and streams the response.
+     */
+    private Mono<Void> forward(ScalarProxy proxy, ScalarWebFluxProxyClient proxyClient, ServerHttpRequest request,
+                               ServerHttpResponse response) {
+        URI target;
+        try {
+            target = proxy.resolve(ScalarProxy.targetOf(request.getURI().getRawQuery()));
+        } catch (ScalarProxyException e) {
+            return Mono.error(e);
+        }
+        HttpHandler httpHandler = httpHandlerProvider.getIfAvailable();
+        if (httpHandler != null && propertiesProvider.getObject().isProxyLocalDispatchEnabled()
+                && ScalarWebFluxLocalDispatch.isApplicable(target, request)) {
+            return ScalarWebFluxLocalDispatch.dispatch(httpHandler, target, request, response);
+        }
+        return proxyClient.forward(target, request, response, proxyCacheProvider.getIfAvailable());
+    }
+
     /**
      * Hook method that allows subclasses to configure properties before rendering.
      * Override this method to customize the ScalarProperties before they are
@@ -106,4 +579,266 @@ public class ScalarWebFluxController {
     protected ScalarProperties configureProperties(ScalarProperties properties, ServerHttpRequest request) {
         return properties;
     }
+
+    /**
+     * Hook method that decides whether a request may obtain tokens from the
+     * token endpoint, which requests them with the client secrets held by the
+     * server. By default, only requests with a principal may, or all requests
+     * if {@code scalar.tokenRelayAuthenticationRequired} is turned off.
+     * Override this method to restrict the endpoint further, such as to a role.
+     *
+     * @param properties the configuration properties
+     * @param exchange   the current server exchange
+     * @return a Mono of whether the request may obtain tokens
+     */
+    protected Mono<Boolean> isTokenRelayAllowed(ScalarProperties properties, ServerWebExchange exchange) {
+        if (!properties.isTokenRelayAuthenticationRequired()) {
+            return Mono.just(true);
+        }
+        return exchange.getPrincipal().hasElement();
+    }
+
+    /**
+     * Renders the page, or gets it from the {@link ScalarTenantCache} when
+     * {@code scalar.tenantCacheEnabled} is set. Pages with credentials are
+     * filled into the page of the shared render cache instead, since they
+     * belong to a single user.
+     *
+     * @param properties  the configured properties
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param credentials the credentials of the request, may be {@code null}
+     * @param request     the HTTP request
+     * @param observer    the observer to report the rendering steps to
+     * @return the page
+     * @throws IOException if the page cannot be rendered
+     */
+    private String render(ScalarProperties properties, ScalarDocument document, ScalarCredentials credentials,
+                          ServerHttpRequest request, ScalarRenderObserver observer) throws IOException {
+        ScalarTenantCache tenantCache = credentials == null ? tenantCacheProvider.getIfAvailable() : null;
+        ScalarWebFluxTenantResolver tenantResolver = tenantCache != null
+                ? tenantResolverProvider.getIfAvailable()
+                : null;
+        String tenant = tenantResolver != null ? tenantResolver.resolve(request) : null;
+        String contextPath = request.getPath().contextPath().value();
+        if (tenant == null) {
+            return assetService(assetServiceProvider).renderWithCredentials(properties, document, observer,
+                    credentials, contextPath);
+        }
+        return tenantCache.get(tenant, document != null ? document.getETag() : null,
+                () -> assetService(assetServiceProvider).renderWithCredentials(properties, document, observer,
+                        null, contextPath));
+    }
+
+    /**
+     * Resolves the credentials prefilled into the page, if
+     * {@code scalar.credentialsPrefillEnabled} is set. Pages with credentials
+     * are marked as not to be stored, since they belong to a single user.
+     *
+     * <p>
+     * Like the embedded document, the credentials are resolved with the bound
+     * properties, before
+     * {@link #configureProperties(ScalarProperties, ServerHttpRequest)} runs.
+     * </p>
+     *
+     * @param exchange the current exchange
+     * @return the credentials, or an empty Mono if there are none
+     */
+    private Mono<ScalarCredentials> credentials(ServerWebExchange exchange) {
+        ScalarProperties properties = propertiesProvider.getObject();
+        ScalarWebFluxCredentialsResolver resolver = properties.isCredentialsPrefillEnabled()
+                ? credentialsResolverProvider.getIfAvailable()
+                : null;
+        if (resolver == null) {
+            return Mono.empty();
+        }
+        return resolver.resolve(properties, exchange)
+                .filter(credentials -> !credentials.isEmpty())
+                .doOnNext(credentials -> exchange.getResponse().getHeaders().setCacheControl(CacheControl.noStore()));
+    }
+
+    /**
+     * Gets the OpenAPI document to embed into the page, if embedding is enabled
+     * and a document is available in-process: the springdoc-openapi document, or
+     * the document at a {@code file:} or {@code classpath:} {@code scalar.url}.
+     *
+     * <p>
+     * Whether to embed is decided on the bound properties, before
+     * {@link #configureProperties(ScalarProperties, ServerHttpRequest)} runs.
+     * </p>
+     *
+     * @param request the HTTP request
+     * @return the document, or an empty Mono if nothing is embedded
+     */
+    private Mono<ScalarDocument> embeddedDocument(ServerHttpRequest request) {
+        ScalarProperties properties = propertiesProvider.getObject();
+        if (!properties.isEmbedSpec()) {
+            return Mono.empty();
+        }
+
+        ScalarWebFluxOpenApiDocument openApiDocument = openApiDocumentProvider.getIfAvailable();
+        if (openApiDocument != null) {
+            return openApiDocument.get(request);
+        }
+
+        ScalarLocalDocuments localDocuments = localDocumentsProvider.getIfAvailable();
+        String location = properties.getUrl();
+        if (localDocuments != null && ScalarLocalDocuments.isLocal(location)) {
+            return Mono.fromCallable(() -> localDocuments.get(location))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Responds with the status and message of a request that cannot be forwarded.
+     */
+    private static Mono<Void> proxyError(ServerHttpResponse response, ScalarProxyException e) {
+        response.setStatusCode(HttpStatusCode.valueOf(e.getStatus()));
+        response.getHeaders().setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+        byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(message)));
+    }
+
+    /**
+     * Selects the form of a document that is served: the document itself, or
+     * its compaction when {@code scalar.documentCompactEnabled} is set.
+     */
+    private ScalarDocument served(ScalarDocument document) {
+        return propertiesProvider.getObject().isDocumentCompactEnabled()
+                ? document.getCompaction().getDocument() : document;
+    }
+
+    /**
+     * Builds the response for a configured OpenAPI document.
+     *
+     * @param id      the document id
+     * @param view    selects what to serve of the document: itself, its original,
+     *                its skeleton, one of its fragments, its search index or its
+     *                compaction report, or {@code null} for nothing
+     * @param request the HTTP request
+     * @return the response, {@code 404 Not Found} if the id does not denote a served
+     * document or the view selects nothing
+     */
+    private Mono<ResponseEntity<byte[]>> documentResponse(String id, UnaryOperator<ScalarDocument> view,
+                                                               ServerHttpRequest request) {
+        return renderObserver().flatMap(observer -> documentResponse(id, view, request, observer));
+    }
+
+    private Mono<ResponseEntity<byte[]>> documentResponse(String id, UnaryOperator<ScalarDocument> view,
+                                                          ServerHttpRequest request, ScalarRenderObserver observer) {
+        ScalarProperties properties = configureProperties(propertiesProvider.getObject(), request);
+
+        ScalarSite site = siteProvider.getIfAvailable();
+        ScalarDocument exported = site != null ? site.getDocument(id) : null;
+        if (exported != null) {
+            return Mono.fromCallable(() -> documentResponse(view.apply(exported), request))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        ScalarDocumentAggregator aggregator = documentAggregatorProvider.getIfAvailable();
+        if (aggregator != null && ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID.equals(id)) {
+            return Mono.fromFuture(aggregator::getAsync)
+                    .publishOn(Schedulers.boundedElastic())
+                    .flatMap(document -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.DOCUMENT,
+                            () -> documentResponse(view.apply(document), request))))
+                    .onErrorMap(IOException.class,
+                            e -> new RuntimeException("Failed to aggregate OpenAPI documents", e));
+        }
+
+        ScalarLocalDocuments localDocuments = localDocumentsProvider.getIfAvailable();
+        String location = ScalarLocalDocuments.resolve(properties, id);
+        if (location != null && localDocuments != null) {
+            return Mono.fromCallable(() -> observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                        boolean cached = localDocuments.isLoaded(location);
+                        ScalarDocument document = localDocuments.get(location);
+                        observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                        return documentResponse(view.apply(document), request);
+                    }))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load OpenAPI document", e));
+        }
+
+        ScalarDocumentCache documentCache = documentCacheProvider.getIfAvailable();
+        String url = ScalarDocumentCache.resolve(properties, id);
+        if (documentCache == null || url == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        boolean cached = documentCache.isCached(url);
+        return Mono.fromFuture(() -> documentCache.getAsync(url))
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(document -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                    observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                    return documentResponse(view.apply(document), request);
+                })))
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load OpenAPI document", e));
+    }
+
+    /**
+     * Builds the response for an OpenAPI document or the JavaScript bundle,
+     * honoring the conditional and content-coding headers of the request.
+     *
+     * @param document the document to serve, or {@code null} if there is none
+     * @param request  the HTTP request
+     * @return the response, {@code 404 Not Found} if there is no document
+     */
+    static ResponseEntity<byte[]> documentResponse(ScalarDocument document, ServerHttpRequest request) {
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        HttpHeaders headers = request.getHeaders();
+        if (document.matches(headers.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(document.getETag())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf(document.getMediaType()))
+                .eTag(document.getETag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = document.hasGzipContent()
+                && ScalarDocument.acceptsGzip(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.getGzipContent());
+        }
+        return response.body(document.getContent());
+    }
+
+    /**
+     * Gets the asset service of the application, or the shared one if there is
+     * none, so the controller and the actuator endpoint serve the same assets.
+     *
+     * @param assetServiceProvider the provider of the asset service
+     * @return the asset service
+     */
+    static ScalarAssetService assetService(ObjectProvider<ScalarAssetService> assetServiceProvider) {
+        ScalarAssetService assetService = assetServiceProvider.getIfAvailable();
+        return assetService != null ? assetService : ScalarAssetService.shared();
+    }
+
+    /**
+     * Creates the observer that reports the serving steps to the application's
+     * {@link ObservationRegistry}, or a no-op observer if there is none. The
+     * steps run on worker threads that do not carry the observation of the
+     * request, so it is taken from the Reactor context and set as their parent.
+     *
+     * @return the observer for the current request
+     */
+    private Mono<ScalarRenderObserver> renderObserver() {
+        return renderObserver(observationRegistryProvider.getIfAvailable(), "controller");
+    }
+
+    /**
+     * Creates the observer for the current request, below the observation of the
+     * request found in the Reactor context.
+     *
+     * @param registry the registry to report to, may be {@code null}
+     * @param endpoint the name of the endpoint serving the request
+     * @return the observer
+     */
+    static Mono<ScalarRenderObserver> renderObserver(ObservationRegistry registry, String endpoint) {
+        return Mono.deferContextual(context -> Mono.just(ObservationScalarRenderObserver.create(registry, endpoint,
+                context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))));
+    }
 }
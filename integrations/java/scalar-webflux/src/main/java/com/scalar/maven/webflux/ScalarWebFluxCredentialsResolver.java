@@ -0,0 +1,43 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the credentials prefilled into the page for a request, when
+ * {@code scalar.credentialsPrefillEnabled} is set.
+ *
+ * <p>
+ * Declare a bean of this type to fill in credentials from other sources, such
+ * as an API key of the signed-in user.
+ * </p>
+ */
+@FunctionalInterface
+public interface ScalarWebFluxCredentialsResolver {
+
+    /**
+     * Resolves the credentials for a request.
+     *
+     * @param properties the bound properties
+     * @param exchange   the exchange of the page
+     * @return the credentials, or an empty Mono if there are none
+     */
+    Mono<ScalarCredentials> resolve(ScalarProperties properties, ServerWebExchange exchange);
+
+    /**
+     * Gets the resolver filling the bearer token of the authenticated user into
+     * the {@code http} security schemes, see
+     * {@link ScalarCredentials#ofBearerToken}. With Spring Security, the
+     * principal of the exchange is the {@code Authentication} of its
+     * {@code ReactiveSecurityContextHolder}.
+     *
+     * @return the resolver
+     */
+    static ScalarWebFluxCredentialsResolver bearerToken() {
+        return (properties, exchange) -> exchange.getPrincipal()
+                .mapNotNull(principal -> ScalarCredentials.ofBearerToken(principal,
+                        properties.getAuthentication(), properties.getCredentialsPrefillSchemes()));
+    }
+}
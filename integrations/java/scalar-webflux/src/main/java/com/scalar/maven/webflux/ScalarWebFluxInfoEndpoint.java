@@ -0,0 +1,73 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.diagnostics.ScalarDiagnostics;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Actuator endpoint reporting the in-memory state of the Scalar API Reference.
+ *
+ * <p>
+ * The endpoint reports the size, hash and available encodings of the
+ * JavaScript bundle, the fingerprint of the HTML template, the statistics of
+ * the render cache, the serialization engine in use and the time spent warming
+ * up. A write operation evicts all caches, so the memory footprint of Scalar can
+ * be checked and tuned on a running application.
+ * </p>
+ *
+ * <p>
+ * Access the endpoint at: {@code /actuator/scalarinfo}
+ * </p>
+ */
+@Endpoint(id = "scalarinfo")
+public class ScalarWebFluxInfoEndpoint {
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxOpenApiDocument> openApiDocumentProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebFluxInstances> instancesProvider;
+
+    /**
+     * Reports the current in-memory state.
+     *
+     * @return a snapshot of the in-memory state
+     */
+    @ReadOperation
+    public ScalarDiagnostics info() {
+        return ScalarDiagnostics.capture(ScalarWebFluxController.assetService(assetServiceProvider));
+    }
+
+    /**
+     * Evicts the render caches of the main page and the instances, the in-memory
+     * copies of the assets, the in-process OpenAPI document, the cached remote
+     * documents and the local documents. They are loaded again on the next
+     * request.
+     *
+     * @return a snapshot of the in-memory state after the eviction
+     */
+    @WriteOperation
+    public ScalarDiagnostics evictCaches() {
+        ScalarDiagnostics.evictCaches(ScalarWebFluxController.assetService(assetServiceProvider));
+        openApiDocumentProvider.ifAvailable(ScalarWebFluxOpenApiDocument::evict);
+        documentCacheProvider.ifAvailable(ScalarDocumentCache::clear);
+        localDocumentsProvider.ifAvailable(ScalarLocalDocuments::clear);
+        instancesProvider.ifAvailable(ScalarWebFluxInstances::evict);
+        return ScalarDiagnostics.capture(ScalarWebFluxController.assetService(assetServiceProvider));
+    }
+}
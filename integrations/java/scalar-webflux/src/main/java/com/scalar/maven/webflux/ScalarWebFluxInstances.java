@@ -0,0 +1,152 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves the API References configured with {@code scalar.instances.<name>.*},
+ * each at a path of its own.
+ *
+ * <p>
+ * For each instance, the page is served at its path, and the JavaScript bundle
+ * and the local copies of its documents below it, at
+ * {@code <path>/documents/<id>}. The bundle is the same for all instances and
+ * is held once; each instance keeps its page in a render cache of its own, see
+ * {@link ScalarInstance}.
+ * </p>
+ *
+ * <p>
+ * The pages of the instances are rendered from their configured properties.
+ * They are not passed through {@code configureProperties} of the controller,
+ * and the API client proxy and the token relay are not served for them.
+ * </p>
+ */
+public class ScalarWebFluxInstances implements RouterFunction<ServerResponse> {
+
+    private final List<ScalarInstance> instances;
+    private final ScalarLocalDocuments localDocuments;
+    private final ScalarDocumentCache documentCache;
+    private final ObservationRegistry observationRegistry;
+    private final Map<String, HandlerFunction<ServerResponse>> handlers = new HashMap<>();
+    private final Map<String, ScalarInstance> documentPaths = new HashMap<>();
+
+    /**
+     * Creates the routes of the instances.
+     *
+     * @param instances           the instances
+     * @param localDocuments      the local documents of the application, may be
+     *                            {@code null}
+     * @param documentCache       the document cache of the application, may be
+     *                            {@code null}
+     * @param observationRegistry the registry to report the serving steps to,
+     *                            may be {@code null}
+     */
+    public ScalarWebFluxInstances(List<ScalarInstance> instances, ScalarLocalDocuments localDocuments,
+                                  ScalarDocumentCache documentCache, ObservationRegistry observationRegistry) {
+        this.instances = List.copyOf(instances);
+        this.localDocuments = localDocuments;
+        this.documentCache = documentCache;
+        this.observationRegistry = observationRegistry;
+        for (ScalarInstance instance : this.instances) {
+            handlers.put(instance.getPath(), request -> getDocs(instance));
+            handlers.put(instance.getBundlePath(), request -> getScalarJs());
+            documentPaths.put(instance.getDocumentsPath(), instance);
+        }
+    }
+
+    @Override
+    public Mono<HandlerFunction<ServerResponse>> route(ServerRequest request) {
+        if (!HttpMethod.GET.equals(request.method()) && !HttpMethod.HEAD.equals(request.method())) {
+            return Mono.empty();
+        }
+        String path = request.requestPath().pathWithinApplication().value();
+        HandlerFunction<ServerResponse> handler = handlers.get(path);
+        if (handler != null) {
+            return Mono.just(handler);
+        }
+        int slash = path.lastIndexOf('/');
+        ScalarInstance instance = documentPaths.get(path.substring(0, slash + 1));
+        String id = path.substring(slash + 1);
+        if (instance == null || id.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.just(documentRequest -> getDocument(instance, id, documentRequest));
+    }
+
+    /**
+     * Gets the served instances.
+     *
+     * @return the instances
+     */
+    public List<ScalarInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Drops the pages held in the render caches of the instances.
+     */
+    public void evict() {
+        instances.forEach(ScalarInstance::evict);
+    }
+
+    private Mono<ServerResponse> getDocs(ScalarInstance instance) {
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.PAGE,
+                        () -> instance.render(observer))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to render HTML", e))
+                .flatMap(html -> ServerResponse.ok()
+                        .contentType(MediaType.TEXT_HTML)
+                        .bodyValue(html));
+    }
+
+    private Mono<ServerResponse> getDocument(ScalarInstance instance, String id, ServerRequest request) {
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> Optional.ofNullable(
+                        instance.getDocument(id, localDocuments, documentCache, observer))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load OpenAPI document", e))
+                .flatMap(document -> {
+                    ResponseEntity<byte[]> response = ScalarWebFluxController.documentResponse(
+                            document.orElse(null), request.exchange().getRequest());
+                    ServerResponse.BodyBuilder builder = ServerResponse.status(response.getStatusCode())
+                            .headers(headers -> headers.addAll(response.getHeaders()));
+                    return response.getBody() != null ? builder.bodyValue(response.getBody()) : builder.build();
+                });
+    }
+
+    private Mono<ServerResponse> getScalarJs() {
+        return renderObserver()
+                .flatMap(observer -> Mono.fromCallable(() -> observer.observe(ScalarRenderStep.BUNDLE,
+                        () -> ScalarHtmlRenderer.getScalarJsContent(observer))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IOException.class, e -> new RuntimeException("Failed to load JavaScript bundle", e))
+                .flatMap(content -> ServerResponse.ok()
+                        .contentType(MediaType.valueOf("application/javascript"))
+                        .bodyValue(content));
+    }
+
+    private Mono<ScalarRenderObserver> renderObserver() {
+        return ScalarWebFluxController.renderObserver(observationRegistry, "instance");
+    }
+}
@@ -0,0 +1,106 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.proxy.ScalarProxy;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches the requests of the proxy endpoint that are meant for the
+ * application itself to its {@link HttpHandler}, instead of sending them out
+ * through the network and accepting them again.
+ *
+ * <p>
+ * The {@link HttpHandler} of the application runs the web filters, such as the
+ * Spring Security filter chain, and the {@code DispatcherHandler} in a new
+ * exchange, so the request is handled as it would be coming in from the
+ * network. It sees the headers as the proxy would send them, so its session
+ * and authentication are resolved from its own headers and the cookies in
+ * {@code X-Scalar-Cookie} only. The request body is the body of the page
+ * request and is read by the handler directly.
+ * </p>
+ */
+final class ScalarWebFluxLocalDispatch {
+
+    private ScalarWebFluxLocalDispatch() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Checks whether a proxied request can be dispatched within the application:
+     * when it points at the application the request came in at, below its
+     * context path, and not at the proxy endpoint itself.
+     *
+     * @param target  the URL the request is forwarded to
+     * @param request the request of the proxy endpoint
+     * @return whether to dispatch the request within the application
+     */
+    static boolean isApplicable(URI target, ServerHttpRequest request) {
+        String path = target.getRawPath();
+        if (path == null || !path.startsWith(request.getPath().contextPath().value())
+                || path.equals(request.getPath().value())) {
+            return false;
+        }
+        InetSocketAddress localAddress = request.getLocalAddress();
+        return ScalarProxy.isSameApplication(target, request.getURI(),
+                localAddress != null ? localAddress.getPort() : -1);
+    }
+
+    /**
+     * Dispatches a proxied request to the handler of its URL.
+     *
+     * @param httpHandler the handler of the application
+     * @param target      the URL the request is forwarded to
+     * @param request     the request of the proxy endpoint
+     * @param response    the response of the proxy endpoint
+     * @return a Mono that completes when the response is written
+     */
+    static Mono<Void> dispatch(HttpHandler httpHandler, URI target, ServerHttpRequest request,
+                               ServerHttpResponse response) {
+        Map<String, List<String>> headers = ScalarProxy.rewriteHeaders(request.getHeaders());
+        headers.put(HttpHeaders.HOST, List.of(target.getRawAuthority()));
+        ServerHttpRequest forwarded = request.mutate()
+                .uri(target)
+                .headers(forwardedHeaders -> {
+                    forwardedHeaders.clear();
+                    forwardedHeaders.putAll(headers);
+                })
+                .build();
+
+        response.getHeaders().set(ScalarProxy.FORWARDED_HOST_HEADER, target.toString());
+        response.beforeCommit(() -> {
+            mirrorCookies(response);
+            return Mono.empty();
+        });
+        return httpHandler.handle(forwarded, response);
+    }
+
+    /**
+     * Mirrors the cookies the handler sets into
+     * {@link ScalarProxy#SET_COOKIE_HEADER}, instead of setting them on the page
+     * origin.
+     */
+    private static void mirrorCookies(ServerHttpResponse response) {
+        List<String> cookies = new ArrayList<>(response.getHeaders().getOrEmpty(HttpHeaders.SET_COOKIE));
+        for (List<ResponseCookie> values : response.getCookies().values()) {
+            for (HttpCookie cookie : values) {
+                cookies.add(cookie.toString());
+            }
+        }
+        response.getHeaders().remove(HttpHeaders.SET_COOKIE);
+        response.getCookies().clear();
+        if (!cookies.isEmpty()) {
+            response.getHeaders().set(ScalarProxy.SET_COOKIE_HEADER, String.join(", ", cookies));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.document.ScalarDocument;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the OpenAPI document of the application, loaded in-process on the
+ * first request and served from memory afterwards.
+ *
+ * <p>
+ * The document is obtained from a {@link Loader}, which by default asks
+ * springdoc-openapi for the generated document without going through HTTP.
+ * It is serialized, compressed and tagged once as a {@link ScalarDocument}, so
+ * neither the generator nor the serializer run again until {@link #evict()}
+ * is called. Concurrent first requests share a single load, and a failed load
+ * is retried on the next request.
+ * </p>
+ *
+ * <p>
+ * The document is loaded on the first request rather than at startup because
+ * the generator derives the server URL of the document from the request.
+ * </p>
+ */
+public class ScalarWebFluxOpenApiDocument {
+
+    /**
+     * Produces the serialized OpenAPI document.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Produces the serialized OpenAPI document.
+         *
+         * @param request      the request for the document
+         * @param documentPath the path the document is requested at, relative to the context path
+         * @return the document serialized as JSON
+         * @throws IOException if the document cannot be produced
+         */
+        Mono<byte[]> load(ServerHttpRequest request, String documentPath) throws IOException;
+    }
+
+    private final Loader loader;
+    private final AtomicReference<Mono<ScalarDocument>> pending = new AtomicReference<>();
+    private volatile ScalarDocument document;
+
+    /**
+     * Creates the holder.
+     *
+     * @param loader the loader producing the document
+     */
+    public ScalarWebFluxOpenApiDocument(Loader loader) {
+        this.loader = Objects.requireNonNull(loader, "loader must not be null");
+    }
+
+    /**
+     * Gets the document, loading it on first access.
+     *
+     * @param request the request for the document
+     * @return the document
+     */
+    public Mono<ScalarDocument> get(ServerHttpRequest request) {
+        ScalarDocument local = document;
+        if (local != null) {
+            return Mono.just(local);
+        }
+
+        Mono<ScalarDocument> load = pending.get();
+        if (load == null) {
+            Mono<ScalarDocument> created = Mono.defer(() -> load(request))
+                    .doOnNext(loaded -> document = loaded)
+                    .doOnError(e -> pending.set(null))
+                    .cache(loaded -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+            load = pending.compareAndSet(null, created) ? created : pending.get();
+        }
+        return load != null ? load : get(request);
+    }
+
+    /**
+     * Gets whether the document is already held in memory.
+     *
+     * @return {@code true} if the document is loaded
+     */
+    public boolean isLoaded() {
+        return document != null;
+    }
+
+    /**
+     * Drops the in-memory document. It is loaded again on the next request.
+     */
+    public void evict() {
+        pending.set(null);
+        document = null;
+    }
+
+    private Mono<ScalarDocument> load(ServerHttpRequest request) {
+        try {
+            String documentPath = request.getPath().pathWithinApplication().value();
+            return loader.load(request, documentPath)
+                    .map(content -> ScalarDocument.of(content, ScalarDocument.JSON_MEDIA_TYPE));
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+    }
+}
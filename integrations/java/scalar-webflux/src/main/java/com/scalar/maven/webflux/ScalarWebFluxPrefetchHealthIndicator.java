@@ -0,0 +1,63 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.document.ScalarDocumentPrefetch;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reports whether the remote OpenAPI documents were loaded at startup.
+ *
+ * <p>
+ * The indicator is {@code OUT_OF_SERVICE} while the {@link ScalarDocumentPrefetch}
+ * is running and {@code UP} once every document was loaded or given up on.
+ * Include it in the readiness group so the application only reports ready once
+ * the documents are warm:
+ * </p>
+ *
+ * <pre>
+ * management.endpoint.health.group.readiness.include=readinessState,scalarDocuments
+ * </pre>
+ *
+ * <p>
+ * Documents that failed or timed out are listed in the details but do not keep
+ * the application from becoming ready; they are fetched on the first request.
+ * </p>
+ */
+public class ScalarWebFluxPrefetchHealthIndicator extends AbstractHealthIndicator {
+
+    private final ScalarDocumentPrefetch documentPrefetch;
+
+    /**
+     * Creates the health indicator.
+     *
+     * @param documentPrefetch the prefetch to report on
+     */
+    public ScalarWebFluxPrefetchHealthIndicator(ScalarDocumentPrefetch documentPrefetch) {
+        super("Scalar document prefetch health check failed");
+        this.documentPrefetch = Objects.requireNonNull(documentPrefetch, "documentPrefetch must not be null");
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Map<String, String> failures = documentPrefetch.getFailures();
+        if (documentPrefetch.isDone()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("documents", documentPrefetch.getUrls().size())
+                .withDetail("loaded", documentPrefetch.getLoaded().size())
+                .withDetail("virtualThreads", documentPrefetch.usesVirtualThreads());
+        List<String> timedOut = documentPrefetch.getTimedOut();
+        if (!timedOut.isEmpty()) {
+            builder.withDetail("timedOut", timedOut);
+        }
+        if (!failures.isEmpty()) {
+            builder.withDetail("failures", failures);
+        }
+    }
+}
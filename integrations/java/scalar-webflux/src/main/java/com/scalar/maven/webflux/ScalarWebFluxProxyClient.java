@@ -0,0 +1,276 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyException;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Forwards the requests of the proxy endpoint upstream without blocking.
+ *
+ * <p>
+ * Requests are sent through a {@link WebClient}, so the bodies are handed
+ * through as {@link DataBuffer}s in both directions: a buffer is only read from
+ * one side when the other side has asked for it, so a request of any size is
+ * forwarded in constant memory, and cancelling the response to the API client
+ * cancels the request upstream and closes its connection.
+ * </p>
+ *
+ * <p>
+ * With Reactor Netty, each upstream host gets a connection pool of its own, of
+ * at most {@code scalar.proxyMaxConnections} connections; requests wait for a
+ * connection for at most {@code scalar.proxyTimeout}, so a slow host cannot
+ * take the connections of the others. Without it, the requests are sent
+ * through the JDK {@link java.net.http.HttpClient} instead.
+ * </p>
+ */
+public class ScalarWebFluxProxyClient implements AutoCloseable {
+
+    private static final boolean REACTOR_NETTY_PRESENT = ClassUtils.isPresent(
+            "reactor.netty.http.client.HttpClient", ScalarWebFluxProxyClient.class.getClassLoader());
+
+    private final WebClient webClient;
+    private final boolean restrictedHeadersDropped;
+    private final AutoCloseable resources;
+
+    /**
+     * Creates a client forwarding through the given {@link WebClient}.
+     *
+     * @param webClient the client to forward through; it must not follow
+     *                  redirects, so their {@code Location} can be rewritten to go
+     *                  through the proxy again
+     */
+    public ScalarWebFluxProxyClient(WebClient webClient) {
+        this(webClient, false, () -> {
+        });
+    }
+
+    private ScalarWebFluxProxyClient(WebClient webClient, boolean restrictedHeadersDropped, AutoCloseable resources) {
+        this.webClient = Objects.requireNonNull(webClient, "webClient must not be null");
+        this.restrictedHeadersDropped = restrictedHeadersDropped;
+        this.resources = resources;
+    }
+
+    /**
+     * Creates a client with the connection pools and timeouts of the
+     * configuration properties.
+     *
+     * @param properties the configuration properties
+     * @return the client
+     */
+    public static ScalarWebFluxProxyClient of(ScalarProperties properties) {
+        return of(properties.getProxyMaxConnections(), properties.getProxyTimeout());
+    }
+
+    /**
+     * Creates a client with connection pools of the given size.
+     *
+     * @param maxConnections the maximum number of connections to each host
+     * @param timeout        the connect timeout, the timeout for receiving the
+     *                       response headers, and the time to wait for a
+     *                       connection of the pool
+     * @return the client
+     */
+    public static ScalarWebFluxProxyClient of(int maxConnections, Duration timeout) {
+        Objects.requireNonNull(timeout, "timeout must not be null");
+        if (REACTOR_NETTY_PRESENT) {
+            return ReactorNetty.client(maxConnections, timeout);
+        }
+        JdkClientHttpConnector connector = new JdkClientHttpConnector(java.net.http.HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(java.net.http.HttpClient.Redirect.NEVER)
+                .build());
+        connector.setReadTimeout(timeout);
+        return new ScalarWebFluxProxyClient(WebClient.builder().clientConnector(connector).build(), true, () -> {
+        });
+    }
+
+    /**
+     * Forwards a request and streams the response to the API client.
+     *
+     * @param target   the URL to forward to, from {@link ScalarProxy#resolve(String)}
+     * @param request  the request of the proxy endpoint
+     * @param response the response of the proxy endpoint
+     * @return a Mono that completes when the response is written, or fails with
+     * a {@link ScalarProxyException} with status {@code 504} if upstream does not
+     * respond in time, and {@code 502} if it cannot be reached
+     */
+    public Mono<Void> forward(URI target, ServerHttpRequest request, ServerHttpResponse response) {
+        return forward(target, request, response, null);
+    }
+
+    /**
+     * Forwards a request and streams the response to the API client, serving it
+     * from a cache where it allows.
+     *
+     * @param target   the URL to forward to, from {@link ScalarProxy#resolve(String)}
+     * @param request  the request of the proxy endpoint
+     * @param response the response of the proxy endpoint
+     * @param cache    the cache of the responses, may be {@code null}
+     * @return a Mono that completes when the response is written, or fails with
+     * a {@link ScalarProxyException} as {@link #forward(URI, ServerHttpRequest, ServerHttpResponse)}
+     * does
+     */
+    public Mono<Void> forward(URI target, ServerHttpRequest request, ServerHttpResponse response,
+                              ScalarProxyCache cache) {
+        Map<String, List<String>> headers = ScalarProxy.forwardedHeaders(request.getHeaders());
+        String method = request.getMethod().name();
+        String key = cache != null ? cache.key(method, target, headers) : null;
+        ScalarProxyCache.Entry cached = key != null ? cache.get(key) : null;
+        String proxyPath = request.getPath().value();
+        if (cached != null && cached.isFresh()) {
+            return writeCached(cached, target, method, response, proxyPath);
+        }
+        if (cached != null) {
+            headers.putAll(cached.getValidators());
+        }
+        if (restrictedHeadersDropped) {
+            headers.keySet().removeIf(ScalarProxy::isRestrictedHeader);
+        }
+
+        WebClient.RequestBodySpec spec = webClient.method(request.getMethod())
+                .uri(target)
+                .headers(forwardedHeaders -> forwardedHeaders.putAll(headers));
+        WebClient.RequestHeadersSpec<?> forwarded = hasBody(request.getHeaders())
+                ? spec.body(BodyInserters.fromDataBuffers(request.getBody()))
+                : spec;
+        return forwarded
+                .exchangeToMono(upstream -> {
+                    if (cached != null && upstream.statusCode().value() == 304) {
+                        ScalarProxyCache.Entry revalidated = cache.revalidate(key, cached,
+                                upstream.headers().asHttpHeaders());
+                        return upstream.releaseBody()
+                                .then(writeCached(revalidated, target, method, response, proxyPath));
+                    }
+                    ScalarProxyCache.Capture capture = key != null ? cache.capture(key,
+                            upstream.statusCode().value(), upstream.headers().asHttpHeaders()) : null;
+                    return write(target, upstream, response, proxyPath, capture);
+                })
+                .onErrorMap(WebClientRequestException.class, e -> failure(target, e));
+    }
+
+    @Override
+    public void close() throws Exception {
+        resources.close();
+    }
+
+    private static Mono<Void> write(URI target, ClientResponse upstream, ServerHttpResponse response,
+                                    String proxyPath, ScalarProxyCache.Capture capture) {
+        HttpHeaders upstreamHeaders = upstream.headers().asHttpHeaders();
+        response.setStatusCode(upstream.statusCode());
+        ScalarProxy.responseHeaders(target, upstreamHeaders, proxyPath).forEach(response.getHeaders()::addAll);
+        Flux<DataBuffer> body = upstream.bodyToFlux(DataBuffer.class);
+        if (capture != null) {
+            body = body.doOnNext(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, bytes.length);
+                capture.write(bytes, 0, bytes.length);
+            }).doOnComplete(capture::complete);
+        }
+        MediaType contentType = upstreamHeaders.getContentType();
+        return contentType != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType)
+                ? response.writeAndFlushWith(body.map(Mono::just))
+                : response.writeWith(body);
+    }
+
+    private static Mono<Void> writeCached(ScalarProxyCache.Entry cached, URI target, String method,
+                                          ServerHttpResponse response, String proxyPath) {
+        response.setStatusCode(HttpStatusCode.valueOf(cached.getStatus()));
+        ScalarProxy.responseHeaders(target, cached.getHeaders(), proxyPath).forEach(response.getHeaders()::addAll);
+        return "HEAD".equals(method)
+                ? response.setComplete()
+                : response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    /**
+     * Checks whether a request has a body: when its length is known and not zero,
+     * or it is sent in chunks.
+     */
+    private static boolean hasBody(HttpHeaders headers) {
+        long contentLength = headers.getContentLength();
+        return contentLength > 0 || contentLength < 0 && headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    private static ScalarProxyException failure(URI target, WebClientRequestException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || REACTOR_NETTY_PRESENT && ReactorNetty.isTimeout(cause)
+                    || cause instanceof HttpTimeoutException && !(cause instanceof HttpConnectTimeoutException)) {
+                return new ScalarProxyException(504, target + " did not respond in time", e);
+            }
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return new ScalarProxyException(502, "The request to " + target + " could not be reached", e);
+            }
+        }
+        return new ScalarProxyException(502, "The request to " + target + " failed: " + e.getMessage(), e);
+    }
+
+    /**
+     * The parts that depend on Reactor Netty, which is only loaded when it is on
+     * the classpath.
+     */
+    private static final class ReactorNetty {
+
+        private static final String RESPONSE_TIMEOUT_HANDLER = "scalarProxyResponseTimeout";
+
+        private ReactorNetty() {
+        }
+
+        /**
+         * Creates the client. The pools are kept by remote address, and the read
+         * timeout only runs until the response headers are received, so streams
+         * such as server-sent events may be idle for longer.
+         */
+        static ScalarWebFluxProxyClient client(int maxConnections, Duration timeout) {
+            ConnectionProvider connectionProvider = ConnectionProvider.builder("scalar-proxy")
+                    .maxConnections(maxConnections)
+                    .pendingAcquireTimeout(timeout)
+                    .build();
+            HttpClient httpClient = HttpClient.create(connectionProvider)
+                    .followRedirect(false)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeout.toMillis())
+                    .doOnRequest((request, connection) -> connection.addHandlerFirst(RESPONSE_TIMEOUT_HANDLER,
+                            new ReadTimeoutHandler(timeout.toMillis(), TimeUnit.MILLISECONDS)))
+                    .doOnResponse((response, connection) -> connection.removeHandler(RESPONSE_TIMEOUT_HANDLER));
+            ClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
+            return new ScalarWebFluxProxyClient(WebClient.builder().clientConnector(connector).build(), false,
+                    connectionProvider::dispose);
+        }
+
+        static boolean isTimeout(Throwable e) {
+            return e instanceof ReadTimeoutException;
+        }
+    }
+}
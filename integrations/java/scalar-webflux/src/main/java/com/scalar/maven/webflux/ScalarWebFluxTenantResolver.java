@@ -0,0 +1,44 @@
+package com.scalar.maven.webflux;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.Locale;
+
+/**
+ * Resolves the tenant key the page of a request is cached by, when
+ * {@code scalar.tenantCacheEnabled} is set.
+ *
+ * <p>
+ * The key must determine everything that
+ * {@link ScalarWebFluxController#configureProperties} varies the properties
+ * by, since requests with the same key are served the same page. Declare a
+ * bean of this type when the properties vary by more than the {@code Host}
+ * of the request.
+ * </p>
+ */
+@FunctionalInterface
+public interface ScalarWebFluxTenantResolver {
+
+    /**
+     * Resolves the tenant key of a request.
+     *
+     * @param request the HTTP request of the page
+     * @return the tenant key, or {@code null} to render the page without the
+     * cache
+     */
+    String resolve(ServerHttpRequest request);
+
+    /**
+     * Gets the resolver keying the pages by the {@code Host} header of the
+     * request.
+     *
+     * @return the resolver
+     */
+    static ScalarWebFluxTenantResolver host() {
+        return request -> {
+            String host = request.getHeaders().getFirst(HttpHeaders.HOST);
+            return host != null ? host.toLowerCase(Locale.ROOT) : null;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarWarmUp;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Warms up the Scalar API Reference while the application context starts.
+ *
+ * <p>
+ * Binds the configuration properties and, unless {@code scalar.warmUpEnabled=false}
+ * is set, loads the JavaScript bundle, the HTML template and the serialization
+ * engine so the first request does not pay for them. Every step is recorded as a
+ * {@link StartupStep} on the context's {@link ApplicationStartup}, so tools such as
+ * {@code /actuator/startup} show how much boot time Scalar adds.
+ * </p>
+ *
+ * <p>
+ * A failed warm-up is logged and does not prevent the application from
+ * starting; the assets are then loaded on the first request instead.
+ * </p>
+ */
+public class ScalarWebFluxWarmUp implements SmartInitializingSingleton {
+
+    /**
+     * The step binding the configuration properties.
+     */
+    public static final String PROPERTIES_BINDING = "scalar.properties.binding";
+
+    private static final Log logger = LogFactory.getLog(ScalarWebFluxWarmUp.class);
+
+    private final ObjectProvider<SpringBootScalarProperties> propertiesProvider;
+    private final ApplicationStartup applicationStartup;
+
+    /**
+     * Creates the warm-up.
+     *
+     * @param propertiesProvider the provider of the configuration properties
+     * @param applicationStartup the startup tracker to record the steps to
+     */
+    public ScalarWebFluxWarmUp(ObjectProvider<SpringBootScalarProperties> propertiesProvider,
+                               ApplicationStartup applicationStartup) {
+        this.propertiesProvider = propertiesProvider;
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            ScalarProperties properties = bindProperties();
+            if (properties.isWarmUpEnabled()) {
+                ScalarWarmUp.run(this::startStep);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to warm up the Scalar API Reference, it is initialized on the first request instead", e);
+        }
+    }
+
+    private ScalarProperties bindProperties() {
+        StartupStep step = applicationStartup.start(PROPERTIES_BINDING);
+        try {
+            ScalarProperties properties = propertiesProvider.getObject();
+            List<?> sources = properties.getSources();
+            step.tag("sources", String.valueOf(sources != null ? sources.size() : 0));
+            return properties;
+        } finally {
+            step.end();
+        }
+    }
+
+    private ScalarWarmUp.Step startStep(String name) {
+        StartupStep step = applicationStartup.start(name);
+        return new ScalarWarmUp.Step() {
+            @Override
+            public void tag(String key, String value) {
+                step.tag(key, value);
+            }
+
+            @Override
+            public void end() {
+                step.end();
+            }
+        };
+    }
+}
@@ -1,5 +1,10 @@
 package com.scalar.maven.webflux;
 
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -9,7 +14,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -32,7 +42,12 @@ class ScalarWebFluxActuatorEndpointTest {
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
     @Mock
-    private ServerHttpRequest request;
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Mock
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
+    private final ServerHttpRequest request = MockServerHttpRequest.get("/actuator/scalar").build();
 
     private ScalarWebFluxActuatorEndpoint endpoint;
 
@@ -41,6 +56,8 @@ class ScalarWebFluxActuatorEndpointTest {
         lenient().when(propertiesProvider.getObject()).thenReturn(properties);
         endpoint = new ScalarWebFluxActuatorEndpoint();
         ReflectionTestUtils.setField(endpoint, "propertiesProvider", propertiesProvider);
+        ReflectionTestUtils.setField(endpoint, "observationRegistryProvider", observationRegistryProvider);
+        ReflectionTestUtils.setField(endpoint, "assetServiceProvider", assetServiceProvider);
     }
 
     @Nested
@@ -113,24 +130,42 @@ class ScalarWebFluxActuatorEndpointTest {
         @DisplayName("should return JavaScript file with correct content type")
         void shouldReturnJavaScriptFileWithCorrectContentType() {
             // When
-            Mono<Resource> resourceMono = endpoint.scalarJs();
+            Mono<ResponseEntity<byte[]>> responseMono = endpoint.scalarJs(
+                    MockServerHttpRequest.get("/actuator/scalar").build());
 
             // Then
-            StepVerifier.create(resourceMono)
-                    .assertNext(resource -> {
-                        assertThat(resource).isNotNull();
-                        assertThat(resource.exists()).isTrue();
-                        try {
-                            byte[] content = resource.getInputStream().readAllBytes();
-                            assertThat(content)
-                                    .isNotNull()
-                                    .isNotEmpty();
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getContentType())
+                                .isEqualTo(MediaType.valueOf("application/javascript"));
+                        assertThat(response.getBody())
+                                .isNotNull()
+                                .isNotEmpty();
                     })
                     .verifyComplete();
         }
+
+        @Test
+        @DisplayName("should serve the bundle of the shared asset service with its entity tag")
+        void shouldServeBundleOfSharedAssetService() throws Exception {
+            // Given
+            ScalarAssetService assetService = new ScalarAssetService(new ScalarRenderCache(4));
+            ScalarDocument bundle = assetService.getBundle(ScalarRenderObserver.NOOP);
+            when(assetServiceProvider.getIfAvailable()).thenReturn(assetService);
+
+            // When
+            ResponseEntity<byte[]> response = endpoint.scalarJs(
+                    MockServerHttpRequest.get("/actuator/scalar").build()).block();
+            ResponseEntity<byte[]> revalidated = endpoint.scalarJs(MockServerHttpRequest.get("/actuator/scalar")
+                    .header(HttpHeaders.IF_NONE_MATCH, bundle.getETag()).build()).block();
+
+            // Then
+            assertThat(response.getBody()).isSameAs(bundle.getContent());
+            assertThat(response.getHeaders().getETag()).isEqualTo(bundle.getETag());
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+            assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        }
     }
 }
 
@@ -1,24 +1,81 @@
 package com.scalar.maven.webflux;
 
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarSite;
+import com.scalar.maven.core.ScalarTenantCache;
+import com.scalar.maven.core.authentication.ScalarAuthenticationOptions;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.authentication.flows.ClientCredentialsFlow;
+import com.scalar.maven.core.authentication.flows.ScalarFlows;
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarOAuth2SecurityScheme;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarDocumentOptimizer;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.HttpHandler;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.STRING;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,7 +89,54 @@ class ScalarWebFluxControllerTest {
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
     @Mock
-    private ServerHttpRequest request;
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebFluxOpenApiDocument> openApiDocumentProvider;
+
+    @Mock
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Mock
+    private ObjectProvider<ScalarDocumentAggregator> documentAggregatorProvider;
+
+    @Mock
+    private ObjectProvider<ScalarSite> siteProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxy> proxyProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxyLimiter> proxyLimiterProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebFluxProxyClient> proxyClientProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxyCache> proxyCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarTokenRelay> tokenRelayProvider;
+
+    @Mock
+    private ObjectProvider<HttpHandler> httpHandlerProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebFluxCredentialsResolver> credentialsResolverProvider;
+
+    @Mock
+    private ObjectProvider<ScalarTenantCache> tenantCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebFluxTenantResolver> tenantResolverProvider;
+
+    @Mock
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
+    private final ServerHttpRequest request = MockServerHttpRequest.get("/scalar").build();
 
     private ScalarWebFluxController controller;
 
@@ -41,6 +145,22 @@ class ScalarWebFluxControllerTest {
         lenient().when(propertiesProvider.getObject()).thenReturn(properties);
         controller = new ScalarWebFluxController();
         ReflectionTestUtils.setField(controller, "propertiesProvider", propertiesProvider);
+        ReflectionTestUtils.setField(controller, "observationRegistryProvider", observationRegistryProvider);
+        ReflectionTestUtils.setField(controller, "openApiDocumentProvider", openApiDocumentProvider);
+        ReflectionTestUtils.setField(controller, "documentCacheProvider", documentCacheProvider);
+        ReflectionTestUtils.setField(controller, "localDocumentsProvider", localDocumentsProvider);
+        ReflectionTestUtils.setField(controller, "documentAggregatorProvider", documentAggregatorProvider);
+        ReflectionTestUtils.setField(controller, "siteProvider", siteProvider);
+        ReflectionTestUtils.setField(controller, "proxyProvider", proxyProvider);
+        ReflectionTestUtils.setField(controller, "proxyLimiterProvider", proxyLimiterProvider);
+        ReflectionTestUtils.setField(controller, "proxyClientProvider", proxyClientProvider);
+        ReflectionTestUtils.setField(controller, "proxyCacheProvider", proxyCacheProvider);
+        ReflectionTestUtils.setField(controller, "tokenRelayProvider", tokenRelayProvider);
+        ReflectionTestUtils.setField(controller, "httpHandlerProvider", httpHandlerProvider);
+        ReflectionTestUtils.setField(controller, "credentialsResolverProvider", credentialsResolverProvider);
+        ReflectionTestUtils.setField(controller, "tenantCacheProvider", tenantCacheProvider);
+        ReflectionTestUtils.setField(controller, "tenantResolverProvider", tenantResolverProvider);
+        ReflectionTestUtils.setField(controller, "assetServiceProvider", assetServiceProvider);
     }
 
     @Nested
@@ -76,6 +196,33 @@ class ScalarWebFluxControllerTest {
                     .verifyComplete();
         }
 
+        @Test
+        @DisplayName("should record the serving steps below the observation of the request")
+        void shouldRecordObservationsBelowRequest() {
+            // Given
+            TestObservationRegistry registry = TestObservationRegistry.create();
+            when(observationRegistryProvider.getIfAvailable()).thenReturn(registry);
+            when(properties.getPath()).thenReturn("/scalar");
+            Observation parent = Observation.start("http.server.requests", registry);
+
+            // When
+            StepVerifier.create(controller.getDocs(request)
+                            .contextWrite(Context.of(ObservationThreadLocalAccessor.KEY, parent)))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            parent.stop();
+
+            // Then
+            TestObservationRegistryAssert.assertThat(registry)
+                    .hasObservationWithNameEqualTo("scalar.page")
+                    .that()
+                    .hasParentObservationEqualTo(parent)
+                    .hasLowCardinalityKeyValue(ObservationScalarRenderObserver.ENDPOINT_KEY, "controller")
+                    .hasBeenStopped();
+            TestObservationRegistryAssert.assertThat(registry)
+                    .hasNumberOfObservationsWithNameEqualTo("scalar.response.write", 0);
+        }
+
         @Test
         @DisplayName("should return HTML with custom URL")
         void shouldReturnHtmlWithCustomUrl() {
@@ -104,6 +251,36 @@ class ScalarWebFluxControllerTest {
                     .verifyComplete();
         }
 
+        @Test
+        @DisplayName("should point the proxy and token URLs below the context path")
+        void shouldPrefixContextPath() {
+            // Given
+            ClientCredentialsFlow flow = new ClientCredentialsFlow();
+            flow.setTokenUrl("https://auth.example.com/token");
+            ScalarFlows flows = new ScalarFlows();
+            flows.setClientCredentials(flow);
+            ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+            scheme.setFlows(flows);
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setOauth2(Map.of("oauth", scheme));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(properties.isProxyEnabled()).thenReturn(true);
+            when(properties.isTokenRelayEnabled()).thenReturn(true);
+            when(properties.getAuthentication()).thenReturn(authentication);
+
+            // When
+            Mono<Resource> resourceMono = controller.getDocs(
+                    MockServerHttpRequest.get("/app/scalar").contextPath("/app").build());
+
+            // Then
+            StepVerifier.create(resourceMono)
+                    .assertNext(resource -> assertThat(resource)
+                            .extracting(this::html, STRING)
+                            .contains("\"proxyUrl\":\"/app/scalar/proxy\"")
+                            .contains("\"tokenUrl\":\"/app/scalar/token?scheme=oauth\""))
+                    .verifyComplete();
+        }
+
         @Test
         @DisplayName("should return HTML with custom pageTitle")
         void shouldReturnHtmlWithCustomPageTitle() {
@@ -129,6 +306,94 @@ class ScalarWebFluxControllerTest {
                     })
                     .verifyComplete();
         }
+
+        @Test
+        @DisplayName("should prefill the bearer token of the user and not let the page be stored")
+        void shouldPrefillCredentials() {
+            // Given
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setHttp(Map.of("bearer", new ScalarHttpSecurityScheme()));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(properties.getAuthentication()).thenReturn(authentication);
+            when(properties.isCredentialsPrefillEnabled()).thenReturn(true);
+            when(credentialsResolverProvider.getIfAvailable())
+                    .thenReturn(ScalarWebFluxCredentialsResolver.bearerToken());
+            MockServerWebExchange exchange = MockServerWebExchange.builder(MockServerHttpRequest.get("/scalar"))
+                    .principal(new BearerTokenPrincipal("eyJ.user"))
+                    .build();
+            MockServerWebExchange anonymous = MockServerWebExchange.from(MockServerHttpRequest.get("/scalar"));
+
+            // When / Then
+            StepVerifier.create(controller.getDocs(exchange))
+                    .assertNext(resource -> assertThat(resource).extracting(this::html, STRING)
+                            .contains("\"token\":\"eyJ.user\""))
+                    .verifyComplete();
+            assertThat(exchange.getResponse().getHeaders().getCacheControl()).isEqualTo("no-store");
+            StepVerifier.create(controller.getDocs(anonymous))
+                    .assertNext(resource -> assertThat(resource).extracting(this::html, STRING)
+                            .doesNotContain("eyJ.user"))
+                    .verifyComplete();
+            assertThat(anonymous.getResponse().getHeaders().getCacheControl()).isNull();
+        }
+
+        @Test
+        @DisplayName("should serve the page of a tenant from the tenant cache")
+        void shouldServeTenantPagesFromCache() {
+            // Given
+            ScalarTenantCache tenantCache = new ScalarTenantCache(1024 * 1024, 16, Duration.ofMinutes(5));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(tenantCacheProvider.getIfAvailable()).thenReturn(tenantCache);
+            when(tenantResolverProvider.getIfAvailable()).thenReturn(ScalarWebFluxTenantResolver.host());
+            ServerHttpRequest acme = MockServerHttpRequest.get("/scalar")
+                    .header(HttpHeaders.HOST, "Acme.example.com").build();
+            ServerHttpRequest globex = MockServerHttpRequest.get("/scalar")
+                    .header(HttpHeaders.HOST, "globex.example.com").build();
+
+            // When
+            String first = html(controller.getDocs(acme).block());
+            String second = html(controller.getDocs(acme).block());
+            controller.getDocs(globex).block();
+
+            // Then
+            assertThat(second).isEqualTo(first).contains("Scalar.createApiReference('#app',");
+            assertThat(tenantCache.getEntryCount()).isEqualTo(2);
+            assertThat(tenantCache.getHits()).isEqualTo(1);
+            assertThat(tenantCache.getMisses()).isEqualTo(2);
+        }
+
+        private String html(Resource resource) {
+            try {
+                return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * A principal shaped like the {@code Authentication} of an OAuth2 resource
+     * server.
+     */
+    public static final class BearerTokenPrincipal implements Principal {
+
+        private final String token;
+
+        BearerTokenPrincipal(String token) {
+            this.token = token;
+        }
+
+        @Override
+        public String getName() {
+            return "user";
+        }
+
+        public boolean isAuthenticated() {
+            return true;
+        }
+
+        public String getToken() {
+            return token;
+        }
     }
 
     @Nested
@@ -139,24 +404,863 @@ class ScalarWebFluxControllerTest {
         @DisplayName("should return JavaScript file with correct content type")
         void shouldReturnJavaScriptFileWithCorrectContentType() {
             // When
-            Mono<Resource> resourceMono = controller.getScalarJs();
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getScalarJs(
+                    MockServerHttpRequest.get("/scalar/scalar.js").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getContentType())
+                                .isEqualTo(MediaType.valueOf("application/javascript"));
+                        assertThat(response.getBody())
+                                .isNotNull()
+                                .isNotEmpty();
+                    })
+                    .verifyComplete();
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /scalar/openapi.json endpoint")
+    class GetOpenApiDocumentEndpoint {
+
+        private static final String SPEC = "{\"openapi\":\"3.1.0\",\"paths\":{" + "\"/pets\":{},".repeat(50) + "\"/owners\":{}}}";
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private final List<String> documentPaths = new ArrayList<>();
+
+        @BeforeEach
+        void setUp() {
+            lenient().when(openApiDocumentProvider.getIfAvailable()).thenReturn(new ScalarWebFluxOpenApiDocument(
+                    (request, documentPath) -> {
+                        loads.incrementAndGet();
+                        documentPaths.add(documentPath);
+                        return Mono.just(SPEC.getBytes(StandardCharsets.UTF_8));
+                    }));
+        }
+
+        private MockServerHttpRequest.BaseBuilder<?> documentRequest() {
+            return MockServerHttpRequest.get("/app/scalar/openapi.json").contextPath("/app");
+        }
+
+        @Test
+        @DisplayName("should return the document with an entity tag")
+        void shouldReturnDocumentWithETag() {
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getOpenApiDocument(documentRequest().build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+                        assertThat(response.getHeaders().getETag()).matches("\"[0-9a-f]{32}\"");
+                        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+                        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+                    })
+                    .verifyComplete();
+            assertThat(documentPaths).containsExactly("/scalar/openapi.json");
+        }
+
+        @Test
+        @DisplayName("should load the document only once")
+        void shouldLoadDocumentOnlyOnce() {
+            // When
+            Mono<ResponseEntity<byte[]>> first = controller.getOpenApiDocument(documentRequest().build());
+            Mono<ResponseEntity<byte[]>> second = controller.getOpenApiDocument(documentRequest().build());
+
+            // Then
+            StepVerifier.create(first.then(second)).expectNextCount(1).verifyComplete();
+            assertThat(loads).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should return the precompressed document when gzip is accepted")
+        void shouldReturnPrecompressedDocument() {
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getOpenApiDocument(
+                    documentRequest().header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+                        assertThat(gunzip(response.getBody())).isEqualTo(SPEC);
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should return not modified when the entity tag matches")
+        void shouldReturnNotModifiedWhenETagMatches() {
+            // Given
+            String eTag = controller.getOpenApiDocument(documentRequest().build()).block().getHeaders().getETag();
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getOpenApiDocument(
+                    documentRequest().header(HttpHeaders.IF_NONE_MATCH, eTag).build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                        assertThat(response.getHeaders().getETag()).isEqualTo(eTag);
+                        assertThat(response.getBody()).isNull();
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should retry after a failed load")
+        void shouldRetryAfterFailedLoad() {
+            // Given
+            AtomicInteger attempts = new AtomicInteger();
+            when(openApiDocumentProvider.getIfAvailable()).thenReturn(new ScalarWebFluxOpenApiDocument(
+                    (request, documentPath) -> attempts.incrementAndGet() == 1
+                            ? Mono.error(new IOException("not ready"))
+                            : Mono.just(SPEC.getBytes(StandardCharsets.UTF_8))));
+
+            // When / Then
+            StepVerifier.create(controller.getOpenApiDocument(documentRequest().build()))
+                    .expectErrorSatisfies(error -> assertThat(error).hasCauseInstanceOf(IOException.class))
+                    .verify();
+            StepVerifier.create(controller.getOpenApiDocument(documentRequest().build()))
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should embed the document into the page when embedSpec is enabled")
+        void shouldEmbedDocumentIntoPage() {
+            // Given
+            when(properties.isEmbedSpec()).thenReturn(true);
+            when(properties.getEmbedSpecMaxBytes()).thenReturn(512 * 1024);
+            when(properties.getUrl()).thenReturn("scalar/openapi.json");
+
+            // When
+            Mono<Resource> resourceMono = controller.getDocs(
+                    MockServerHttpRequest.get("/app/scalar").contextPath("/app").build());
+
+            // Then
+            StepVerifier.create(resourceMono)
+                    .assertNext(resource -> {
+                        try {
+                            String html = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                            assertThat(html)
+                                    .contains("\"content\":" + SPEC)
+                                    .doesNotContain("\"url\":\"scalar/openapi.json\"");
+                        } catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                    })
+                    .verifyComplete();
+            assertThat(documentPaths).containsExactly("/scalar");
+        }
+
+        @Test
+        @DisplayName("should return not found when springdoc is not enabled")
+        void shouldReturnNotFoundWhenNotEnabled() {
+            // Given
+            when(openApiDocumentProvider.getIfAvailable()).thenReturn(null);
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getOpenApiDocument(documentRequest().build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+        }
+
+        private String gunzip(byte[] content) {
+            try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /scalar/documents/{id} endpoint")
+    class GetDocumentEndpoint {
+
+        private static final String SPEC = "{\"openapi\":\"3.1.0\"}";
+
+        private final ScalarDocumentCache documentCache = mock(ScalarDocumentCache.class);
+
+        @BeforeEach
+        void setUp() {
+            lenient().when(documentCacheProvider.getIfAvailable()).thenReturn(documentCache);
+            lenient().when(properties.getUrl()).thenReturn("https://example.com/openapi.json");
+        }
+
+        @Test
+        @DisplayName("should return the cached copy of the configured url")
+        void shouldReturnCachedCopy() {
+            // Given
+            ScalarDocument document = ScalarDocument.of(SPEC.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(documentCache.getAsync("https://example.com/openapi.json"))
+                    .thenReturn(CompletableFuture.completedFuture(document));
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getETag()).isEqualTo(document.getETag());
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should return not found for documents that are not configured")
+        void shouldReturnNotFoundForUnknownDocuments() {
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument("7",
+                    MockServerHttpRequest.get("/scalar/documents/7").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should return not found when the document cache is not enabled")
+        void shouldReturnNotFoundWhenNotEnabled() {
+            // Given
+            when(documentCacheProvider.getIfAvailable()).thenReturn(null);
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should serve the document at a file location without the document cache")
+        void shouldServeFileDocument(@TempDir Path directory) throws Exception {
+            // Given
+            Path file = Files.writeString(directory.resolve("openapi.json"), SPEC);
+            when(properties.getUrl()).thenReturn(file.toUri().toString());
+            when(localDocumentsProvider.getIfAvailable())
+                    .thenReturn(new ScalarLocalDocuments(getClass().getClassLoader(), false));
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+                        assertThat(response.getHeaders().getETag()).isNotNull();
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+                    })
+                    .verifyComplete();
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should return the original of an optimized document")
+        void shouldReturnOriginalDocument() {
+            // Given
+            String original = "{\n  \"openapi\": \"3.1.0\"\n}\n";
+            ScalarDocument document = ScalarDocumentOptimizer.optimize(ScalarDocument.of(
+                    original.getBytes(StandardCharsets.UTF_8), ScalarDocument.JSON_MEDIA_TYPE));
+            when(documentCache.getAsync("https://example.com/openapi.json"))
+                    .thenReturn(CompletableFuture.completedFuture(document));
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getOriginalDocument(
+                    ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default/original").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getETag()).isEqualTo(document.getOriginal().getETag());
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(original);
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should serve the skeleton and fragments when splitting is enabled")
+        void shouldServeSkeletonAndFragments() {
+            // Given
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/pets\":{\"get\":{\"tags\":[\"pets\"]}}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentSplitEnabled()).thenReturn(true);
+            when(documentCache.getAsync("https://example.com/openapi.json"))
+                    .thenReturn(CompletableFuture.completedFuture(document));
+
+            // When / Then
+            StepVerifier.create(controller.getDocumentSkeleton(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                            MockServerHttpRequest.get("/scalar/documents/default/skeleton").build()))
+                    .assertNext(response -> {
+                        assertThat(response.getHeaders().getETag())
+                                .isEqualTo(document.getFragments().getSkeleton().getETag());
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+                                .contains("\"x-scalar-fragments\":[{\"id\":\"pets\",\"tag\":\"pets\",\"operations\":1}]");
+                    })
+                    .verifyComplete();
+            StepVerifier.create(controller.getDocumentFragment(ScalarDocumentCache.DEFAULT_DOCUMENT_ID, "pets",
+                            MockServerHttpRequest.get("/scalar/documents/default/fragments/pets").build()))
+                    .assertNext(response -> assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+                            .isEqualTo(spec))
+                    .verifyComplete();
+            StepVerifier.create(controller.getDocumentFragment(ScalarDocumentCache.DEFAULT_DOCUMENT_ID, "users",
+                            MockServerHttpRequest.get("/scalar/documents/default/fragments/users").build()))
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should return not found for skeletons when splitting is not enabled")
+        void shouldReturnNotFoundForSkeletonWhenNotEnabled() {
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocumentSkeleton(
+                    ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default/skeleton").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should serve the search index versioned by the document when enabled")
+        void shouldServeSearchIndex() {
+            // Given
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/pets\":{\"get\":{\"operationId\":\"listPets\"}}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentSearchIndexEnabled()).thenReturn(true);
+            when(documentCache.getAsync("https://example.com/openapi.json"))
+                    .thenReturn(CompletableFuture.completedFuture(document));
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocumentSearchIndex(
+                    ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default/search-index")
+                            .header("Accept-Encoding", "gzip").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+                        assertThat(response.getBody())
+                                .isEqualTo(document.getSearchIndex().getDocument().getGzipContent());
+                        assertThat(response.getHeaders().getETag())
+                                .isEqualTo(document.getSearchIndex().getDocument().getETag());
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should serve the compacted document and its report when compaction is enabled")
+        void shouldServeCompactedDocument() {
+            // Given
+            String schema = "{\"type\":\"object\",\"properties\":{\"code\":{\"type\":\"integer\"},"
+                    + "\"message\":{\"type\":\"string\",\"description\":\"A message describing the error\"}}}";
+            String responses = "{\"responses\":{\"default\":{\"content\":{\"application/json\":{\"schema\":"
+                    + schema + "}}}}}";
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/a\":{\"get\":" + responses + "},\"/b\":{\"get\":"
+                    + responses + "}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentCompactEnabled()).thenReturn(true);
+            when(documentCache.getAsync("https://example.com/openapi.json"))
+                    .thenReturn(CompletableFuture.completedFuture(document));
+
+            // When / Then
+            StepVerifier.create(controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                            MockServerHttpRequest.get("/scalar/documents/default").build()))
+                    .assertNext(response -> {
+                        assertThat(response.getHeaders().getETag())
+                                .isEqualTo(document.getCompaction().getDocument().getETag());
+                        assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+                                .contains("\"schema\":{\"$ref\":\"#/components/schemas/Response\"}");
+                    })
+                    .verifyComplete();
+            StepVerifier.create(controller.getDocumentCompaction(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                            MockServerHttpRequest.get("/scalar/documents/default/compaction").build()))
+                    .assertNext(response -> assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+                            .contains("\"compacted\":true",
+                                    "\"hoistedSchemas\":[{\"name\":\"Response\",\"occurrences\":2}]"))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should serve the aggregated document when aggregating")
+        void shouldServeAggregatedDocument() {
+            // Given
+            ScalarDocumentAggregator aggregator = mock(ScalarDocumentAggregator.class);
+            ScalarDocument document = ScalarDocument.of(SPEC.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(documentAggregatorProvider.getIfAvailable()).thenReturn(aggregator);
+            when(aggregator.getAsync()).thenReturn(CompletableFuture.completedFuture(document));
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument(
+                    ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/aggregate").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getETag()).isEqualTo(document.getETag());
+                    })
+                    .verifyComplete();
+            verifyNoInteractions(documentCache);
+        }
+    }
+
+    @Nested
+    @DisplayName("exported site")
+    class ExportedSite {
+
+        @TempDir
+        Path directory;
+
+        private ScalarSite site;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            Path spec = Files.writeString(directory.resolve("openapi.json"), "{\"openapi\":\"3.1.0\"}");
+            ScalarProperties exported = new ScalarProperties();
+            exported.setUrl(spec.toUri().toString());
+            exported.setPageTitle("Exported");
+            site = ScalarSite.export(exported, getClass().getClassLoader());
+            when(siteProvider.getIfAvailable()).thenReturn(site);
+        }
+
+        @Test
+        @DisplayName("should serve the exported page without rendering it")
+        void shouldServeExportedPage() {
+            // When
+            Mono<Resource> resourceMono = controller.getDocs(MockServerHttpRequest.get("/scalar").build());
 
             // Then
             StepVerifier.create(resourceMono)
                     .assertNext(resource -> {
-                        assertThat(resource).isNotNull();
-                        assertThat(resource.exists()).isTrue();
                         try {
-                            byte[] content = resource.getInputStream().readAllBytes();
-                            assertThat(content)
-                                    .isNotNull()
-                                    .isNotEmpty();
+                            assertThat(new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                                    .isEqualTo(site.getPage())
+                                    .contains("scalar/" + site.getBundleFileName());
                         } catch (IOException e) {
                             throw new RuntimeException(e);
                         }
                     })
                     .verifyComplete();
+            verifyNoInteractions(propertiesProvider);
+        }
+
+        @Test
+        @DisplayName("should serve the hashed bundle for good")
+        void shouldServeHashedBundle() {
+            // Given
+            ServerHttpRequest bundleRequest = MockServerHttpRequest.get("/scalar/" + site.getBundleFileName()).build();
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getHashedScalarJs(site.getBundleFileName(),
+                    bundleRequest);
+            Mono<ResponseEntity<byte[]>> staleMono = controller.getHashedScalarJs("scalar.0123456789abcdef.js",
+                    bundleRequest);
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getCacheControl())
+                                .isEqualTo("max-age=31536000, public, immutable");
+                        assertThat(response.getHeaders().getETag()).isEqualTo(site.getBundle().getETag());
+                        assertThat(response.getBody()).isEqualTo(site.getBundle().getContent());
+                    })
+                    .verifyComplete();
+            StepVerifier.create(staleMono)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should serve the exported documents")
+        void shouldServeExportedDocuments() {
+            // Given
+            when(properties.isDocumentCompactEnabled()).thenReturn(false);
+
+            // When
+            Mono<ResponseEntity<byte[]>> responseMono = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    MockServerHttpRequest.get("/scalar/documents/default").build());
+
+            // Then
+            StepVerifier.create(responseMono)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getETag()).isEqualTo(site.getDocument("default").getETag());
+                    })
+                    .verifyComplete();
+            verifyNoInteractions(localDocumentsProvider, documentCacheProvider);
         }
     }
-}
 
+    @Nested
+    @DisplayName("/scalar/proxy endpoint")
+    class ProxyEndpoint {
+
+        private HttpServer server;
+
+        private ScalarWebFluxProxyClient proxyClient;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            proxyClient = ScalarWebFluxProxyClient.of(10, Duration.ofSeconds(5));
+            when(proxyClientProvider.getIfAvailable()).thenReturn(proxyClient);
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", exchange -> {
+                byte[] body;
+                try (InputStream inputStream = exchange.getRequestBody()) {
+                    body = (exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                            + new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+                            .getBytes(StandardCharsets.UTF_8);
+                }
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                exchange.getResponseHeaders().set("Set-Cookie", "session=abc");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+                exchange.close();
+            });
+            server.start();
+        }
+
+        @AfterEach
+        void tearDown() throws Exception {
+            server.stop(0);
+            proxyClient.close();
+        }
+
+        private MockServerHttpRequest.BodyBuilder proxyRequest(HttpMethod method, String url) {
+            return MockServerHttpRequest.method(method,
+                    URI.create("/scalar/proxy?scalar_url=" + URLEncoder.encode(url, StandardCharsets.UTF_8)));
+        }
+
+        @Test
+        @DisplayName("should forward the request and stream the response")
+        void shouldForwardRequest() {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            String body = "{\"name\":\"Rex\"}";
+            MockServerWebExchange exchange = MockServerWebExchange.from(proxyRequest(HttpMethod.POST,
+                    "http://localhost:" + server.getAddress().getPort() + "/pets?limit=1")
+                    .contentLength(body.length())
+                    .body(body));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getHeaders().getFirst(ScalarProxy.SET_COOKIE_HEADER))
+                    .isEqualTo("session=abc");
+            assertThat(exchange.getResponse().getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+            StepVerifier.create(exchange.getResponse().getBodyAsString())
+                    .expectNext("POST /pets?limit=1 {\"name\":\"Rex\"}")
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should hand requests to the application itself to its HTTP handler")
+        void shouldDispatchLocally() {
+            // Given
+            when(properties.isProxyLocalDispatchEnabled()).thenReturn(true);
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            List<ServerHttpRequest> handled = new ArrayList<>();
+            when(httpHandlerProvider.getIfAvailable()).thenReturn((request, response) -> {
+                handled.add(request);
+                response.addCookie(ResponseCookie.from("session", "new").build());
+                return response.writeWith(Mono.just(response.bufferFactory()
+                        .wrap("pets".getBytes(StandardCharsets.UTF_8))));
+            });
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(HttpMethod.GET,
+                            URI.create("http://localhost:8080/scalar/proxy?scalar_url="
+                                    + URLEncoder.encode("http://localhost:8080/pets?limit=1", StandardCharsets.UTF_8)))
+                    .header("Authorization", "Bearer token")
+                    .header("Cookie", "SESSION=page")
+                    .header("X-Scalar-Cookie", "session=api"));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(handled).singleElement().satisfies(request -> {
+                assertThat(request.getPath().value()).isEqualTo("/pets");
+                assertThat(request.getQueryParams().getFirst("limit")).isEqualTo("1");
+                assertThat(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer token");
+                assertThat(request.getHeaders().get(HttpHeaders.COOKIE)).containsExactly("session=api");
+            });
+            assertThat(exchange.getResponse().getHeaders().getFirst(ScalarProxy.SET_COOKIE_HEADER))
+                    .isEqualTo("session=new");
+            assertThat(exchange.getResponse().getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+            assertThat(exchange.getResponse().getHeaders().getFirst(ScalarProxy.FORWARDED_HOST_HEADER))
+                    .isEqualTo("http://localhost:8080/pets?limit=1");
+            StepVerifier.create(exchange.getResponse().getBodyAsString()).expectNext("pets").verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should refuse hosts that are not allowed")
+        void shouldRefuseHostsNotAllowed() {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("api.example.com"),
+                    Duration.ofSeconds(5)));
+            MockServerWebExchange exchange = MockServerWebExchange.from(proxyRequest(HttpMethod.GET,
+                    "http://localhost:" + server.getAddress().getPort() + "/"));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+            StepVerifier.create(exchange.getResponse().getBodyAsString())
+                    .assertNext(message -> assertThat(message).contains("scalar.proxyAllowedHosts"))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should reject requests beyond the limits with 429")
+        void shouldRejectRequestsBeyondLimits() throws IOException {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 0, Duration.ofSeconds(5));
+            limiter.acquire("127.0.0.1");
+            when(proxyLimiterProvider.getIfAvailable()).thenReturn(limiter);
+            MockServerWebExchange exchange = MockServerWebExchange.from(proxyRequest(HttpMethod.GET,
+                    "http://localhost:" + server.getAddress().getPort() + "/pets")
+                    .remoteAddress(new InetSocketAddress("127.0.0.1", 54321)));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            StepVerifier.create(exchange.getResponse().getBodyAsString())
+                    .assertNext(message -> assertThat(message).contains("try again later"))
+                    .verifyComplete();
+            assertThat(limiter.getRejectedRequests()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should serve responses upstream allows to cache from the cache")
+        void shouldServeCachedResponses() {
+            // Given
+            AtomicInteger requests = new AtomicInteger();
+            server.createContext("/cached", exchange -> {
+                byte[] body = ("response " + requests.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            });
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            when(proxyCacheProvider.getIfAvailable()).thenReturn(new ScalarProxyCache(1024, 1024, null));
+            String url = "http://localhost:" + server.getAddress().getPort() + "/cached";
+            StepVerifier.create(controller.proxy(MockServerWebExchange.from(proxyRequest(HttpMethod.GET, url))))
+                    .verifyComplete();
+            MockServerWebExchange exchange = MockServerWebExchange.from(proxyRequest(HttpMethod.GET, url));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(requests).hasValue(1);
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getHeaders().getFirst(ScalarProxyCache.AGE_HEADER)).isEqualTo("0");
+            StepVerifier.create(exchange.getResponse().getBodyAsString())
+                    .expectNext("response 1")
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should return 404 when the proxy is disabled")
+        void shouldReturn404WhenDisabled() {
+            // Given
+            MockServerWebExchange exchange = MockServerWebExchange.from(proxyRequest(HttpMethod.GET,
+                    "https://api.example.com/"));
+
+            // When
+            Mono<Void> result = controller.proxy(exchange);
+
+            // Then
+            StepVerifier.create(result).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @Nested
+    @DisplayName("/scalar/token endpoint")
+    class TokenEndpoint {
+
+        private HttpServer server;
+
+        private ScalarTokenRelay tokenRelay;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/token", exchange -> {
+                byte[] body = "{\"access_token\":\"abc\",\"token_type\":\"Bearer\",\"expires_in\":3600}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            });
+            server.start();
+            ClientCredentialsFlow flow = new ClientCredentialsFlow();
+            flow.setClientId("docs");
+            flow.setClientSecret("s3cr3t");
+            flow.setTokenUrl("http://localhost:" + server.getAddress().getPort() + "/token");
+            flow.setSelectedScopes(List.of("read"));
+            ScalarFlows flows = new ScalarFlows();
+            flows.setClientCredentials(flow);
+            ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+            scheme.setFlows(flows);
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setOauth2(Map.of("oauth", scheme));
+            tokenRelay = new ScalarTokenRelay(authentication, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        }
+
+        @AfterEach
+        void tearDown() {
+            server.stop(0);
+        }
+
+        @Test
+        @DisplayName("should serve the token requested with the configured credentials")
+        void shouldServeToken() {
+            // Given
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                    .post("/scalar/token?scheme=oauth")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body("grant_type=client_credentials&scope=read"));
+
+            // When
+            Mono<ResponseEntity<String>> result = controller.token(exchange);
+
+            // Then
+            StepVerifier.create(result)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-store");
+                        assertThat(response.getBody()).contains("\"access_token\":\"abc\"");
+                    })
+                    .verifyComplete();
+            assertThat(tokenRelay.getTokenCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should return 404 for unknown schemes and when the relay is disabled")
+        void shouldReturn404() {
+            // Given
+            MockServerHttpRequest tokenRequest = MockServerHttpRequest.post("/scalar/token?scheme=missing")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body("");
+
+            // When
+            Mono<ResponseEntity<String>> disabled = controller.token(MockServerWebExchange.from(tokenRequest));
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            Mono<ResponseEntity<String>> unknown = controller.token(MockServerWebExchange.from(tokenRequest));
+
+            // Then
+            StepVerifier.create(disabled)
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                    .verifyComplete();
+            StepVerifier.create(unknown)
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+                        assertThat(response.getBody()).contains("missing");
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should reject undeclared scopes and, if required, unauthenticated callers")
+        void shouldRejectUndeclaredScopesAndAnonymousCallers() {
+            // Given
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockServerHttpRequest tokenRequest = MockServerHttpRequest.post("/scalar/token?scheme=oauth")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body("scope=read+admin");
+
+            // When
+            ResponseEntity<String> undeclared = controller.token(MockServerWebExchange.from(tokenRequest)).block();
+            when(properties.isTokenRelayAuthenticationRequired()).thenReturn(true);
+            ResponseEntity<String> anonymous = controller.token(MockServerWebExchange.from(tokenRequest)).block();
+
+            // Then
+            assertThat(undeclared.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(undeclared.getBody()).contains("[admin]");
+            assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+            assertThat(tokenRelay.getTokenCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should only serve authenticated callers by default")
+        void shouldRequireAuthenticationByDefault() {
+            // Given
+            when(propertiesProvider.getObject()).thenReturn(new SpringBootScalarProperties());
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockServerHttpRequest tokenRequest = MockServerHttpRequest.post("/scalar/token?scheme=oauth")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body("grant_type=client_credentials");
+            Principal developer = () -> "developer";
+
+            // When
+            ResponseEntity<String> anonymous = controller.token(MockServerWebExchange.from(tokenRequest)).block();
+            ResponseEntity<String> authenticated = controller.token(MockServerWebExchange.from(tokenRequest)
+                    .mutate()
+                    .principal(Mono.just(developer))
+                    .build()).block();
+
+            // Then
+            assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+            assertThat(anonymous.getHeaders().getCacheControl()).isEqualTo("no-store");
+            assertThat(authenticated.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(tokenRelay.getTokenCount()).isEqualTo(1);
+        }
+    }
+}
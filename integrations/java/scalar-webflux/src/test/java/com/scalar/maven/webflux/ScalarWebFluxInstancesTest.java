@@ -0,0 +1,171 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.EntityResponse;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarWebFluxInstances")
+class ScalarWebFluxInstancesTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Public\"}}";
+
+    @TempDir
+    Path directory;
+
+    private ScalarLocalDocuments localDocuments;
+    private ScalarWebFluxInstances routes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.writeString(directory.resolve("public.json"), SPEC);
+        ScalarProperties publicInstance = new ScalarProperties();
+        publicInstance.setUrl(file.toUri().toString());
+        ScalarProperties partnerInstance = new ScalarProperties();
+        partnerInstance.setPath("/docs/partner");
+        partnerInstance.setUrl("/partner.json");
+        Map<String, ScalarProperties> configured = new LinkedHashMap<>();
+        configured.put("public", publicInstance);
+        configured.put("partner", partnerInstance);
+        ScalarProperties properties = new ScalarProperties();
+        properties.setInstances(configured);
+
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false);
+        routes = new ScalarWebFluxInstances(ScalarInstance.of(properties), localDocuments, null, null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        localDocuments.close();
+    }
+
+    private static ServerRequest request(MockServerHttpRequest request) {
+        return ServerRequest.create(MockServerWebExchange.from(request),
+                HandlerStrategies.withDefaults().messageReaders());
+    }
+
+    private ServerResponse handle(MockServerHttpRequest mockRequest) {
+        ServerRequest request = request(mockRequest);
+        return routes.route(request).flatMap(handler -> handler.handle(request)).block();
+    }
+
+    private static Object entity(ServerResponse response) {
+        return ((EntityResponse<?>) response).entity();
+    }
+
+    @Test
+    @DisplayName("should serve the page of each instance at its path")
+    void shouldServePages() {
+        // When
+        ServerResponse publicPage = handle(MockServerHttpRequest.get("/scalar/public").build());
+        ServerResponse partnerPage = handle(MockServerHttpRequest.get("/docs/partner").build());
+
+        // Then
+        assertThat(publicPage.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(publicPage.headers().getContentType()).isEqualTo(MediaType.TEXT_HTML);
+        assertThat((String) entity(publicPage)).contains("public/documents/default");
+        assertThat((String) entity(partnerPage)).contains("/partner.json");
+    }
+
+    @Test
+    @DisplayName("should serve the JavaScript bundle below each instance")
+    void shouldServeBundle() {
+        // When
+        ServerResponse response = handle(MockServerHttpRequest.get("/docs/partner/scalar.js").build());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.headers().getContentType()).isEqualTo(MediaType.valueOf("application/javascript"));
+    }
+
+    @Test
+    @DisplayName("should serve the local documents of each instance below its path")
+    void shouldServeDocuments() {
+        // When
+        ServerResponse response = handle(MockServerHttpRequest.get("/scalar/public/documents/default").build());
+        ServerResponse notModified = handle(MockServerHttpRequest.get("/scalar/public/documents/default")
+                .header(HttpHeaders.IF_NONE_MATCH, response.headers().getETag())
+                .build());
+        ServerResponse remote = handle(MockServerHttpRequest.get("/docs/partner/documents/default").build());
+        ServerResponse unknown = handle(MockServerHttpRequest.get("/scalar/public/documents/0").build());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.headers().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(new String((byte[]) entity(response), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+        assertThat(notModified.statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(remote.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(unknown.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("should not route other methods and paths")
+    void shouldNotRouteOtherRequests() {
+        // When / Then
+        StepVerifier.create(routes.route(request(MockServerHttpRequest.post("/scalar/public").build())))
+                .verifyComplete();
+        StepVerifier.create(routes.route(request(MockServerHttpRequest.get("/scalar/other").build())))
+                .verifyComplete();
+        StepVerifier.create(routes.route(request(MockServerHttpRequest.get("/scalar/public/documents/").build())))
+                .verifyComplete();
+        StepVerifier.create(routes.route(request(
+                        MockServerHttpRequest.get("/scalar/public/documents/default/original").build())))
+                .verifyComplete();
+    }
+
+    @Nested
+    @DisplayName("OnInstancesCondition")
+    class OnInstancesConditionTest {
+
+        private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ScalarWebFluxAutoConfiguration.class));
+
+        @Test
+        @DisplayName("should serve the instances when any is configured")
+        void shouldServeConfiguredInstances() {
+            contextRunner
+                    .withPropertyValues("scalar.instances.public.url=/public.json",
+                            "scalar.instances.partner.path=/docs/partner")
+                    .run(context -> {
+                        assertThat(context).hasSingleBean(ScalarWebFluxInstances.class);
+                        assertThat(context.getBean(ScalarWebFluxInstances.class).getInstances())
+                                .extracting(ScalarInstance::getPath)
+                                .containsExactlyInAnyOrder("/scalar/public", "/docs/partner");
+                        assertThat(context.getBean(SpringBootScalarProperties.class).getInstances()
+                                .get("public").getPath()).isEqualTo("/scalar");
+                    });
+        }
+
+        @Test
+        @DisplayName("should not serve instances when none is configured")
+        void shouldNotServeWithoutInstances() {
+            contextRunner.run(context -> assertThat(context).doesNotHaveBean(ScalarWebFluxInstances.class));
+        }
+    }
+}
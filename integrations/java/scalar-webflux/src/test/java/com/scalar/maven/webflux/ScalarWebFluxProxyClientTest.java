@@ -0,0 +1,210 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.proxy.ScalarProxyException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarWebFluxProxyClient")
+class ScalarWebFluxProxyClientTest {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final int CHUNKS = 8192;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private ScalarWebFluxProxyClient proxyClient;
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final CountDownLatch upstreamClosed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/upload", this::upload);
+        server.createContext("/download", this::download);
+        server.createContext("/events", this::events);
+        server.start();
+        proxyClient = ScalarWebFluxProxyClient.of(10, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+        proxyClient.close();
+    }
+
+    private void upload(HttpExchange exchange) throws IOException {
+        long length = 0;
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                length += read;
+            }
+        }
+        byte[] content = Long.toString(length).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content);
+        }
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            for (int i = 0; i < CHUNKS; i++) {
+                outputStream.write(chunk);
+                written.addAndGet(chunk.length);
+            }
+        }
+    }
+
+    private void events(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            while (true) {
+                outputStream.write("data: tick\n\n".getBytes(StandardCharsets.UTF_8));
+                outputStream.flush();
+                Thread.sleep(10);
+            }
+        } catch (IOException e) {
+            upstreamClosed.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    @DisplayName("should stream large request bodies upstream as they are demanded")
+    void shouldStreamRequestBodies() {
+        // Given
+        AtomicLong maxDemand = new AtomicLong();
+        Flux<DataBuffer> body = Flux.range(0, CHUNKS)
+                .<DataBuffer>map(i -> DefaultDataBufferFactory.sharedInstance.wrap(new byte[CHUNK_SIZE]))
+                .doOnRequest(demand -> maxDemand.accumulateAndGet(demand, Math::max));
+        MockServerHttpRequest request = MockServerHttpRequest.method(HttpMethod.POST, URI.create("/scalar/proxy"))
+                .contentLength((long) CHUNK_SIZE * CHUNKS)
+                .body(body);
+        MockServerHttpResponse response = new MockServerHttpResponse();
+
+        // When
+        Mono<Void> result = proxyClient.forward(url("/upload"), request, response);
+
+        // Then
+        StepVerifier.create(result).expectComplete().verify(Duration.ofSeconds(30));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        StepVerifier.create(response.getBodyAsString())
+                .expectNext(Long.toString((long) CHUNK_SIZE * CHUNKS))
+                .verifyComplete();
+        assertThat(maxDemand.get()).isLessThan(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("should only read the response body from upstream as fast as the client takes it")
+    void shouldStreamResponseBodies() {
+        // Given
+        MockServerHttpRequest request = MockServerHttpRequest.get("/scalar/proxy").build();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        AtomicLong received = new AtomicLong();
+        AtomicLong writtenWhilePaused = new AtomicLong();
+        response.setWriteHandler(body -> body
+                .concatMap(buffer -> {
+                    long offset = received.getAndAdd(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                    // The client stalls after the first buffer, upstream may only fill the buffers in between
+                    return offset > 0 ? Mono.empty() : Mono.delay(Duration.ofMillis(500))
+                            .doOnNext(tick -> writtenWhilePaused.set(written.get()))
+                            .then();
+                }, 1)
+                .then());
+
+        // When
+        Mono<Void> result = proxyClient.forward(url("/download"), request, response);
+
+        // Then
+        StepVerifier.create(result).expectComplete().verify(Duration.ofSeconds(30));
+        assertThat(received.get()).isEqualTo((long) CHUNK_SIZE * CHUNKS);
+        assertThat(writtenWhilePaused.get()).isLessThan((long) CHUNK_SIZE * CHUNKS / 2);
+    }
+
+    @Test
+    @DisplayName("should close the upstream connection when the client goes away")
+    void shouldCancelUpstream() throws InterruptedException {
+        // Given
+        MockServerHttpRequest request = MockServerHttpRequest.get("/scalar/proxy").build();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        response.setWriteHandler(body -> body
+                .doOnNext(DataBufferUtils::release)
+                .take(3)
+                .then());
+
+        // When
+        Mono<Void> result = proxyClient.forward(url("/events"), request, response);
+
+        // Then
+        StepVerifier.create(result).expectComplete().verify(Duration.ofSeconds(10));
+        assertThat(upstreamClosed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should report hosts that cannot be reached as bad gateway")
+    void shouldReportUnreachableHosts() {
+        // Given
+        URI target = url("/download");
+        server.stop(0);
+
+        // When
+        Mono<Void> result = proxyClient.forward(target, MockServerHttpRequest.get("/scalar/proxy").build(),
+                new MockServerHttpResponse());
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(ScalarProxyException.class)
+                        .extracting("status").isEqualTo(502))
+                .verify(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,72 @@
+package com.scalar.maven.webflux;
+
+import com.scalar.maven.core.ScalarWarmUp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScalarWebFluxWarmUp")
+class ScalarWebFluxWarmUpTest {
+
+    @Mock
+    private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
+
+    private SpringBootScalarProperties properties;
+
+    private BufferingApplicationStartup applicationStartup;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SpringBootScalarProperties();
+        when(propertiesProvider.getObject()).thenReturn(properties);
+        applicationStartup = new BufferingApplicationStartup(32);
+    }
+
+    private List<String> recordedSteps() {
+        return applicationStartup.getBufferedTimeline().getEvents().stream()
+                .map(StartupTimeline.TimelineEvent::getStartupStep)
+                .map(step -> step.getName())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("should record the warm-up steps")
+    void shouldRecordWarmUpSteps() {
+        // When
+        new ScalarWebFluxWarmUp(propertiesProvider, applicationStartup).afterSingletonsInstantiated();
+
+        // Then
+        assertThat(recordedSteps()).containsExactly(
+                ScalarWebFluxWarmUp.PROPERTIES_BINDING,
+                ScalarWarmUp.BUNDLE_PRELOAD,
+                ScalarWarmUp.BUNDLE_HASH,
+                ScalarWarmUp.TEMPLATE_COMPILE,
+                ScalarWarmUp.SERIALIZER_RESOLVE);
+    }
+
+    @Test
+    @DisplayName("should only bind the properties when warm-up is disabled")
+    void shouldOnlyBindPropertiesWhenDisabled() {
+        // Given
+        properties.setWarmUpEnabled(false);
+
+        // When
+        new ScalarWebFluxWarmUp(propertiesProvider, applicationStartup).afterSingletonsInstantiated();
+
+        // Then
+        assertThat(recordedSteps()).containsExactly(ScalarWebFluxWarmUp.PROPERTIES_BINDING);
+    }
+}
@@ -1,7 +1,11 @@
 package com.scalar.maven.webmvc;
 
-import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarAssetService;
 import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +24,9 @@ import java.io.IOException;
  * This endpoint provides access to the Scalar API Reference interface through
  * Spring Boot Actuator endpoints. It serves the same HTML content as the
  * regular ScalarWebMvcController but is accessible at the actuator path.
+ * Both are backed by the same {@link ScalarAssetService}, so the actuator path
+ * serves the same bytes with the same caching headers and takes no memory of
+ * its own.
  * </p>
  *
  * <p>
@@ -38,6 +45,12 @@ public class ScalarWebMvcActuatorEndpoint {
     @Autowired
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     /**
      * Serves the Scalar API Reference interface as an actuator endpoint.
      *
@@ -53,14 +66,20 @@ public class ScalarWebMvcActuatorEndpoint {
      */
     @ReadOperation(produces = MediaType.TEXT_HTML_VALUE)
     public final ResponseEntity<String> scalarUi(HttpServletRequest request) throws IOException {
-        ScalarProperties properties = propertiesProvider.getObject();
-        ScalarProperties configuredProperties = configureProperties(properties, request);
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.PAGE, () -> {
+            ScalarProperties properties = observer.observe(ScalarRenderStep.PROPERTIES_BINDING,
+                    propertiesProvider::getObject);
+            ScalarProperties configuredProperties = observer.observe(ScalarRenderStep.CONFIGURE_PROPERTIES,
+                    () -> configureProperties(properties, request));
 
-        String html = ScalarHtmlRenderer.render(configuredProperties);
+            String html = ScalarWebMvcController.assetService(assetServiceProvider)
+                    .renderWithCredentials(configuredProperties, null, observer, null, request.getContextPath());
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_HTML)
-                .body(html);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    .body(html);
+        });
     }
 
     /**
@@ -68,18 +87,35 @@ public class ScalarWebMvcActuatorEndpoint {
      *
      * <p>
      * This endpoint returns the JavaScript file that powers the Scalar API
-     * Reference interface. The file is served with the appropriate MIME type.
+     * Reference interface, with the same headers as the regular
+     * ScalarWebMvcController.
      * </p>
      *
+     * @param request the HTTP request
      * @return a ResponseEntity containing the JavaScript bundle
      * @throws IOException if the JavaScript file cannot be loaded
      */
-    @ReadOperation(produces = "application/javascript")
+    @ReadOperation(produces = ScalarAssetService.BUNDLE_MEDIA_TYPE)
+    public final ResponseEntity<byte[]> scalarJs(HttpServletRequest request) throws IOException {
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.BUNDLE, () -> ScalarWebMvcController.documentResponse(
+                ScalarWebMvcController.assetService(assetServiceProvider).getBundle(observer), request));
+    }
+
+    /**
+     * Gets the JavaScript bundle without an entity tag or compression.
+     *
+     * @return a ResponseEntity containing the JavaScript bundle
+     * @throws IOException if the JavaScript file cannot be loaded
+     * @deprecated use {@link #scalarJs(HttpServletRequest)}, which serves the
+     * bundle with an entity tag and gzip
+     */
+    @Deprecated
     public final ResponseEntity<byte[]> scalarJs() throws IOException {
-        byte[] jsContent = ScalarHtmlRenderer.getScalarJsContent();
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("application/javascript"))
-                .body(jsContent);
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.BUNDLE, () -> ResponseEntity.ok()
+                .contentType(MediaType.valueOf(ScalarAssetService.BUNDLE_MEDIA_TYPE))
+                .body(ScalarWebMvcController.assetService(assetServiceProvider).getBundle(observer).getContent()));
     }
 
     /**
@@ -94,4 +130,14 @@ public class ScalarWebMvcActuatorEndpoint {
     protected ScalarProperties configureProperties(ScalarProperties properties, HttpServletRequest request) {
         return properties;
     }
+
+    /**
+     * Creates the observer that reports the serving steps to the application's
+     * {@link ObservationRegistry}, or a no-op observer if there is none.
+     *
+     * @return the observer for the current request
+     */
+    private ScalarRenderObserver renderObserver() {
+        return ObservationScalarRenderObserver.create(observationRegistryProvider.getIfAvailable(), "actuator");
+    }
 }
@@ -1,18 +1,55 @@
 package com.scalar.maven.webmvc;
 
+import com.scalar.maven.core.ScalarAssetService;
 import com.scalar.maven.core.ScalarConstants;
-import com.scalar.maven.core.ScalarHtmlRenderer;
 import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import com.scalar.maven.core.ScalarSite;
+import com.scalar.maven.core.ScalarTenantCache;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyException;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * REST controller for serving the Scalar API Reference interface in Spring WebMVC applications.
@@ -32,9 +69,35 @@ import java.io.IOException;
  * </ul>
  *
  * <p>
+ * When {@code scalar.springDocEnabled} is set, it also serves the OpenAPI
+ * document generated by springdoc-openapi at {@code /scalar/openapi.json}, or
+ * embeds it into the page when {@code scalar.embedSpec} is set as well. When
+ * {@code scalar.documentCacheEnabled} is set, it serves cached copies of the
+ * remote documents at {@code /scalar/documents/{id}}, where it always serves the
+ * documents at {@code file:} and {@code classpath:} locations as well.
+ * When {@code scalar.documentSplitEnabled} is set, the skeletons and per-tag
+ * fragments of these documents are served below them, and when
+ * {@code scalar.documentSearchIndexEnabled} is set, their search indexes. When
+ * {@code scalar.documentCompactEnabled} is set, duplicate inline schemas are
+ * replaced with references in all of these. When
+ * {@code scalar.aggregationEnabled} is set, the documents of the upstream
+ * services are merged and served at {@code /scalar/documents/aggregate}.
+ * When {@code scalar.siteEnabled} is set, the page, the hashed JavaScript
+ * bundle and the documents of the site exported at build time are served
+ * instead. When {@code scalar.proxyEnabled} is set, the test requests of the
+ * API client are forwarded through {@code /scalar/proxy}.
+ * </p>
+ *
+ * <p>
  * This controller can be extended to customize behavior by overriding the
  * {@link #configureProperties(ScalarProperties, HttpServletRequest)} method.
  * </p>
+ *
+ * <p>
+ * When the application provides a Micrometer {@link ObservationRegistry}, each
+ * request is recorded as an observation with child observations for the
+ * individual {@link ScalarRenderStep}s.
+ * </p>
  */
 @RestController
 @ConditionalOnMissingBean(ScalarWebMvcController.class)
@@ -43,6 +106,48 @@ public class ScalarWebMvcController {
     @Autowired
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebMvcOpenApiDocument> openApiDocumentProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarDocumentAggregator> documentAggregatorProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarSite> siteProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxy> proxyProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxyLimiter> proxyLimiterProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarProxyCache> proxyCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarTokenRelay> tokenRelayProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebMvcCredentialsResolver> credentialsResolverProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarTenantCache> tenantCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarWebMvcTenantResolver> tenantResolverProvider;
+
+    @Autowired
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     /**
      * Serves the main API Reference interface.
      *
@@ -59,14 +164,30 @@ public class ScalarWebMvcController {
      */
     @GetMapping("${scalar.path:/scalar}")
     public final ResponseEntity<String> getDocs(HttpServletRequest request) throws IOException {
-        ScalarProperties properties = propertiesProvider.getObject();
-        ScalarProperties configuredProperties = configureProperties(properties, request);
+        ScalarSite site = siteProvider.getIfAvailable();
+        if (site != null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    .body(site.getPage());
+        }
+
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.PAGE, () -> {
+            ScalarProperties properties = observer.observe(ScalarRenderStep.PROPERTIES_BINDING,
+                    propertiesProvider::getObject);
+            ScalarProperties configuredProperties = observer.observe(ScalarRenderStep.CONFIGURE_PROPERTIES,
+                    () -> configureProperties(properties, request));
 
-        String html = ScalarHtmlRenderer.render(configuredProperties);
+            ScalarDocument document = embeddedDocument(configuredProperties, request, observer);
+            ScalarCredentials credentials = credentials(configuredProperties, request);
+            String html = render(configuredProperties, document, credentials, request, observer);
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_HTML)
-                .body(html);
+            // Pages with the credentials of a user must not be stored by shared caches
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    .cacheControl(credentials != null ? CacheControl.noStore() : CacheControl.empty())
+                    .body(html);
+        });
     }
 
     /**
@@ -74,18 +195,404 @@ public class ScalarWebMvcController {
      *
      * <p>
      * This endpoint returns the JavaScript file that powers the Scalar API
-     * Reference interface. The file is served with the appropriate MIME type.
+     * Reference interface. The file is served with the appropriate MIME type,
+     * an entity tag for revalidation, and the precompressed variant to clients
+     * that accept gzip.
      * </p>
      *
+     * @param request the HTTP request
      * @return a ResponseEntity containing the JavaScript bundle
      * @throws IOException if the JavaScript file cannot be loaded
      */
     @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.JS_FILENAME)
+    public final ResponseEntity<byte[]> getScalarJs(HttpServletRequest request) throws IOException {
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.BUNDLE,
+                () -> documentResponse(assetService(assetServiceProvider).getBundle(observer), request));
+    }
+
+    /**
+     * Gets the JavaScript bundle without an entity tag or compression.
+     *
+     * @return a ResponseEntity containing the JavaScript bundle
+     * @throws IOException if the JavaScript file cannot be loaded
+     * @deprecated use {@link #getScalarJs(HttpServletRequest)}, which serves the
+     * bundle with an entity tag and gzip
+     */
+    @Deprecated
     public final ResponseEntity<byte[]> getScalarJs() throws IOException {
-        byte[] jsContent = ScalarHtmlRenderer.getScalarJsContent();
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("application/javascript"))
-                .body(jsContent);
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.BUNDLE, () -> ResponseEntity.ok()
+                .contentType(MediaType.valueOf(ScalarAssetService.BUNDLE_MEDIA_TYPE))
+                .body(assetService(assetServiceProvider).getBundle(observer).getContent()));
+    }
+
+    /**
+     * Serves the JavaScript bundle of the exported site under its hashed name.
+     *
+     * <p>
+     * The name changes with the content, so the bundle is cached for a year
+     * without revalidation, and the precompressed variant is sent to clients
+     * that accept gzip. Responds with {@code 404 Not Found} unless
+     * {@code scalar.siteEnabled} is set.
+     * </p>
+     *
+     * @param file    the hashed name of the bundle
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the JavaScript bundle
+     */
+    @GetMapping("${scalar.path:/scalar}/{file:scalar\\.[0-9a-f]+\\.js}")
+    public final ResponseEntity<byte[]> getHashedScalarJs(@PathVariable("file") String file,
+                                                          HttpServletRequest request) {
+        ScalarSite site = siteProvider.getIfAvailable();
+        if (site == null || !site.getBundleFileName().equals(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        ScalarDocument bundle = site.getBundle();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf(bundle.getMediaType()))
+                .eTag(bundle.getETag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = bundle.hasGzipContent()
+                && ScalarDocument.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(bundle.getGzipContent());
+        }
+        return response.body(bundle.getContent());
+    }
+
+    /**
+     * Serves the OpenAPI document of the application from memory.
+     *
+     * <p>
+     * The response carries an entity tag, so clients revalidating with
+     * {@code If-None-Match} receive a {@code 304 Not Modified}, and the
+     * precompressed variant is sent to clients that accept gzip. Responds with
+     * {@code 404 Not Found} unless {@code scalar.springDocEnabled} is set.
+     * </p>
+     *
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the OpenAPI document
+     * @throws IOException if the document cannot be produced
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.OPENAPI_FILENAME)
+    public final ResponseEntity<byte[]> getOpenApiDocument(HttpServletRequest request) throws IOException {
+        ScalarWebMvcOpenApiDocument openApiDocument = openApiDocumentProvider.getIfAvailable();
+        if (openApiDocument == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+            boolean cached = openApiDocument.isLoaded();
+            ScalarDocument document = openApiDocument.get(request);
+            observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+
+            return documentResponse(document, request);
+        });
+    }
+
+    /**
+     * Serves the local copy of a configured OpenAPI document.
+     *
+     * <p>
+     * The id is {@code default} for {@code scalar.url} or the index of one of the
+     * {@code scalar.sources}; only configured documents are served. Documents at
+     * {@code file:} and {@code classpath:} locations are read once and kept in
+     * memory. Remote documents are fetched server-side and kept in memory for
+     * {@code scalar.documentCacheTtl}, then revalidated upstream; they are served
+     * only when {@code scalar.documentCacheEnabled} is set. Responds with
+     * {@code 404 Not Found} for any other id.
+     * </p>
+     *
+     * <p>
+     * Unless {@code scalar.documentOptimizeEnabled} is disabled, the document is
+     * served as compact JSON, converted from YAML if necessary. When
+     * {@code scalar.documentCompactEnabled} is set, its duplicate inline schemas
+     * are replaced with references to shared component schemas.
+     * </p>
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the OpenAPI document
+     * @throws IOException if the document cannot be read, or fetched with no copy cached
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}")
+    public final ResponseEntity<byte[]> getDocument(@PathVariable("id") String id, HttpServletRequest request)
+            throws IOException {
+        return documentResponse(id, this::served, request);
+    }
+
+    /**
+     * Serves a configured OpenAPI document as it was loaded, before it was
+     * converted to compact JSON, for download.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the original OpenAPI document
+     * @throws IOException if the document cannot be read, or fetched with no copy cached
+     * @see #getDocument(String, HttpServletRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/" + ScalarConstants.ORIGINAL_PATH)
+    public final ResponseEntity<byte[]> getOriginalDocument(@PathVariable("id") String id,
+                                                            HttpServletRequest request) throws IOException {
+        return documentResponse(id, ScalarDocument::getOriginal, request);
+    }
+
+    /**
+     * Serves the skeleton of a configured OpenAPI document: the document without
+     * its operations and components, with an index of the operations and the
+     * fragments they are in. Responds with {@code 404 Not Found} unless
+     * {@code scalar.documentSplitEnabled} is set and the document can be split.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the skeleton
+     * @see #getDocument(String, HttpServletRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/" + ScalarConstants.SKELETON_PATH)
+    public final ResponseEntity<byte[]> getDocumentSkeleton(@PathVariable("id") String id,
+                                                            HttpServletRequest request) throws IOException {
+        if (!propertiesProvider.getObject().isDocumentSplitEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return documentResponse(id, document -> served(document).getFragments().getSkeleton(), request);
+    }
+
+    /**
+     * Serves a fragment of a configured OpenAPI document: the operations of one
+     * tag and the components they reference, as listed in the skeleton. Responds
+     * with {@code 404 Not Found} unless {@code scalar.documentSplitEnabled} is set
+     * and the document has the fragment.
+     *
+     * @param id       the document id
+     * @param fragment the fragment id
+     * @param request  the HTTP request
+     * @return a ResponseEntity containing the fragment
+     * @see #getDocumentSkeleton(String, HttpServletRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.FRAGMENTS_PATH + "/{fragment}")
+    public final ResponseEntity<byte[]> getDocumentFragment(@PathVariable("id") String id,
+                                                            @PathVariable("fragment") String fragment,
+                                                            HttpServletRequest request) throws IOException {
+        if (!propertiesProvider.getObject().isDocumentSplitEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return documentResponse(id, document -> served(document).getFragments().getFragment(fragment), request);
+    }
+
+    /**
+     * Serves the search index of a configured OpenAPI document: its operations,
+     * tags and schemas, and the positions of the entries each term occurs in. The
+     * index carries the entity tag of the document as its version. Responds with
+     * {@code 404 Not Found} unless {@code scalar.documentSearchIndexEnabled} is
+     * set and the document can be indexed.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the search index
+     * @see #getDocument(String, HttpServletRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.SEARCH_INDEX_PATH)
+    public final ResponseEntity<byte[]> getDocumentSearchIndex(@PathVariable("id") String id,
+                                                               HttpServletRequest request) throws IOException {
+        if (!propertiesProvider.getObject().isDocumentSearchIndexEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return documentResponse(id, document -> served(document).getSearchIndex().getDocument(), request);
+    }
+
+    /**
+     * Serves the report of the compaction of a configured OpenAPI document: the
+     * bytes saved, uncompressed and gzip-compressed, and the schemas hoisted into
+     * its components. Responds with {@code 404 Not Found} unless
+     * {@code scalar.documentCompactEnabled} is set.
+     *
+     * @param id      the document id
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the report
+     * @see #getDocument(String, HttpServletRequest)
+     */
+    @GetMapping("${scalar.path:/scalar}/" + ScalarConstants.DOCUMENTS_PATH + "/{id}/"
+            + ScalarConstants.COMPACTION_PATH)
+    public final ResponseEntity<byte[]> getDocumentCompaction(@PathVariable("id") String id,
+                                                              HttpServletRequest request) throws IOException {
+        if (!propertiesProvider.getObject().isDocumentCompactEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return documentResponse(id, document -> document.getCompaction().getReport(), request);
+    }
+
+    /**
+     * Forwards a test request of the API client to the URL in its
+     * {@code scalar_url} query parameter, if the host of the URL is allowed.
+     *
+     * <p>
+     * The request and response bodies are streamed rather than buffered, and
+     * the chunks of server-sent events are flushed as they arrive. Responds with
+     * {@code 400 Bad Request} for a missing or invalid URL, {@code 403 Forbidden}
+     * for a host that is not allowed, {@code 502 Bad Gateway} or
+     * {@code 504 Gateway Timeout} if the host cannot be reached in time, and
+     * {@code 404 Not Found} unless {@code scalar.proxyEnabled} is set. Requests
+     * beyond the limits of the {@link ScalarProxyLimiter} wait for their turn,
+     * or are rejected with {@code 429 Too Many Requests}. When
+     * {@code scalar.proxyCacheEnabled} is set, the responses to {@code GET} and
+     * {@code HEAD} requests are served from the {@link ScalarProxyCache} as long
+     * as upstream allows.
+     * </p>
+     *
+     * <p>
+     * Requests to the application itself are forwarded to their handler within
+     * the servlet container, through the filters mapped to forward dispatches,
+     * unless {@code scalar.proxyLocalDispatchEnabled} is disabled.
+     * </p>
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response
+     * @throws IOException      if the request or response body cannot be streamed
+     * @throws ServletException if a request to the application itself fails
+     * @see ScalarProxy
+     */
+    @RequestMapping("${scalar.path:/scalar}/" + ScalarConstants.PROXY_PATH)
+    public final void proxy(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        ScalarProxy proxy = proxyProvider.getIfAvailable();
+        if (proxy == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        ScalarProxyLimiter limiter = proxyLimiterProvider.getIfAvailable();
+        try (ScalarProxyLimiter.Permit permit = limiter != null ? limiter.acquire(request.getRemoteAddr()) : null) {
+            forward(proxy, request, response);
+        } catch (ScalarProxyException e) {
+            response.setStatus(e.getStatus());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(e.getMessage());
+        }
+    }
+
+    /**
+     * Serves the OAuth2 tokens of the client credentials and password flows to
+     * the API client, requested with the credentials configured on the server.
+     *
+     * <p>
+     * The API client posts its token request here, as the page points the
+     * {@code tokenUrl} of these flows at this endpoint, with the security scheme
+     * in the {@code scheme} query parameter. The client credentials it sends are
+     * ignored. Tokens are cached by the {@link ScalarTokenRelay} until shortly
+     * before they expire. Responds with {@code 404 Not Found} unless
+     * {@code scalar.tokenRelayEnabled} is set or for a scheme without such a
+     * flow, with {@code 400 Bad Request} for scopes not declared for the flow,
+     * with {@code 401 Unauthorized} if {@link #isTokenRelayAllowed} refuses the
+     * caller, with the status of the identity provider if it refuses the
+     * request, and with {@code 502 Bad Gateway} or {@code 504 Gateway Timeout}
+     * if it cannot be reached in time.
+     * </p>
+     *
+     * @param request the HTTP request
+     * @return a ResponseEntity containing the token response as JSON
+     * @throws IOException if the thread is interrupted while waiting for the token
+     */
+    @PostMapping("${scalar.path:/scalar}/" + ScalarConstants.TOKEN_PATH)
+    public final ResponseEntity<String> token(HttpServletRequest request) throws IOException {
+        ScalarTokenRelay tokenRelay = tokenRelayProvider.getIfAvailable();
+        if (tokenRelay == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!isTokenRelayAllowed(propertiesProvider.getObject(), request)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+
+        try {
+            ScalarTokenRelay.Token token = tokenRelay.token(request.getParameter(ScalarTokenRelay.SCHEME_PARAMETER),
+                    request.getParameter("grant_type"), ScalarTokenRelay.scopesOf(request.getParameter("scope")));
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(token.toJson());
+        } catch (ScalarProxyException e) {
+            return ResponseEntity.status(e.getStatus())
+                    .cacheControl(CacheControl.noStore())
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Forwards a request of the proxy endpoint and streams the response.
+     */
+    private void forward(ScalarProxy proxy, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        URI target = proxy.resolve(ScalarProxy.targetOf(request.getQueryString()));
+        if (propertiesProvider.getObject().isProxyLocalDispatchEnabled()
+                && ScalarWebMvcLocalDispatch.isApplicable(target, request)) {
+            ScalarWebMvcLocalDispatch.forward(target, headers(request), request, response);
+            return;
+        }
+        Map<String, List<String>> headers = headers(request);
+        ScalarProxyCache cache = proxyCacheProvider.getIfAvailable();
+        String key = cache != null
+                ? cache.key(request.getMethod(), target, ScalarProxy.forwardedHeaders(headers)) : null;
+        ScalarProxyCache.Entry cached = key != null ? cache.get(key) : null;
+        if (cached != null && cached.isFresh()) {
+            writeCached(cached, target, request, response);
+            return;
+        }
+        if (cached != null) {
+            headers.putAll(cached.getValidators());
+        }
+
+        HttpRequest forwarded = proxy.request(target, request.getMethod(), headers, body(request));
+        HttpResponse<InputStream> upstream = proxy.send(forwarded, HttpResponse.BodyHandlers.ofInputStream());
+        if (cached != null && upstream.statusCode() == HttpServletResponse.SC_NOT_MODIFIED) {
+            upstream.body().close();
+            writeCached(cache.revalidate(key, cached, upstream.headers().map()), target, request, response);
+            return;
+        }
+
+        response.setStatus(upstream.statusCode());
+        ScalarProxy.responseHeaders(upstream, request.getRequestURI())
+                .forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        boolean flush = ScalarProxy.isEventStream(upstream);
+        ScalarProxyCache.Capture capture = key != null
+                ? cache.capture(key, upstream.statusCode(), upstream.headers().map()) : null;
+        try (InputStream body = upstream.body()) {
+            OutputStream outputStream = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (flush) {
+                    outputStream.flush();
+                }
+                if (capture != null) {
+                    capture.write(buffer, 0, read);
+                }
+            }
+        }
+        if (capture != null) {
+            capture.complete();
+        }
+    }
+
+    /**
+     * Writes a response of the proxy endpoint from the cache.
+     */
+    private static void writeCached(ScalarProxyCache.Entry cached, URI target, HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        response.setStatus(cached.getStatus());
+        ScalarProxy.responseHeaders(target, cached.getHeaders(), request.getRequestURI())
+                .forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (!"HEAD".equals(request.getMethod())) {
+            cached.writeTo(response.getOutputStream());
+        }
     }
 
     /**
@@ -100,4 +607,252 @@ public class ScalarWebMvcController {
     protected ScalarProperties configureProperties(ScalarProperties properties, HttpServletRequest request) {
         return properties;
     }
+
+    /**
+     * Hook method that decides whether a request may obtain tokens from the
+     * token endpoint, which requests them with the client secrets held by the
+     * server. By default, only requests with a principal may, or all requests
+     * if {@code scalar.tokenRelayAuthenticationRequired} is turned off.
+     * Override this method to restrict the endpoint further, such as to a role.
+     *
+     * @param properties the configuration properties
+     * @param request    the HTTP request
+     * @return whether the request may obtain tokens
+     */
+    protected boolean isTokenRelayAllowed(ScalarProperties properties, HttpServletRequest request) {
+        return !properties.isTokenRelayAuthenticationRequired() || request.getUserPrincipal() != null;
+    }
+
+    /**
+     * Renders the page, or gets it from the {@link ScalarTenantCache} when
+     * {@code scalar.tenantCacheEnabled} is set. Pages with credentials are
+     * filled into the page of the shared render cache instead, since they
+     * belong to a single user.
+     *
+     * @param properties  the configured properties
+     * @param document    the OpenAPI document to embed, may be {@code null}
+     * @param credentials the credentials of the request, may be {@code null}
+     * @param request     the HTTP request
+     * @param observer    the observer to report the rendering steps to
+     * @return the page
+     * @throws IOException if the page cannot be rendered
+     */
+    private String render(ScalarProperties properties, ScalarDocument document, ScalarCredentials credentials,
+                          HttpServletRequest request, ScalarRenderObserver observer) throws IOException {
+        ScalarTenantCache tenantCache = credentials == null ? tenantCacheProvider.getIfAvailable() : null;
+        ScalarWebMvcTenantResolver tenantResolver = tenantCache != null
+                ? tenantResolverProvider.getIfAvailable()
+                : null;
+        String tenant = tenantResolver != null ? tenantResolver.resolve(request) : null;
+        String contextPath = request.getContextPath();
+        if (tenant == null) {
+            return assetService(assetServiceProvider).renderWithCredentials(properties, document, observer,
+                    credentials, contextPath);
+        }
+        return tenantCache.get(tenant, document != null ? document.getETag() : null,
+                () -> assetService(assetServiceProvider).renderWithCredentials(properties, document, observer,
+                        null, contextPath));
+    }
+
+    /**
+     * Resolves the credentials prefilled into the page, if
+     * {@code scalar.credentialsPrefillEnabled} is set.
+     *
+     * @param properties the configured properties
+     * @param request    the HTTP request
+     * @return the credentials, or {@code null} if there are none
+     */
+    private ScalarCredentials credentials(ScalarProperties properties, HttpServletRequest request) {
+        if (!properties.isCredentialsPrefillEnabled()) {
+            return null;
+        }
+        ScalarWebMvcCredentialsResolver resolver = credentialsResolverProvider.getIfAvailable();
+        ScalarCredentials credentials = resolver != null ? resolver.resolve(properties, request) : null;
+        return credentials != null && !credentials.isEmpty() ? credentials : null;
+    }
+
+    /**
+     * Gets the OpenAPI document to embed into the page, if embedding is enabled
+     * and a document is available in-process: the springdoc-openapi document, or
+     * the document at a {@code file:} or {@code classpath:} {@code scalar.url}.
+     *
+     * @param properties the configured properties
+     * @param request    the HTTP request
+     * @param observer   the observer to report the document access to
+     * @return the document, or {@code null} if nothing is embedded
+     * @throws IOException if the document cannot be produced
+     */
+    private ScalarDocument embeddedDocument(ScalarProperties properties, HttpServletRequest request,
+                                            ScalarRenderObserver observer) throws IOException {
+        if (!properties.isEmbedSpec()) {
+            return null;
+        }
+
+        ScalarWebMvcOpenApiDocument openApiDocument = openApiDocumentProvider.getIfAvailable();
+        if (openApiDocument != null) {
+            return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                boolean cached = openApiDocument.isLoaded();
+                ScalarDocument document = openApiDocument.get(request);
+                observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                return document;
+            });
+        }
+
+        ScalarLocalDocuments localDocuments = localDocumentsProvider.getIfAvailable();
+        String location = properties.getUrl();
+        if (localDocuments != null && ScalarLocalDocuments.isLocal(location)) {
+            return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                boolean cached = localDocuments.isLoaded(location);
+                ScalarDocument document = localDocuments.get(location);
+                observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                return document;
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Gets the headers of a request by name.
+     */
+    private static Map<String, List<String>> headers(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        return headers;
+    }
+
+    /**
+     * Streams the body of a request, if it has one.
+     */
+    private static HttpRequest.BodyPublisher body(HttpServletRequest request) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength == 0 || contentLength < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return request.getInputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return contentLength > 0 ? HttpRequest.BodyPublishers.fromPublisher(body, contentLength) : body;
+    }
+
+    /**
+     * Selects the form of a document that is served: the document itself, or
+     * its compaction when {@code scalar.documentCompactEnabled} is set.
+     */
+    private ScalarDocument served(ScalarDocument document) {
+        return propertiesProvider.getObject().isDocumentCompactEnabled()
+                ? document.getCompaction().getDocument() : document;
+    }
+
+    /**
+     * Builds the response for a configured OpenAPI document.
+     *
+     * @param id      the document id
+     * @param view    selects what to serve of the document: itself, its original,
+     *                its skeleton, one of its fragments, its search index or its
+     *                compaction report, or {@code null} for nothing
+     * @param request the HTTP request
+     * @return the response, {@code 404 Not Found} if the id does not denote a served
+     * document or the view selects nothing
+     * @throws IOException if the document cannot be read, or fetched with no copy cached
+     */
+    private ResponseEntity<byte[]> documentResponse(String id, UnaryOperator<ScalarDocument> view,
+                                                         HttpServletRequest request)
+            throws IOException {
+        ScalarProperties properties = configureProperties(propertiesProvider.getObject(), request);
+        ScalarRenderObserver observer = renderObserver();
+
+        ScalarSite site = siteProvider.getIfAvailable();
+        ScalarDocument exported = site != null ? site.getDocument(id) : null;
+        if (exported != null) {
+            return documentResponse(view.apply(exported), request);
+        }
+
+        ScalarDocumentAggregator aggregator = documentAggregatorProvider.getIfAvailable();
+        if (aggregator != null && ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID.equals(id)) {
+            return observer.observe(ScalarRenderStep.DOCUMENT,
+                    () -> documentResponse(view.apply(aggregator.get()), request));
+        }
+
+        ScalarLocalDocuments localDocuments = localDocumentsProvider.getIfAvailable();
+        String location = ScalarLocalDocuments.resolve(properties, id);
+        if (location != null && localDocuments != null) {
+            return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+                boolean cached = localDocuments.isLoaded(location);
+                ScalarDocument document = localDocuments.get(location);
+                observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+                return documentResponse(view.apply(document), request);
+            });
+        }
+
+        ScalarDocumentCache documentCache = documentCacheProvider.getIfAvailable();
+        String url = ScalarDocumentCache.resolve(properties, id);
+        if (documentCache == null || url == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return observer.observe(ScalarRenderStep.DOCUMENT, () -> {
+            boolean cached = documentCache.isCached(url);
+            ScalarDocument document = documentCache.get(url);
+            observer.onCacheAccess(ScalarRenderStep.DOCUMENT, cached);
+            return documentResponse(view.apply(document), request);
+        });
+    }
+
+    /**
+     * Builds the response for an OpenAPI document or the JavaScript bundle,
+     * honoring the conditional and content-coding headers of the request.
+     *
+     * @param document the document to serve, or {@code null} if there is none
+     * @param request  the HTTP request
+     * @return the response, {@code 404 Not Found} if there is no document
+     */
+    static ResponseEntity<byte[]> documentResponse(ScalarDocument document, HttpServletRequest request) {
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (document.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(document.getETag())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf(document.getMediaType()))
+                .eTag(document.getETag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = document.hasGzipContent()
+                && ScalarDocument.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.getGzipContent());
+        }
+        return response.body(document.getContent());
+    }
+
+    /**
+     * Gets the asset service of the application, or the shared one if there is
+     * none, so the controller and the actuator endpoint serve the same assets.
+     *
+     * @param assetServiceProvider the provider of the asset service
+     * @return the asset service
+     */
+    static ScalarAssetService assetService(ObjectProvider<ScalarAssetService> assetServiceProvider) {
+        ScalarAssetService assetService = assetServiceProvider.getIfAvailable();
+        return assetService != null ? assetService : ScalarAssetService.shared();
+    }
+
+    /**
+     * Creates the observer that reports the serving steps to the application's
+     * {@link ObservationRegistry}, or a no-op observer if there is none.
+     *
+     * @return the observer for the current request
+     */
+    private ScalarRenderObserver renderObserver() {
+        return ObservationScalarRenderObserver.create(observationRegistryProvider.getIfAvailable(), "controller");
+    }
 }
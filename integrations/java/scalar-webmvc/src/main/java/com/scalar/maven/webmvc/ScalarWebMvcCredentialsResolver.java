@@ -0,0 +1,41 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.authentication.ScalarCredentials;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the credentials prefilled into the page for a request, when
+ * {@code scalar.credentialsPrefillEnabled} is set.
+ *
+ * <p>
+ * Declare a bean of this type to fill in credentials from other sources, such
+ * as an API key of the signed-in user.
+ * </p>
+ */
+@FunctionalInterface
+public interface ScalarWebMvcCredentialsResolver {
+
+    /**
+     * Resolves the credentials for a request.
+     *
+     * @param properties the configured properties
+     * @param request    the HTTP request of the page
+     * @return the credentials, or {@code null} if there are none
+     */
+    ScalarCredentials resolve(ScalarProperties properties, HttpServletRequest request);
+
+    /**
+     * Gets the resolver filling the bearer token of the authenticated user into
+     * the {@code http} security schemes, see
+     * {@link ScalarCredentials#ofBearerToken}. With Spring Security, the
+     * principal of the request is the {@code Authentication} of its
+     * {@code SecurityContext}.
+     *
+     * @return the resolver
+     */
+    static ScalarWebMvcCredentialsResolver bearerToken() {
+        return (properties, request) -> ScalarCredentials.ofBearerToken(request.getUserPrincipal(),
+                properties.getAuthentication(), properties.getCredentialsPrefillSchemes());
+    }
+}
@@ -0,0 +1,141 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.ScalarRenderStep;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves the API References configured with {@code scalar.instances.<name>.*},
+ * each at a path of its own.
+ *
+ * <p>
+ * For each instance, the page is served at its path, and the JavaScript bundle
+ * and the local copies of its documents below it, at
+ * {@code <path>/documents/<id>}. The bundle is the same for all instances and
+ * is held once; each instance keeps its page in a render cache of its own, see
+ * {@link ScalarInstance}.
+ * </p>
+ *
+ * <p>
+ * The pages of the instances are rendered from their configured properties.
+ * They are not passed through {@code configureProperties} of the controller,
+ * and the API client proxy and the token relay are not served for them.
+ * </p>
+ */
+public class ScalarWebMvcInstances implements RouterFunction<ServerResponse> {
+
+    private final List<ScalarInstance> instances;
+    private final ScalarLocalDocuments localDocuments;
+    private final ScalarDocumentCache documentCache;
+    private final ObservationRegistry observationRegistry;
+    private final Map<String, HandlerFunction<ServerResponse>> handlers = new HashMap<>();
+    private final Map<String, ScalarInstance> documentPaths = new HashMap<>();
+
+    /**
+     * Creates the routes of the instances.
+     *
+     * @param instances           the instances
+     * @param localDocuments      the local documents of the application, may be
+     *                            {@code null}
+     * @param documentCache       the document cache of the application, may be
+     *                            {@code null}
+     * @param observationRegistry the registry to report the serving steps to,
+     *                            may be {@code null}
+     */
+    public ScalarWebMvcInstances(List<ScalarInstance> instances, ScalarLocalDocuments localDocuments,
+                                 ScalarDocumentCache documentCache, ObservationRegistry observationRegistry) {
+        this.instances = List.copyOf(instances);
+        this.localDocuments = localDocuments;
+        this.documentCache = documentCache;
+        this.observationRegistry = observationRegistry;
+        for (ScalarInstance instance : this.instances) {
+            handlers.put(instance.getPath(), request -> getDocs(instance));
+            handlers.put(instance.getBundlePath(), request -> getScalarJs());
+            documentPaths.put(instance.getDocumentsPath(), instance);
+        }
+    }
+
+    @Override
+    public Optional<HandlerFunction<ServerResponse>> route(ServerRequest request) {
+        if (!HttpMethod.GET.equals(request.method()) && !HttpMethod.HEAD.equals(request.method())) {
+            return Optional.empty();
+        }
+        String path = request.requestPath().pathWithinApplication().value();
+        HandlerFunction<ServerResponse> handler = handlers.get(path);
+        if (handler != null) {
+            return Optional.of(handler);
+        }
+        int slash = path.lastIndexOf('/');
+        ScalarInstance instance = documentPaths.get(path.substring(0, slash + 1));
+        String id = path.substring(slash + 1);
+        if (instance == null || id.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(documentRequest -> getDocument(instance, id, documentRequest));
+    }
+
+    /**
+     * Gets the served instances.
+     *
+     * @return the instances
+     */
+    public List<ScalarInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Drops the pages held in the render caches of the instances.
+     */
+    public void evict() {
+        instances.forEach(ScalarInstance::evict);
+    }
+
+    private ServerResponse getDocs(ScalarInstance instance) throws IOException {
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.PAGE, () -> {
+            String html = instance.render(observer);
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    .body(html);
+        });
+    }
+
+    private ServerResponse getDocument(ScalarInstance instance, String id, ServerRequest request)
+            throws IOException {
+        ScalarDocument document = instance.getDocument(id, localDocuments, documentCache, renderObserver());
+        ResponseEntity<byte[]> response = ScalarWebMvcController.documentResponse(document, request.servletRequest());
+        ServerResponse.BodyBuilder builder = ServerResponse.status(response.getStatusCode())
+                .headers(headers -> headers.addAll(response.getHeaders()));
+        return response.getBody() != null ? builder.body(response.getBody()) : builder.build();
+    }
+
+    private ServerResponse getScalarJs() throws IOException {
+        ScalarRenderObserver observer = renderObserver();
+        return observer.observe(ScalarRenderStep.BUNDLE, () -> ServerResponse.ok()
+                .contentType(MediaType.valueOf("application/javascript"))
+                .body(ScalarHtmlRenderer.getScalarJsContent(observer)));
+    }
+
+    private ScalarRenderObserver renderObserver() {
+        return ObservationScalarRenderObserver.create(observationRegistry, "instance");
+    }
+}
@@ -0,0 +1,427 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.proxy.ScalarProxy;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatches the requests of the proxy endpoint that are meant for the
+ * application itself within the servlet container, instead of sending them
+ * out through the network and accepting them again.
+ *
+ * <p>
+ * The request is forwarded with a {@link RequestDispatcher}, so the filters
+ * mapped to forward dispatches, such as the Spring Security filter chain, and
+ * the {@code DispatcherServlet} handle it as they would handle it coming in
+ * from the network. It sees the headers as the proxy would send them and none
+ * of the state of the page request: its attributes, its session and its
+ * authenticated user are hidden, so it is authenticated by its own headers and
+ * the cookies in {@code X-Scalar-Cookie} only. A session it creates lives in
+ * memory for the duration of the request and is never the session of the page
+ * request. The request body is the body of
+ * the page request and is read by the handler directly.
+ * </p>
+ */
+final class ScalarWebMvcLocalDispatch {
+
+    private static final String SERVLET_ATTRIBUTE_PREFIX = "jakarta.servlet.";
+
+    private ScalarWebMvcLocalDispatch() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Checks whether a proxied request can be dispatched within the application:
+     * when it points at the application the request came in at, below its
+     * context path, and not at the proxy endpoint itself.
+     *
+     * @param target  the URL the request is forwarded to
+     * @param request the request of the proxy endpoint
+     * @return whether to dispatch the request within the application
+     */
+    static boolean isApplicable(URI target, HttpServletRequest request) {
+        String path = target.getRawPath();
+        if (path == null || !path.startsWith(request.getContextPath()) || path.equals(request.getRequestURI())) {
+            return false;
+        }
+        return ScalarProxy.isSameApplication(target, URI.create(request.getRequestURL().toString()),
+                request.getLocalPort());
+    }
+
+    /**
+     * Forwards a proxied request to the handler of its URL.
+     *
+     * @param target   the URL the request is forwarded to
+     * @param headers  the headers of the request of the proxy endpoint
+     * @param request  the request of the proxy endpoint
+     * @param response the response of the proxy endpoint
+     * @throws ServletException if the handler fails
+     * @throws IOException      if the handler fails to read or write
+     */
+    static void forward(URI target, Map<String, List<String>> headers, HttpServletRequest request,
+                        HttpServletResponse response) throws ServletException, IOException {
+        Map<String, List<String>> forwardedHeaders = ScalarProxy.rewriteHeaders(headers);
+        forwardedHeaders.put(HttpHeaders.HOST, List.of(target.getRawAuthority()));
+        String path = target.getRawPath().substring(request.getContextPath().length());
+        if (target.getRawQuery() != null) {
+            path += "?" + target.getRawQuery();
+        }
+
+        response.setHeader(ScalarProxy.FORWARDED_HOST_HEADER, target.toString());
+        request.getRequestDispatcher(path)
+                .forward(new LocalRequest(request, forwardedHeaders), new LocalResponse(response));
+    }
+
+    /**
+     * The forwarded request, with the rewritten headers and without the state of
+     * the page request.
+     */
+    static final class LocalRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, List<String>> headers;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private LocalSession session;
+
+        LocalRequest(HttpServletRequest request, Map<String, List<String>> headers) {
+            super(request);
+            this.headers = headers;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return Collections.enumeration(headers.getOrDefault(name, List.of()));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = getHeader(name);
+            return value == null ? -1 : Integer.parseInt(value);
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            String value = getHeader(name);
+            if (value == null) {
+                return -1;
+            }
+            try {
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cannot parse the date header " + name + ": " + value, e);
+            }
+        }
+
+        @Override
+        public Cookie[] getCookies() {
+            List<Cookie> cookies = new ArrayList<>();
+            for (String header : headers.getOrDefault(HttpHeaders.COOKIE, List.of())) {
+                for (String pair : header.split(";")) {
+                    int equals = pair.indexOf('=');
+                    if (equals > 0) {
+                        try {
+                            cookies.add(new Cookie(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim()));
+                        } catch (IllegalArgumentException e) {
+                            // Skip cookies with invalid names, as the container does
+                        }
+                    }
+                }
+            }
+            return cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            Object value = attributes.get(name);
+            if (value == null && name.startsWith(SERVLET_ATTRIBUTE_PREFIX)) {
+                return super.getAttribute(name);
+            }
+            return value;
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            Set<String> names = new LinkedHashSet<>(attributes.keySet());
+            for (String name : Collections.list(super.getAttributeNames())) {
+                if (name.startsWith(SERVLET_ATTRIBUTE_PREFIX)) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.isValid()) {
+                session = null;
+            }
+            if (session == null && create) {
+                session = new LocalSession(getServletContext());
+            }
+            return session;
+        }
+
+        @Override
+        public String changeSessionId() {
+            LocalSession current = (LocalSession) getSession(false);
+            if (current == null) {
+                throw new IllegalStateException("The request has no session");
+            }
+            return current.changeId();
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return null;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return null;
+        }
+
+        @Override
+        public String getAuthType() {
+            return null;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return false;
+        }
+    }
+
+    /**
+     * The session of the forwarded request, which lives in memory for the
+     * duration of the request only, so the handler can neither see nor change
+     * the session of the page request.
+     */
+    static final class LocalSession implements HttpSession {
+
+        private final ServletContext servletContext;
+        private final long creationTime = System.currentTimeMillis();
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private String id = UUID.randomUUID().toString();
+        private int maxInactiveInterval;
+        private boolean valid = true;
+
+        LocalSession(ServletContext servletContext) {
+            this.servletContext = servletContext;
+        }
+
+        @Override
+        public long getCreationTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {
+            this.maxInactiveInterval = interval;
+        }
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return maxInactiveInterval;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            checkValid();
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            checkValid();
+            return Collections.enumeration(new LinkedHashSet<>(attributes.keySet()));
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            checkValid();
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            checkValid();
+            attributes.remove(name);
+        }
+
+        @Override
+        public void invalidate() {
+            checkValid();
+            valid = false;
+            attributes.clear();
+        }
+
+        @Override
+        public boolean isNew() {
+            checkValid();
+            return true;
+        }
+
+        boolean isValid() {
+            return valid;
+        }
+
+        String changeId() {
+            checkValid();
+            id = UUID.randomUUID().toString();
+            return id;
+        }
+
+        private void checkValid() {
+            if (!valid) {
+                throw new IllegalStateException("The session has been invalidated");
+            }
+        }
+    }
+
+    /**
+     * The response of the forwarded request, which mirrors the cookies it sets
+     * into {@link ScalarProxy#SET_COOKIE_HEADER} instead of setting them on the
+     * page origin.
+     */
+    static final class LocalResponse extends HttpServletResponseWrapper {
+
+        private final List<String> cookies = new ArrayList<>();
+
+        LocalResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            ResponseCookie.ResponseCookieBuilder builder = ResponseCookie.from(cookie.getName(), cookie.getValue())
+                    .path(cookie.getPath())
+                    .domain(cookie.getDomain())
+                    .secure(cookie.getSecure())
+                    .httpOnly(cookie.isHttpOnly());
+            if (cookie.getMaxAge() >= 0) {
+                builder.maxAge(cookie.getMaxAge());
+            }
+            mirror(builder.build().toString());
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(name)) {
+                mirror(value);
+                return;
+            }
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(name)) {
+                cookies.clear();
+                mirror(value);
+                return;
+            }
+            super.setHeader(name, value);
+        }
+
+        private void mirror(String cookie) {
+            cookies.add(cookie);
+            super.setHeader(ScalarProxy.SET_COOKIE_HEADER, String.join(", ", cookies));
+        }
+    }
+}
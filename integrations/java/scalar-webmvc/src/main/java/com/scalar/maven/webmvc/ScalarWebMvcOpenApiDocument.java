@@ -0,0 +1,94 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.document.ScalarDocument;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Holds the OpenAPI document of the application, loaded in-process on the
+ * first request and served from memory afterwards.
+ *
+ * <p>
+ * The document is obtained from a {@link Loader}, which by default asks
+ * springdoc-openapi for the generated document without going through HTTP.
+ * It is serialized, compressed and tagged once as a {@link ScalarDocument}, so
+ * neither the generator nor the serializer run again until {@link #evict()}
+ * is called.
+ * </p>
+ *
+ * <p>
+ * The document is loaded on the first request rather than at startup because
+ * the generator derives the server URL of the document from the request.
+ * </p>
+ */
+public class ScalarWebMvcOpenApiDocument {
+
+    /**
+     * Produces the serialized OpenAPI document.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Produces the serialized OpenAPI document.
+         *
+         * @param request      the request for the document
+         * @param documentPath the path the document is requested at, relative to the context path
+         * @return the document serialized as JSON
+         * @throws IOException if the document cannot be produced
+         */
+        byte[] load(HttpServletRequest request, String documentPath) throws IOException;
+    }
+
+    private final Loader loader;
+    private volatile ScalarDocument document;
+
+    /**
+     * Creates the holder.
+     *
+     * @param loader the loader producing the document
+     */
+    public ScalarWebMvcOpenApiDocument(Loader loader) {
+        this.loader = Objects.requireNonNull(loader, "loader must not be null");
+    }
+
+    /**
+     * Gets the document, loading it on first access.
+     *
+     * @param request the request for the document
+     * @return the document
+     * @throws IOException if the document cannot be produced
+     */
+    public ScalarDocument get(HttpServletRequest request) throws IOException {
+        ScalarDocument local = document;
+        if (local == null) {
+            synchronized (this) {
+                local = document;
+                if (local == null) {
+                    String documentPath = request.getRequestURI().substring(request.getContextPath().length());
+                    local = ScalarDocument.of(loader.load(request, documentPath), ScalarDocument.JSON_MEDIA_TYPE);
+                    document = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Gets whether the document is already held in memory.
+     *
+     * @return {@code true} if the document is loaded
+     */
+    public boolean isLoaded() {
+        return document != null;
+    }
+
+    /**
+     * Drops the in-memory document. It is loaded again on the next request.
+     */
+    public void evict() {
+        document = null;
+    }
+}
@@ -1,5 +1,10 @@
 package com.scalar.maven.webmvc;
 
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.internal.ScalarRenderCache;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,9 +14,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +35,12 @@ class ScalarWebMvcActuatorEndpointTest {
     @Mock
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Mock
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Mock
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     @Mock
     private HttpServletRequest request;
 
@@ -38,6 +51,8 @@ class ScalarWebMvcActuatorEndpointTest {
         lenient().when(propertiesProvider.getObject()).thenReturn(properties);
         endpoint = new ScalarWebMvcActuatorEndpoint();
         ReflectionTestUtils.setField(endpoint, "propertiesProvider", propertiesProvider);
+        ReflectionTestUtils.setField(endpoint, "observationRegistryProvider", observationRegistryProvider);
+        ReflectionTestUtils.setField(endpoint, "assetServiceProvider", assetServiceProvider);
     }
 
     @Nested
@@ -107,7 +122,7 @@ class ScalarWebMvcActuatorEndpointTest {
         @DisplayName("should return JavaScript file with correct content type")
         void shouldReturnJavaScriptFileWithCorrectContentType() throws Exception {
             // When
-            ResponseEntity<byte[]> response = endpoint.scalarJs();
+            ResponseEntity<byte[]> response = endpoint.scalarJs(new MockHttpServletRequest());
 
             // Then
             assertThat(response)
@@ -123,6 +138,26 @@ class ScalarWebMvcActuatorEndpointTest {
                     .isNotNull()
                     .isNotEmpty();
         }
+
+        @Test
+        @DisplayName("should serve the bundle of the shared asset service with its entity tag")
+        void shouldServeBundleOfSharedAssetService() throws Exception {
+            // Given
+            ScalarAssetService assetService = new ScalarAssetService(new ScalarRenderCache(4));
+            ScalarDocument bundle = assetService.getBundle(ScalarRenderObserver.NOOP);
+            when(assetServiceProvider.getIfAvailable()).thenReturn(assetService);
+            MockHttpServletRequest revalidation = new MockHttpServletRequest();
+            revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, bundle.getETag());
+
+            // When
+            ResponseEntity<byte[]> response = endpoint.scalarJs(new MockHttpServletRequest());
+            ResponseEntity<byte[]> revalidated = endpoint.scalarJs(revalidation);
+
+            // Then
+            assertThat(response.getBody()).isSameAs(bundle.getContent());
+            assertThat(response.getHeaders().getETag()).isEqualTo(bundle.getETag());
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+            assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        }
     }
 }
-
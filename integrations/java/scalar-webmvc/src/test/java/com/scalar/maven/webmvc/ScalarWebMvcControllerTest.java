@@ -1,21 +1,77 @@
 package com.scalar.maven.webmvc;
 
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarSite;
+import com.scalar.maven.core.ScalarTenantCache;
+import com.scalar.maven.core.authentication.ScalarAuthenticationOptions;
+import com.scalar.maven.core.authentication.ScalarTokenRelay;
+import com.scalar.maven.core.authentication.flows.ClientCredentialsFlow;
+import com.scalar.maven.core.authentication.flows.ScalarFlows;
+import com.scalar.maven.core.authentication.schemes.ScalarHttpSecurityScheme;
+import com.scalar.maven.core.authentication.schemes.ScalarOAuth2SecurityScheme;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentAggregator;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarDocumentOptimizer;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import com.scalar.maven.core.observation.ObservationScalarRenderObserver;
+import com.scalar.maven.core.proxy.ScalarProxy;
+import com.scalar.maven.core.proxy.ScalarProxyCache;
+import com.scalar.maven.core.proxy.ScalarProxyLimiter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockRequestDispatcher;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +84,48 @@ class ScalarWebMvcControllerTest {
     @Mock
     private ObjectProvider<SpringBootScalarProperties> propertiesProvider;
 
+    @Mock
+    private ObjectProvider<ObservationRegistry> observationRegistryProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebMvcOpenApiDocument> openApiDocumentProvider;
+
+    @Mock
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Mock
+    private ObjectProvider<ScalarDocumentAggregator> documentAggregatorProvider;
+
+    @Mock
+    private ObjectProvider<ScalarSite> siteProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxy> proxyProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxyLimiter> proxyLimiterProvider;
+
+    @Mock
+    private ObjectProvider<ScalarProxyCache> proxyCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarTokenRelay> tokenRelayProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebMvcCredentialsResolver> credentialsResolverProvider;
+
+    @Mock
+    private ObjectProvider<ScalarTenantCache> tenantCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebMvcTenantResolver> tenantResolverProvider;
+
+    @Mock
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
     @Mock
     private HttpServletRequest request;
 
@@ -38,6 +136,20 @@ class ScalarWebMvcControllerTest {
         lenient().when(propertiesProvider.getObject()).thenReturn(properties);
         controller = new ScalarWebMvcController();
         ReflectionTestUtils.setField(controller, "propertiesProvider", propertiesProvider);
+        ReflectionTestUtils.setField(controller, "observationRegistryProvider", observationRegistryProvider);
+        ReflectionTestUtils.setField(controller, "openApiDocumentProvider", openApiDocumentProvider);
+        ReflectionTestUtils.setField(controller, "documentCacheProvider", documentCacheProvider);
+        ReflectionTestUtils.setField(controller, "localDocumentsProvider", localDocumentsProvider);
+        ReflectionTestUtils.setField(controller, "documentAggregatorProvider", documentAggregatorProvider);
+        ReflectionTestUtils.setField(controller, "siteProvider", siteProvider);
+        ReflectionTestUtils.setField(controller, "proxyProvider", proxyProvider);
+        ReflectionTestUtils.setField(controller, "proxyLimiterProvider", proxyLimiterProvider);
+        ReflectionTestUtils.setField(controller, "proxyCacheProvider", proxyCacheProvider);
+        ReflectionTestUtils.setField(controller, "tokenRelayProvider", tokenRelayProvider);
+        ReflectionTestUtils.setField(controller, "credentialsResolverProvider", credentialsResolverProvider);
+        ReflectionTestUtils.setField(controller, "tenantCacheProvider", tenantCacheProvider);
+        ReflectionTestUtils.setField(controller, "tenantResolverProvider", tenantResolverProvider);
+        ReflectionTestUtils.setField(controller, "assetServiceProvider", assetServiceProvider);
     }
 
     @Nested
@@ -98,6 +210,58 @@ class ScalarWebMvcControllerTest {
                     .contains("Scalar.createApiReference('#app',");
         }
 
+        @Test
+        @DisplayName("should record the serving steps as observations")
+        void shouldRecordObservations() throws Exception {
+            // Given
+            TestObservationRegistry registry = TestObservationRegistry.create();
+            when(observationRegistryProvider.getIfAvailable()).thenReturn(registry);
+            when(properties.getPath()).thenReturn("/scalar");
+
+            // When
+            controller.getDocs(request);
+
+            // Then
+            TestObservationRegistryAssert.assertThat(registry)
+                    .hasObservationWithNameEqualTo("scalar.page")
+                    .that()
+                    .hasLowCardinalityKeyValue(ObservationScalarRenderObserver.ENDPOINT_KEY, "controller")
+                    .hasBeenStopped();
+            TestObservationRegistryAssert.assertThat(registry)
+                    .hasObservationWithNameEqualTo("scalar.template")
+                    .that()
+                    .hasParentObservationContextMatching(parent -> "scalar.page".equals(parent.getName()));
+            TestObservationRegistryAssert.assertThat(registry)
+                    .hasNumberOfObservationsWithNameEqualTo("scalar.response.write", 0);
+        }
+
+        @Test
+        @DisplayName("should point the proxy and token URLs below the context path")
+        void shouldPrefixContextPath() throws Exception {
+            // Given
+            ClientCredentialsFlow flow = new ClientCredentialsFlow();
+            flow.setTokenUrl("https://auth.example.com/token");
+            ScalarFlows flows = new ScalarFlows();
+            flows.setClientCredentials(flow);
+            ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+            scheme.setFlows(flows);
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setOauth2(Map.of("oauth", scheme));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(properties.isProxyEnabled()).thenReturn(true);
+            when(properties.isTokenRelayEnabled()).thenReturn(true);
+            when(properties.getAuthentication()).thenReturn(authentication);
+            when(request.getContextPath()).thenReturn("/app");
+
+            // When
+            ResponseEntity<String> response = controller.getDocs(request);
+
+            // Then
+            assertThat(response.getBody())
+                    .contains("\"proxyUrl\":\"/app/scalar/proxy\"")
+                    .contains("\"tokenUrl\":\"/app/scalar/token?scheme=oauth\"");
+        }
+
         @Test
         @DisplayName("should return HTML with custom pageTitle")
         void shouldReturnHtmlWithCustomPageTitle() throws Exception {
@@ -123,6 +287,82 @@ class ScalarWebMvcControllerTest {
                     .contains("<title>My Custom API Documentation</title>")
                     .contains("Scalar.createApiReference('#app',");
         }
+
+        @Test
+        @DisplayName("should prefill the bearer token of the user and not let the page be stored")
+        void shouldPrefillCredentials() throws Exception {
+            // Given
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setHttp(Map.of("bearer", new ScalarHttpSecurityScheme()));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(properties.getAuthentication()).thenReturn(authentication);
+            when(properties.isCredentialsPrefillEnabled()).thenReturn(true);
+            when(credentialsResolverProvider.getIfAvailable())
+                    .thenReturn(ScalarWebMvcCredentialsResolver.bearerToken());
+            MockHttpServletRequest pageRequest = new MockHttpServletRequest("GET", "/scalar");
+            pageRequest.setUserPrincipal(new BearerTokenPrincipal("eyJ.user"));
+
+            // When
+            ResponseEntity<String> response = controller.getDocs(pageRequest);
+            ResponseEntity<String> anonymous = controller.getDocs(new MockHttpServletRequest("GET", "/scalar"));
+
+            // Then
+            assertThat(response.getBody()).contains("\"token\":\"eyJ.user\"");
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-store");
+            assertThat(anonymous.getBody()).doesNotContain("eyJ.user");
+            assertThat(anonymous.getHeaders().getCacheControl()).isNull();
+        }
+
+        @Test
+        @DisplayName("should serve the page of a tenant from the tenant cache")
+        void shouldServeTenantPagesFromCache() throws Exception {
+            // Given
+            ScalarTenantCache tenantCache = new ScalarTenantCache(1024 * 1024, 16, Duration.ofMinutes(5));
+            when(properties.getPath()).thenReturn("/scalar");
+            when(tenantCacheProvider.getIfAvailable()).thenReturn(tenantCache);
+            when(tenantResolverProvider.getIfAvailable()).thenReturn(ScalarWebMvcTenantResolver.host());
+            MockHttpServletRequest acme = new MockHttpServletRequest("GET", "/scalar");
+            acme.addHeader(HttpHeaders.HOST, "Acme.example.com");
+            MockHttpServletRequest globex = new MockHttpServletRequest("GET", "/scalar");
+            globex.addHeader(HttpHeaders.HOST, "globex.example.com");
+
+            // When
+            String first = controller.getDocs(acme).getBody();
+            String second = controller.getDocs(acme).getBody();
+            controller.getDocs(globex);
+
+            // Then
+            assertThat(second).isEqualTo(first).contains("Scalar.createApiReference('#app',");
+            assertThat(tenantCache.getEntryCount()).isEqualTo(2);
+            assertThat(tenantCache.getHits()).isEqualTo(1);
+            assertThat(tenantCache.getMisses()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * A principal shaped like the {@code Authentication} of an OAuth2 resource
+     * server.
+     */
+    public static final class BearerTokenPrincipal implements Principal {
+
+        private final String token;
+
+        BearerTokenPrincipal(String token) {
+            this.token = token;
+        }
+
+        @Override
+        public String getName() {
+            return "user";
+        }
+
+        public boolean isAuthenticated() {
+            return true;
+        }
+
+        public String getToken() {
+            return token;
+        }
     }
 
     @Nested
@@ -133,7 +373,7 @@ class ScalarWebMvcControllerTest {
         @DisplayName("should return JavaScript file with correct content type")
         void shouldReturnJavaScriptFileWithCorrectContentType() throws Exception {
             // When
-            ResponseEntity<byte[]> response = controller.getScalarJs();
+            ResponseEntity<byte[]> response = controller.getScalarJs(new MockHttpServletRequest());
 
             // Then
             assertThat(response)
@@ -150,5 +390,761 @@ class ScalarWebMvcControllerTest {
                     .isNotEmpty();
         }
     }
-}
 
+    @Nested
+    @DisplayName("GET /scalar/openapi.json endpoint")
+    class GetOpenApiDocumentEndpoint {
+
+        private static final String SPEC = "{\"openapi\":\"3.1.0\",\"paths\":{" + "\"/pets\":{},".repeat(50) + "\"/owners\":{}}}";
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private final List<String> documentPaths = new ArrayList<>();
+
+        private MockHttpServletRequest documentRequest;
+
+        @BeforeEach
+        void setUp() {
+            documentRequest = new MockHttpServletRequest("GET", "/app/scalar/openapi.json");
+            documentRequest.setContextPath("/app");
+            lenient().when(openApiDocumentProvider.getIfAvailable()).thenReturn(new ScalarWebMvcOpenApiDocument(
+                    (request, documentPath) -> {
+                        loads.incrementAndGet();
+                        documentPaths.add(documentPath);
+                        return SPEC.getBytes(StandardCharsets.UTF_8);
+                    }));
+        }
+
+        @Test
+        @DisplayName("should return the document with an entity tag")
+        void shouldReturnDocumentWithETag() throws Exception {
+            // When
+            ResponseEntity<byte[]> response = controller.getOpenApiDocument(documentRequest);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            assertThat(response.getHeaders().getETag()).matches("\"[0-9a-f]{32}\"");
+            assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            assertThat(documentPaths).containsExactly("/scalar/openapi.json");
+        }
+
+        @Test
+        @DisplayName("should load the document only once")
+        void shouldLoadDocumentOnlyOnce() throws Exception {
+            // When
+            controller.getOpenApiDocument(documentRequest);
+            controller.getOpenApiDocument(documentRequest);
+
+            // Then
+            assertThat(loads).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should return the precompressed document when gzip is accepted")
+        void shouldReturnPrecompressedDocument() throws Exception {
+            // Given
+            documentRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+            // When
+            ResponseEntity<byte[]> response = controller.getOpenApiDocument(documentRequest);
+
+            // Then
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(gunzip(response.getBody())).isEqualTo(SPEC);
+        }
+
+        @Test
+        @DisplayName("should return not modified when the entity tag matches")
+        void shouldReturnNotModifiedWhenETagMatches() throws Exception {
+            // Given
+            String eTag = controller.getOpenApiDocument(documentRequest).getHeaders().getETag();
+            documentRequest.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getOpenApiDocument(documentRequest);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getHeaders().getETag()).isEqualTo(eTag);
+            assertThat(response.getBody()).isNull();
+        }
+
+        @Test
+        @DisplayName("should embed the document into the page when embedSpec is enabled")
+        void shouldEmbedDocumentIntoPage() throws Exception {
+            // Given
+            when(properties.isEmbedSpec()).thenReturn(true);
+            when(properties.getEmbedSpecMaxBytes()).thenReturn(512 * 1024);
+            when(properties.getUrl()).thenReturn("scalar/openapi.json");
+            MockHttpServletRequest pageRequest = new MockHttpServletRequest("GET", "/app/scalar");
+            pageRequest.setContextPath("/app");
+
+            // When
+            ResponseEntity<String> response = controller.getDocs(pageRequest);
+
+            // Then
+            assertThat(response.getBody())
+                    .contains("\"content\":" + SPEC)
+                    .doesNotContain("\"url\":\"scalar/openapi.json\"");
+            assertThat(documentPaths).containsExactly("/scalar");
+        }
+
+        @Test
+        @DisplayName("should return not found when springdoc is not enabled")
+        void shouldReturnNotFoundWhenNotEnabled() throws Exception {
+            // Given
+            when(openApiDocumentProvider.getIfAvailable()).thenReturn(null);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getOpenApiDocument(documentRequest);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        private String gunzip(byte[] content) throws IOException {
+            try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /scalar/documents/{id} endpoint")
+    class GetDocumentEndpoint {
+
+        private static final String SPEC = "{\"openapi\":\"3.1.0\"}";
+
+        private final ScalarDocumentCache documentCache = mock(ScalarDocumentCache.class);
+
+        @BeforeEach
+        void setUp() {
+            lenient().when(openApiDocumentProvider.getIfAvailable()).thenReturn(null);
+            lenient().when(documentCacheProvider.getIfAvailable()).thenReturn(documentCache);
+            lenient().when(properties.getUrl()).thenReturn("https://example.com/openapi.json");
+        }
+
+        @Test
+        @DisplayName("should return the cached copy of the configured url")
+        void shouldReturnCachedCopy() throws Exception {
+            // Given
+            ScalarDocument document = ScalarDocument.of(SPEC.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(documentCache.get("https://example.com/openapi.json")).thenReturn(document);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getETag()).isEqualTo(document.getETag());
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+        }
+
+        @Test
+        @DisplayName("should return not found for documents that are not configured")
+        void shouldReturnNotFoundForUnknownDocuments() throws Exception {
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument("7",
+                    new MockHttpServletRequest("GET", "/scalar/documents/7"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should return not found when the document cache is not enabled")
+        void shouldReturnNotFoundWhenNotEnabled() throws Exception {
+            // Given
+            when(documentCacheProvider.getIfAvailable()).thenReturn(null);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("should serve the document at a file location without the document cache")
+        void shouldServeFileDocument(@TempDir Path directory) throws Exception {
+            // Given
+            Path file = Files.writeString(directory.resolve("openapi.json"), SPEC);
+            when(properties.getUrl()).thenReturn(file.toUri().toString());
+            when(localDocumentsProvider.getIfAvailable())
+                    .thenReturn(new ScalarLocalDocuments(getClass().getClassLoader(), false));
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            assertThat(response.getHeaders().getETag()).isNotNull();
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should return the original of an optimized document")
+        void shouldReturnOriginalDocument() throws Exception {
+            // Given
+            String original = "{\n  \"openapi\": \"3.1.0\"\n}\n";
+            ScalarDocument document = ScalarDocumentOptimizer.optimize(ScalarDocument.of(
+                    original.getBytes(StandardCharsets.UTF_8), ScalarDocument.JSON_MEDIA_TYPE));
+            when(documentCache.get("https://example.com/openapi.json")).thenReturn(document);
+
+            // When
+            ResponseEntity<byte[]> optimizedResponse = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+            ResponseEntity<byte[]> originalResponse = controller.getOriginalDocument(
+                    ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default/original"));
+
+            // Then
+            assertThat(new String(optimizedResponse.getBody(), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+            assertThat(new String(originalResponse.getBody(), StandardCharsets.UTF_8)).isEqualTo(original);
+            assertThat(originalResponse.getHeaders().getETag()).isNotEqualTo(optimizedResponse.getHeaders().getETag());
+        }
+
+        @Test
+        @DisplayName("should serve the skeleton and fragments when splitting is enabled")
+        void shouldServeSkeletonAndFragments() throws Exception {
+            // Given
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/pets\":{\"get\":{\"tags\":[\"pets\"]}}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentSplitEnabled()).thenReturn(true);
+            when(documentCache.get("https://example.com/openapi.json")).thenReturn(document);
+
+            // When
+            ResponseEntity<byte[]> skeleton = controller.getDocumentSkeleton(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default/skeleton"));
+            ResponseEntity<byte[]> fragment = controller.getDocumentFragment(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    "pets", new MockHttpServletRequest("GET", "/scalar/documents/default/fragments/pets"));
+            ResponseEntity<byte[]> missing = controller.getDocumentFragment(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    "users", new MockHttpServletRequest("GET", "/scalar/documents/default/fragments/users"));
+
+            // Then
+            assertThat(new String(skeleton.getBody(), StandardCharsets.UTF_8))
+                    .contains("\"x-scalar-fragments\":[{\"id\":\"pets\",\"tag\":\"pets\",\"operations\":1}]");
+            assertThat(skeleton.getHeaders().getETag()).isEqualTo(document.getFragments().getSkeleton().getETag());
+            assertThat(new String(fragment.getBody(), StandardCharsets.UTF_8)).isEqualTo(spec);
+            assertThat(fragment.getHeaders().getETag()).isNotEqualTo(skeleton.getHeaders().getETag());
+            assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("should return not found for skeletons when splitting is not enabled")
+        void shouldReturnNotFoundForSkeletonWhenNotEnabled() throws Exception {
+            // When
+            ResponseEntity<byte[]> response = controller.getDocumentSkeleton(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default/skeleton"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            verifyNoInteractions(documentCache);
+        }
+
+        @Test
+        @DisplayName("should serve the search index versioned by the document when enabled")
+        void shouldServeSearchIndex() throws Exception {
+            // Given
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/pets\":{\"get\":{\"operationId\":\"listPets\"}}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentSearchIndexEnabled()).thenReturn(true);
+            when(documentCache.get("https://example.com/openapi.json")).thenReturn(document);
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/scalar/documents/default/search-index");
+            request.addHeader("Accept-Encoding", "gzip");
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocumentSearchIndex(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    request);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+            assertThat(response.getBody()).isEqualTo(document.getSearchIndex().getDocument().getGzipContent());
+            assertThat(response.getHeaders().getETag()).isEqualTo(document.getSearchIndex().getDocument().getETag());
+        }
+
+        @Test
+        @DisplayName("should serve the compacted document and its report when compaction is enabled")
+        void shouldServeCompactedDocument() throws Exception {
+            // Given
+            String schema = "{\"type\":\"object\",\"properties\":{\"code\":{\"type\":\"integer\"},"
+                    + "\"message\":{\"type\":\"string\",\"description\":\"A message describing the error\"}}}";
+            String responses = "{\"responses\":{\"default\":{\"content\":{\"application/json\":{\"schema\":"
+                    + schema + "}}}}}";
+            String spec = "{\"openapi\":\"3.1.0\",\"paths\":{\"/a\":{\"get\":" + responses + "},\"/b\":{\"get\":"
+                    + responses + "}}}";
+            ScalarDocument document = ScalarDocument.of(spec.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(properties.isDocumentCompactEnabled()).thenReturn(true);
+            when(documentCache.get("https://example.com/openapi.json")).thenReturn(document);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+            ResponseEntity<byte[]> report = controller.getDocumentCompaction(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default/compaction"));
+
+            // Then
+            assertThat(response.getHeaders().getETag()).isEqualTo(document.getCompaction().getDocument().getETag());
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+                    .contains("\"schema\":{\"$ref\":\"#/components/schemas/Response\"}");
+            assertThat(new String(report.getBody(), StandardCharsets.UTF_8))
+                    .contains("\"compacted\":true", "\"hoistedSchemas\":[{\"name\":\"Response\",\"occurrences\":2}]");
+        }
+
+        @Test
+        @DisplayName("should serve the aggregated document when aggregating")
+        void shouldServeAggregatedDocument() throws Exception {
+            // Given
+            ScalarDocumentAggregator aggregator = mock(ScalarDocumentAggregator.class);
+            ScalarDocument document = ScalarDocument.of(SPEC.getBytes(StandardCharsets.UTF_8),
+                    ScalarDocument.JSON_MEDIA_TYPE);
+            when(documentAggregatorProvider.getIfAvailable()).thenReturn(aggregator);
+            when(aggregator.get()).thenReturn(document);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentAggregator.AGGREGATE_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/aggregate"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getETag()).isEqualTo(document.getETag());
+            verifyNoInteractions(documentCache);
+        }
+    }
+
+    @Nested
+    @DisplayName("exported site")
+    class ExportedSite {
+
+        @TempDir
+        Path directory;
+
+        private ScalarSite site;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            Path spec = Files.writeString(directory.resolve("openapi.json"), "{\"openapi\":\"3.1.0\"}");
+            ScalarProperties exported = new ScalarProperties();
+            exported.setUrl(spec.toUri().toString());
+            exported.setPageTitle("Exported");
+            site = ScalarSite.export(exported, getClass().getClassLoader());
+            when(siteProvider.getIfAvailable()).thenReturn(site);
+        }
+
+        @Test
+        @DisplayName("should serve the exported page without rendering it")
+        void shouldServeExportedPage() throws Exception {
+            // When
+            ResponseEntity<String> response = controller.getDocs(request);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(site.getPage()).contains("scalar/" + site.getBundleFileName());
+            verifyNoInteractions(propertiesProvider);
+        }
+
+        @Test
+        @DisplayName("should serve the hashed bundle for good")
+        void shouldServeHashedBundle() {
+            // Given
+            MockHttpServletRequest bundleRequest = new MockHttpServletRequest("GET",
+                    "/scalar/" + site.getBundleFileName());
+
+            // When
+            ResponseEntity<byte[]> response = controller.getHashedScalarJs(site.getBundleFileName(), bundleRequest);
+            ResponseEntity<byte[]> stale = controller.getHashedScalarJs("scalar.0123456789abcdef.js", bundleRequest);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=31536000, public, immutable");
+            assertThat(response.getHeaders().getETag()).isEqualTo(site.getBundle().getETag());
+            assertThat(response.getBody()).isEqualTo(site.getBundle().getContent());
+            assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("should serve the exported documents")
+        void shouldServeExportedDocuments() throws Exception {
+            // Given
+            when(properties.isDocumentCompactEnabled()).thenReturn(false);
+
+            // When
+            ResponseEntity<byte[]> response = controller.getDocument(ScalarDocumentCache.DEFAULT_DOCUMENT_ID,
+                    new MockHttpServletRequest("GET", "/scalar/documents/default"));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getETag()).isEqualTo(site.getDocument("default").getETag());
+            verifyNoInteractions(localDocumentsProvider, documentCacheProvider);
+        }
+    }
+
+    @Nested
+    @DisplayName("/scalar/proxy endpoint")
+    class ProxyEndpoint {
+
+        private HttpServer server;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", exchange -> {
+                byte[] body;
+                try (InputStream inputStream = exchange.getRequestBody()) {
+                    body = (exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                            + new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+                            .getBytes(StandardCharsets.UTF_8);
+                }
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                exchange.getResponseHeaders().set("Set-Cookie", "session=abc");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+                exchange.close();
+            });
+            server.start();
+        }
+
+        @AfterEach
+        void tearDown() {
+            server.stop(0);
+        }
+
+        private MockHttpServletRequest proxyRequest(String method, String url) {
+            MockHttpServletRequest proxyRequest = new MockHttpServletRequest(method, "/scalar/proxy");
+            proxyRequest.setQueryString("scalar_url=" + URLEncoder.encode(url, StandardCharsets.UTF_8));
+            return proxyRequest;
+        }
+
+        @Test
+        @DisplayName("should forward the request and stream the response")
+        void shouldForwardRequest() throws Exception {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            MockHttpServletRequest proxyRequest = proxyRequest("POST",
+                    "http://localhost:" + server.getAddress().getPort() + "/pets?limit=1");
+            proxyRequest.setContent("{\"name\":\"Rex\"}".getBytes(StandardCharsets.UTF_8));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo("POST /pets?limit=1 {\"name\":\"Rex\"}");
+            assertThat(response.getHeader(ScalarProxy.SET_COOKIE_HEADER)).isEqualTo("session=abc");
+            assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+        }
+
+        @Test
+        @DisplayName("should dispatch requests to the application itself within the servlet container")
+        void shouldDispatchLocally() throws Exception {
+            // Given
+            when(properties.isProxyLocalDispatchEnabled()).thenReturn(true);
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            List<String> paths = new ArrayList<>();
+            List<ServletRequest> forwarded = new ArrayList<>();
+            MockHttpServletRequest proxyRequest = new MockHttpServletRequest("POST", "/scalar/proxy") {
+                @Override
+                public RequestDispatcher getRequestDispatcher(String path) {
+                    paths.add(path);
+                    return new MockRequestDispatcher(path) {
+                        @Override
+                        public void forward(ServletRequest request, ServletResponse response) {
+                            forwarded.add(request);
+                            ((HttpServletResponse) response).addCookie(new Cookie("session", "new"));
+                        }
+                    };
+                }
+            };
+            proxyRequest.setQueryString("scalar_url=" + URLEncoder.encode("http://localhost/pets?limit=1",
+                    StandardCharsets.UTF_8));
+            proxyRequest.addHeader("Authorization", "Bearer token");
+            proxyRequest.addHeader("Cookie", "JSESSIONID=page");
+            proxyRequest.addHeader("X-Scalar-Cookie", "session=api");
+            proxyRequest.setAttribute("page", "attribute");
+            proxyRequest.setSession(new MockHttpSession());
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest, response);
+
+            // Then
+            assertThat(paths).containsExactly("/pets?limit=1");
+            HttpServletRequest request = (HttpServletRequest) forwarded.get(0);
+            assertThat(request.getHeader("authorization")).isEqualTo("Bearer token");
+            assertThat(request.getHeader("Cookie")).isEqualTo("session=api");
+            assertThat(request.getCookies()).extracting(Cookie::getName).containsExactly("session");
+            assertThat(request.getAttribute("page")).isNull();
+            assertThat(request.getSession(false)).isNull();
+            assertThat(response.getHeader(ScalarProxy.FORWARDED_HOST_HEADER))
+                    .isEqualTo("http://localhost/pets?limit=1");
+            assertThat(response.getHeader(ScalarProxy.SET_COOKIE_HEADER)).isEqualTo("session=new");
+            assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+            assertThat(response.getCookies()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should give locally dispatched requests a session of their own")
+        void shouldIsolateSessionOfLocalDispatch() throws Exception {
+            // Given
+            when(properties.isProxyLocalDispatchEnabled()).thenReturn(true);
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            List<HttpSession> sessions = new ArrayList<>();
+            MockHttpSession pageSession = new MockHttpSession();
+            pageSession.setAttribute("user", "page");
+            MockHttpServletRequest proxyRequest = new MockHttpServletRequest("GET", "/scalar/proxy") {
+                @Override
+                public RequestDispatcher getRequestDispatcher(String path) {
+                    return new MockRequestDispatcher(path) {
+                        @Override
+                        public void forward(ServletRequest request, ServletResponse response) {
+                            HttpServletRequest local = (HttpServletRequest) request;
+                            HttpSession session = local.getSession(true);
+                            session.setAttribute("user", "api");
+                            local.changeSessionId();
+                            sessions.add(session);
+                            sessions.add(local.getSession());
+                        }
+                    };
+                }
+            };
+            proxyRequest.setQueryString("scalar_url=" + URLEncoder.encode("http://localhost/pets",
+                    StandardCharsets.UTF_8));
+            proxyRequest.setSession(pageSession);
+            String pageSessionId = pageSession.getId();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest, response);
+
+            // Then
+            assertThat(sessions).hasSize(2).doesNotContain(pageSession);
+            assertThat(sessions.get(1)).isSameAs(sessions.get(0));
+            assertThat(sessions.get(0).getAttribute("user")).isEqualTo("api");
+            assertThat(pageSession.getAttribute("user")).isEqualTo("page");
+            assertThat(pageSession.getId()).isEqualTo(pageSessionId);
+            assertThat(proxyRequest.getSession(false)).isSameAs(pageSession);
+        }
+
+        @Test
+        @DisplayName("should refuse hosts that are not allowed")
+        void shouldRefuseHostsNotAllowed() throws Exception {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("api.example.com"),
+                    Duration.ofSeconds(5)));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest("GET", "http://localhost:" + server.getAddress().getPort() + "/"),
+                    response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(403);
+            assertThat(response.getContentAsString()).contains("scalar.proxyAllowedHosts");
+        }
+
+        @Test
+        @DisplayName("should reject requests beyond the limits with 429")
+        void shouldRejectRequestsBeyondLimits() throws Exception {
+            // Given
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            ScalarProxyLimiter limiter = new ScalarProxyLimiter(1, 1, 0, Duration.ofSeconds(5));
+            limiter.acquire("127.0.0.1");
+            when(proxyLimiterProvider.getIfAvailable()).thenReturn(limiter);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest("GET", "http://localhost:" + server.getAddress().getPort() + "/pets"),
+                    response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(429);
+            assertThat(response.getContentAsString()).contains("try again later");
+            assertThat(limiter.getRejectedRequests()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should serve responses upstream allows to cache from the cache")
+        void shouldServeCachedResponses() throws Exception {
+            // Given
+            AtomicInteger requests = new AtomicInteger();
+            server.createContext("/cached", exchange -> {
+                byte[] body = ("response " + requests.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            });
+            when(proxyProvider.getIfAvailable()).thenReturn(new ScalarProxy(List.of("localhost"),
+                    Duration.ofSeconds(5)));
+            when(proxyCacheProvider.getIfAvailable()).thenReturn(new ScalarProxyCache(1024, 1024, null));
+            String url = "http://localhost:" + server.getAddress().getPort() + "/cached";
+            controller.proxy(proxyRequest("GET", url), new MockHttpServletResponse());
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest("GET", url), response);
+
+            // Then
+            assertThat(requests).hasValue(1);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo("response 1");
+            assertThat(response.getHeader(ScalarProxyCache.AGE_HEADER)).isEqualTo("0");
+        }
+
+        @Test
+        @DisplayName("should return 404 when the proxy is disabled")
+        void shouldReturn404WhenDisabled() throws Exception {
+            // Given
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.proxy(proxyRequest("GET", "https://api.example.com/"), response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(404);
+        }
+    }
+
+    @Nested
+    @DisplayName("/scalar/token endpoint")
+    class TokenEndpoint {
+
+        private HttpServer server;
+
+        private ScalarTokenRelay tokenRelay;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/token", exchange -> {
+                byte[] body = "{\"access_token\":\"abc\",\"token_type\":\"Bearer\",\"expires_in\":3600}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            });
+            server.start();
+            ClientCredentialsFlow flow = new ClientCredentialsFlow();
+            flow.setClientId("docs");
+            flow.setClientSecret("s3cr3t");
+            flow.setTokenUrl("http://localhost:" + server.getAddress().getPort() + "/token");
+            flow.setSelectedScopes(List.of("read"));
+            ScalarFlows flows = new ScalarFlows();
+            flows.setClientCredentials(flow);
+            ScalarOAuth2SecurityScheme scheme = new ScalarOAuth2SecurityScheme();
+            scheme.setFlows(flows);
+            ScalarAuthenticationOptions authentication = new ScalarAuthenticationOptions();
+            authentication.setOauth2(Map.of("oauth", scheme));
+            tokenRelay = new ScalarTokenRelay(authentication, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        }
+
+        @AfterEach
+        void tearDown() {
+            server.stop(0);
+        }
+
+        @Test
+        @DisplayName("should serve the token requested with the configured credentials")
+        void shouldServeToken() throws Exception {
+            // Given
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockHttpServletRequest tokenRequest = new MockHttpServletRequest("POST", "/scalar/token");
+            tokenRequest.setParameter("scheme", "oauth");
+            tokenRequest.setParameter("grant_type", "client_credentials");
+            tokenRequest.setParameter("scope", "read");
+
+            // When
+            ResponseEntity<String> response = controller.token(tokenRequest);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-store");
+            assertThat(response.getBody()).contains("\"access_token\":\"abc\"");
+            assertThat(tokenRelay.getTokenCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should return 404 for unknown schemes and when the relay is disabled")
+        void shouldReturn404() throws Exception {
+            // Given
+            MockHttpServletRequest tokenRequest = new MockHttpServletRequest("POST", "/scalar/token");
+            tokenRequest.setParameter("scheme", "missing");
+
+            // When
+            ResponseEntity<String> disabled = controller.token(tokenRequest);
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            ResponseEntity<String> unknown = controller.token(tokenRequest);
+
+            // Then
+            assertThat(disabled.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat(unknown.getBody()).contains("missing");
+        }
+
+        @Test
+        @DisplayName("should reject undeclared scopes and, if required, unauthenticated callers")
+        void shouldRejectUndeclaredScopesAndAnonymousCallers() throws Exception {
+            // Given
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockHttpServletRequest tokenRequest = new MockHttpServletRequest("POST", "/scalar/token");
+            tokenRequest.setParameter("scheme", "oauth");
+            tokenRequest.setParameter("scope", "read admin");
+
+            // When
+            ResponseEntity<String> undeclared = controller.token(tokenRequest);
+            when(properties.isTokenRelayAuthenticationRequired()).thenReturn(true);
+            ResponseEntity<String> anonymous = controller.token(tokenRequest);
+
+            // Then
+            assertThat(undeclared.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(undeclared.getBody()).contains("[admin]");
+            assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+            assertThat(tokenRelay.getTokenCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should only serve authenticated callers by default")
+        void shouldRequireAuthenticationByDefault() throws Exception {
+            // Given
+            when(propertiesProvider.getObject()).thenReturn(new SpringBootScalarProperties());
+            when(tokenRelayProvider.getIfAvailable()).thenReturn(tokenRelay);
+            MockHttpServletRequest tokenRequest = new MockHttpServletRequest("POST", "/scalar/token");
+            tokenRequest.setParameter("scheme", "oauth");
+            tokenRequest.setParameter("grant_type", "client_credentials");
+
+            // When
+            ResponseEntity<String> anonymous = controller.token(tokenRequest);
+            tokenRequest.setUserPrincipal(() -> "developer");
+            ResponseEntity<String> authenticated = controller.token(tokenRequest);
+
+            // Then
+            assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+            assertThat(anonymous.getHeaders().getCacheControl()).isEqualTo("no-store");
+            assertThat(authenticated.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(tokenRelay.getTokenCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.ScalarAssetService;
+import com.scalar.maven.core.ScalarHtmlRenderer;
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.ScalarRenderObserver;
+import com.scalar.maven.core.diagnostics.ScalarDiagnostics;
+import com.scalar.maven.core.document.ScalarDocument;
+import com.scalar.maven.core.document.ScalarDocumentCache;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScalarWebMvcInfoEndpoint")
+class ScalarWebMvcInfoEndpointTest {
+
+    @Mock
+    private ObjectProvider<ScalarWebMvcOpenApiDocument> openApiDocumentProvider;
+
+    @Mock
+    private ObjectProvider<ScalarDocumentCache> documentCacheProvider;
+
+    @Mock
+    private ObjectProvider<ScalarLocalDocuments> localDocumentsProvider;
+
+    @Mock
+    private ObjectProvider<ScalarAssetService> assetServiceProvider;
+
+    @Mock
+    private ObjectProvider<ScalarWebMvcInstances> instancesProvider;
+
+    private ScalarWebMvcInfoEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new ScalarWebMvcInfoEndpoint();
+        ReflectionTestUtils.setField(endpoint, "openApiDocumentProvider", openApiDocumentProvider);
+        ReflectionTestUtils.setField(endpoint, "documentCacheProvider", documentCacheProvider);
+        ReflectionTestUtils.setField(endpoint, "localDocumentsProvider", localDocumentsProvider);
+        ReflectionTestUtils.setField(endpoint, "assetServiceProvider", assetServiceProvider);
+        ReflectionTestUtils.setField(endpoint, "instancesProvider", instancesProvider);
+    }
+
+    @Test
+    @DisplayName("should report the loaded bundle")
+    void shouldReportLoadedBundle() throws Exception {
+        // Given
+        byte[] bundle = ScalarHtmlRenderer.getScalarJsContent();
+
+        // When
+        ScalarDiagnostics diagnostics = endpoint.info();
+
+        // Then
+        assertThat(diagnostics.getBundle().isLoaded()).isTrue();
+        assertThat(diagnostics.getBundle().getSize()).isEqualTo(bundle.length);
+        assertThat(diagnostics.getSerializerEngine()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should evict the caches")
+    void shouldEvictCaches() throws Exception {
+        // Given
+        ScalarHtmlRenderer.getScalarJsContent();
+
+        // When
+        ScalarDiagnostics diagnostics = endpoint.evictCaches();
+
+        // Then
+        assertThat(diagnostics.getBundle().isLoaded()).isFalse();
+        assertThat(diagnostics.getRenderCache().getSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("should report and evict the bundle of the application's asset service")
+    void shouldReportAssetServiceBundle() throws Exception {
+        // Given
+        ScalarAssetService assetService = new ScalarAssetService();
+        ScalarDocument bundle = assetService.getBundle(ScalarRenderObserver.NOOP);
+        when(assetServiceProvider.getIfAvailable()).thenReturn(assetService);
+
+        // When
+        ScalarDiagnostics diagnostics = endpoint.info();
+        endpoint.evictCaches();
+
+        // Then
+        assertThat(diagnostics.getBundle().getEncodings())
+                .containsExactlyElementsOf(bundle.hasGzipContent() ? List.of("identity", "gzip") : List.of("identity"));
+        assertThat(assetService.getLoadedBundle()).isNull();
+    }
+
+    @Test
+    @DisplayName("should evict the in-process OpenAPI document")
+    void shouldEvictOpenApiDocument() {
+        // Given
+        ScalarWebMvcOpenApiDocument openApiDocument = mock(ScalarWebMvcOpenApiDocument.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ScalarWebMvcOpenApiDocument>>getArgument(0).accept(openApiDocument);
+            return null;
+        }).when(openApiDocumentProvider).ifAvailable(any());
+
+        // When
+        endpoint.evictCaches();
+
+        // Then
+        verify(openApiDocument).evict();
+    }
+
+    @Test
+    @DisplayName("should clear the document cache")
+    void shouldClearDocumentCache() {
+        // Given
+        ScalarDocumentCache documentCache = mock(ScalarDocumentCache.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ScalarDocumentCache>>getArgument(0).accept(documentCache);
+            return null;
+        }).when(documentCacheProvider).ifAvailable(any());
+
+        // When
+        endpoint.evictCaches();
+
+        // Then
+        verify(documentCache).clear();
+    }
+
+    @Test
+    @DisplayName("should evict the pages of the instances")
+    void shouldEvictInstancePages() throws Exception {
+        // Given
+        ScalarProperties properties = new ScalarProperties();
+        properties.setUrl("/public.json");
+        ScalarInstance instance = new ScalarInstance("public", properties);
+        instance.render(ScalarRenderObserver.NOOP);
+        ScalarWebMvcInstances instances = new ScalarWebMvcInstances(List.of(instance), null, null, null);
+        doAnswer(invocation -> {
+            invocation.<Consumer<ScalarWebMvcInstances>>getArgument(0).accept(instances);
+            return null;
+        }).when(instancesProvider).ifAvailable(any());
+
+        // When
+        endpoint.evictCaches();
+
+        // Then
+        assertThat(instance.getCachedPageCount()).isZero();
+    }
+}
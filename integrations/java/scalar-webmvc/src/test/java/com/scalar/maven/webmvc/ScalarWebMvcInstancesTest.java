@@ -0,0 +1,167 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.ScalarInstance;
+import com.scalar.maven.core.ScalarProperties;
+import com.scalar.maven.core.document.ScalarLocalDocuments;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.function.EntityResponse;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ScalarWebMvcInstances")
+class ScalarWebMvcInstancesTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.1.0\",\"info\":{\"title\":\"Public\"}}";
+
+    @TempDir
+    Path directory;
+
+    private ScalarLocalDocuments localDocuments;
+    private ScalarWebMvcInstances routes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.writeString(directory.resolve("public.json"), SPEC);
+        ScalarProperties publicInstance = new ScalarProperties();
+        publicInstance.setUrl(file.toUri().toString());
+        ScalarProperties partnerInstance = new ScalarProperties();
+        partnerInstance.setPath("/docs/partner");
+        partnerInstance.setUrl("/partner.json");
+        Map<String, ScalarProperties> configured = new LinkedHashMap<>();
+        configured.put("public", publicInstance);
+        configured.put("partner", partnerInstance);
+        ScalarProperties properties = new ScalarProperties();
+        properties.setInstances(configured);
+
+        localDocuments = new ScalarLocalDocuments(getClass().getClassLoader(), false);
+        routes = new ScalarWebMvcInstances(ScalarInstance.of(properties), localDocuments, null, null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        localDocuments.close();
+    }
+
+    private Optional<HandlerFunction<ServerResponse>> route(MockHttpServletRequest servletRequest) {
+        return routes.route(ServerRequest.create(servletRequest, List.of(new StringHttpMessageConverter())));
+    }
+
+    private ServerResponse handle(MockHttpServletRequest servletRequest) throws Exception {
+        ServerRequest request = ServerRequest.create(servletRequest, List.of(new StringHttpMessageConverter()));
+        return routes.route(request).orElseThrow().handle(request);
+    }
+
+    private static Object entity(ServerResponse response) {
+        return ((EntityResponse<?>) response).entity();
+    }
+
+    @Test
+    @DisplayName("should serve the page of each instance at its path")
+    void shouldServePages() throws Exception {
+        // When
+        ServerResponse publicPage = handle(new MockHttpServletRequest("GET", "/scalar/public"));
+        ServerResponse partnerPage = handle(new MockHttpServletRequest("GET", "/docs/partner"));
+
+        // Then
+        assertThat(publicPage.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(publicPage.headers().getContentType()).isEqualTo(MediaType.TEXT_HTML);
+        assertThat((String) entity(publicPage)).contains("public/documents/default");
+        assertThat((String) entity(partnerPage)).contains("/partner.json");
+    }
+
+    @Test
+    @DisplayName("should serve the JavaScript bundle below each instance")
+    void shouldServeBundle() throws Exception {
+        // When
+        ServerResponse response = handle(new MockHttpServletRequest("GET", "/docs/partner/scalar.js"));
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.headers().getContentType()).isEqualTo(MediaType.valueOf("application/javascript"));
+    }
+
+    @Test
+    @DisplayName("should serve the local documents of each instance below its path")
+    void shouldServeDocuments() throws Exception {
+        // When
+        ServerResponse response = handle(new MockHttpServletRequest("GET", "/scalar/public/documents/default"));
+        MockHttpServletRequest revalidation = new MockHttpServletRequest("GET", "/scalar/public/documents/default");
+        revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, response.headers().getETag());
+        ServerResponse notModified = handle(revalidation);
+        ServerResponse remote = handle(new MockHttpServletRequest("GET", "/docs/partner/documents/default"));
+        ServerResponse unknown = handle(new MockHttpServletRequest("GET", "/scalar/public/documents/0"));
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.headers().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(new String((byte[]) entity(response), StandardCharsets.UTF_8)).isEqualTo(SPEC);
+        assertThat(notModified.statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(remote.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(unknown.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("should not route other methods and paths")
+    void shouldNotRouteOtherRequests() {
+        // When / Then
+        assertThat(route(new MockHttpServletRequest("POST", "/scalar/public"))).isEmpty();
+        assertThat(route(new MockHttpServletRequest("GET", "/scalar/other"))).isEmpty();
+        assertThat(route(new MockHttpServletRequest("GET", "/scalar/public/documents/"))).isEmpty();
+        assertThat(route(new MockHttpServletRequest("GET", "/scalar/public/documents/default/original")))
+                .isEmpty();
+    }
+
+    @Nested
+    @DisplayName("OnInstancesCondition")
+    class OnInstancesConditionTest {
+
+        private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ScalarWebMvcAutoConfiguration.class));
+
+        @Test
+        @DisplayName("should serve the instances when any is configured")
+        void shouldServeConfiguredInstances() {
+            contextRunner
+                    .withPropertyValues("scalar.instances.public.url=/public.json",
+                            "scalar.instances.partner.path=/docs/partner")
+                    .run(context -> {
+                        assertThat(context).hasSingleBean(ScalarWebMvcInstances.class);
+                        assertThat(context.getBean(ScalarWebMvcInstances.class).getInstances())
+                                .extracting(ScalarInstance::getPath)
+                                .containsExactlyInAnyOrder("/scalar/public", "/docs/partner");
+                        assertThat(context.getBean(SpringBootScalarProperties.class).getInstances()
+                                .get("public").getPath()).isEqualTo("/scalar");
+                    });
+        }
+
+        @Test
+        @DisplayName("should not serve instances when none is configured")
+        void shouldNotServeWithoutInstances() {
+            contextRunner.run(context -> assertThat(context).doesNotHaveBean(ScalarWebMvcInstances.class));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.scalar.maven.webmvc;
+
+import com.scalar.maven.core.document.ScalarDocumentPrefetch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScalarWebMvcPrefetchHealthIndicator")
+class ScalarWebMvcPrefetchHealthIndicatorTest {
+
+    @Mock
+    private ScalarDocumentPrefetch documentPrefetch;
+
+    @Test
+    @DisplayName("should be out of service while the prefetch is running")
+    void shouldBeOutOfServiceWhileRunning() {
+        // Given
+        when(documentPrefetch.isDone()).thenReturn(false);
+        when(documentPrefetch.getUrls()).thenReturn(List.of("https://example.com/a.json", "https://example.com/b.json"));
+        when(documentPrefetch.getLoaded()).thenReturn(List.of("https://example.com/a.json"));
+
+        // When
+        Health health = new ScalarWebMvcPrefetchHealthIndicator(documentPrefetch).health();
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails())
+                .containsEntry("documents", 2)
+                .containsEntry("loaded", 1)
+                .doesNotContainKeys("timedOut", "failures");
+    }
+
+    @Test
+    @DisplayName("should be up once the prefetch is done, listing the timed out and failed documents")
+    void shouldBeUpWhenDone() {
+        // Given
+        when(documentPrefetch.isDone()).thenReturn(true);
+        when(documentPrefetch.getUrls())
+                .thenReturn(List.of("https://example.com/a.json", "https://example.com/b.json"));
+        when(documentPrefetch.getTimedOut()).thenReturn(List.of("https://example.com/a.json"));
+        when(documentPrefetch.getFailures()).thenReturn(Map.of("https://example.com/b.json", "HTTP 404"));
+
+        // When
+        Health health = new ScalarWebMvcPrefetchHealthIndicator(documentPrefetch).health();
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails())
+                .containsEntry("timedOut", List.of("https://example.com/a.json"))
+                .containsEntry("failures", Map.of("https://example.com/b.json", "HTTP 404"));
+    }
+}